@@ -0,0 +1,438 @@
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.List;
+
+import components.naturalnumber.NaturalNumber;
+import components.naturalnumber.NaturalNumber2;
+import components.simplewriter.SimpleWriter;
+import components.simplewriter.SimpleWriter1L;
+
+/**
+ * Throughput and allocation benchmark for the {@code CryptoUtilities} entry
+ * points, across operand sizes and {@code NaturalNumber} implementations.
+ *
+ * <p>
+ * Each (operation, implementation, size) cell is warmed up, then run
+ * repeatedly for a fixed time; the report gives operations per second and
+ * bytes allocated per operation on the benchmark thread (work done on other
+ * threads, such as parallel Miller-Rabin rounds, is timed but its allocation
+ * is not counted). Every operation starts from fresh copies of its inputs, so
+ * one copy is included in each measurement.
+ * </p>
+ *
+ * <p>
+ * Usage, from the project directory with the components and the compiled
+ * sources on the class path:
+ * </p>
+ *
+ * <pre>
+ * java CryptoUtilitiesBenchmark [--ops powerMod,isPrime2,...]
+ *     [--sizes 64,256,...] [--impls NaturalNumber2,NaturalNumber3]
+ *     [--warmup seconds] [--measure seconds]
+ * </pre>
+ *
+ * @author Jesse Shields
+ *
+ */
+public final class CryptoUtilitiesBenchmark {
+
+    /**
+     * Private constructor so this utility class cannot be instantiated.
+     */
+    private CryptoUtilitiesBenchmark() {
+    }
+
+    /**
+     * Operand sizes, in bits, run by default.
+     */
+    private static final String DEFAULT_SIZES = "64,256,1024,2048,4096";
+
+    /**
+     * Seed of the inputs, so that runs are comparable.
+     */
+    private static final long SEED = 2221;
+
+    /**
+     * Nanoseconds per second.
+     */
+    private static final double NANOS_PER_SECOND = 1e9;
+
+    /**
+     * {@code NaturalNumber} implementations under test.
+     */
+    private enum Implementation {
+
+        /**
+         * The decimal-digit implementation from the components library.
+         */
+        NATURAL_NUMBER_2("NaturalNumber2") {
+            @Override
+            NaturalNumber create(String value) {
+                return new NaturalNumber2(value);
+            }
+        },
+
+        /**
+         * The binary-limb implementation.
+         */
+        NATURAL_NUMBER_3("NaturalNumber3") {
+            @Override
+            NaturalNumber create(String value) {
+                return new NaturalNumber3(value);
+            }
+        };
+
+        /**
+         * Class name, as given to --impls.
+         */
+        private final String label;
+
+        /**
+         * Constructor.
+         *
+         * @param label
+         *            class name
+         */
+        Implementation(String label) {
+            this.label = label;
+        }
+
+        /**
+         * Returns a new number of this implementation.
+         *
+         * @param value
+         *            decimal value
+         * @return the new number
+         */
+        abstract NaturalNumber create(String value);
+
+    }
+
+    /**
+     * Inputs of one (implementation, size) cell, all {@code bits} bits long.
+     */
+    private static final class Inputs {
+
+        /**
+         * Random base.
+         */
+        private final NaturalNumber base;
+
+        /**
+         * Random exponent.
+         */
+        private final NaturalNumber exponent;
+
+        /**
+         * Random odd number, used as modulus and as primality candidate.
+         */
+        private final NaturalNumber odd;
+
+        /**
+         * Second random number, for the GCD.
+         */
+        private final NaturalNumber other;
+
+        /**
+         * Constructor.
+         *
+         * @param implementation
+         *            implementation of the inputs
+         * @param bits
+         *            bit length of every input
+         * @param source
+         *            source of the random values
+         */
+        Inputs(Implementation implementation, int bits, RandomSource source) {
+            this.base = implementation.create(randomBits(bits, source, false));
+            this.exponent = implementation.create(randomBits(bits, source, false));
+            this.odd = implementation.create(randomBits(bits, source, true));
+            this.other = implementation.create(randomBits(bits, source, false));
+        }
+
+        /**
+         * Returns a fresh copy of {@code n}.
+         *
+         * @param n
+         *            the number to copy
+         * @return a copy of n, of the same implementation
+         */
+        static NaturalNumber copy(NaturalNumber n) {
+            NaturalNumber result = n.newInstance();
+            result.copyFrom(n);
+            return result;
+        }
+
+    }
+
+    /**
+     * Returns the decimal form of a random number of exactly {@code bits}
+     * bits.
+     *
+     * @param bits
+     *            bit length
+     * @param source
+     *            source of random words
+     * @param odd
+     *            whether to make the number odd
+     * @return decimal digits of the random number
+     */
+    private static String randomBits(int bits, RandomSource source, boolean odd) {
+        int[] one = Limbs.fromLong(1);
+        int[] top = Limbs.shiftLeft(one, bits - 1);
+        int[] value = Limbs.add(top,
+                Limbs.random(Limbs.subtract(top, one), source));
+        if (odd && !Limbs.isOdd(value)) {
+            value = Limbs.add(value, one);
+        }
+        return Limbs.toDecimalString(value);
+    }
+
+    /**
+     * One benchmarked operation.
+     */
+    private enum Operation {
+
+        /**
+         * {@code powerMod(base, exponent, odd)}.
+         */
+        POWER_MOD("powerMod") {
+            @Override
+            void run(Inputs in) {
+                CryptoUtilities.powerMod(Inputs.copy(in.base), in.exponent, in.odd);
+            }
+        },
+
+        /**
+         * {@code isPrime1(odd)}.
+         */
+        IS_PRIME_1("isPrime1") {
+            @Override
+            void run(Inputs in) {
+                CryptoUtilities.isPrime1(Inputs.copy(in.odd));
+            }
+        },
+
+        /**
+         * {@code isPrime2(odd)}.
+         */
+        IS_PRIME_2("isPrime2") {
+            @Override
+            void run(Inputs in) {
+                CryptoUtilities.isPrime2(Inputs.copy(in.odd));
+            }
+        },
+
+        /**
+         * {@code generateNextLikelyPrime(odd)}.
+         */
+        GENERATE_NEXT_LIKELY_PRIME("generateNextLikelyPrime") {
+            @Override
+            void run(Inputs in) {
+                CryptoUtilities.generateNextLikelyPrime(Inputs.copy(in.odd));
+            }
+        },
+
+        /**
+         * {@code reduceToGCD(base, other)}.
+         */
+        REDUCE_TO_GCD("reduceToGCD") {
+            @Override
+            void run(Inputs in) {
+                CryptoUtilities.reduceToGCD(Inputs.copy(in.base), Inputs.copy(in.other));
+            }
+        },
+
+        /**
+         * {@code randomNumber(odd)}.
+         */
+        RANDOM_NUMBER("randomNumber") {
+            @Override
+            void run(Inputs in) {
+                CryptoUtilities.randomNumber(in.odd);
+            }
+        };
+
+        /**
+         * Method name, as given to --ops.
+         */
+        private final String label;
+
+        /**
+         * Constructor.
+         *
+         * @param label
+         *            method name
+         */
+        Operation(String label) {
+            this.label = label;
+        }
+
+        /**
+         * Runs the operation once on fresh copies of {@code in}.
+         *
+         * @param in
+         *            the inputs
+         */
+        abstract void run(Inputs in);
+
+    }
+
+    /**
+     * Result of measuring one cell.
+     */
+    private static final class Result {
+
+        /**
+         * Operations completed.
+         */
+        private final long operations;
+
+        /**
+         * Elapsed time, in nanoseconds.
+         */
+        private final long nanos;
+
+        /**
+         * Bytes allocated by the benchmark thread, or -1 if not supported.
+         */
+        private final long bytes;
+
+        /**
+         * Constructor.
+         *
+         * @param operations
+         *            operations completed
+         * @param nanos
+         *            elapsed time
+         * @param bytes
+         *            bytes allocated, or -1
+         */
+        Result(long operations, long nanos, long bytes) {
+            this.operations = operations;
+            this.nanos = nanos;
+            this.bytes = bytes;
+        }
+
+    }
+
+    /**
+     * Returns the bytes allocated so far by the current thread, or -1 if the
+     * JVM cannot tell.
+     *
+     * @return allocated bytes, or -1
+     */
+    private static long allocatedBytes() {
+        long result = -1;
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean sunBean =
+                    (com.sun.management.ThreadMXBean) bean;
+            if (sunBean.isThreadAllocatedMemorySupported()
+                    && sunBean.isThreadAllocatedMemoryEnabled()) {
+                result = sunBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Runs {@code operation} on {@code in} for at least {@code seconds}
+     * seconds, and at least once.
+     *
+     * @param operation
+     *            the operation
+     * @param in
+     *            its inputs
+     * @param seconds
+     *            time to run for
+     * @return what was measured
+     */
+    private static Result measure(Operation operation, Inputs in, double seconds) {
+        long budget = (long) (seconds * NANOS_PER_SECOND);
+        long bytesBefore = allocatedBytes();
+        long start = System.nanoTime();
+        long elapsed = 0;
+        long operations = 0;
+        while (operations == 0 || elapsed < budget) {
+            operation.run(in);
+            operations++;
+            elapsed = System.nanoTime() - start;
+        }
+        long bytesAfter = allocatedBytes();
+        long bytes = -1;
+        if (bytesBefore >= 0 && bytesAfter >= 0) {
+            bytes = bytesAfter - bytesBefore;
+        }
+        return new Result(operations, elapsed, bytes);
+    }
+
+    /**
+     * Returns the value following {@code flag} in {@code args}, or
+     * {@code fallback} if the flag is absent.
+     *
+     * @param args
+     *            command-line arguments
+     * @param flag
+     *            the flag, e.g. "--sizes"
+     * @param fallback
+     *            value if the flag is absent
+     * @return the flag's value
+     */
+    private static String option(String[] args, String flag, String fallback) {
+        String result = fallback;
+        for (int i = 0; i + 1 < args.length; i++) {
+            if (args[i].equals(flag)) {
+                result = args[i + 1];
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Main method.
+     *
+     * @param args
+     *            the command line arguments
+     */
+    public static void main(String[] args) {
+        List<String> ops = Arrays.asList(option(args, "--ops",
+                "powerMod,isPrime1,isPrime2,generateNextLikelyPrime,reduceToGCD,"
+                        + "randomNumber").split(","));
+        List<String> impls = Arrays.asList(option(args, "--impls",
+                "NaturalNumber2,NaturalNumber3").split(","));
+        String[] sizes = option(args, "--sizes", DEFAULT_SIZES).split(",");
+        double warmup = Double.parseDouble(option(args, "--warmup", "1"));
+        double seconds = Double.parseDouble(option(args, "--measure", "2"));
+
+        SimpleWriter out = new SimpleWriter1L();
+        out.println("operation,implementation,bits,ops_per_second,bytes_per_op");
+        for (Operation operation : Operation.values()) {
+            if (ops.contains(operation.label)) {
+                for (Implementation implementation : Implementation.values()) {
+                    if (impls.contains(implementation.label)) {
+                        for (String size : sizes) {
+                            int bits = Integer.parseInt(size.trim());
+                            Inputs in = new Inputs(implementation, bits,
+                                    new SplittableRandomSource(SEED + bits));
+                            measure(operation, in, warmup);
+                            Result r = measure(operation, in, seconds);
+                            double opsPerSecond = r.operations * NANOS_PER_SECOND
+                                    / r.nanos;
+                            String bytesPerOp = "n/a";
+                            if (r.bytes >= 0) {
+                                bytesPerOp = Long.toString(r.bytes / r.operations);
+                            }
+                            out.println(operation.label + ","
+                                    + implementation.label + "," + bits + ","
+                                    + String.format("%.2f", opsPerSecond) + ","
+                                    + bytesPerOp);
+                        }
+                    }
+                }
+            }
+        }
+        out.close();
+    }
+
+}
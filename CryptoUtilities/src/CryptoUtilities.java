@@ -1,7 +1,5 @@
 import components.naturalnumber.NaturalNumber;
 import components.naturalnumber.NaturalNumber2;
-import components.random.Random;
-import components.random.Random1L;
 import components.simplereader.SimpleReader;
 import components.simplereader.SimpleReader1L;
 import components.simplewriter.SimpleWriter;
@@ -27,9 +25,53 @@ public final class CryptoUtilities {
     private static final int THREE = 3;
 
     /**
-     * Pseudo-random number generator.
+     * Source of the random words behind {@code randomNumber}.
      */
-    private static final Random GENERATOR = new Random1L();
+    private static volatile RandomSource randomSource = new SecureRandomSource();
+
+    /**
+     * Primality tester used by {@code isPrime2}.
+     */
+    private static final MillerRabin MILLER_RABIN = new MillerRabin();
+
+    /**
+     * Returns a new number with value {@code value} and the same dynamic type
+     * as {@code n}, so that temporaries match the caller's representation.
+     *
+     * @param n
+     *            number whose dynamic type is copied
+     * @param value
+     *            value of the new number
+     * @return new number of the same type as n
+     * @requires value >= 0
+     * @ensures newLike = value
+     */
+    private static NaturalNumber newLike(NaturalNumber n, int value) {
+        NaturalNumber result = n.newInstance();
+        result.setFromInt(value);
+        return result;
+    }
+
+    /**
+     * Returns the source {@code randomNumber(NaturalNumber)} draws from.
+     *
+     * @return the current random source
+     */
+    public static RandomSource randomSource() {
+        return randomSource;
+    }
+
+    /**
+     * Replaces the source {@code randomNumber(NaturalNumber)} draws from; the
+     * default is a {@code SecureRandomSource}.
+     *
+     * @param source
+     *            the new random source
+     */
+    public static void setRandomSource(RandomSource source) {
+        assert source != null : "Violation of: source is not null";
+        randomSource = source;
+    }
 
     /**
      * Returns a random number uniformly distributed in the interval [0, n].
@@ -43,40 +85,33 @@ public final class CryptoUtilities {
      * </pre>
      */
     public static NaturalNumber randomNumber(NaturalNumber n) {
+        return randomNumber(n, randomSource);
+    }
+
+    /**
+     * Returns a random number uniformly distributed in the interval [0, n],
+     * drawn from {@code source}.
+     *
+     * @param n
+     *            top end of interval
+     * @param source
+     *            source of random words
+     * @return random number in interval
+     * @requires n > 0
+     * @ensures <pre>
+     * randomNumber = [a random number uniformly distributed in [0, n]]
+     * </pre>
+     */
+    public static NaturalNumber randomNumber(NaturalNumber n, RandomSource source) {
         assert !n.isZero() : "Violation of: n > 0";
-        final int base = 10;
-        NaturalNumber result;
-        int d = n.divideBy10();
-        if (n.isZero()) {
-            /*
-             * Incoming n has only one digit and it is d, so generate a random
-             * number uniformly distributed in [0, d]
-             */
-            int x = (int) ((d + 1) * GENERATOR.nextDouble());
-            result = new NaturalNumber2(x);
-            n.multiplyBy10(d);
-        } else {
-            /*
-             * Incoming n has more than one digit, so generate a random number
-             * (NaturalNumber) uniformly distributed in [0, n], and another
-             * (int) uniformly distributed in [0, 9] (i.e., a random digit)
-             */
-            result = randomNumber(n);
-            int lastDigit = (int) (base * GENERATOR.nextDouble());
-            result.multiplyBy10(lastDigit);
-            n.multiplyBy10(d);
-            if (result.compareTo(n) > 0) {
-                /*
-                 * In this case, we need to try again because generated number
-                 * is greater than n; the recursive call's argument is not
-                 * "smaller" than the incoming value of n, but this recursive
-                 * call has no more than a 90% chance of being made (and for
-                 * large n, far less than that), so the probability of
-                 * termination is 1
-                 */
-                result = randomNumber(n);
-            }
-        }
+        assert source != null : "Violation of: source is not null";
+
+        /*
+         * Draw whole 32-bit limbs rather than decimal digits; only the top
+         * limb is ever retried, so this takes O(|n| in limbs) expected time
+         */
+        NaturalNumber result = n.newInstance();
+        Limbs.toNaturalNumber(Limbs.random(Limbs.fromNaturalNumber(n), source), result);
         return result;
     }
 
@@ -94,21 +129,49 @@ public final class CryptoUtilities {
     public static void reduceToGCD(NaturalNumber n, NaturalNumber m) {
 
         /*
-         * Use Euclid's algorithm; in pseudocode: if m = 0 then GCD(n, m) = n
-         * else GCD(n, m) = GCD(m, n mod m)
+         * Iterative, on binary limbs: binary GCD for operands of up to 64
+         * bits, Lehmer's algorithm for longer ones (see Gcd)
          */
-        NaturalNumber remainder = new NaturalNumber2();
-
-        if (!m.isZero()) {
-            //Gets the reaminder of n and m
-            remainder = n.divide(m);
-            //Applies Euclid's algorithm, recursively loops and continues dividing
-            //until m = 0
-            reduceToGCD(m, remainder);
-            //Transfers the GCD from m to n, clearing m
-            n.transferFrom(m);
-        }
+        int[] gcd = Gcd.gcd(Limbs.fromNaturalNumber(n), Limbs.fromNaturalNumber(m));
+        Limbs.toNaturalNumber(gcd, n);
+        m.clear();
+    }
 
+    /**
+     * Reports whether n has an inverse modulo m.
+     *
+     * @param n
+     *            the number
+     * @param m
+     *            the modulus
+     * @return true iff gcd(n, m) = 1
+     * @requires m > 1
+     * @ensures hasInverseMod = [there exists t with n * t = 1 (mod m)]
+     */
+    public static boolean hasInverseMod(NaturalNumber n, NaturalNumber m) {
+        assert m.compareTo(new NaturalNumber2(1)) > 0 : "Violation of: m > 1";
+        int[] gcd = Gcd.gcd(Limbs.fromNaturalNumber(n), Limbs.fromNaturalNumber(m));
+        return Limbs.compare(gcd, Limbs.fromLong(1)) == 0;
+    }
+
+    /**
+     * Replaces n by its inverse modulo m, found by the extended Euclidean
+     * algorithm.
+     *
+     * @param n
+     *            the number to invert
+     * @param m
+     *            the modulus
+     * @updates n
+     * @requires m > 1 and [gcd(n, m) = 1]
+     * @ensures 0 <= n < m and #n * n = 1 (mod m)
+     */
+    public static void inverseMod(NaturalNumber n, NaturalNumber m) {
+        assert m.compareTo(new NaturalNumber2(1)) > 0 : "Violation of: m > 1";
+        int[] inverse = Gcd.inverse(Limbs.fromNaturalNumber(n),
+                Limbs.fromNaturalNumber(m));
+        assert inverse != null : "Violation of: gcd(n, m) = 1";
+        Limbs.toNaturalNumber(inverse, n);
     }
 
     /**
@@ -120,21 +183,49 @@ public final class CryptoUtilities {
      * @ensures isEven = (n mod 2 = 0)
      */
     public static boolean isEven(NaturalNumber n) {
-
         boolean even = false;
-        //Extracts last digit of n
-        int digit = n.divideBy10();
-        //If digit is even, sets flag to true
-        if (digit % 2 == 0) {
-            even = true;
+        if (n instanceof NaturalNumber3) {
+            //Binary representation: just look at the lowest bit
+            even = !Limbs.isOdd(((NaturalNumber3) n).limbs());
+        } else {
+            //Extracts last digit of n
+            int digit = n.divideBy10();
+            //If digit is even, sets flag to true
+            if (digit % 2 == 0) {
+                even = true;
+            }
+            //Put digit back into n
+            n.multiplyBy10(digit);
         }
-        //Put digit back into n
-        n.multiplyBy10(digit);
 
         //Returns flag
         return even;
     }
 
+    /**
+     * Montgomery context for the modulus most recently used by
+     * {@code powerMod} on the current thread.
+     */
+    private static final ThreadLocal<MontgomeryContext> LAST_CONTEXT = new ThreadLocal<>();
+
+    /**
+     * Returns a Montgomery context for the odd modulus {@code m}, reusing the
+     * one from this thread's previous call when the modulus is the same.
+     *
+     * @param m
+     *            limbs of the modulus
+     * @return context for m
+     * @requires m > 1 and m is odd
+     */
+    private static MontgomeryContext contextFor(int[] m) {
+        MontgomeryContext context = LAST_CONTEXT.get();
+        if (context == null || !context.hasModulus(m)) {
+            context = new MontgomeryContext(m);
+            LAST_CONTEXT.set(context);
+        }
+        return context;
+    }
+
     /**
      * Updates n to its p-th power modulo m.
      *
@@ -152,39 +243,48 @@ public final class CryptoUtilities {
         assert m.compareTo(new NaturalNumber2(1)) > 0 : "Violation of: m > 1";
 
         /*
-         * Use the fast-powering algorithm as previously discussed in class,
-         * with the additional feature that every multiplication is followed
-         * immediately by "reducing the result modulo m"
+         * Odd moduli (every modulus RSA and the primality tests use) go
+         * through Montgomery multiplication, which never divides; even moduli
+         * fall back to fast powering with a division after each multiply
+         */
+        int[] mLimbs = Limbs.fromNaturalNumber(m);
+        if (Limbs.isOdd(mLimbs)) {
+            contextFor(mLimbs).powerMod(n, p);
+        } else {
+            int[] result = powerModByDivision(Limbs.fromNaturalNumber(n),
+                    Limbs.fromNaturalNumber(p), mLimbs);
+            Limbs.toNaturalNumber(result, n);
+        }
+    }
+
+    /**
+     * Returns n to the p-th power modulo m, reducing by division after every
+     * multiplication.
+     *
+     * @param n
+     *            limbs of the number to be raised to a power
+     * @param p
+     *            limbs of the power
+     * @param m
+     *            limbs of the modulus
+     * @return limbs of n ^ (p) mod m
+     * @requires m > 1
+     */
+    private static int[] powerModByDivision(int[] n, int[] p, int[] m) {
+        /*
+         * Use the fast-powering algorithm, reading the bits of p from the top
+         * down, with every multiplication followed immediately by "reducing
+         * the result modulo m"
          */
-        //Initializes
-        final int one = 1;
-        final int two = 2;
-        NaturalNumber nCopy = new NaturalNumber2();
-        NaturalNumber nOrig = new NaturalNumber2(n);
-        NaturalNumber oneNN = new NaturalNumber2(one);
-        NaturalNumber twoNN = new NaturalNumber2(two);
-        NaturalNumber power = new NaturalNumber2();
-        NaturalNumber remainder = new NaturalNumber2();
-        //If the exponent is zero, the output is always 1
-        if (p.isZero()) {
-            n.copyFrom(oneNN);
-            //If p>1, uses fast powering algorithm until p is 1
-        } else if (p.compareTo(oneNN) > 0) {
-            power.copyFrom(p);
-            power.divide(twoNN);
-            powerMod(n, power, m);
-            nCopy.copyFrom(n);
-            n.multiply(nCopy);
-            //if p is odd (should only happen first time with int math),
-            //multiply by original at the end
-            if (!isEven(p)) {
-                //if p was odd, we need to multiply by the original value
-                n.multiply(nOrig);
+        int[] base = Limbs.divide(n, m)[1];
+        int[] result = Limbs.fromLong(1);
+        for (int i = Limbs.bitLength(p) - 1; i >= 0; i--) {
+            result = Limbs.divide(Limbs.multiply(result, result), m)[1];
+            if (Limbs.testBit(p, i)) {
+                result = Limbs.divide(Limbs.multiply(result, base), m)[1];
             }
         }
-        //Reduces the result modulo m
-        remainder = n.divide(m);
-        n.copyFrom(remainder);
+        return result;
     }
 
     /**
@@ -211,17 +311,30 @@ public final class CryptoUtilities {
         n.increment();
         //Initializes all our variables
         boolean compWit = false;
-        NaturalNumber oneNN = new NaturalNumber2(1);
-        NaturalNumber twoNN = new NaturalNumber2(2);
-        NaturalNumber test1 = new NaturalNumber2(w);
-        NaturalNumber test2 = new NaturalNumber2(w);
-        NaturalNumber nDec = new NaturalNumber2(n);
+        NaturalNumber oneNN = newLike(n, 1);
+        NaturalNumber twoNN = newLike(n, 2);
+        NaturalNumber test1 = w.newInstance();
+        test1.copyFrom(w);
+        NaturalNumber test2 = w.newInstance();
+        test2.copyFrom(w);
+        NaturalNumber nDec = n.newInstance();
+        nDec.copyFrom(n);
         //Sets nDec to n-1 for our test
         nDec.decrement();
-        //Sets test1 to w^2 mod n
-        powerMod(test1, twoNN, n);
-        //Sets test 2 to w^(n-1) mod n
-        powerMod(test2, nDec, n);
+        int[] nLimbs = Limbs.fromNaturalNumber(n);
+        if (Limbs.isOdd(nLimbs)) {
+            //Both powers share the base w and the modulus n, so one table of
+            //odd powers of w serves both
+            MontgomeryContext.FixedBase base = contextFor(nLimbs).fixedBase(w,
+                    Limbs.bitLength(nLimbs));
+            base.power(twoNN, test1);
+            base.power(nDec, test2);
+        } else {
+            //Sets test1 to w^2 mod n
+            powerMod(test1, twoNN, n);
+            //Sets test 2 to w^(n-1) mod n
+            powerMod(test2, nDec, n);
+        }
         //Checks if either condition for witnessing is true
         if (test1.compareTo(oneNN) == 0 || test2.compareTo(oneNN) != 0) {
             compWit = true;
@@ -263,7 +376,7 @@ public final class CryptoUtilities {
              * odd n >= 5: simply check whether 2 is a witness that n is
              * composite (which works surprisingly well :-)
              */
-            isPrime = !isWitnessToCompositeness(new NaturalNumber2(2), n);
+            isPrime = !isWitnessToCompositeness(newLike(n, 2), n);
         }
         return isPrime;
     }
@@ -286,53 +399,29 @@ public final class CryptoUtilities {
         assert n.compareTo(new NaturalNumber2(1)) > 0 : "Violation of: n > 1";
 
         /*
-         * Use the ability to generate random numbers (provided by the
-         * randomNumber method above) to generate several witness candidates --
-         * say, 10 to 50 candidates -- guessing that n is prime only if none of
-         * these candidates is a witness to n being composite (based on fact #3
-         * as described in the project description); use the code for isPrime1
-         * as a guide for how to do this, and pay attention to the requires
-         * clause of isWitnessToCompositeness
+         * Miller-Rabin: factor n - 1 = 2^s * d once, then try 50 random
+         * witnesses in [2, n - 2] in parallel, stopping as soon as one of them
+         * shows n is composite (below 3.3 * 10^24 a fixed set of bases gives
+         * an exact answer instead)
          */
-        final int fifty = 50;
-        final int four = 4;
-        final int two = 2;
-        boolean prime2 = false;
-        NaturalNumber twoNN = new NaturalNumber2(two);
-        NaturalNumber fourNN = new NaturalNumber2(four);
-        NaturalNumber nGen = new NaturalNumber2(n);
-        NaturalNumber random = new NaturalNumber2();
-
-        //Our witness candidates must be in the range [2,n-2], so we subtract 4 from
-        //n for our candidate, and then add 2 back after generation to account for the
-        //generator lower bound being 0
-        nGen.subtract(fourNN);
-        //for loop to check each of 50 candidates
-        for (int i = 0; i < fifty; i++) {
-            //Generate a random number in range [0,n-4] and then add 2 so the
-            //range is [2,n-2]
-            random = randomNumber(nGen);
-            random.add(twoNN);
-            if (n.compareTo(new NaturalNumber2(THREE)) <= 0) {
-                /*
-                 * 2 and 3 are primes
-                 */
-                prime2 = true;
-            } else if (isEven(n)) {
-                /*
-                 * evens are composite
-                 */
-                prime2 = false;
-            } else {
-                /*
-                 * odd n >= 5: checks whether our random number in [2,n-2] is
-                 * witness to compositness.
-                 */
-                prime2 = !isWitnessToCompositeness(random, n);
-            }
-        }
-        return prime2;
+        return MILLER_RABIN.isProbablePrime(n);
+    }
 
+    /**
+     * Counters updated by every call to {@code generateNextLikelyPrime}.
+     */
+    private static final PrimeSearchMetrics PRIME_SEARCH_METRICS =
+            new PrimeSearchMetrics();
+
+    /**
+     * Returns the counters updated by every call to
+     * {@code generateNextLikelyPrime(NaturalNumber)}: candidates examined, the
+     * share the small-prime sieve rejected, and time per prime found.
+     *
+     * @return the shared prime search metrics
+     */
+    public static PrimeSearchMetrics primeSearchMetrics() {
+        return PRIME_SEARCH_METRICS;
     }
 
     /**
@@ -345,21 +434,53 @@ public final class CryptoUtilities {
      * @ensures n >= #n and [n is very likely a prime number]
      */
     public static void generateNextLikelyPrime(NaturalNumber n) {
+        generateNextLikelyPrime(n, PRIME_SEARCH_METRICS);
+    }
+
+    /**
+     * Generates a likely prime number at least as large as some given number,
+     * recording the search in {@code metrics}.
+     *
+     * @param n
+     *            minimum value of likely prime
+     * @param metrics
+     *            counters to update
+     * @updates n, metrics
+     * @requires n > 4
+     * @ensures n >= #n and [n is very likely a prime number]
+     */
+    public static void generateNextLikelyPrime(NaturalNumber n,
+            PrimeSearchMetrics metrics) {
         assert n.compareTo(new NaturalNumber2(1)) > 0 : "Violation of: n > 1";
-        NaturalNumber twoNN = new NaturalNumber2(2);
+        assert metrics != null : "Violation of: metrics is not null";
+        long startTime = System.nanoTime();
 
         /*
-         * Use isPrime2 to check numbers, starting at n and increasing through
-         * the odd numbers only, until n is likely prime
+         * Step through the odd numbers from n; a sieve over the first few
+         * thousand odd primes throws out most candidates with a few additions
+         * each, and only the survivors get the full isPrime2 test
          */
-
-        while (!isPrime2(n)) {
-            if (isEven(n)) {
-                n.increment();
-            } else {
-                n.add(twoNN);
+        int[] start = Limbs.fromNaturalNumber(n);
+        if (Limbs.compare(start, Limbs.fromLong(2)) == 0) {
+            metrics.recordCandidate(false);
+        } else {
+            if (!Limbs.isOdd(start)) {
+                start = Limbs.add(start, Limbs.fromLong(1));
+            }
+            PrimeSieve sieve = new PrimeSieve(start);
+            boolean found = false;
+            while (!found) {
+                boolean survives = sieve.survives();
+                metrics.recordCandidate(!survives);
+                if (survives && MILLER_RABIN.isProbablePrime(sieve.candidate())) {
+                    found = true;
+                } else {
+                    sieve.advance(2);
+                }
             }
+            Limbs.toNaturalNumber(sieve.candidate(), n);
         }
+        metrics.recordPrime(System.nanoTime() - startTime);
     }
 
     /**
@@ -378,7 +499,7 @@ public final class CryptoUtilities {
          */
         final int testValue = 17;
         final int testSamples = 100000;
-        NaturalNumber test = new NaturalNumber2(testValue);
+        NaturalNumber test = new NaturalNumber3(testValue);
         int[] count = new int[testValue + 1];
         for (int i = 0; i < count.length; i++) {
             count[i] = 0;
@@ -400,8 +521,9 @@ public final class CryptoUtilities {
          */
         while (true) {
             out.print("n = ");
-            NaturalNumber n = new NaturalNumber2(in.nextLine());
+            NaturalNumber n = new NaturalNumber3(in.nextLine());
             if (n.compareTo(new NaturalNumber2(2)) < 0) {
+                out.println("Prime search: " + primeSearchMetrics());
                 out.println("Bye!");
                 break;
             } else {
@@ -0,0 +1,263 @@
+/**
+ * Iterative greatest common divisor and modular inverse on binary limbs.
+ *
+ * <p>
+ * Operands of at most two limbs go through binary (Stein) GCD on
+ * {@code long}s, which needs only shifts and subtractions. Longer operands go
+ * through Lehmer's algorithm: it runs Euclid's algorithm on the leading
+ * {@code LEHMER_BITS} bits alone for as long as that provably gives the same
+ * quotients as the full numbers, then applies all of those steps to the full
+ * numbers with one linear combination, so each pass over the limbs removes
+ * dozens of bits instead of the one or two a single division step does.
+ * </p>
+ *
+ * @author Jesse Shields
+ *
+ */
+final class Gcd {
+
+    /**
+     * Private constructor so this utility class cannot be instantiated.
+     */
+    private Gcd() {
+    }
+
+    /**
+     * Number of leading bits Lehmer's algorithm simulates Euclid on; small
+     * enough that the cofactors, which stay below 2^LEHMER_BITS, and the
+     * products formed while updating them all fit in a {@code long}.
+     */
+    private static final int LEHMER_BITS = 61;
+
+    /**
+     * Operands of at most this many limbs use binary GCD.
+     */
+    private static final int BINARY_LIMBS = 2;
+
+    /**
+     * Returns the greatest common divisor of {@code a} and {@code b}.
+     *
+     * @param a
+     *            normalized limbs
+     * @param b
+     *            normalized limbs
+     * @return normalized limbs of gcd(a, b), with gcd(0, 0) = 0
+     */
+    static int[] gcd(int[] a, int[] b) {
+        int[] u = a;
+        int[] v = b;
+        if (Limbs.compare(u, v) < 0) {
+            u = b;
+            v = a;
+        }
+        /*
+         * Lehmer steps while v is long, then one division step to bring u
+         * down to v's size, then binary GCD on what is left
+         */
+        while (v.length > BINARY_LIMBS) {
+            int[][] next = lehmerStep(u, v);
+            u = next[0];
+            v = next[1];
+        }
+        if (v.length > 0 && u.length > BINARY_LIMBS) {
+            int[] r = Limbs.divide(u, v)[1];
+            u = v;
+            v = r;
+        }
+        int[] result = u;
+        if (v.length > 0) {
+            long g = binaryGcd(toLong(u), toLong(v));
+            int[] gLimbs = { (int) g, (int) (g >>> Limbs.LIMB_BITS) };
+            result = Limbs.normalize(gLimbs, gLimbs.length);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the unsigned 64-bit value of {@code a}.
+     *
+     * @param a
+     *            normalized limbs
+     * @return a as an unsigned long
+     * @requires |a| <= 2
+     */
+    private static long toLong(int[] a) {
+        long result = 0;
+        for (int i = a.length - 1; i >= 0; i--) {
+            result = (result << Limbs.LIMB_BITS) | (a[i] & Limbs.MASK);
+        }
+        return result;
+    }
+
+    /**
+     * Binary GCD of two unsigned 64-bit values.
+     *
+     * @param a
+     *            one unsigned value
+     * @param b
+     *            the other unsigned value
+     * @return gcd(a, b), unsigned
+     */
+    private static long binaryGcd(long a, long b) {
+        long result;
+        if (a == 0) {
+            result = b;
+        } else if (b == 0) {
+            result = a;
+        } else {
+            /*
+             * Common factors of 2 first; after that u stays odd and each
+             * step makes v even and shifts its 2s out
+             */
+            int shift = Long.numberOfTrailingZeros(a | b);
+            long u = a >>> Long.numberOfTrailingZeros(a);
+            long v = b;
+            while (v != 0) {
+                v >>>= Long.numberOfTrailingZeros(v);
+                if (Long.compareUnsigned(u, v) > 0) {
+                    long t = u;
+                    u = v;
+                    v = t;
+                }
+                v -= u;
+            }
+            result = u << shift;
+        }
+        return result;
+    }
+
+    /**
+     * One step of Lehmer's algorithm (Knuth, The Art of Computer Programming,
+     * vol. 2, 4.5.2, Algorithm L): replaces (u, v) by a pair with the same
+     * GCD and v smaller, by at least one Euclid step.
+     *
+     * @param u
+     *            normalized limbs
+     * @param v
+     *            normalized limbs
+     * @return { new u, new v }, with new u >= new v
+     * @requires u >= v > 0
+     */
+    private static int[][] lehmerStep(int[] u, int[] v) {
+        int shift = Math.max(Limbs.bitLength(u) - LEHMER_BITS, 0);
+        long uHat = toLong(Limbs.shiftRight(u, shift));
+        long vHat = toLong(Limbs.shiftRight(v, shift));
+        /*
+         * Cofactors: the simulated pair is (uHat * a + vHat * b,
+         * uHat * c + vHat * d)
+         */
+        long a = 1;
+        long b = 0;
+        long c = 0;
+        long d = 1;
+        boolean agree = true;
+        while (agree) {
+            /*
+             * The true quotient lies between these two; once they differ
+             * the leading bits no longer determine it
+             */
+            agree = vHat + c != 0 && vHat + d != 0;
+            if (agree) {
+                long q = (uHat + a) / (vHat + c);
+                agree = q == (uHat + b) / (vHat + d);
+                if (agree) {
+                    long t = a - q * c;
+                    a = c;
+                    c = t;
+                    t = b - q * d;
+                    b = d;
+                    d = t;
+                    t = uHat - q * vHat;
+                    uHat = vHat;
+                    vHat = t;
+                }
+            }
+        }
+        int[][] result;
+        if (b == 0) {
+            /*
+             * No quotient could be simulated: one full division step
+             */
+            result = new int[][] { v, Limbs.divide(u, v)[1] };
+        } else {
+            result = new int[][] { combine(a, u, b, v), combine(c, u, d, v) };
+        }
+        return result;
+    }
+
+    /**
+     * Returns {@code x * u + y * v} for cofactors of opposite signs (or zero)
+     * whose combination is known to be nonnegative.
+     *
+     * @param x
+     *            cofactor of u
+     * @param u
+     *            normalized limbs
+     * @param y
+     *            cofactor of v
+     * @param v
+     *            normalized limbs
+     * @return normalized limbs of x * u + y * v
+     * @requires x * y <= 0 and x * u + y * v >= 0
+     */
+    private static int[] combine(long x, int[] u, long y, int[] v) {
+        int[] xu = Limbs.multiply(u, Limbs.fromLong(Math.abs(x)));
+        int[] yv = Limbs.multiply(v, Limbs.fromLong(Math.abs(y)));
+        int[] result;
+        if (x >= 0 && y <= 0) {
+            result = Limbs.subtract(xu, yv);
+        } else {
+            result = Limbs.subtract(yv, xu);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the inverse of {@code a} modulo {@code m}, or null if there is
+     * none, by the extended Euclidean algorithm.
+     *
+     * @param a
+     *            normalized limbs
+     * @param m
+     *            normalized limbs of the modulus
+     * @return normalized limbs of t in [0, m) with a * t = 1 (mod m), or null
+     *         if gcd(a, m) /= 1
+     * @requires m > 1
+     */
+    static int[] inverse(int[] a, int[] m) {
+        assert Limbs.bitLength(m) > 1 : "Violation of: m > 1";
+        /*
+         * Remainders r0 = m, r1 = a mod m, ... with r[i] = T[i] * a (mod m),
+         * T0 = 0, T1 = 1, T[i+1] = T[i-1] - q * T[i]; the T alternate in
+         * sign, so only their magnitudes are kept and the sign is the parity
+         * of the step count
+         */
+        int[] r0 = m;
+        int[] r1 = Limbs.divide(a, m)[1];
+        int[] t0 = Limbs.ZERO;
+        int[] t1 = Limbs.fromLong(1);
+        boolean t1Positive = true;
+        while (r1.length > 0) {
+            int[][] qr = Limbs.divide(r0, r1);
+            int[] t2 = Limbs.add(t0, Limbs.multiply(qr[0], t1));
+            r0 = r1;
+            r1 = qr[1];
+            t0 = t1;
+            t1 = t2;
+            t1Positive = !t1Positive;
+        }
+        /*
+         * r0 is the GCD and t0 its (signed) cofactor, which has the sign
+         * opposite to t1's
+         */
+        int[] result = null;
+        if (Limbs.compare(r0, Limbs.fromLong(1)) == 0) {
+            result = t0;
+            if (t1Positive && t0.length > 0) {
+                result = Limbs.subtract(m, t0);
+            }
+        }
+        return result;
+    }
+
+}
@@ -0,0 +1,856 @@
+import components.naturalnumber.NaturalNumber;
+
+/**
+ * Static helpers for natural numbers stored as binary limbs: little-endian
+ * {@code int[]} arrays of unsigned 32-bit words, with no leading (high-order)
+ * zero limbs, so that zero is the empty array.
+ *
+ * @author Jesse Shields
+ *
+ */
+final class Limbs {
+
+    /**
+     * Private constructor so this utility class cannot be instantiated.
+     */
+    private Limbs() {
+    }
+
+    /**
+     * Mask that turns a limb into its unsigned value as a long.
+     */
+    static final long MASK = 0xFFFFFFFFL;
+
+    /**
+     * Number of bits in one limb.
+     */
+    static final int LIMB_BITS = 32;
+
+    /**
+     * The empty (zero) limb array.
+     */
+    static final int[] ZERO = new int[0];
+
+    /**
+     * Number of decimal digits converted at a time.
+     */
+    private static final int DIGITS_PER_CHUNK = 9;
+
+    /**
+     * 10 ^ DIGITS_PER_CHUNK, the radix used for decimal conversion.
+     */
+    private static final int CHUNK_RADIX = 1_000_000_000;
+
+    /**
+     * Returns the limbs of the value of {@code n}.
+     *
+     * @param n
+     *            the number to convert
+     * @return limbs of n, not to be modified
+     * @ensures fromNaturalNumber = [limbs of n]
+     */
+    static int[] fromNaturalNumber(NaturalNumber n) {
+        assert n != null : "Violation of: n is not null";
+        int[] result;
+        if (n instanceof NaturalNumber3) {
+            result = ((NaturalNumber3) n).limbs();
+        } else {
+            result = fromDecimalString(n.toString());
+        }
+        return result;
+    }
+
+    /**
+     * Returns the limbs of the value whose decimal representation is
+     * {@code s}.
+     *
+     * @param s
+     *            decimal digits
+     * @return limbs of s
+     * @requires s is a non-empty string of decimal digits
+     * @ensures fromDecimalString = [limbs of the value of s]
+     */
+    static int[] fromDecimalString(String s) {
+        int[] result = new int[s.length() / DIGITS_PER_CHUNK + 1];
+        int length = 0;
+        //The first chunk takes whatever digits are left over so that every
+        //later chunk is exactly DIGITS_PER_CHUNK long
+        int end = s.length() % DIGITS_PER_CHUNK;
+        if (end == 0) {
+            end = DIGITS_PER_CHUNK;
+        }
+        int start = 0;
+        while (start < s.length()) {
+            int chunk = Integer.parseInt(s.substring(start, end));
+            int radix = 1;
+            for (int i = start; i < end; i++) {
+                radix *= 10;
+            }
+            //result = result * radix + chunk
+            long carry = chunk;
+            for (int i = 0; i < length; i++) {
+                long t = (result[i] & MASK) * radix + carry;
+                result[i] = (int) t;
+                carry = t >>> LIMB_BITS;
+            }
+            if (carry != 0) {
+                result[length] = (int) carry;
+                length++;
+            }
+            start = end;
+            end += DIGITS_PER_CHUNK;
+        }
+        return normalize(result, length);
+    }
+
+    /**
+     * Updates {@code n} to the value of the limbs {@code a}.
+     *
+     * @param a
+     *            limbs of the value
+     * @param n
+     *            the number to set
+     * @replaces n
+     * @ensures n = [value of a]
+     */
+    static void toNaturalNumber(int[] a, NaturalNumber n) {
+        assert n != null : "Violation of: n is not null";
+        if (n instanceof NaturalNumber3) {
+            ((NaturalNumber3) n).setLimbs(a.clone());
+        } else {
+            n.setFromString(toDecimalString(a));
+        }
+    }
+
+    /**
+     * Returns the decimal representation of {@code a}.
+     *
+     * @param a
+     *            limbs of the value
+     * @return decimal digits of a, without leading zeros
+     * @ensures toDecimalString = [decimal representation of a]
+     */
+    static String toDecimalString(int[] a) {
+        int length = significantLength(a, a.length);
+        if (length == 0) {
+            return "0";
+        }
+        int[] work = a.clone();
+        int[] chunks = new int[length * 2];
+        int chunkCount = 0;
+        while (length > 0) {
+            chunks[chunkCount] = divideSmallInPlace(work, length, CHUNK_RADIX);
+            chunkCount++;
+            length = significantLength(work, length);
+        }
+        StringBuilder sb = new StringBuilder(chunkCount * DIGITS_PER_CHUNK);
+        sb.append(chunks[chunkCount - 1]);
+        for (int i = chunkCount - 2; i >= 0; i--) {
+            String digits = Integer.toString(chunks[i]);
+            for (int pad = digits.length(); pad < DIGITS_PER_CHUNK; pad++) {
+                sb.append('0');
+            }
+            sb.append(digits);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Returns the number of limbs of {@code a[0, length)} left after dropping
+     * high-order zero limbs.
+     *
+     * @param a
+     *            limbs
+     * @param length
+     *            number of limbs to consider
+     * @return significant length of a[0, length)
+     * @requires 0 <= length <= |a|
+     * @ensures significantLength = [length of a[0, length) without leading
+     *          zero limbs]
+     */
+    static int significantLength(int[] a, int length) {
+        int result = length;
+        while (result > 0 && a[result - 1] == 0) {
+            result--;
+        }
+        return result;
+    }
+
+    /**
+     * Returns {@code a[0, length)} without high-order zero limbs, reusing
+     * {@code a} when it is already exactly that.
+     *
+     * @param a
+     *            limbs
+     * @param length
+     *            number of limbs to consider
+     * @return normalized copy of a[0, length)
+     * @requires 0 <= length <= |a|
+     * @ensures normalize = [a[0, length) without leading zero limbs]
+     */
+    static int[] normalize(int[] a, int length) {
+        int significant = significantLength(a, length);
+        int[] result = a;
+        if (significant != a.length) {
+            result = new int[significant];
+            System.arraycopy(a, 0, result, 0, significant);
+        }
+        return result;
+    }
+
+    /**
+     * Returns a copy of {@code a} zero-extended (or truncated) to
+     * {@code length} limbs.
+     *
+     * @param a
+     *            limbs
+     * @param length
+     *            length of the result
+     * @return a padded to length limbs
+     * @requires length >= 0
+     */
+    static int[] pad(int[] a, int length) {
+        int[] result = new int[length];
+        System.arraycopy(a, 0, result, 0, Math.min(a.length, length));
+        return result;
+    }
+
+    /**
+     * Reports the number of bits needed to represent {@code a}.
+     *
+     * @param a
+     *            normalized limbs
+     * @return bit length of a
+     * @ensures bitLength = [number of bits in a, 0 if a = 0]
+     */
+    static int bitLength(int[] a) {
+        int result = 0;
+        if (a.length > 0) {
+            result = (a.length - 1) * LIMB_BITS + LIMB_BITS
+                    - Integer.numberOfLeadingZeros(a[a.length - 1]);
+        }
+        return result;
+    }
+
+    /**
+     * Reports whether bit {@code i} of {@code a} is set.
+     *
+     * @param a
+     *            limbs
+     * @param i
+     *            bit index, 0 being the least significant
+     * @return true iff bit i of a is 1
+     * @requires i >= 0
+     */
+    static boolean testBit(int[] a, int i) {
+        int limb = i / LIMB_BITS;
+        return limb < a.length && ((a[limb] >>> (i % LIMB_BITS)) & 1) != 0;
+    }
+
+    /**
+     * Reports whether {@code a} is odd.
+     *
+     * @param a
+     *            limbs
+     * @return true iff a is odd
+     */
+    static boolean isOdd(int[] a) {
+        return a.length > 0 && (a[0] & 1) != 0;
+    }
+
+    /**
+     * Compares {@code a} and {@code b} numerically; leading zero limbs are
+     * allowed on either side.
+     *
+     * @param a
+     *            limbs
+     * @param b
+     *            limbs
+     * @return negative, zero or positive as a is less than, equal to or
+     *         greater than b
+     */
+    static int compare(int[] a, int[] b) {
+        int aLength = significantLength(a, a.length);
+        int bLength = significantLength(b, b.length);
+        int result = Integer.compare(aLength, bLength);
+        for (int i = aLength - 1; result == 0 && i >= 0; i--) {
+            result = Integer.compareUnsigned(a[i], b[i]);
+        }
+        return result;
+    }
+
+    /**
+     * Compares {@code a[0, length)} and {@code b[0, length)} numerically.
+     *
+     * @param a
+     *            limbs
+     * @param b
+     *            limbs
+     * @param length
+     *            number of limbs to compare
+     * @return negative, zero or positive as a[0, length) is less than, equal to
+     *         or greater than b[0, length)
+     * @requires length <= |a| and length <= |b|
+     */
+    static int compare(int[] a, int[] b, int length) {
+        int result = 0;
+        for (int i = length - 1; result == 0 && i >= 0; i--) {
+            result = Integer.compareUnsigned(a[i], b[i]);
+        }
+        return result;
+    }
+
+    /**
+     * Subtracts {@code b[0, length)} from {@code a[0, length)} in place.
+     *
+     * @param a
+     *            minuend, updated to the difference
+     * @param b
+     *            subtrahend
+     * @param length
+     *            number of limbs to process
+     * @return the borrow out of the top limb (0 or 1)
+     * @updates a
+     * @requires length <= |a| and length <= |b|
+     * @ensures a[0, length) = (#a[0, length) - b[0, length)) mod 2^(32 * length)
+     */
+    static int subtractInPlace(int[] a, int[] b, int length) {
+        long borrow = 0;
+        for (int i = 0; i < length; i++) {
+            long t = (a[i] & MASK) - (b[i] & MASK) - borrow;
+            a[i] = (int) t;
+            borrow = (t >>> LIMB_BITS) & 1;
+        }
+        return (int) borrow;
+    }
+
+    /**
+     * Number of limbs below which multiplication uses the schoolbook method
+     * rather than Karatsuba's.
+     */
+    static final int KARATSUBA_THRESHOLD = 48;
+
+    /**
+     * Returns the limbs of {@code value}.
+     *
+     * @param value
+     *            the value
+     * @return normalized limbs of value
+     * @requires value >= 0
+     */
+    static int[] fromLong(long value) {
+        assert value >= 0 : "Violation of: value >= 0";
+        return normalize(new int[] { (int) value, (int) (value >>> LIMB_BITS) }, 2);
+    }
+
+    /**
+     * Returns {@code a * multiplier + addend}.
+     *
+     * @param a
+     *            normalized limbs
+     * @param multiplier
+     *            small factor
+     * @param addend
+     *            small addend
+     * @return normalized limbs of a * multiplier + addend
+     * @requires multiplier >= 0 and addend >= 0
+     */
+    static int[] multiplyAddSmall(int[] a, int multiplier, int addend) {
+        int[] result = new int[a.length + 1];
+        long carry = addend;
+        for (int i = 0; i < a.length; i++) {
+            long t = (a[i] & MASK) * multiplier + carry;
+            result[i] = (int) t;
+            carry = t >>> LIMB_BITS;
+        }
+        result[a.length] = (int) carry;
+        return normalize(result, result.length);
+    }
+
+    /**
+     * Divides {@code a[0, length)} by the small {@code divisor} in place.
+     *
+     * @param a
+     *            dividend, updated to the quotient
+     * @param length
+     *            number of limbs of a to use
+     * @param divisor
+     *            small divisor
+     * @return the remainder
+     * @updates a
+     * @requires 0 <= length <= |a| and divisor > 0
+     * @ensures a[0, length) = #a[0, length) / divisor and divideSmallInPlace =
+     *          #a[0, length) mod divisor
+     */
+    static int divideSmallInPlace(int[] a, int length, int divisor) {
+        assert divisor > 0 : "Violation of: divisor > 0";
+        long remainder = 0;
+        for (int i = length - 1; i >= 0; i--) {
+            long t = (remainder << LIMB_BITS) | (a[i] & MASK);
+            a[i] = (int) (t / divisor);
+            remainder = t % divisor;
+        }
+        return (int) remainder;
+    }
+
+    /**
+     * Returns {@code a mod divisor} for a small divisor.
+     *
+     * @param a
+     *            limbs
+     * @param divisor
+     *            small divisor
+     * @return a mod divisor
+     * @requires divisor > 0
+     */
+    static int modSmall(int[] a, int divisor) {
+        assert divisor > 0 : "Violation of: divisor > 0";
+        long remainder = 0;
+        for (int i = a.length - 1; i >= 0; i--) {
+            remainder = ((remainder << LIMB_BITS) | (a[i] & MASK)) % divisor;
+        }
+        return (int) remainder;
+    }
+
+    /**
+     * Returns {@code a + b}.
+     *
+     * @param a
+     *            normalized limbs
+     * @param b
+     *            normalized limbs
+     * @return normalized limbs of a + b
+     */
+    static int[] add(int[] a, int[] b) {
+        int[] longer = a;
+        int[] shorter = b;
+        if (a.length < b.length) {
+            longer = b;
+            shorter = a;
+        }
+        int[] result = new int[longer.length + 1];
+        long carry = 0;
+        for (int i = 0; i < longer.length; i++) {
+            long t = (longer[i] & MASK) + carry;
+            if (i < shorter.length) {
+                t += shorter[i] & MASK;
+            }
+            result[i] = (int) t;
+            carry = t >>> LIMB_BITS;
+        }
+        result[longer.length] = (int) carry;
+        return normalize(result, result.length);
+    }
+
+    /**
+     * Returns {@code a - b}.
+     *
+     * @param a
+     *            normalized limbs
+     * @param b
+     *            normalized limbs
+     * @return normalized limbs of a - b
+     * @requires a >= b
+     */
+    static int[] subtract(int[] a, int[] b) {
+        assert compare(a, b) >= 0 : "Violation of: a >= b";
+        int[] result = a.clone();
+        long borrow = 0;
+        for (int i = 0; i < result.length && (borrow != 0 || i < b.length); i++) {
+            long t = (result[i] & MASK) - borrow;
+            if (i < b.length) {
+                t -= b[i] & MASK;
+            }
+            result[i] = (int) t;
+            borrow = (t >>> LIMB_BITS) & 1;
+        }
+        return normalize(result, result.length);
+    }
+
+    /**
+     * Returns {@code a} shifted left by {@code bits} bits.
+     *
+     * @param a
+     *            normalized limbs
+     * @param bits
+     *            shift distance
+     * @return normalized limbs of a * 2^bits
+     * @requires bits >= 0
+     */
+    static int[] shiftLeft(int[] a, int bits) {
+        int limbShift = bits / LIMB_BITS;
+        int bitShift = bits % LIMB_BITS;
+        int[] result = new int[a.length + limbShift + 1];
+        for (int i = 0; i < a.length; i++) {
+            result[i + limbShift] |= a[i] << bitShift;
+            if (bitShift != 0) {
+                result[i + limbShift + 1] = a[i] >>> (LIMB_BITS - bitShift);
+            }
+        }
+        return normalize(result, result.length);
+    }
+
+    /**
+     * Returns {@code a} shifted right by {@code bits} bits.
+     *
+     * @param a
+     *            normalized limbs
+     * @param bits
+     *            shift distance
+     * @return normalized limbs of a / 2^bits
+     * @requires bits >= 0
+     */
+    static int[] shiftRight(int[] a, int bits) {
+        int limbShift = bits / LIMB_BITS;
+        int bitShift = bits % LIMB_BITS;
+        if (limbShift >= a.length) {
+            return ZERO;
+        }
+        int[] result = new int[a.length - limbShift];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = a[i + limbShift] >>> bitShift;
+            if (bitShift != 0 && i + limbShift + 1 < a.length) {
+                result[i] |= a[i + limbShift + 1] << (LIMB_BITS - bitShift);
+            }
+        }
+        return normalize(result, result.length);
+    }
+
+    /**
+     * Returns the number of trailing zero bits of {@code a}.
+     *
+     * @param a
+     *            normalized limbs
+     * @return largest s such that 2^s divides a
+     * @requires a > 0
+     */
+    static int trailingZeros(int[] a) {
+        assert a.length > 0 : "Violation of: a > 0";
+        int i = 0;
+        while (a[i] == 0) {
+            i++;
+        }
+        return i * LIMB_BITS + Integer.numberOfTrailingZeros(a[i]);
+    }
+
+    /**
+     * Returns a random number uniformly distributed in [0, n], drawn a whole
+     * limb at a time from {@code source}.
+     *
+     * @param n
+     *            normalized limbs of the top of the interval
+     * @param source
+     *            source of random words
+     * @return normalized limbs of the random number
+     */
+    static int[] random(int[] n, RandomSource source) {
+        int k = n.length;
+        int[] result = new int[k];
+        if (k > 0) {
+            /*
+             * Only the top limb is drawn from a range narrower than a word,
+             * so only it is retried when it overshoots; the lower limbs
+             * have to be redrawn only in the (at most 2^-32 likely) case
+             * that the top limb ties n's and the rest exceed n's
+             */
+            int topMask = -1 >>> Integer.numberOfLeadingZeros(n[k - 1]);
+            boolean done = false;
+            while (!done) {
+                source.nextWords(result);
+                int top = result[k - 1] & topMask;
+                while (Integer.compareUnsigned(top, n[k - 1]) > 0) {
+                    top = source.nextWord() & topMask;
+                }
+                result[k - 1] = top;
+                done = top != n[k - 1] || compare(result, n, k) <= 0;
+            }
+        }
+        return normalize(result, k);
+    }
+
+    /**
+     * Returns {@code a * b}, using Karatsuba's method once both operands reach
+     * {@code KARATSUBA_THRESHOLD} limbs.
+     *
+     * @param a
+     *            normalized limbs
+     * @param b
+     *            normalized limbs
+     * @return normalized limbs of a * b
+     */
+    static int[] multiply(int[] a, int[] b) {
+        int[] result;
+        if (a.length == 0 || b.length == 0) {
+            result = ZERO;
+        } else if (Math.min(a.length, b.length) < KARATSUBA_THRESHOLD) {
+            result = schoolbookMultiply(a, b);
+        } else {
+            result = karatsubaMultiply(a, b);
+        }
+        return result;
+    }
+
+    /**
+     * Returns {@code a * b} by the schoolbook method.
+     *
+     * @param a
+     *            normalized limbs
+     * @param b
+     *            normalized limbs
+     * @return normalized limbs of a * b
+     */
+    private static int[] schoolbookMultiply(int[] a, int[] b) {
+        int[] result = new int[a.length + b.length];
+        for (int i = 0; i < a.length; i++) {
+            long ai = a[i] & MASK;
+            long carry = 0;
+            for (int j = 0; j < b.length; j++) {
+                long t = ai * (b[j] & MASK) + (result[i + j] & MASK) + carry;
+                result[i + j] = (int) t;
+                carry = t >>> LIMB_BITS;
+            }
+            result[i + b.length] = (int) carry;
+        }
+        return normalize(result, result.length);
+    }
+
+    /**
+     * Returns {@code a * b} by Karatsuba's method: with both operands split at
+     * {@code half} limbs, three half-size products replace four.
+     *
+     * @param a
+     *            normalized limbs
+     * @param b
+     *            normalized limbs
+     * @return normalized limbs of a * b
+     */
+    private static int[] karatsubaMultiply(int[] a, int[] b) {
+        int half = (Math.max(a.length, b.length) + 1) / 2;
+        int[] a0 = lowLimbs(a, half);
+        int[] a1 = highLimbs(a, half);
+        int[] b0 = lowLimbs(b, half);
+        int[] b1 = highLimbs(b, half);
+        int[] result = new int[a.length + b.length + 1];
+        int[] z0 = multiply(a0, b0);
+        addShifted(result, z0, 0);
+        if (a1.length == 0 || b1.length == 0) {
+            /*
+             * One operand fits in the low half, so only the two cross products
+             * are needed
+             */
+            addShifted(result, multiply(a1, b0), half);
+            addShifted(result, multiply(a0, b1), half);
+        } else {
+            int[] z2 = multiply(a1, b1);
+            int[] z1 = subtract(subtract(multiply(add(a0, a1), add(b0, b1)), z0), z2);
+            addShifted(result, z1, half);
+            addShifted(result, z2, 2 * half);
+        }
+        return normalize(result, result.length);
+    }
+
+    /**
+     * Returns the low {@code count} limbs of {@code a}.
+     *
+     * @param a
+     *            normalized limbs
+     * @param count
+     *            number of limbs
+     * @return normalized limbs of a mod 2^(32 * count)
+     */
+    private static int[] lowLimbs(int[] a, int count) {
+        return normalize(pad(a, Math.min(count, a.length)), Math.min(count, a.length));
+    }
+
+    /**
+     * Returns {@code a} without its low {@code count} limbs.
+     *
+     * @param a
+     *            normalized limbs
+     * @param count
+     *            number of limbs
+     * @return normalized limbs of a / 2^(32 * count)
+     */
+    private static int[] highLimbs(int[] a, int count) {
+        int[] result = ZERO;
+        if (a.length > count) {
+            result = new int[a.length - count];
+            System.arraycopy(a, count, result, 0, result.length);
+        }
+        return result;
+    }
+
+    /**
+     * Adds {@code b * 2^(32 * offset)} to {@code a} in place.
+     *
+     * @param a
+     *            accumulator
+     * @param b
+     *            normalized limbs to add
+     * @param offset
+     *            limb offset of b
+     * @updates a
+     * @requires a is long enough to hold the sum
+     */
+    private static void addShifted(int[] a, int[] b, int offset) {
+        long carry = 0;
+        int i = 0;
+        while (i < b.length || carry != 0) {
+            long t = (a[i + offset] & MASK) + carry;
+            if (i < b.length) {
+                t += b[i] & MASK;
+            }
+            a[i + offset] = (int) t;
+            carry = t >>> LIMB_BITS;
+            i++;
+        }
+    }
+
+    /**
+     * Returns the quotient and remainder of {@code u / v}, by Knuth's
+     * Algorithm D (The Art of Computer Programming, vol. 2, 4.3.1).
+     *
+     * @param u
+     *            normalized dividend limbs
+     * @param v
+     *            normalized divisor limbs
+     * @return { quotient, remainder }, both normalized
+     * @requires v > 0
+     * @ensures u = divide[0] * v + divide[1] and divide[1] < v
+     */
+    static int[][] divide(int[] u, int[] v) {
+        assert v.length > 0 : "Violation of: v > 0";
+        int[][] result;
+        if (compare(u, v) < 0) {
+            result = new int[][] { ZERO, u.clone() };
+        } else if (v.length == 1) {
+            int[] q = u.clone();
+            long r = 0;
+            long d = v[0] & MASK;
+            for (int i = q.length - 1; i >= 0; i--) {
+                long t = (r << LIMB_BITS) | (q[i] & MASK);
+                q[i] = (int) Long.divideUnsigned(t, d);
+                r = Long.remainderUnsigned(t, d);
+            }
+            result = new int[][] { normalize(q, q.length), fromLong(r) };
+        } else {
+            result = divideKnuth(u, v);
+        }
+        return result;
+    }
+
+    /**
+     * Algorithm D proper, for divisors of at least two limbs.
+     *
+     * @param u
+     *            normalized dividend limbs
+     * @param v
+     *            normalized divisor limbs
+     * @return { quotient, remainder }, both normalized
+     * @requires |v| >= 2 and u >= v
+     */
+    private static int[][] divideKnuth(int[] u, int[] v) {
+        final long base = 1L << LIMB_BITS;
+        int n = v.length;
+        int m = u.length - n;
+        /*
+         * D1: normalize so the top limb of the divisor has its high bit set,
+         * which keeps every trial quotient within 2 of the true digit
+         */
+        int shift = Integer.numberOfLeadingZeros(v[n - 1]);
+        int[] vn = new int[n];
+        int[] un = new int[u.length + 1];
+        if (shift == 0) {
+            System.arraycopy(v, 0, vn, 0, n);
+            System.arraycopy(u, 0, un, 0, u.length);
+        } else {
+            for (int i = n - 1; i > 0; i--) {
+                vn[i] = (v[i] << shift) | (v[i - 1] >>> (LIMB_BITS - shift));
+            }
+            vn[0] = v[0] << shift;
+            un[u.length] = u[u.length - 1] >>> (LIMB_BITS - shift);
+            for (int i = u.length - 1; i > 0; i--) {
+                un[i] = (u[i] << shift) | (u[i - 1] >>> (LIMB_BITS - shift));
+            }
+            un[0] = u[0] << shift;
+        }
+        long vTop = vn[n - 1] & MASK;
+        long vNext = vn[n - 2] & MASK;
+        int[] q = new int[m + 1];
+        for (int j = m; j >= 0; j--) {
+            /*
+             * D3: estimate the quotient digit from the top two limbs, then
+             * correct it with the third
+             */
+            long numerator = ((un[j + n] & MASK) << LIMB_BITS) | (un[j + n - 1] & MASK);
+            long qHat = Long.divideUnsigned(numerator, vTop);
+            long rHat = Long.remainderUnsigned(numerator, vTop);
+            while (qHat >= base || Long.compareUnsigned(qHat * vNext,
+                    (rHat << LIMB_BITS) | (un[j + n - 2] & MASK)) > 0) {
+                qHat--;
+                rHat += vTop;
+                if (rHat >= base) {
+                    break;
+                }
+            }
+            /*
+             * D4: multiply and subtract
+             */
+            long carry = 0;
+            long borrow = 0;
+            for (int i = 0; i < n; i++) {
+                long product = qHat * (vn[i] & MASK) + carry;
+                long t = (un[i + j] & MASK) - (product & MASK) - borrow;
+                un[i + j] = (int) t;
+                carry = product >>> LIMB_BITS;
+                borrow = (t >>> LIMB_BITS) & 1;
+            }
+            long t = (un[j + n] & MASK) - carry - borrow;
+            un[j + n] = (int) t;
+            q[j] = (int) qHat;
+            if (t < 0) {
+                /*
+                 * D6: the estimate was one too large (rare); add the divisor
+                 * back
+                 */
+                q[j]--;
+                carry = 0;
+                for (int i = 0; i < n; i++) {
+                    long sum = (un[i + j] & MASK) + (vn[i] & MASK) + carry;
+                    un[i + j] = (int) sum;
+                    carry = sum >>> LIMB_BITS;
+                }
+                un[j + n] += (int) carry;
+            }
+        }
+        /*
+         * D8: unnormalize the remainder
+         */
+        int[] r = new int[n];
+        if (shift == 0) {
+            System.arraycopy(un, 0, r, 0, n);
+        } else {
+            for (int i = 0; i < n; i++) {
+                r[i] = (un[i] >>> shift) | (un[i + 1] << (LIMB_BITS - shift));
+            }
+        }
+        return new int[][] { normalize(q, q.length), normalize(r, n) };
+    }
+
+    /**
+     * Returns {@code a mod m}.
+     *
+     * @param a
+     *            dividend limbs
+     * @param m
+     *            normalized divisor limbs
+     * @return a mod m, padded to |m| limbs
+     * @requires m > 0
+     * @ensures mod = [a mod m]
+     */
+    static int[] mod(int[] a, int[] m) {
+        assert m.length > 0 : "Violation of: m > 0";
+        return pad(divide(normalize(a, a.length), m)[1], m.length);
+    }
+
+}
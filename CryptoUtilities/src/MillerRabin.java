@@ -0,0 +1,388 @@
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import components.naturalnumber.NaturalNumber;
+
+/**
+ * Miller-Rabin probabilistic primality test whose witness rounds run in
+ * parallel on a {@code ForkJoinPool}. As soon as one round proves the
+ * candidate composite, the rounds that have not finished yet stop at their
+ * next check.
+ *
+ * <p>
+ * Candidates below {@code 3.317 * 10^24} are tested against the first
+ * thirteen primes as bases instead of random witnesses, which makes the
+ * answer exact in that range.
+ * </p>
+ *
+ * @author Jesse Shields
+ *
+ */
+public final class MillerRabin {
+
+    /**
+     * Number of random witness rounds used by default.
+     */
+    public static final int DEFAULT_ROUNDS = 50;
+
+    /**
+     * Bound below which {@code DETERMINISTIC_BASES} decide primality exactly
+     * (Sorenson and Webster, 2015).
+     */
+    private static final int[] DETERMINISTIC_LIMIT = Limbs
+            .fromDecimalString("3317044064679887385961981");
+
+    /**
+     * Bases that are a complete set of witnesses below
+     * {@code DETERMINISTIC_LIMIT}.
+     */
+    private static final int[] DETERMINISTIC_BASES = { 2, 3, 5, 7, 11, 13, 17, 19,
+            23, 29, 31, 37, 41 };
+
+    /**
+     * Candidates with fewer limbs than this run their rounds on the calling
+     * thread; forking costs more than a round does at that size.
+     */
+    private static final int PARALLEL_LIMBS = 8;
+
+    /**
+     * Number of random witness rounds.
+     */
+    private final int rounds;
+
+    /**
+     * Pool the rounds run on.
+     */
+    private final ForkJoinPool pool;
+
+    /**
+     * Source of the random witnesses.
+     */
+    private final RandomSource source;
+
+    /**
+     * Constructor with the default number of rounds, on the common pool.
+     */
+    public MillerRabin() {
+        this(DEFAULT_ROUNDS, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Constructor with witnesses drawn from a {@code SplittableRandomSource};
+     * witnesses need to be unpredictable to the test, not secret.
+     *
+     * @param rounds
+     *            number of random witness rounds for large candidates
+     * @param pool
+     *            pool the rounds run on
+     * @requires rounds > 0
+     */
+    public MillerRabin(int rounds, ForkJoinPool pool) {
+        this(rounds, pool, new SplittableRandomSource());
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param rounds
+     *            number of random witness rounds for large candidates
+     * @param pool
+     *            pool the rounds run on
+     * @param source
+     *            source of the random witnesses
+     * @requires rounds > 0
+     */
+    public MillerRabin(int rounds, ForkJoinPool pool, RandomSource source) {
+        assert rounds > 0 : "Violation of: rounds > 0";
+        assert pool != null : "Violation of: pool is not null";
+        assert source != null : "Violation of: source is not null";
+        this.rounds = rounds;
+        this.pool = pool;
+        this.source = source;
+    }
+
+    /**
+     * Reports whether n is a prime; may be wrong with "low" probability when
+     * n >= 3.317 * 10^24.
+     *
+     * @param n
+     *            number to be checked
+     * @return true means n is very likely prime; false means n is definitely
+     *         composite
+     * @requires n > 1
+     * @ensures <pre>
+     * isProbablePrime = [n is a prime number, with probability of error at
+     *         most 4^(-rounds) if it is reported to be prime, and no chance
+     *         of error if it is reported to be composite]
+     * </pre>
+     */
+    public boolean isProbablePrime(NaturalNumber n) {
+        assert n != null : "Violation of: n is not null";
+        return this.isProbablePrime(Limbs.fromNaturalNumber(n));
+    }
+
+    /**
+     * Reports whether the number with limbs {@code n} is a prime; may be wrong
+     * with "low" probability.
+     *
+     * @param n
+     *            limbs of the number to be checked
+     * @return true means n is very likely prime; false means n is definitely
+     *         composite
+     * @requires n > 1
+     */
+    boolean isProbablePrime(int[] n) {
+        assert Limbs.bitLength(n) > 1 : "Violation of: n > 1";
+        final int three = 3;
+        boolean result;
+        if (Limbs.compare(n, Limbs.fromLong(three)) <= 0) {
+            /*
+             * 2 and 3 are primes
+             */
+            result = true;
+        } else {
+            /*
+             * Trial division by the deterministic bases first: it settles
+             * every n up to 41 (and every even n), and afterwards all the
+             * bases lie in [2, n - 2] as the rounds require
+             */
+            int factor = 0;
+            for (int i = 0; i < DETERMINISTIC_BASES.length && factor == 0; i++) {
+                if (Limbs.modSmall(n, DETERMINISTIC_BASES[i]) == 0) {
+                    factor = DETERMINISTIC_BASES[i];
+                }
+            }
+            if (factor != 0) {
+                result = Limbs.compare(n, Limbs.fromLong(factor)) == 0;
+            } else {
+                result = !this.hasWitness(n, this.witnesses(n));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the witnesses to try for the odd candidate {@code n}.
+     *
+     * @param n
+     *            limbs of the candidate
+     * @return limbs of each witness, all in [2, n - 2]
+     * @requires n > 41 and n is odd
+     */
+    private int[][] witnesses(int[] n) {
+        int[][] result;
+        if (Limbs.compare(n, DETERMINISTIC_LIMIT) < 0) {
+            /*
+             * Small n: the fixed bases
+             */
+            result = new int[DETERMINISTIC_BASES.length][];
+            for (int i = 0; i < DETERMINISTIC_BASES.length; i++) {
+                result[i] = Limbs.fromLong(DETERMINISTIC_BASES[i]);
+            }
+        } else {
+            /*
+             * Large n: random witnesses in [2, n - 2], drawn here on the
+             * calling thread so the rounds themselves share no state
+             */
+            final int four = 4;
+            int[] bound = Limbs.subtract(n, Limbs.fromLong(four));
+            int[] two = Limbs.fromLong(2);
+            result = new int[this.rounds][];
+            for (int i = 0; i < this.rounds; i++) {
+                result[i] = Limbs.add(Limbs.random(bound, this.source), two);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Reports whether any of {@code witnesses} proves {@code n} composite.
+     *
+     * @param n
+     *            limbs of the candidate
+     * @param witnesses
+     *            witnesses to try
+     * @return true iff some witness proves n composite
+     * @requires n > 3 and n is odd
+     */
+    private boolean hasWitness(int[] n, int[][] witnesses) {
+        /*
+         * Factor n - 1 = 2^s * d with d odd, once for all rounds
+         */
+        int[] nMinusOne = Limbs.subtract(n, Limbs.fromLong(1));
+        int s = Limbs.trailingZeros(nMinusOne);
+        Setup setup = new Setup(new MontgomeryContext(n), Limbs.shiftRight(nMinusOne, s),
+                s);
+        AtomicBoolean composite = new AtomicBoolean(false);
+        if (n.length < PARALLEL_LIMBS) {
+            for (int i = 0; i < witnesses.length && !composite.get(); i++) {
+                if (setup.isWitness(witnesses[i], composite)) {
+                    composite.set(true);
+                }
+            }
+        } else {
+            this.pool.invoke(new Rounds(setup, witnesses, 0, witnesses.length, composite));
+        }
+        return composite.get();
+    }
+
+    /**
+     * State shared by every round on one candidate n: its Montgomery context
+     * and the factorization n - 1 = 2^s * d.
+     */
+    private static final class Setup {
+
+        /**
+         * Montgomery context for n.
+         */
+        private final MontgomeryContext context;
+
+        /**
+         * Odd part of n - 1.
+         */
+        private final int[] d;
+
+        /**
+         * Power of 2 in n - 1.
+         */
+        private final int s;
+
+        /**
+         * Constructor.
+         *
+         * @param context
+         *            Montgomery context for n
+         * @param d
+         *            odd part of n - 1
+         * @param s
+         *            power of 2 in n - 1
+         */
+        Setup(MontgomeryContext context, int[] d, int s) {
+            this.context = context;
+            this.d = d;
+            this.s = s;
+        }
+
+        /**
+         * Reports whether {@code a} is a Miller-Rabin witness that n is
+         * composite. Gives up early, reporting false, once {@code stop} is
+         * set.
+         *
+         * @param a
+         *            limbs of the witness candidate
+         * @param stop
+         *            set when another round has already found a witness
+         * @return true iff a proves n composite
+         * @requires 1 < a < n - 1
+         */
+        boolean isWitness(int[] a, AtomicBoolean stop) {
+            int[] one = this.context.montgomeryOne();
+            int[] minusOne = this.context.montgomeryMinusOne();
+            int[] scratch = this.context.newScratch();
+            /*
+             * n passes for a if a^d = 1, or a^(2^r * d) = -1 for some r < s
+             */
+            int[] x = this.context.montgomeryPower(a, this.d);
+            boolean passes = Limbs.compare(x, one) == 0 || Limbs.compare(x, minusOne) == 0;
+            boolean decided = passes;
+            for (int r = 1; r < this.s && !decided && !stop.get(); r++) {
+                this.context.multiply(x, x, x, scratch);
+                if (Limbs.compare(x, minusOne) == 0) {
+                    passes = true;
+                    decided = true;
+                } else if (Limbs.compare(x, one) == 0) {
+                    /*
+                     * A nontrivial square root of 1: definitely composite
+                     */
+                    decided = true;
+                }
+            }
+            return !passes && !stop.get();
+        }
+
+    }
+
+    /**
+     * Runs the rounds for {@code witnesses[lo, hi)}, splitting in half until
+     * each task holds one round.
+     */
+    private static final class Rounds extends RecursiveAction {
+
+        /**
+         * Serialization version (required of ForkJoinTask subclasses).
+         */
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * Shared per-candidate state.
+         */
+        private final transient Setup setup;
+
+        /**
+         * All witnesses.
+         */
+        private final int[][] witnesses;
+
+        /**
+         * First witness of this task.
+         */
+        private final int lo;
+
+        /**
+         * One past the last witness of this task.
+         */
+        private final int hi;
+
+        /**
+         * Set by the first round that finds a witness.
+         */
+        private final AtomicBoolean composite;
+
+        /**
+         * Constructor.
+         *
+         * @param setup
+         *            shared per-candidate state
+         * @param witnesses
+         *            all witnesses
+         * @param lo
+         *            first witness of this task
+         * @param hi
+         *            one past the last witness of this task
+         * @param composite
+         *            set by the first round that finds a witness
+         */
+        Rounds(Setup setup, int[][] witnesses, int lo, int hi, AtomicBoolean composite) {
+            this.setup = setup;
+            this.witnesses = witnesses;
+            this.lo = lo;
+            this.hi = hi;
+            this.composite = composite;
+        }
+
+        @Override
+        protected void compute() {
+            /*
+             * If another round already settled it, skip this one
+             */
+            if (!this.composite.get()) {
+                if (this.hi - this.lo == 1) {
+                    if (this.setup.isWitness(this.witnesses[this.lo],
+                            this.composite)) {
+                        this.composite.set(true);
+                    }
+                } else {
+                    int mid = (this.lo + this.hi) >>> 1;
+                    invokeAll(
+                            new Rounds(this.setup, this.witnesses, this.lo, mid,
+                                    this.composite),
+                            new Rounds(this.setup, this.witnesses, mid, this.hi,
+                                    this.composite));
+                }
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,473 @@
+import components.naturalnumber.NaturalNumber;
+
+/**
+ * Precomputed state for Montgomery multiplication modulo one fixed odd modulus
+ * {@code m}. Building a context costs a few reductions; after that every
+ * modular multiplication is a single pass over the limbs with no division, so
+ * a context should be kept and reused for as long as the same modulus is in
+ * use.
+ *
+ * <p>
+ * With {@code k} the number of 32-bit limbs of {@code m} and
+ * {@code R = 2^(32k)}, a residue {@code a} is kept in Montgomery form as
+ * {@code a * R mod m}.
+ * </p>
+ *
+ * @author Jesse Shields
+ *
+ */
+public final class MontgomeryContext {
+
+    /**
+     * Largest window size {@code windowSize} ever picks.
+     */
+    static final int MAX_WINDOW = 7;
+
+    /**
+     * Exponent bit lengths up to which windows of size 1, 2, ... are the
+     * cheapest choice (table setup versus multiplications saved).
+     */
+    private static final int[] WINDOW_THRESHOLDS = { 7, 36, 140, 450, 1303, 3529 };
+
+    /**
+     * Limbs of the modulus, exactly k of them.
+     */
+    private final int[] modulus;
+
+    /**
+     * -m^(-1) mod 2^32.
+     */
+    private final int mPrime;
+
+    /**
+     * R^2 mod m, used to move values into Montgomery form.
+     */
+    private final int[] rSquared;
+
+    /**
+     * R mod m, the Montgomery form of 1.
+     */
+    private final int[] one;
+
+    /**
+     * Builds the context for the odd modulus {@code m}.
+     *
+     * @param m
+     *            the modulus
+     * @requires m > 1 and m is odd
+     */
+    public MontgomeryContext(NaturalNumber m) {
+        this(Limbs.fromNaturalNumber(m));
+    }
+
+    /**
+     * Builds the context for the odd modulus with limbs {@code m}.
+     *
+     * @param m
+     *            normalized limbs of the modulus
+     * @requires m > 1 and m is odd
+     */
+    MontgomeryContext(int[] m) {
+        assert Limbs.isOdd(m) : "Violation of: m is odd";
+        assert Limbs.bitLength(m) > 1 : "Violation of: m > 1";
+        this.modulus = m.clone();
+        int k = m.length;
+        /*
+         * Newton's iteration for the inverse of m[0] mod 2^32: m[0] is its own
+         * inverse mod 8, and every step doubles the number of correct bits
+         */
+        final int newtonSteps = 4;
+        int inverse = m[0];
+        for (int i = 0; i < newtonSteps; i++) {
+            inverse *= 2 - m[0] * inverse;
+        }
+        this.mPrime = -inverse;
+        /*
+         * R^2 mod m = 2^(64k) mod m, and R mod m = 2^(32k) mod m
+         */
+        int[] rSquaredPower = new int[2 * k + 1];
+        rSquaredPower[2 * k] = 1;
+        this.rSquared = Limbs.mod(rSquaredPower, m);
+        int[] rPower = new int[k + 1];
+        rPower[k] = 1;
+        this.one = Limbs.mod(rPower, m);
+    }
+
+    /**
+     * Reports whether this context was built for the modulus {@code m}.
+     *
+     * @param m
+     *            limbs of a modulus
+     * @return true iff m is the modulus of this
+     */
+    boolean hasModulus(int[] m) {
+        return Limbs.compare(this.modulus, m) == 0;
+    }
+
+    /**
+     * Returns the number of limbs of the modulus.
+     *
+     * @return k
+     */
+    int limbCount() {
+        return this.modulus.length;
+    }
+
+    /**
+     * Returns a new scratch buffer large enough for {@code multiply}.
+     *
+     * @return scratch buffer
+     */
+    int[] newScratch() {
+        return new int[this.modulus.length + 2];
+    }
+
+    /**
+     * Sets {@code out} to the Montgomery product {@code a * b * R^(-1) mod m}.
+     * {@code out} may be the same array as {@code a} or {@code b}.
+     *
+     * @param a
+     *            first factor, k limbs, less than m
+     * @param b
+     *            second factor, k limbs, less than m
+     * @param out
+     *            receives the product, k limbs
+     * @param scratch
+     *            work space from {@code newScratch}
+     * @replaces out, scratch
+     * @ensures out = a * b * R^(-1) mod m
+     */
+    void multiply(int[] a, int[] b, int[] out, int[] scratch) {
+        final long mask = Limbs.MASK;
+        final int bits = Limbs.LIMB_BITS;
+        int[] m = this.modulus;
+        int k = m.length;
+        int[] t = scratch;
+        for (int i = 0; i <= k + 1; i++) {
+            t[i] = 0;
+        }
+        /*
+         * Coarsely integrated operand scanning: for each limb of a, add
+         * a[i] * b to t, then add the multiple of m that clears the low limb
+         * and shift t down by one limb
+         */
+        for (int i = 0; i < k; i++) {
+            long ai = a[i] & mask;
+            long carry = 0;
+            for (int j = 0; j < k; j++) {
+                long s = (t[j] & mask) + ai * (b[j] & mask) + carry;
+                t[j] = (int) s;
+                carry = s >>> bits;
+            }
+            long s = (t[k] & mask) + carry;
+            t[k] = (int) s;
+            t[k + 1] = (int) (s >>> bits);
+
+            long u = (t[0] * this.mPrime) & mask;
+            s = (t[0] & mask) + u * (m[0] & mask);
+            carry = s >>> bits;
+            for (int j = 1; j < k; j++) {
+                s = (t[j] & mask) + u * (m[j] & mask) + carry;
+                t[j - 1] = (int) s;
+                carry = s >>> bits;
+            }
+            s = (t[k] & mask) + carry;
+            t[k - 1] = (int) s;
+            t[k] = t[k + 1] + (int) (s >>> bits);
+            t[k + 1] = 0;
+        }
+        /*
+         * t < 2m here, so at most one subtraction brings it below m
+         */
+        if (t[k] != 0 || Limbs.compare(t, m, k) >= 0) {
+            Limbs.subtractInPlace(t, m, k);
+        }
+        System.arraycopy(t, 0, out, 0, k);
+    }
+
+    /**
+     * Returns the Montgomery form of {@code a}.
+     *
+     * @param a
+     *            limbs of any natural number
+     * @return a * R mod m, k limbs
+     */
+    int[] toMontgomery(int[] a) {
+        int k = this.modulus.length;
+        int[] reduced;
+        if (Limbs.compare(a, this.modulus) < 0) {
+            reduced = Limbs.pad(a, k);
+        } else {
+            reduced = Limbs.mod(a, this.modulus);
+        }
+        this.multiply(reduced, this.rSquared, reduced, this.newScratch());
+        return reduced;
+    }
+
+    /**
+     * Returns the ordinary value of the Montgomery-form residue {@code a}.
+     *
+     * @param a
+     *            residue in Montgomery form, k limbs
+     * @return normalized limbs of a * R^(-1) mod m
+     */
+    int[] fromMontgomery(int[] a) {
+        int[] unit = new int[this.modulus.length];
+        unit[0] = 1;
+        int[] result = new int[this.modulus.length];
+        this.multiply(a, unit, result, this.newScratch());
+        return Limbs.normalize(result, result.length);
+    }
+
+    /**
+     * Returns the Montgomery form of 1.
+     *
+     * @return a fresh copy of R mod m, k limbs
+     */
+    int[] montgomeryOne() {
+        return this.one.clone();
+    }
+
+    /**
+     * Returns the Montgomery form of m - 1.
+     *
+     * @return a fresh copy of (m - 1) * R mod m, k limbs
+     */
+    int[] montgomeryMinusOne() {
+        int[] result = this.modulus.clone();
+        Limbs.subtractInPlace(result, this.one, result.length);
+        return result;
+    }
+
+    /**
+     * Returns the sliding-window size best suited to exponents of
+     * {@code bits} bits.
+     *
+     * @param bits
+     *            bit length of the exponent
+     * @return window size, in [1, MAX_WINDOW]
+     */
+    static int windowSize(int bits) {
+        int window = 1;
+        while (window < MAX_WINDOW && bits > WINDOW_THRESHOLDS[window - 1]) {
+            window++;
+        }
+        return window;
+    }
+
+    /**
+     * Returns the odd powers {@code b, b^3, ..., b^(2^window - 1)} of the
+     * Montgomery-form residue {@code b}, so that entry {@code i} holds
+     * {@code b^(2i + 1)}.
+     *
+     * @param b
+     *            residue in Montgomery form
+     * @param window
+     *            window size
+     * @return table of odd powers of b, in Montgomery form
+     * @requires 1 <= window <= MAX_WINDOW
+     */
+    private int[][] oddPowers(int[] b, int window) {
+        int[] scratch = this.newScratch();
+        int[][] table = new int[1 << (window - 1)][];
+        table[0] = b.clone();
+        if (table.length > 1) {
+            int[] square = new int[b.length];
+            this.multiply(b, b, square, scratch);
+            for (int i = 1; i < table.length; i++) {
+                table[i] = new int[b.length];
+                this.multiply(table[i - 1], square, table[i], scratch);
+            }
+        }
+        return table;
+    }
+
+    /**
+     * Returns {@code b ^ exponent} in Montgomery form, by left-to-right
+     * sliding-window exponentiation over a table of odd powers of {@code b}.
+     *
+     * @param oddPowers
+     *            odd powers of b, as built by {@code oddPowers}
+     * @param window
+     *            window size
+     * @param exponent
+     *            limbs of the exponent
+     * @return b ^ exponent, in Montgomery form
+     * @requires |oddPowers| >= 2^(window - 1)
+     */
+    private int[] slidingWindowPower(int[][] oddPowers, int window, int[] exponent) {
+        int[] scratch = this.newScratch();
+        int[] result = this.montgomeryOne();
+        boolean started = false;
+        int i = Limbs.bitLength(exponent) - 1;
+        while (i >= 0) {
+            if (!Limbs.testBit(exponent, i)) {
+                /*
+                 * A zero bit outside any window just squares
+                 */
+                if (started) {
+                    this.multiply(result, result, result, scratch);
+                }
+                i--;
+            } else {
+                /*
+                 * Take the longest window ending at bit i whose lowest bit is
+                 * set, so its value is odd and is in the table
+                 */
+                int low = Math.max(i - window + 1, 0);
+                while (!Limbs.testBit(exponent, low)) {
+                    low++;
+                }
+                int value = 0;
+                for (int j = i; j >= low; j--) {
+                    value = (value << 1) | (Limbs.testBit(exponent, j) ? 1 : 0);
+                    if (started) {
+                        this.multiply(result, result, result, scratch);
+                    }
+                }
+                if (started) {
+                    this.multiply(result, oddPowers[value >>> 1], result, scratch);
+                } else {
+                    System.arraycopy(oddPowers[value >>> 1], 0, result, 0,
+                            result.length);
+                    started = true;
+                }
+                i = low - 1;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns {@code base ^ exponent mod m}.
+     *
+     * @param base
+     *            limbs of the base
+     * @param exponent
+     *            limbs of the exponent
+     * @return normalized limbs of base ^ exponent mod m
+     */
+    int[] power(int[] base, int[] exponent) {
+        return this.fromMontgomery(this.montgomeryPower(base, exponent));
+    }
+
+    /**
+     * Returns {@code base ^ exponent mod m} in Montgomery form, for callers
+     * that keep working in the Montgomery domain afterwards.
+     *
+     * @param base
+     *            limbs of the base
+     * @param exponent
+     *            limbs of the exponent
+     * @return base ^ exponent * R mod m, k limbs
+     */
+    int[] montgomeryPower(int[] base, int[] exponent) {
+        int window = windowSize(Limbs.bitLength(exponent));
+        int[][] table = this.oddPowers(this.toMontgomery(base), window);
+        return this.slidingWindowPower(table, window, exponent);
+    }
+
+    /**
+     * Returns a {@code FixedBase} that raises {@code base} to many exponents
+     * modulo the modulus of this, sharing one table of odd powers.
+     *
+     * @param base
+     *            the base
+     * @param maxExponentBits
+     *            bit length of the largest exponent expected; sizes the table
+     * @return fixed-base exponentiator for base
+     * @requires maxExponentBits >= 0
+     */
+    public FixedBase fixedBase(NaturalNumber base, int maxExponentBits) {
+        assert base != null : "Violation of: base is not null";
+        assert maxExponentBits >= 0 : "Violation of: maxExponentBits >= 0";
+        return new FixedBase(Limbs.fromNaturalNumber(base), maxExponentBits);
+    }
+
+    /**
+     * Exponentiation of one fixed base modulo the modulus of the enclosing
+     * context. The table of odd powers of the base is built once, for the
+     * largest expected exponent, and then shared by every call to
+     * {@code power}.
+     */
+    public final class FixedBase {
+
+        /**
+         * Window size the table was built for.
+         */
+        private final int window;
+
+        /**
+         * Odd powers of the base, in Montgomery form.
+         */
+        private final int[][] table;
+
+        /**
+         * Builds the table for {@code base}.
+         *
+         * @param base
+         *            limbs of the base
+         * @param maxExponentBits
+         *            bit length of the largest exponent expected
+         */
+        FixedBase(int[] base, int maxExponentBits) {
+            this.window = windowSize(maxExponentBits);
+            this.table = MontgomeryContext.this
+                    .oddPowers(MontgomeryContext.this.toMontgomery(base), this.window);
+        }
+
+        /**
+         * Returns {@code base ^ exponent mod m}.
+         *
+         * @param exponent
+         *            limbs of the exponent
+         * @return normalized limbs of base ^ exponent mod m
+         */
+        int[] power(int[] exponent) {
+            /*
+             * A smaller window only uses a prefix of the table, so exponents
+             * shorter than planned still get their own best window size
+             */
+            int w = Math.min(this.window, windowSize(Limbs.bitLength(exponent)));
+            return MontgomeryContext.this.fromMontgomery(
+                    MontgomeryContext.this.slidingWindowPower(this.table, w, exponent));
+        }
+
+        /**
+         * Sets {@code result} to the base raised to the {@code p}-th power
+         * modulo m.
+         *
+         * @param p
+         *            the power
+         * @param result
+         *            receives the power
+         * @replaces result
+         * @ensures result = base ^ (p) mod m
+         */
+        public void power(NaturalNumber p, NaturalNumber result) {
+            assert p != null : "Violation of: p is not null";
+            assert result != null : "Violation of: result is not null";
+            Limbs.toNaturalNumber(this.power(Limbs.fromNaturalNumber(p)), result);
+        }
+
+    }
+
+    /**
+     * Updates {@code n} to its {@code p}-th power modulo the modulus of this.
+     *
+     * @param n
+     *            number to be raised to a power
+     * @param p
+     *            the power
+     * @updates n
+     * @ensures n = #n ^ (p) mod m
+     */
+    public void powerMod(NaturalNumber n, NaturalNumber p) {
+        assert n != null : "Violation of: n is not null";
+        assert p != null : "Violation of: p is not null";
+        int[] result = this.power(Limbs.fromNaturalNumber(n),
+                Limbs.fromNaturalNumber(p));
+        Limbs.toNaturalNumber(result, n);
+    }
+
+}
@@ -0,0 +1,297 @@
+import components.naturalnumber.NaturalNumber;
+import components.naturalnumber.NaturalNumberSecondary;
+
+/**
+ * {@code NaturalNumber} represented as a packed array of binary 32-bit limbs,
+ * with implementations of primary methods, and of the arithmetic secondary
+ * methods that dominate {@code CryptoUtilities}: multiplication switches to
+ * Karatsuba's method for long operands and division is Knuth's Algorithm D.
+ *
+ * @convention <pre>
+ * [every entry of $this.limbs is treated as an unsigned 32-bit value]  and
+ * |$this.limbs| = 0  or  $this.limbs[|$this.limbs| - 1] /= 0  and
+ * [$this.limbs is never modified after it is assigned]
+ * </pre>
+ * @correspondence <pre>
+ * this = [sum of $this.limbs[i] * 2^(32 * i), for 0 <= i < |$this.limbs|]
+ * </pre>
+ *
+ * @author Jesse Shields
+ *
+ */
+public class NaturalNumber3 extends NaturalNumberSecondary {
+
+    /*
+     * Private members --------------------------------------------------------
+     */
+
+    /**
+     * Radix of the decimal view required by the kernel.
+     */
+    private static final int RADIX = 10;
+
+    /**
+     * Representation of {@code this}: little-endian limbs.
+     */
+    private int[] limbs;
+
+    /**
+     * Creator of initial representation.
+     */
+    private void createNewRep() {
+        this.limbs = Limbs.ZERO;
+    }
+
+    /**
+     * Returns the limbs of {@code n}, sharing the representation when
+     * {@code n} is a {@code NaturalNumber3}.
+     *
+     * @param n
+     *            the number
+     * @return normalized limbs of n, not to be modified
+     */
+    private static int[] limbsOf(NaturalNumber n) {
+        int[] result;
+        if (n instanceof NaturalNumber3) {
+            result = ((NaturalNumber3) n).limbs;
+        } else {
+            result = Limbs.fromNaturalNumber(n);
+        }
+        return result;
+    }
+
+    /*
+     * Constructors -----------------------------------------------------------
+     */
+
+    /**
+     * No-argument constructor.
+     */
+    public NaturalNumber3() {
+        this.createNewRep();
+    }
+
+    /**
+     * Constructor from {@code int}.
+     *
+     * @param i
+     *            {@code int} to initialize from
+     */
+    public NaturalNumber3(int i) {
+        assert i >= 0 : "Violation of: i >= 0";
+        this.limbs = Limbs.fromLong(i);
+    }
+
+    /**
+     * Constructor from {@code String}.
+     *
+     * @param s
+     *            {@code String} to initialize from
+     */
+    public NaturalNumber3(String s) {
+        assert s != null : "Violation of: s is not null";
+        assert s.matches("0|[1-9]\\d*") : ""
+                + "Violation of: there exists n: NATURAL (s = TO_STRING(n))";
+        this.limbs = Limbs.fromDecimalString(s);
+    }
+
+    /**
+     * Constructor from {@code NaturalNumber}.
+     *
+     * @param n
+     *            {@code NaturalNumber} to initialize from
+     */
+    public NaturalNumber3(NaturalNumber n) {
+        assert n != null : "Violation of: n is not null";
+        this.limbs = limbsOf(n);
+    }
+
+    /*
+     * Package-private access for the limb-based algorithms -------------------
+     */
+
+    /**
+     * Returns the limbs of {@code this}.
+     *
+     * @return normalized limbs of this, not to be modified
+     */
+    final int[] limbs() {
+        return this.limbs;
+    }
+
+    /**
+     * Sets {@code this} to the value of {@code a}.
+     *
+     * @param a
+     *            limbs of the new value; not to be modified afterwards
+     * @replaces this
+     */
+    final void setLimbs(int[] a) {
+        this.limbs = Limbs.normalize(a, a.length);
+    }
+
+    /*
+     * Standard methods -------------------------------------------------------
+     */
+
+    @Override
+    public final NaturalNumber newInstance() {
+        try {
+            return this.getClass().getConstructor().newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new AssertionError(
+                    "Cannot construct object of type " + this.getClass());
+        }
+    }
+
+    @Override
+    public final void clear() {
+        this.createNewRep();
+    }
+
+    @Override
+    public final void transferFrom(NaturalNumber source) {
+        assert source != null : "Violation of: source is not null";
+        assert source != this : "Violation of: source is not this";
+        assert source instanceof NaturalNumber3 : ""
+                + "Violation of: source is of dynamic type NaturalNumber3";
+        NaturalNumber3 localSource = (NaturalNumber3) source;
+        this.limbs = localSource.limbs;
+        localSource.createNewRep();
+    }
+
+    @Override
+    public final String toString() {
+        return Limbs.toDecimalString(this.limbs);
+    }
+
+    /*
+     * Kernel methods ---------------------------------------------------------
+     */
+
+    @Override
+    public final void multiplyBy10(int k) {
+        assert 0 <= k : "Violation of: 0 <= k";
+        assert k < RADIX : "Violation of: k < 10";
+        this.limbs = Limbs.multiplyAddSmall(this.limbs, RADIX, k);
+    }
+
+    @Override
+    public final int divideBy10() {
+        int[] quotient = this.limbs.clone();
+        int remainder = Limbs.divideSmallInPlace(quotient, quotient.length, RADIX);
+        this.limbs = Limbs.normalize(quotient, quotient.length);
+        return remainder;
+    }
+
+    @Override
+    public final boolean isZero() {
+        return this.limbs.length == 0;
+    }
+
+    /*
+     * Secondary methods overridden for speed ---------------------------------
+     */
+
+    @Override
+    public final void setFromInt(int i) {
+        assert i >= 0 : "Violation of: i >= 0";
+        this.limbs = Limbs.fromLong(i);
+    }
+
+    @Override
+    public final boolean canConvertToInt() {
+        return this.limbs.length == 0 || (this.limbs.length == 1 && this.limbs[0] >= 0);
+    }
+
+    @Override
+    public final int toInt() {
+        assert this.canConvertToInt() : ""
+                + "Violation of: Integer.MIN_VALUE <= this <= Integer.MAX_VALUE";
+        int result = 0;
+        if (this.limbs.length > 0) {
+            result = this.limbs[0];
+        }
+        return result;
+    }
+
+    @Override
+    public final void setFromString(String s) {
+        assert s != null : "Violation of: s is not null";
+        assert this.canSetFromString(s) : ""
+                + "Violation of: there exists n: NATURAL (s = TO_STRING(n))";
+        this.limbs = Limbs.fromDecimalString(s);
+    }
+
+    @Override
+    public final void copyFrom(NaturalNumber n) {
+        assert n != null : "Violation of: n is not null";
+        this.limbs = limbsOf(n);
+    }
+
+    @Override
+    public final int compareTo(NaturalNumber n) {
+        assert n != null : "Violation of: n is not null";
+        return Limbs.compare(this.limbs, limbsOf(n));
+    }
+
+    @Override
+    public final void increment() {
+        this.limbs = Limbs.add(this.limbs, Limbs.fromLong(1));
+    }
+
+    @Override
+    public final void decrement() {
+        assert !this.isZero() : "Violation of: this > 0";
+        this.limbs = Limbs.subtract(this.limbs, Limbs.fromLong(1));
+    }
+
+    @Override
+    public final void add(NaturalNumber n) {
+        assert n != null : "Violation of: n is not null";
+        this.limbs = Limbs.add(this.limbs, limbsOf(n));
+    }
+
+    @Override
+    public final void subtract(NaturalNumber n) {
+        assert n != null : "Violation of: n is not null";
+        assert this.compareTo(n) >= 0 : "Violation of: this >= n";
+        this.limbs = Limbs.subtract(this.limbs, limbsOf(n));
+    }
+
+    @Override
+    public final void multiply(NaturalNumber n) {
+        assert n != null : "Violation of: n is not null";
+        this.limbs = Limbs.multiply(this.limbs, limbsOf(n));
+    }
+
+    @Override
+    public final NaturalNumber divide(NaturalNumber n) {
+        assert n != null : "Violation of: n is not null";
+        assert !n.isZero() : "Violation of: n > 0";
+        int[][] quotientAndRemainder = Limbs.divide(this.limbs, limbsOf(n));
+        this.limbs = quotientAndRemainder[0];
+        NaturalNumber3 remainder = (NaturalNumber3) this.newInstance();
+        remainder.limbs = quotientAndRemainder[1];
+        return remainder;
+    }
+
+    @Override
+    public final void power(int p) {
+        assert p >= 0 : "Violation of: p >= 0";
+        int[] result = Limbs.fromLong(1);
+        int[] square = this.limbs;
+        int remaining = p;
+        while (remaining > 0) {
+            if ((remaining & 1) != 0) {
+                result = Limbs.multiply(result, square);
+            }
+            remaining >>>= 1;
+            if (remaining > 0) {
+                square = Limbs.multiply(square, square);
+            }
+        }
+        this.limbs = result;
+    }
+
+}
@@ -0,0 +1,488 @@
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import components.naturalnumber.NaturalNumber;
+
+/**
+ * Generates batches of likely primes of a given bit length on a fixed-size
+ * pool of worker threads.
+ *
+ * <p>
+ * Workers claim chunks from a shared counter, which only spreads the work and
+ * bounds it; each chunk then starts at its own random odd number with the top
+ * bit set and runs {@code CHUNK_CANDIDATES} candidates from there through a
+ * {@code PrimeSieve} and then the Miller-Rabin test. Drawing a fresh start
+ * for every chunk keeps the primes of one batch spread over the whole range,
+ * rather than a run of consecutive primes close enough to one another to
+ * give away an RSA modulus built from two of them. Chunks may overlap, so a
+ * prime found twice is only delivered once. Primes found are handed to the
+ * consumer through a small bounded queue: a worker that finds primes faster
+ * than they are consumed waits for room instead of running ahead.
+ * </p>
+ *
+ * <p>
+ * The returned stream ends after {@code count} primes, when the deadline of
+ * the request passes, or when it is closed, whichever comes first; in the
+ * last two cases it may hold fewer than {@code count} primes. Closing the
+ * stream (or the generator) stops its workers, so a stream that is not read
+ * to the end should be closed.
+ * </p>
+ *
+ * @author Jesse Shields
+ *
+ */
+public final class PrimeGenerator implements AutoCloseable {
+
+    /**
+     * Smallest bit length a request may ask for; below this the range holds
+     * too few primes to be worth the machinery.
+     */
+    public static final int MIN_BITS = 16;
+
+    /**
+     * Odd candidates per chunk claimed by a worker.
+     */
+    private static final int CHUNK_CANDIDATES = 1024;
+
+    /**
+     * Span of the numbers a chunk covers.
+     */
+    private static final long CHUNK_SPAN = 2L * CHUNK_CANDIDATES;
+
+    /**
+     * How long a blocked worker or consumer waits before checking again
+     * whether its request was cancelled or ran out of time.
+     */
+    private static final long POLL_MILLIS = 10;
+
+    /**
+     * Worker threads.
+     */
+    private final ExecutorService pool;
+
+    /**
+     * Number of worker threads, and number of tasks each request runs.
+     */
+    private final int threads;
+
+    /**
+     * Primality tester for the sieve survivors.
+     */
+    private final MillerRabin millerRabin;
+
+    /**
+     * Counters updated by every request.
+     */
+    private final PrimeSearchMetrics metrics;
+
+    /**
+     * Set by {@code close}.
+     */
+    private final AtomicBoolean closed = new AtomicBoolean();
+
+    /**
+     * Constructor with one worker per available processor, recording into
+     * {@code CryptoUtilities.primeSearchMetrics()}.
+     */
+    public PrimeGenerator() {
+        this(Runtime.getRuntime().availableProcessors(),
+                CryptoUtilities.primeSearchMetrics());
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param threads
+     *            number of worker threads
+     * @param metrics
+     *            counters to update
+     * @requires threads > 0
+     */
+    public PrimeGenerator(int threads, PrimeSearchMetrics metrics) {
+        assert threads > 0 : "Violation of: threads > 0";
+        assert metrics != null : "Violation of: metrics is not null";
+        this.threads = threads;
+        this.metrics = metrics;
+        this.millerRabin = new MillerRabin();
+        this.pool = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "PrimeGenerator worker");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Returns a stream of {@code count} distinct likely primes, each exactly
+     * {@code bits} bits long, with no deadline.
+     *
+     * @param bits
+     *            bit length of each prime
+     * @param count
+     *            number of primes wanted
+     * @return the stream of likely primes
+     * @requires bits >= MIN_BITS and count >= 0 and [this is not closed]
+     * @ensures <pre>
+     * [generate holds count distinct numbers in [2^(bits-1), 2^bits), each
+     *  very likely a prime number, unless the stream is closed first]
+     * </pre>
+     */
+    public Stream<NaturalNumber> generate(int bits, int count) {
+        return this.start(bits, count, Long.MAX_VALUE, false);
+    }
+
+    /**
+     * Returns a stream of at most {@code count} distinct likely primes, each
+     * exactly {@code bits} bits long, that ends once {@code timeout} has
+     * passed.
+     *
+     * @param bits
+     *            bit length of each prime
+     * @param count
+     *            number of primes wanted
+     * @param timeout
+     *            time allowed for the whole request
+     * @param unit
+     *            unit of timeout
+     * @return the stream of likely primes
+     * @requires <pre>
+     * bits >= MIN_BITS  and  count >= 0  and  timeout >= 0  and
+     * [this is not closed]
+     * </pre>
+     * @ensures <pre>
+     * [generate holds at most count distinct numbers in [2^(bits-1), 2^bits),
+     *  each very likely a prime number, all found within timeout]
+     * </pre>
+     */
+    public Stream<NaturalNumber> generate(int bits, int count, long timeout,
+            TimeUnit unit) {
+        assert timeout >= 0 : "Violation of: timeout >= 0";
+        assert unit != null : "Violation of: unit is not null";
+        return this.start(bits, count, System.nanoTime() + unit.toNanos(timeout), true);
+    }
+
+    /**
+     * Stops every worker and releases the threads. Streams still open end at
+     * their next element.
+     */
+    @Override
+    public void close() {
+        this.closed.set(true);
+        this.pool.shutdownNow();
+    }
+
+    /**
+     * Starts the workers for one request and returns its stream.
+     *
+     * @param bits
+     *            bit length of each prime
+     * @param count
+     *            number of primes wanted
+     * @param deadline
+     *            {@code System.nanoTime()} value at which the request ends
+     * @param hasDeadline
+     *            whether deadline applies
+     * @return the stream of likely primes
+     */
+    private Stream<NaturalNumber> start(int bits, int count, long deadline,
+            boolean hasDeadline) {
+        assert bits >= MIN_BITS : "Violation of: bits >= MIN_BITS";
+        assert count >= 0 : "Violation of: count >= 0";
+        Request request = new Request(bits, count, deadline, hasDeadline);
+        if (count > 0) {
+            request.active.set(this.threads);
+            for (int i = 0; i < this.threads; i++) {
+                this.pool.execute(request::search);
+            }
+        }
+        return StreamSupport.stream(request, false).onClose(request::cancel);
+    }
+
+    /**
+     * Returns a random odd number in [2^(bits-1), 2^bits), the first candidate
+     * of a chunk.
+     *
+     * @param bits
+     *            bit length of the result
+     * @return limbs of the random starting point
+     * @requires bits >= 2
+     */
+    private static int[] randomBase(int bits) {
+        int[] top = Limbs.shiftLeft(Limbs.fromLong(1), bits - 1);
+        int[] bound = Limbs.subtract(top, Limbs.fromLong(1));
+        int[] base = Limbs.add(top, Limbs.random(bound, CryptoUtilities.randomSource()));
+        if (!Limbs.isOdd(base)) {
+            base = Limbs.add(base, Limbs.fromLong(1));
+        }
+        return base;
+    }
+
+    /**
+     * One call to {@code generate}: the state its workers share, and the
+     * consumer side of its stream.
+     */
+    private final class Request extends Spliterators.AbstractSpliterator<NaturalNumber> {
+
+        /**
+         * Bit length of each prime.
+         */
+        private final int bits;
+
+        /**
+         * Number of primes wanted.
+         */
+        private final int count;
+
+        /**
+         * {@code System.nanoTime()} value at which the request ends.
+         */
+        private final long deadline;
+
+        /**
+         * Whether {@code deadline} applies.
+         */
+        private final boolean hasDeadline;
+
+        /**
+         * Number of chunks the range of bit length bits holds, and so the
+         * number searched before the request gives up on finding count
+         * primes.
+         */
+        private final long chunks;
+
+        /**
+         * Next chunk to be claimed.
+         */
+        private final AtomicLong nextChunk = new AtomicLong();
+
+        /**
+         * Primes offered so far, so that one found in two overlapping chunks
+         * is delivered only once.
+         */
+        private final Set<NaturalNumber> offered = ConcurrentHashMap.newKeySet();
+
+        /**
+         * Primes claimed by workers so far; a worker only offers a prime once
+         * it has claimed one of the count slots.
+         */
+        private final AtomicInteger claimed = new AtomicInteger();
+
+        /**
+         * Workers still searching.
+         */
+        private final AtomicInteger active = new AtomicInteger();
+
+        /**
+         * Set once the request is closed or complete.
+         */
+        private final AtomicBoolean cancelled = new AtomicBoolean();
+
+        /**
+         * Primes found and not yet consumed.
+         */
+        private final BlockingQueue<NaturalNumber> found;
+
+        /**
+         * Primes consumed so far (consumer thread only).
+         */
+        private int delivered;
+
+        /**
+         * Constructor.
+         *
+         * @param bits
+         *            bit length of each prime
+         * @param count
+         *            number of primes wanted
+         * @param deadline
+         *            {@code System.nanoTime()} value at which the request
+         *            ends
+         * @param hasDeadline
+         *            whether deadline applies
+         */
+        Request(int bits, int count, long deadline, boolean hasDeadline) {
+            super(count, Spliterator.DISTINCT | Spliterator.NONNULL);
+            this.bits = bits;
+            this.count = count;
+            this.deadline = deadline;
+            this.hasDeadline = hasDeadline;
+            int shift = bits - 1 - Long.numberOfTrailingZeros(CHUNK_SPAN);
+            if (shift < Long.SIZE - 1) {
+                this.chunks = 1L << shift;
+            } else {
+                this.chunks = Long.MAX_VALUE;
+            }
+            this.found = new ArrayBlockingQueue<>(PrimeGenerator.this.threads);
+            this.delivered = 0;
+        }
+
+        /**
+         * Stops the workers of this request.
+         */
+        void cancel() {
+            this.cancelled.set(true);
+        }
+
+        /**
+         * Reports whether this request or the whole generator was closed.
+         *
+         * @return true iff the request was cancelled or the generator closed
+         */
+        private boolean isCancelled() {
+            return this.cancelled.get() || PrimeGenerator.this.closed.get();
+        }
+
+        /**
+         * Reports whether the calling worker should give up on this request,
+         * even on a prime it has already claimed.
+         *
+         * @return true iff the request was cancelled, ran out of time, or the
+         *         calling worker was interrupted
+         */
+        private boolean abandoned() {
+            return this.isCancelled() || Thread.currentThread().isInterrupted()
+                    || (this.hasDeadline && System.nanoTime() - this.deadline >= 0);
+        }
+
+        /**
+         * Reports whether the workers of this request should stop searching.
+         *
+         * @return true iff the request was abandoned, or all count primes have
+         *         been claimed
+         */
+        private boolean stopped() {
+            return this.abandoned() || this.claimed.get() >= this.count;
+        }
+
+        /**
+         * Body of one worker: claims chunks and searches them until the
+         * request is satisfied, stopped, or out of candidates.
+         */
+        void search() {
+            try {
+                boolean done = false;
+                long lastPrime = System.nanoTime();
+                while (!done) {
+                    if (this.nextChunk.getAndIncrement() >= this.chunks) {
+                        /*
+                         * As many chunks as the range holds have been
+                         * searched
+                         */
+                        done = true;
+                    }
+                    PrimeSieve sieve = done ? null
+                            : new PrimeSieve(randomBase(this.bits));
+                    boolean chunkDone = done;
+                    for (int i = 0; i < CHUNK_CANDIDATES && !chunkDone; i++) {
+                        if (this.stopped()) {
+                            done = true;
+                            chunkDone = true;
+                        } else {
+                            boolean survives = sieve.survives();
+                            PrimeGenerator.this.metrics.recordCandidate(!survives);
+                            if (survives) {
+                                int[] candidate = sieve.candidate();
+                                if (Limbs.bitLength(candidate) > this.bits) {
+                                    /*
+                                     * The chunk ran past the top of the range
+                                     */
+                                    chunkDone = true;
+                                } else if (PrimeGenerator.this.millerRabin
+                                        .isProbablePrime(candidate)) {
+                                    long now = System.nanoTime();
+                                    PrimeGenerator.this.metrics
+                                            .recordPrime(now - lastPrime);
+                                    lastPrime = now;
+                                    done = !this.offer(candidate);
+                                    chunkDone = done;
+                                }
+                            }
+                            sieve.advance(2);
+                        }
+                    }
+                }
+            } finally {
+                this.active.decrementAndGet();
+            }
+        }
+
+        /**
+         * Hands {@code prime} to the consumer, waiting for room in the queue,
+         * unless it was offered before.
+         *
+         * @param prime
+         *            limbs of the prime found
+         * @return true iff the worker should keep searching
+         */
+        private boolean offer(int[] prime) {
+            NaturalNumber3 p = new NaturalNumber3();
+            p.setLimbs(prime);
+            boolean keepGoing = true;
+            if (this.offered.add(p)) {
+                keepGoing = this.claimed.getAndIncrement() < this.count;
+                if (keepGoing) {
+                    boolean queued = false;
+                    try {
+                        while (!queued && keepGoing) {
+                            queued = this.found.offer(p, POLL_MILLIS,
+                                    TimeUnit.MILLISECONDS);
+                            keepGoing = !this.abandoned();
+                        }
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        keepGoing = false;
+                    }
+                    keepGoing = keepGoing && this.claimed.get() < this.count;
+                }
+            }
+            return keepGoing;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super NaturalNumber> action) {
+            NaturalNumber next = null;
+            boolean ended = this.delivered >= this.count;
+            try {
+                while (next == null && !ended) {
+                    next = this.found.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                    if (next == null) {
+                        /*
+                         * Workers put before they retire, so once none is
+                         * active an empty queue stays empty
+                         */
+                        ended = this.isCancelled()
+                                || (this.active.get() == 0 && this.found.isEmpty())
+                                || (this.hasDeadline
+                                        && System.nanoTime() - this.deadline >= 0);
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                ended = true;
+            }
+            if (next != null) {
+                this.delivered++;
+                action.accept(next);
+                ended = this.delivered >= this.count;
+            }
+            if (ended) {
+                this.cancel();
+            }
+            return next != null;
+        }
+
+    }
+
+}
@@ -0,0 +1,142 @@
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Running counters for prime searches: how many candidates were looked at,
+ * how many of those the small-prime sieve rejected, how many went on to the
+ * probabilistic test, and the time spent per prime found. Safe to update from
+ * several threads at once.
+ *
+ * @author Jesse Shields
+ *
+ */
+public final class PrimeSearchMetrics {
+
+    /**
+     * Candidates examined.
+     */
+    private final LongAdder candidates = new LongAdder();
+
+    /**
+     * Candidates rejected by the sieve.
+     */
+    private final LongAdder sieveRejections = new LongAdder();
+
+    /**
+     * Candidates sent to the probabilistic test.
+     */
+    private final LongAdder probabilisticTests = new LongAdder();
+
+    /**
+     * Likely primes found.
+     */
+    private final LongAdder primes = new LongAdder();
+
+    /**
+     * Total time spent searching, in nanoseconds.
+     */
+    private final LongAdder nanos = new LongAdder();
+
+    /**
+     * Records one candidate and whether the sieve rejected it.
+     *
+     * @param rejected
+     *            true iff the sieve found a small factor
+     */
+    void recordCandidate(boolean rejected) {
+        this.candidates.increment();
+        if (rejected) {
+            this.sieveRejections.increment();
+        } else {
+            this.probabilisticTests.increment();
+        }
+    }
+
+    /**
+     * Records one completed search.
+     *
+     * @param elapsedNanos
+     *            time the search took
+     */
+    void recordPrime(long elapsedNanos) {
+        this.primes.increment();
+        this.nanos.add(elapsedNanos);
+    }
+
+    /**
+     * Returns the number of candidates examined.
+     *
+     * @return candidates examined
+     */
+    public long candidates() {
+        return this.candidates.sum();
+    }
+
+    /**
+     * Returns the number of candidates sent to the probabilistic test.
+     *
+     * @return probabilistic tests run
+     */
+    public long probabilisticTests() {
+        return this.probabilisticTests.sum();
+    }
+
+    /**
+     * Returns the number of likely primes found.
+     *
+     * @return primes found
+     */
+    public long primes() {
+        return this.primes.sum();
+    }
+
+    /**
+     * Returns the fraction of candidates the sieve rejected.
+     *
+     * @return sieve rejections / candidates, or 0 if there were none
+     */
+    public double sieveRejectionRate() {
+        long total = this.candidates.sum();
+        double rate = 0;
+        if (total > 0) {
+            rate = (double) this.sieveRejections.sum() / total;
+        }
+        return rate;
+    }
+
+    /**
+     * Returns the average search time per prime found.
+     *
+     * @return nanoseconds per prime, or 0 if none were found
+     */
+    public double nanosPerPrime() {
+        long found = this.primes.sum();
+        double average = 0;
+        if (found > 0) {
+            average = (double) this.nanos.sum() / found;
+        }
+        return average;
+    }
+
+    /**
+     * Resets every counter to zero.
+     */
+    public void reset() {
+        this.candidates.reset();
+        this.sieveRejections.reset();
+        this.probabilisticTests.reset();
+        this.primes.reset();
+        this.nanos.reset();
+    }
+
+    @Override
+    public String toString() {
+        final double percent = 100.0;
+        final double nanosPerMilli = 1e6;
+        return String.format(
+                "primes = %d, candidates = %d, sieve rejected %.1f%%,"
+                        + " probabilistic tests = %d, %.3f ms per prime",
+                this.primes(), this.candidates(), percent * this.sieveRejectionRate(),
+                this.probabilisticTests(), this.nanosPerPrime() / nanosPerMilli);
+    }
+
+}
@@ -0,0 +1,152 @@
+/**
+ * Incremental trial-division sieve over the odd candidates {@code start},
+ * {@code start + step}, {@code start + 2 * step}, ... The residues of
+ * {@code start} modulo the first {@code SMALL_PRIME_COUNT} odd primes are
+ * computed once; moving to the next candidate then only adds {@code step} to
+ * each residue, so rejecting a candidate with a small factor never touches
+ * the (possibly very long) candidate itself.
+ *
+ * @author Jesse Shields
+ *
+ */
+final class PrimeSieve {
+
+    /**
+     * Number of odd primes sieved by.
+     */
+    static final int SMALL_PRIME_COUNT = 2048;
+
+    /**
+     * The first {@code SMALL_PRIME_COUNT} odd primes, 3, 5, 7, ...
+     */
+    private static final int[] SMALL_PRIMES = oddPrimes(SMALL_PRIME_COUNT);
+
+    /**
+     * Limbs of the first candidate.
+     */
+    private final int[] start;
+
+    /**
+     * Value of the first candidate when it fits in a long, or -1.
+     */
+    private final long smallStart;
+
+    /**
+     * Residue of the current candidate modulo each of {@code SMALL_PRIMES}.
+     */
+    private final int[] residues;
+
+    /**
+     * Current candidate minus the first one.
+     */
+    private long offset;
+
+    /**
+     * Constructor.
+     *
+     * @param start
+     *            limbs of the first candidate
+     * @requires start is odd
+     */
+    PrimeSieve(int[] start) {
+        assert Limbs.isOdd(start) : "Violation of: start is odd";
+        final int longBits = 63;
+        this.start = start.clone();
+        long small = -1;
+        if (Limbs.bitLength(start) < longBits) {
+            small = 0;
+            for (int i = start.length - 1; i >= 0; i--) {
+                small = (small << Limbs.LIMB_BITS) | (start[i] & Limbs.MASK);
+            }
+        }
+        this.smallStart = small;
+        this.residues = new int[SMALL_PRIMES.length];
+        for (int i = 0; i < SMALL_PRIMES.length; i++) {
+            this.residues[i] = Limbs.modSmall(start, SMALL_PRIMES[i]);
+        }
+        this.offset = 0;
+    }
+
+    /**
+     * Returns the odd primes, in increasing order, up to the {@code count}-th
+     * one, by the sieve of Eratosthenes.
+     *
+     * @param count
+     *            number of odd primes wanted
+     * @return the first count odd primes
+     * @requires count > 0
+     */
+    private static int[] oddPrimes(int count) {
+        /*
+         * The count-th prime is below count * (ln count + ln ln count) for
+         * count >= 6; the extra slack covers smaller counts
+         */
+        final int slack = 16;
+        double logCount = Math.log(count + 1);
+        int limit = (int) (count * (logCount + Math.log(logCount + 1))) + slack;
+        boolean[] composite = new boolean[limit + 1];
+        int[] primes = new int[count];
+        int found = 0;
+        for (int i = 3; i <= limit && found < count; i += 2) {
+            if (!composite[i]) {
+                primes[found] = i;
+                found++;
+                for (long j = (long) i * i; j <= limit; j += 2L * i) {
+                    composite[(int) j] = true;
+                }
+            }
+        }
+        assert found == count : "sieve limit too small";
+        return primes;
+    }
+
+    /**
+     * Reports whether the current candidate has no factor among the small
+     * primes, other than itself.
+     *
+     * @return true iff the current candidate survives trial division
+     */
+    boolean survives() {
+        boolean survives = true;
+        for (int i = 0; i < this.residues.length && survives; i++) {
+            if (this.residues[i] == 0) {
+                /*
+                 * Divisible by a small prime: only survives by being it
+                 */
+                survives = this.smallStart >= 0
+                        && this.smallStart + this.offset == SMALL_PRIMES[i];
+            }
+        }
+        return survives;
+    }
+
+    /**
+     * Moves on to the candidate {@code step} past the current one.
+     *
+     * @param step
+     *            distance to the next candidate
+     * @requires step > 0 and step is even
+     */
+    void advance(int step) {
+        assert step > 0 : "Violation of: step > 0";
+        assert step % 2 == 0 : "Violation of: step is even";
+        for (int i = 0; i < this.residues.length; i++) {
+            int r = this.residues[i] + step % SMALL_PRIMES[i];
+            if (r >= SMALL_PRIMES[i]) {
+                r -= SMALL_PRIMES[i];
+            }
+            this.residues[i] = r;
+        }
+        this.offset += step;
+    }
+
+    /**
+     * Returns the current candidate.
+     *
+     * @return limbs of the current candidate
+     */
+    int[] candidate() {
+        return Limbs.add(this.start, Limbs.fromLong(this.offset));
+    }
+
+}
@@ -0,0 +1,38 @@
+/**
+ * Source of uniformly distributed random 32-bit words, the service behind
+ * {@code CryptoUtilities.randomNumber}. Implementations must be safe to call
+ * from several threads at once.
+ *
+ * @author Jesse Shields
+ *
+ */
+public interface RandomSource {
+
+    /**
+     * Returns a random 32-bit word.
+     *
+     * @return the next random word
+     * @ensures <pre>
+     * [nextWord is uniformly distributed over all int values]
+     * </pre>
+     */
+    int nextWord();
+
+    /**
+     * Fills {@code words} with random 32-bit words.
+     *
+     * @param words
+     *            the array to fill
+     * @replaces words
+     * @ensures <pre>
+     * [every entry of words is uniformly distributed over all int values]
+     * </pre>
+     */
+    default void nextWords(int[] words) {
+        assert words != null : "Violation of: words is not null";
+        for (int i = 0; i < words.length; i++) {
+            words[i] = this.nextWord();
+        }
+    }
+
+}
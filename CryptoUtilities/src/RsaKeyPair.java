@@ -0,0 +1,401 @@
+import java.util.Arrays;
+
+import components.naturalnumber.NaturalNumber;
+
+/**
+ * RSA key pair: modulus {@code n = p * q}, public exponent {@code e} and
+ * private exponent {@code d}, with the Chinese Remainder Theorem components
+ * {@code dp = d mod (p - 1)}, {@code dq = d mod (q - 1)} and
+ * {@code qInv = q^(-1) mod p}.
+ *
+ * <p>
+ * Private-key operations (decryption and signing) work modulo p and q
+ * separately, with exponents half as long, and recombine the results; that is
+ * about four times faster than a single exponentiation modulo n. The
+ * Montgomery contexts for n, p and q are built once, when the key pair is
+ * created, and shared by every operation, including the batch operations,
+ * which spread their messages over the common fork-join pool.
+ * </p>
+ *
+ * <p>
+ * The operations are raw ("textbook") RSA on numbers less than n; padding
+ * belongs to the caller.
+ * </p>
+ *
+ * @author Jesse Shields
+ *
+ */
+public final class RsaKeyPair {
+
+    /**
+     * Public exponent used by {@code generate}.
+     */
+    public static final int DEFAULT_PUBLIC_EXPONENT = 65537;
+
+    /**
+     * Smallest modulus bit length {@code generate} accepts.
+     */
+    public static final int MIN_BITS = 64;
+
+    /**
+     * Batches at least this long are processed in parallel.
+     */
+    private static final int PARALLEL_BATCH = 4;
+
+    /**
+     * Limbs of the modulus n.
+     */
+    private final int[] n;
+
+    /**
+     * Limbs of the public exponent e.
+     */
+    private final int[] e;
+
+    /**
+     * Limbs of the private exponent d.
+     */
+    private final int[] d;
+
+    /**
+     * Limbs of the prime p.
+     */
+    private final int[] p;
+
+    /**
+     * Limbs of the prime q.
+     */
+    private final int[] q;
+
+    /**
+     * Limbs of d mod (p - 1).
+     */
+    private final int[] dp;
+
+    /**
+     * Limbs of d mod (q - 1).
+     */
+    private final int[] dq;
+
+    /**
+     * Limbs of q^(-1) mod p.
+     */
+    private final int[] qInv;
+
+    /**
+     * Montgomery context for n.
+     */
+    private final MontgomeryContext nContext;
+
+    /**
+     * Montgomery context for p.
+     */
+    private final MontgomeryContext pContext;
+
+    /**
+     * Montgomery context for q.
+     */
+    private final MontgomeryContext qContext;
+
+    /**
+     * Builds the key pair with primes {@code p} and {@code q} and public
+     * exponent {@code e}.
+     *
+     * @param p
+     *            one prime
+     * @param q
+     *            the other prime
+     * @param e
+     *            the public exponent
+     * @requires <pre>
+     * p and q are distinct odd primes  and  e > 1  and
+     * gcd(e, (p - 1) * (q - 1)) = 1
+     * </pre>
+     */
+    public RsaKeyPair(NaturalNumber p, NaturalNumber q, NaturalNumber e) {
+        assert p != null : "Violation of: p is not null";
+        assert q != null : "Violation of: q is not null";
+        assert e != null : "Violation of: e is not null";
+        int[] pLimbs = Limbs.fromNaturalNumber(p).clone();
+        int[] qLimbs = Limbs.fromNaturalNumber(q).clone();
+        assert Limbs.compare(pLimbs, qLimbs) != 0 : "Violation of: p /= q";
+        assert Limbs.isOdd(pLimbs) && Limbs.isOdd(qLimbs) : ""
+                + "Violation of: p and q are odd primes";
+        /*
+         * Keep p > q, so that qInv is computed modulo the larger prime
+         */
+        if (Limbs.compare(pLimbs, qLimbs) < 0) {
+            int[] t = pLimbs;
+            pLimbs = qLimbs;
+            qLimbs = t;
+        }
+        int[] one = Limbs.fromLong(1);
+        int[] pMinusOne = Limbs.subtract(pLimbs, one);
+        int[] qMinusOne = Limbs.subtract(qLimbs, one);
+        /*
+         * d is the inverse of e modulo lcm(p - 1, q - 1), the smallest
+         * exponent that works
+         */
+        int[] lambda = Limbs.divide(Limbs.multiply(pMinusOne, qMinusOne),
+                Gcd.gcd(pMinusOne, qMinusOne))[0];
+        this.e = Limbs.fromNaturalNumber(e).clone();
+        this.d = Gcd.inverse(this.e, lambda);
+        assert this.d != null : "Violation of: gcd(e, (p - 1) * (q - 1)) = 1";
+        this.p = pLimbs;
+        this.q = qLimbs;
+        this.n = Limbs.multiply(pLimbs, qLimbs);
+        this.dp = Limbs.divide(this.d, pMinusOne)[1];
+        this.dq = Limbs.divide(this.d, qMinusOne)[1];
+        this.qInv = Gcd.inverse(qLimbs, pLimbs);
+        this.nContext = new MontgomeryContext(this.n);
+        this.pContext = new MontgomeryContext(this.p);
+        this.qContext = new MontgomeryContext(this.q);
+    }
+
+    /**
+     * Generates a new key pair with a modulus of exactly {@code bits} bits and
+     * public exponent {@code DEFAULT_PUBLIC_EXPONENT}. The primes come from
+     * {@code CryptoUtilities.generateNextLikelyPrime}, started at random
+     * points drawn from {@code CryptoUtilities.randomSource()}.
+     *
+     * @param bits
+     *            bit length of the modulus
+     * @return the new key pair
+     * @requires bits >= MIN_BITS
+     */
+    public static RsaKeyPair generate(int bits) {
+        assert bits >= MIN_BITS : "Violation of: bits >= MIN_BITS";
+        int[] e = Limbs.fromLong(DEFAULT_PUBLIC_EXPONENT);
+        int[] p = randomPrime((bits + 1) / 2, e);
+        int[] q = randomPrime(bits / 2, e);
+        while (Limbs.compare(p, q) == 0) {
+            q = randomPrime(bits / 2, e);
+        }
+        NaturalNumber3 pNN = new NaturalNumber3();
+        pNN.setLimbs(p);
+        NaturalNumber3 qNN = new NaturalNumber3();
+        qNN.setLimbs(q);
+        return new RsaKeyPair(pNN, qNN, new NaturalNumber3(DEFAULT_PUBLIC_EXPONENT));
+    }
+
+    /**
+     * Returns a random likely prime of exactly {@code bits} bits, with its top
+     * two bits set, such that {@code p - 1} is coprime to {@code e}. Setting
+     * the top two bits of both primes makes their product exactly as long as
+     * the two lengths together.
+     *
+     * @param bits
+     *            bit length of the prime
+     * @param e
+     *            limbs of the public exponent
+     * @return limbs of the prime
+     * @requires bits >= 3
+     */
+    private static int[] randomPrime(int bits, int[] e) {
+        final int topBits = 3;
+        int[] one = Limbs.fromLong(1);
+        int[] topTwo = Limbs.shiftLeft(Limbs.fromLong(topBits), bits - 2);
+        NaturalNumber3 bound = new NaturalNumber3();
+        bound.setLimbs(Limbs.subtract(Limbs.shiftLeft(one, bits - 2), one));
+        int[] result = null;
+        while (result == null) {
+            NaturalNumber candidate = CryptoUtilities.randomNumber(bound);
+            NaturalNumber3 start = new NaturalNumber3();
+            start.setLimbs(Limbs.add(topTwo, Limbs.fromNaturalNumber(candidate)));
+            CryptoUtilities.generateNextLikelyPrime(start);
+            int[] prime = start.limbs();
+            if (Limbs.bitLength(prime) == bits && Limbs.compare(
+                    Gcd.gcd(Limbs.subtract(prime, one), e), one) == 0) {
+                result = prime;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns a copy of the modulus n.
+     *
+     * @return n
+     */
+    public NaturalNumber modulus() {
+        return toNaturalNumber(this.n);
+    }
+
+    /**
+     * Returns a copy of the public exponent e.
+     *
+     * @return e
+     */
+    public NaturalNumber publicExponent() {
+        return toNaturalNumber(this.e);
+    }
+
+    /**
+     * Returns a copy of the private exponent d.
+     *
+     * @return d
+     */
+    public NaturalNumber privateExponent() {
+        return toNaturalNumber(this.d);
+    }
+
+    /**
+     * Returns the bit length of the modulus.
+     *
+     * @return number of bits in n
+     */
+    public int bitLength() {
+        return Limbs.bitLength(this.n);
+    }
+
+    /**
+     * Returns a new {@code NaturalNumber3} with value {@code a}.
+     *
+     * @param a
+     *            normalized limbs
+     * @return the new number
+     */
+    private static NaturalNumber toNaturalNumber(int[] a) {
+        NaturalNumber3 result = new NaturalNumber3();
+        result.setLimbs(a.clone());
+        return result;
+    }
+
+    /**
+     * Encrypts {@code message} with the public key.
+     *
+     * @param message
+     *            plaintext, replaced by the ciphertext
+     * @updates message
+     * @requires message < [modulus of this]
+     * @ensures message = #message ^ e mod n
+     */
+    public void encrypt(NaturalNumber message) {
+        assert message != null : "Violation of: message is not null";
+        int[] m = Limbs.fromNaturalNumber(message);
+        assert Limbs.compare(m, this.n) < 0 : "Violation of: message < n";
+        Limbs.toNaturalNumber(this.nContext.power(m, this.e), message);
+    }
+
+    /**
+     * Decrypts {@code ciphertext} with the private key.
+     *
+     * @param ciphertext
+     *            ciphertext, replaced by the plaintext
+     * @updates ciphertext
+     * @requires ciphertext < [modulus of this]
+     * @ensures ciphertext = #ciphertext ^ d mod n
+     */
+    public void decrypt(NaturalNumber ciphertext) {
+        assert ciphertext != null : "Violation of: ciphertext is not null";
+        int[] c = Limbs.fromNaturalNumber(ciphertext);
+        assert Limbs.compare(c, this.n) < 0 : "Violation of: ciphertext < n";
+        Limbs.toNaturalNumber(this.privatePower(c), ciphertext);
+    }
+
+    /**
+     * Signs {@code message} with the private key; the same operation as
+     * {@code decrypt}.
+     *
+     * @param message
+     *            message, replaced by its signature
+     * @updates message
+     * @requires message < [modulus of this]
+     * @ensures message = #message ^ d mod n
+     */
+    public void sign(NaturalNumber message) {
+        this.decrypt(message);
+    }
+
+    /**
+     * Reports whether {@code signature} is a valid signature of
+     * {@code message}.
+     *
+     * @param signature
+     *            the signature
+     * @param message
+     *            the message
+     * @return true iff signature ^ e mod n = message
+     * @requires signature < [modulus of this]
+     */
+    public boolean verify(NaturalNumber signature, NaturalNumber message) {
+        assert signature != null : "Violation of: signature is not null";
+        assert message != null : "Violation of: message is not null";
+        int[] s = Limbs.fromNaturalNumber(signature);
+        assert Limbs.compare(s, this.n) < 0 : "Violation of: signature < n";
+        return Limbs.compare(this.nContext.power(s, this.e),
+                Limbs.fromNaturalNumber(message)) == 0;
+    }
+
+    /**
+     * Decrypts every entry of {@code ciphertexts}; long batches are spread
+     * over the common fork-join pool.
+     *
+     * @param ciphertexts
+     *            ciphertexts, each replaced by its plaintext
+     * @updates ciphertexts
+     * @requires <pre>
+     * [the entries of ciphertexts are distinct objects, each less than the
+     *  modulus of this]
+     * </pre>
+     * @ensures <pre>
+     * [each entry of ciphertexts = its old value ^ d mod n]
+     * </pre>
+     */
+    public void decryptAll(NaturalNumber[] ciphertexts) {
+        assert ciphertexts != null : "Violation of: ciphertexts is not null";
+        if (ciphertexts.length >= PARALLEL_BATCH) {
+            Arrays.stream(ciphertexts).parallel().forEach(this::decrypt);
+        } else {
+            for (NaturalNumber c : ciphertexts) {
+                this.decrypt(c);
+            }
+        }
+    }
+
+    /**
+     * Signs every entry of {@code messages}; long batches are spread over the
+     * common fork-join pool.
+     *
+     * @param messages
+     *            messages, each replaced by its signature
+     * @updates messages
+     * @requires <pre>
+     * [the entries of messages are distinct objects, each less than the
+     *  modulus of this]
+     * </pre>
+     * @ensures <pre>
+     * [each entry of messages = its old value ^ d mod n]
+     * </pre>
+     */
+    public void signAll(NaturalNumber[] messages) {
+        this.decryptAll(messages);
+    }
+
+    /**
+     * Returns {@code c ^ d mod n} by the Chinese Remainder Theorem (Garner's
+     * formula).
+     *
+     * @param c
+     *            limbs of the ciphertext
+     * @return normalized limbs of c ^ d mod n
+     * @requires c < n
+     */
+    private int[] privatePower(int[] c) {
+        int[] m1 = this.pContext.power(c, this.dp);
+        int[] m2 = this.qContext.power(c, this.dq);
+        /*
+         * m = m2 + q * (qInv * (m1 - m2) mod p); m2 < q < p, so m1 - m2 mod p
+         * needs at most one addition of p
+         */
+        int[] difference;
+        if (Limbs.compare(m1, m2) >= 0) {
+            difference = Limbs.subtract(m1, m2);
+        } else {
+            difference = Limbs.subtract(Limbs.add(m1, this.p), m2);
+        }
+        int[] h = Limbs.divide(Limbs.multiply(this.qInv, difference), this.p)[1];
+        return Limbs.add(m2, Limbs.multiply(h, this.q));
+    }
+
+}
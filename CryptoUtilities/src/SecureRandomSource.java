@@ -0,0 +1,63 @@
+import java.security.SecureRandom;
+
+/**
+ * {@code RandomSource} backed by a cryptographically strong
+ * {@code SecureRandom}; the right choice for anything that ends up in a key.
+ *
+ * @author Jesse Shields
+ *
+ */
+public final class SecureRandomSource implements RandomSource {
+
+    /**
+     * Bytes per 32-bit word.
+     */
+    private static final int WORD_BYTES = 4;
+
+    /**
+     * The generator; {@code SecureRandom} is itself thread-safe.
+     */
+    private final SecureRandom random;
+
+    /**
+     * Constructor with a default-seeded {@code SecureRandom}.
+     */
+    public SecureRandomSource() {
+        this(new SecureRandom());
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param random
+     *            the generator to draw from
+     */
+    public SecureRandomSource(SecureRandom random) {
+        assert random != null : "Violation of: random is not null";
+        this.random = random;
+    }
+
+    @Override
+    public int nextWord() {
+        return this.random.nextInt();
+    }
+
+    @Override
+    public void nextWords(int[] words) {
+        assert words != null : "Violation of: words is not null";
+        /*
+         * One call for all the bytes: SecureRandom synchronizes per call
+         */
+        byte[] bytes = new byte[WORD_BYTES * words.length];
+        this.random.nextBytes(bytes);
+        final int byteMask = 0xFF;
+        for (int i = 0; i < words.length; i++) {
+            int word = 0;
+            for (int j = 0; j < WORD_BYTES; j++) {
+                word = (word << Byte.SIZE) | (bytes[WORD_BYTES * i + j] & byteMask);
+            }
+            words[i] = word;
+        }
+    }
+
+}
@@ -0,0 +1,77 @@
+import java.util.SplittableRandom;
+
+/**
+ * Fast {@code RandomSource} that gives each thread its own
+ * {@code SplittableRandom}, split off one root generator, so parallel callers
+ * never contend. Not cryptographically strong: use it for Miller-Rabin
+ * witnesses, tests and benchmarks, never for key material.
+ *
+ * @author Jesse Shields
+ *
+ */
+public final class SplittableRandomSource implements RandomSource {
+
+    /**
+     * Generator every per-thread generator is split from; guarded by itself.
+     */
+    private final SplittableRandom root;
+
+    /**
+     * Per-thread generators.
+     */
+    private final ThreadLocal<SplittableRandom> local;
+
+    /**
+     * Constructor with a randomly seeded root generator.
+     */
+    public SplittableRandomSource() {
+        this(new SplittableRandom());
+    }
+
+    /**
+     * Constructor with a fixed seed, for reproducible runs (on one thread).
+     *
+     * @param seed
+     *            seed of the root generator
+     */
+    public SplittableRandomSource(long seed) {
+        this(new SplittableRandom(seed));
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param root
+     *            generator every per-thread generator is split from
+     */
+    private SplittableRandomSource(SplittableRandom root) {
+        this.root = root;
+        this.local = ThreadLocal.withInitial(this::split);
+    }
+
+    /**
+     * Returns a new generator split off the root.
+     *
+     * @return the new generator
+     */
+    private SplittableRandom split() {
+        synchronized (this.root) {
+            return this.root.split();
+        }
+    }
+
+    @Override
+    public int nextWord() {
+        return this.local.get().nextInt();
+    }
+
+    @Override
+    public void nextWords(int[] words) {
+        assert words != null : "Violation of: words is not null";
+        SplittableRandom random = this.local.get();
+        for (int i = 0; i < words.length; i++) {
+            words[i] = random.nextInt();
+        }
+    }
+
+}
@@ -0,0 +1,32 @@
+import components.naturalnumber.NaturalNumber;
+import components.naturalnumber.NaturalNumber2;
+
+/**
+ * Runs the {@code CryptoUtilities} tests on {@code NaturalNumber2}.
+ *
+ * @author Jesse Shields
+ *
+ */
+public class CryptoUtilitiesNaturalNumber2Test extends CryptoUtilitiesTest {
+
+    @Override
+    protected final NaturalNumber constructorTest() {
+        return new NaturalNumber2();
+    }
+
+    @Override
+    protected final NaturalNumber constructorTest(int i) {
+        return new NaturalNumber2(i);
+    }
+
+    @Override
+    protected final NaturalNumber constructorTest(String s) {
+        return new NaturalNumber2(s);
+    }
+
+    @Override
+    protected final NaturalNumber constructorTest(NaturalNumber n) {
+        return new NaturalNumber2(n);
+    }
+
+}
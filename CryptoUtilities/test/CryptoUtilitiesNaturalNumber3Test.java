@@ -0,0 +1,31 @@
+import components.naturalnumber.NaturalNumber;
+
+/**
+ * Runs the {@code CryptoUtilities} tests on {@code NaturalNumber3}.
+ *
+ * @author Jesse Shields
+ *
+ */
+public class CryptoUtilitiesNaturalNumber3Test extends CryptoUtilitiesTest {
+
+    @Override
+    protected final NaturalNumber constructorTest() {
+        return new NaturalNumber3();
+    }
+
+    @Override
+    protected final NaturalNumber constructorTest(int i) {
+        return new NaturalNumber3(i);
+    }
+
+    @Override
+    protected final NaturalNumber constructorTest(String s) {
+        return new NaturalNumber3(s);
+    }
+
+    @Override
+    protected final NaturalNumber constructorTest(NaturalNumber n) {
+        return new NaturalNumber3(n);
+    }
+
+}
@@ -3,21 +3,67 @@ import static org.junit.Assert.assertEquals;
 import org.junit.Test;
 
 import components.naturalnumber.NaturalNumber;
-import components.naturalnumber.NaturalNumber2;
 
 /**
+ * Tests of {@code CryptoUtilities}, run on each {@code NaturalNumber}
+ * implementation by a subclass.
+ *
  * @author Jesse Shields
  *
  */
-public class CryptoUtilitiesTest {
+public abstract class CryptoUtilitiesTest {
+
+    /**
+     * Invokes the appropriate {@code NaturalNumber} constructor for the
+     * implementation under test and returns the result.
+     *
+     * @return the new number
+     * @ensures constructorTest = 0
+     */
+    protected abstract NaturalNumber constructorTest();
+
+    /**
+     * Invokes the appropriate {@code NaturalNumber} constructor for the
+     * implementation under test and returns the result.
+     *
+     * @param i
+     *            {@code int} to initialize from
+     * @return the new number
+     * @requires i >= 0
+     * @ensures constructorTest = i
+     */
+    protected abstract NaturalNumber constructorTest(int i);
+
+    /**
+     * Invokes the appropriate {@code NaturalNumber} constructor for the
+     * implementation under test and returns the result.
+     *
+     * @param s
+     *            {@code String} to initialize from
+     * @return the new number
+     * @requires there exists n: NATURAL (s = TO_STRING(n))
+     * @ensures s = TO_STRING(constructorTest)
+     */
+    protected abstract NaturalNumber constructorTest(String s);
+
+    /**
+     * Invokes the appropriate {@code NaturalNumber} constructor for the
+     * implementation under test and returns the result.
+     *
+     * @param n
+     *            {@code NaturalNumber} to initialize from
+     * @return the new number
+     * @ensures constructorTest = n
+     */
+    protected abstract NaturalNumber constructorTest(NaturalNumber n);
 
     //Lower boundary test
     @Test
     public void testReduceToGCD_0_0() {
-        NaturalNumber n = new NaturalNumber2(0);
-        NaturalNumber nExpected = new NaturalNumber2(0);
-        NaturalNumber m = new NaturalNumber2(0);
-        NaturalNumber mExpected = new NaturalNumber2(0);
+        NaturalNumber n = this.constructorTest(0);
+        NaturalNumber nExpected = this.constructorTest(0);
+        NaturalNumber m = this.constructorTest(0);
+        NaturalNumber mExpected = this.constructorTest(0);
         CryptoUtilities.reduceToGCD(n, m);
         assertEquals(nExpected, n);
         assertEquals(mExpected, m);
@@ -26,10 +72,10 @@ public class CryptoUtilitiesTest {
     //Routine test
     @Test
     public void testReduceToGCD_30_21() {
-        NaturalNumber n = new NaturalNumber2(30);
-        NaturalNumber nExpected = new NaturalNumber2(3);
-        NaturalNumber m = new NaturalNumber2(21);
-        NaturalNumber mExpected = new NaturalNumber2(0);
+        NaturalNumber n = this.constructorTest(30);
+        NaturalNumber nExpected = this.constructorTest(3);
+        NaturalNumber m = this.constructorTest(21);
+        NaturalNumber mExpected = this.constructorTest(0);
         CryptoUtilities.reduceToGCD(n, m);
         assertEquals(nExpected, n);
         assertEquals(mExpected, m);
@@ -38,22 +84,75 @@ public class CryptoUtilitiesTest {
     //Challenging test where the GCD is 1
     @Test
     public void testReduceToGCD_41_9() {
-        NaturalNumber n = new NaturalNumber2(41);
-        NaturalNumber nExpected = new NaturalNumber2(1);
-        NaturalNumber m = new NaturalNumber2(9);
-        NaturalNumber mExpected = new NaturalNumber2(0);
+        NaturalNumber n = this.constructorTest(41);
+        NaturalNumber nExpected = this.constructorTest(1);
+        NaturalNumber m = this.constructorTest(9);
+        NaturalNumber mExpected = this.constructorTest(0);
         CryptoUtilities.reduceToGCD(n, m);
         assertEquals(nExpected, n);
         assertEquals(mExpected, m);
     }
 
+    //Challenging test on consecutive Fibonacci numbers, Euclid's worst case
+    @Test
+    public void testReduceToGCD_fibonacci2000_fibonacci1999() {
+        NaturalNumber n = this.constructorTest(1);
+        NaturalNumber m = this.constructorTest(0);
+        for (int i = 1; i < 2000; i++) {
+            NaturalNumber next = this.constructorTest(n);
+            next.add(m);
+            m.transferFrom(n);
+            n.transferFrom(next);
+        }
+        CryptoUtilities.reduceToGCD(n, m);
+        assertEquals(this.constructorTest(1), n);
+        assertEquals(this.constructorTest(0), m);
+    }
+
+    //Challenging test where the GCD itself spans several limbs
+    @Test
+    public void testReduceToGCD_3times2pow200_9times2pow150() {
+        NaturalNumber n = this.constructorTest(2);
+        n.power(200);
+        n.multiply(this.constructorTest(3));
+        NaturalNumber m = this.constructorTest(2);
+        m.power(150);
+        m.multiply(this.constructorTest(9));
+        NaturalNumber nExpected = this.constructorTest(2);
+        nExpected.power(150);
+        nExpected.multiply(this.constructorTest(3));
+        CryptoUtilities.reduceToGCD(n, m);
+        assertEquals(nExpected, n);
+        assertEquals(this.constructorTest(0), m);
+    }
+
+    //Routine test of inverseMod: the textbook RSA example e = 17, phi = 3120
+    @Test
+    public void testInverseMod_17_3120() {
+        NaturalNumber n = this.constructorTest(17);
+        NaturalNumber m = this.constructorTest(3120);
+        CryptoUtilities.inverseMod(n, m);
+        assertEquals(this.constructorTest(2753), n);
+        assertEquals(this.constructorTest(3120), m);
+    }
+
+    //Boundary test of hasInverseMod with a common factor
+    @Test
+    public void testHasInverseMod_6_9() {
+        NaturalNumber n = this.constructorTest(6);
+        NaturalNumber m = this.constructorTest(9);
+        assertEquals(false, CryptoUtilities.hasInverseMod(n, m));
+        assertEquals(this.constructorTest(6), n);
+        assertEquals(this.constructorTest(9), m);
+    }
+
     //Challenging test where both numbers are the same
     @Test
     public void testReduceToGCD_10_10() {
-        NaturalNumber n = new NaturalNumber2(10);
-        NaturalNumber nExpected = new NaturalNumber2(10);
-        NaturalNumber m = new NaturalNumber2(10);
-        NaturalNumber mExpected = new NaturalNumber2(0);
+        NaturalNumber n = this.constructorTest(10);
+        NaturalNumber nExpected = this.constructorTest(10);
+        NaturalNumber m = this.constructorTest(10);
+        NaturalNumber mExpected = this.constructorTest(0);
         CryptoUtilities.reduceToGCD(n, m);
         assertEquals(nExpected, n);
         assertEquals(mExpected, m);
@@ -62,10 +161,10 @@ public class CryptoUtilitiesTest {
     //Routine test with larger number as second parameter
     @Test
     public void testReduceToGCD_21_30() {
-        NaturalNumber n = new NaturalNumber2(21);
-        NaturalNumber nExpected = new NaturalNumber2(3);
-        NaturalNumber m = new NaturalNumber2(30);
-        NaturalNumber mExpected = new NaturalNumber2(0);
+        NaturalNumber n = this.constructorTest(21);
+        NaturalNumber nExpected = this.constructorTest(3);
+        NaturalNumber m = this.constructorTest(30);
+        NaturalNumber mExpected = this.constructorTest(0);
         CryptoUtilities.reduceToGCD(n, m);
         assertEquals(nExpected, n);
         assertEquals(mExpected, m);
@@ -78,8 +177,8 @@ public class CryptoUtilitiesTest {
     //Boundary test for lowest even number, and boundary of NN
     @Test
     public void testIsEven_0() {
-        NaturalNumber n = new NaturalNumber2(0);
-        NaturalNumber nExpected = new NaturalNumber2(0);
+        NaturalNumber n = this.constructorTest(0);
+        NaturalNumber nExpected = this.constructorTest(0);
         boolean result = CryptoUtilities.isEven(n);
         assertEquals(nExpected, n);
         assertEquals(true, result);
@@ -88,8 +187,8 @@ public class CryptoUtilitiesTest {
     //Boundary test for lowest odd number
     @Test
     public void testIsEven_1() {
-        NaturalNumber n = new NaturalNumber2(1);
-        NaturalNumber nExpected = new NaturalNumber2(1);
+        NaturalNumber n = this.constructorTest(1);
+        NaturalNumber nExpected = this.constructorTest(1);
         boolean result = CryptoUtilities.isEven(n);
         assertEquals(nExpected, n);
         assertEquals(false, result);
@@ -98,8 +197,8 @@ public class CryptoUtilitiesTest {
     //Routine test for even non-0
     @Test
     public void testIsEven_20() {
-        NaturalNumber n = new NaturalNumber2(20);
-        NaturalNumber nExpected = new NaturalNumber2(20);
+        NaturalNumber n = this.constructorTest(20);
+        NaturalNumber nExpected = this.constructorTest(20);
         boolean result = CryptoUtilities.isEven(n);
         assertEquals(nExpected, n);
         assertEquals(true, result);
@@ -108,8 +207,8 @@ public class CryptoUtilitiesTest {
     //Routine test for odd non-boundary
     @Test
     public void testIsEven_21() {
-        NaturalNumber n = new NaturalNumber2(21);
-        NaturalNumber nExpected = new NaturalNumber2(21);
+        NaturalNumber n = this.constructorTest(21);
+        NaturalNumber nExpected = this.constructorTest(21);
         boolean result = CryptoUtilities.isEven(n);
         assertEquals(nExpected, n);
         assertEquals(false, result);
@@ -122,12 +221,12 @@ public class CryptoUtilitiesTest {
     //Boundary test for lower boundary
     @Test
     public void testPowerMod_0_0_2() {
-        NaturalNumber n = new NaturalNumber2(0);
-        NaturalNumber nExpected = new NaturalNumber2(1);
-        NaturalNumber p = new NaturalNumber2(0);
-        NaturalNumber pExpected = new NaturalNumber2(0);
-        NaturalNumber m = new NaturalNumber2(2);
-        NaturalNumber mExpected = new NaturalNumber2(2);
+        NaturalNumber n = this.constructorTest(0);
+        NaturalNumber nExpected = this.constructorTest(1);
+        NaturalNumber p = this.constructorTest(0);
+        NaturalNumber pExpected = this.constructorTest(0);
+        NaturalNumber m = this.constructorTest(2);
+        NaturalNumber mExpected = this.constructorTest(2);
         CryptoUtilities.powerMod(n, p, m);
         assertEquals(nExpected, n);
         assertEquals(pExpected, p);
@@ -137,12 +236,12 @@ public class CryptoUtilitiesTest {
     //Routine test of 17,18,19, output is 1
     @Test
     public void testPowerMod_17_18_19() {
-        NaturalNumber n = new NaturalNumber2(17);
-        NaturalNumber nExpected = new NaturalNumber2(1);
-        NaturalNumber p = new NaturalNumber2(18);
-        NaturalNumber pExpected = new NaturalNumber2(18);
-        NaturalNumber m = new NaturalNumber2(19);
-        NaturalNumber mExpected = new NaturalNumber2(19);
+        NaturalNumber n = this.constructorTest(17);
+        NaturalNumber nExpected = this.constructorTest(1);
+        NaturalNumber p = this.constructorTest(18);
+        NaturalNumber pExpected = this.constructorTest(18);
+        NaturalNumber m = this.constructorTest(19);
+        NaturalNumber mExpected = this.constructorTest(19);
         CryptoUtilities.powerMod(n, p, m);
         assertEquals(nExpected, n);
         assertEquals(pExpected, p);
@@ -152,28 +251,77 @@ public class CryptoUtilitiesTest {
     //Routine test where output isn't 1
     @Test
     public void testPowerMod_15_6_6() {
-        NaturalNumber n = new NaturalNumber2(15);
-        NaturalNumber nExpected = new NaturalNumber2(3);
-        NaturalNumber p = new NaturalNumber2(6);
-        NaturalNumber pExpected = new NaturalNumber2(6);
-        NaturalNumber m = new NaturalNumber2(6);
-        NaturalNumber mExpected = new NaturalNumber2(6);
+        NaturalNumber n = this.constructorTest(15);
+        NaturalNumber nExpected = this.constructorTest(3);
+        NaturalNumber p = this.constructorTest(6);
+        NaturalNumber pExpected = this.constructorTest(6);
+        NaturalNumber m = this.constructorTest(6);
+        NaturalNumber mExpected = this.constructorTest(6);
         CryptoUtilities.powerMod(n, p, m);
         assertEquals(nExpected, n);
         assertEquals(pExpected, p);
         assertEquals(mExpected, m);
     }
 
+    //Challenging test with a modulus larger than one machine word
+    @Test
+    public void testPowerMod_123456789_65537_2pow127minus1() {
+        NaturalNumber n = this.constructorTest(123456789);
+        NaturalNumber nExpected = this.constructorTest(
+                "142853123101158166119999597599049700840");
+        NaturalNumber p = this.constructorTest(65537);
+        NaturalNumber pExpected = this.constructorTest(65537);
+        NaturalNumber m = this.constructorTest("170141183460469231731687303715884105727");
+        NaturalNumber mExpected = this.constructorTest(
+                "170141183460469231731687303715884105727");
+        CryptoUtilities.powerMod(n, p, m);
+        assertEquals(nExpected, n);
+        assertEquals(pExpected, p);
+        assertEquals(mExpected, m);
+    }
+
+    //Routine test reusing one modulus context for two different bases
+    @Test
+    public void testMontgomeryContextPowerMod_reused() {
+        NaturalNumber m = this.constructorTest("998244359987710471");
+        MontgomeryContext context = new MontgomeryContext(m);
+        NaturalNumber p = this.constructorTest("998244359987710470");
+        NaturalNumber n1 = this.constructorTest(2);
+        NaturalNumber n1Expected = this.constructorTest("794623477669098139");
+        NaturalNumber n2 = this.constructorTest(12345);
+        NaturalNumber n2Expected = this.constructorTest("68807717092571577");
+        context.powerMod(n1, p);
+        context.powerMod(n2, p);
+        assertEquals(n1Expected, n1);
+        assertEquals(n2Expected, n2);
+    }
+
+    //Routine test of one fixed base raised to several exponents
+    @Test
+    public void testMontgomeryContextFixedBase_2() {
+        NaturalNumber m = this.constructorTest("998244359987710471");
+        MontgomeryContext context = new MontgomeryContext(m);
+        MontgomeryContext.FixedBase base = context.fixedBase(this.constructorTest(2),
+                64);
+        NaturalNumber result = this.constructorTest();
+        base.power(this.constructorTest(10), result);
+        assertEquals(this.constructorTest(1024), result);
+        base.power(this.constructorTest("998244359987710470"), result);
+        assertEquals(this.constructorTest("794623477669098139"), result);
+        base.power(this.constructorTest(0), result);
+        assertEquals(this.constructorTest(1), result);
+    }
+
     /*
      * Tests of isWitnessToCompositeness
      */
     //Routine test where result is true
     @Test
     public void testIsWitnessToCompositeness_5_20() {
-        NaturalNumber w = new NaturalNumber2(5);
-        NaturalNumber wExpected = new NaturalNumber2(5);
-        NaturalNumber n = new NaturalNumber2(20);
-        NaturalNumber nExpected = new NaturalNumber2(20);
+        NaturalNumber w = this.constructorTest(5);
+        NaturalNumber wExpected = this.constructorTest(5);
+        NaturalNumber n = this.constructorTest(20);
+        NaturalNumber nExpected = this.constructorTest(20);
         boolean result = CryptoUtilities.isWitnessToCompositeness(w, n);
         assertEquals(wExpected, w);
         assertEquals(nExpected, n);
@@ -183,10 +331,10 @@ public class CryptoUtilitiesTest {
     //Routine test where result is false
     @Test
     public void testIsWitnessToCompositeness_3_7() {
-        NaturalNumber w = new NaturalNumber2(3);
-        NaturalNumber wExpected = new NaturalNumber2(3);
-        NaturalNumber n = new NaturalNumber2(7);
-        NaturalNumber nExpected = new NaturalNumber2(7);
+        NaturalNumber w = this.constructorTest(3);
+        NaturalNumber wExpected = this.constructorTest(3);
+        NaturalNumber n = this.constructorTest(7);
+        NaturalNumber nExpected = this.constructorTest(7);
         boolean result = CryptoUtilities.isWitnessToCompositeness(w, n);
         assertEquals(wExpected, w);
         assertEquals(nExpected, n);
@@ -196,10 +344,10 @@ public class CryptoUtilitiesTest {
     //Lower boundary case where n = 4
     @Test
     public void testIsWitnessToCompositeness_2_4() {
-        NaturalNumber w = new NaturalNumber2(2);
-        NaturalNumber wExpected = new NaturalNumber2(2);
-        NaturalNumber n = new NaturalNumber2(4);
-        NaturalNumber nExpected = new NaturalNumber2(4);
+        NaturalNumber w = this.constructorTest(2);
+        NaturalNumber wExpected = this.constructorTest(2);
+        NaturalNumber n = this.constructorTest(4);
+        NaturalNumber nExpected = this.constructorTest(4);
         boolean result = CryptoUtilities.isWitnessToCompositeness(w, n);
         assertEquals(wExpected, w);
         assertEquals(nExpected, n);
@@ -212,8 +360,8 @@ public class CryptoUtilitiesTest {
     //Boundary test of n=2, smallest legal prime
     @Test
     public void testIsPrime1_2() {
-        NaturalNumber w = new NaturalNumber2(2);
-        NaturalNumber wExpected = new NaturalNumber2(2);
+        NaturalNumber w = this.constructorTest(2);
+        NaturalNumber wExpected = this.constructorTest(2);
         boolean result = CryptoUtilities.isPrime1(w);
         assertEquals(wExpected, w);
         assertEquals(true, result);
@@ -222,8 +370,8 @@ public class CryptoUtilitiesTest {
     //Routine test of a small prime
     @Test
     public void testIsPrime1_3() {
-        NaturalNumber w = new NaturalNumber2(3);
-        NaturalNumber wExpected = new NaturalNumber2(3);
+        NaturalNumber w = this.constructorTest(3);
+        NaturalNumber wExpected = this.constructorTest(3);
         boolean result = CryptoUtilities.isPrime1(w);
         assertEquals(wExpected, w);
         assertEquals(true, result);
@@ -232,8 +380,8 @@ public class CryptoUtilitiesTest {
     //Routine test of a small non-prime
     @Test
     public void testIsPrime1_10() {
-        NaturalNumber w = new NaturalNumber2(10);
-        NaturalNumber wExpected = new NaturalNumber2(10);
+        NaturalNumber w = this.constructorTest(10);
+        NaturalNumber wExpected = this.constructorTest(10);
         boolean result = CryptoUtilities.isPrime1(w);
         assertEquals(wExpected, w);
         assertEquals(false, result);
@@ -242,8 +390,8 @@ public class CryptoUtilitiesTest {
     //Challenging test of a large prime
     @Test
     public void testIsPrime1_54323() {
-        NaturalNumber w = new NaturalNumber2(54323);
-        NaturalNumber wExpected = new NaturalNumber2(54323);
+        NaturalNumber w = this.constructorTest(54323);
+        NaturalNumber wExpected = this.constructorTest(54323);
         boolean result = CryptoUtilities.isPrime1(w);
         assertEquals(wExpected, w);
         assertEquals(true, result);
@@ -252,8 +400,8 @@ public class CryptoUtilitiesTest {
     //Challenging test of a large non-prime
     @Test
     public void testIsPrime1_54321() {
-        NaturalNumber w = new NaturalNumber2(54321);
-        NaturalNumber wExpected = new NaturalNumber2(54321);
+        NaturalNumber w = this.constructorTest(54321);
+        NaturalNumber wExpected = this.constructorTest(54321);
         boolean result = CryptoUtilities.isPrime1(w);
         assertEquals(wExpected, w);
         assertEquals(false, result);
@@ -265,8 +413,8 @@ public class CryptoUtilitiesTest {
     //Boundary test of n=5, smallest legal prime
     @Test
     public void testIsPrime2_5() {
-        NaturalNumber w = new NaturalNumber2(5);
-        NaturalNumber wExpected = new NaturalNumber2(5);
+        NaturalNumber w = this.constructorTest(5);
+        NaturalNumber wExpected = this.constructorTest(5);
         boolean result = CryptoUtilities.isPrime2(w);
         assertEquals(wExpected, w);
         assertEquals(true, result);
@@ -275,8 +423,8 @@ public class CryptoUtilitiesTest {
     //Routine test of a small non-prime
     @Test
     public void testIsPrime2_10() {
-        NaturalNumber w = new NaturalNumber2(10);
-        NaturalNumber wExpected = new NaturalNumber2(10);
+        NaturalNumber w = this.constructorTest(10);
+        NaturalNumber wExpected = this.constructorTest(10);
         boolean result = CryptoUtilities.isPrime2(w);
         assertEquals(wExpected, w);
         assertEquals(false, result);
@@ -285,8 +433,8 @@ public class CryptoUtilitiesTest {
     //Challenging test of a large prime
     @Test
     public void testIsPrime2_54323() {
-        NaturalNumber w = new NaturalNumber2(54323);
-        NaturalNumber wExpected = new NaturalNumber2(54323);
+        NaturalNumber w = this.constructorTest(54323);
+        NaturalNumber wExpected = this.constructorTest(54323);
         boolean result = CryptoUtilities.isPrime2(w);
         assertEquals(wExpected, w);
         assertEquals(true, result);
@@ -295,12 +443,43 @@ public class CryptoUtilitiesTest {
     //Challenging test of a large non-prime
     @Test
     public void testIsPrime2_54321() {
-        NaturalNumber w = new NaturalNumber2(54321);
-        NaturalNumber wExpected = new NaturalNumber2(54321);
+        NaturalNumber w = this.constructorTest(54321);
+        NaturalNumber wExpected = this.constructorTest(54321);
+        boolean result = CryptoUtilities.isPrime2(w);
+        assertEquals(wExpected, w);
+        assertEquals(false, result);
+    }
+
+    //Challenging test of a Carmichael number, which fools the Fermat test
+    @Test
+    public void testIsPrime2_561() {
+        NaturalNumber w = this.constructorTest(561);
+        NaturalNumber wExpected = this.constructorTest(561);
         boolean result = CryptoUtilities.isPrime2(w);
         assertEquals(wExpected, w);
         assertEquals(false, result);
     }
+
+    //Challenging test of a prime too large for the deterministic bases
+    @Test
+    public void testIsPrime2_2pow127minus1() {
+        NaturalNumber w = this.constructorTest("170141183460469231731687303715884105727");
+        NaturalNumber wExpected = this.constructorTest(
+                "170141183460469231731687303715884105727");
+        boolean result = CryptoUtilities.isPrime2(w);
+        assertEquals(wExpected, w);
+        assertEquals(true, result);
+    }
+
+    //Challenging test of a large product of two primes, 2^61-1 and 2^89-1
+    @Test
+    public void testIsPrime2_2pow61minus1_times_2pow89minus1() {
+        NaturalNumber w = this.constructorTest(
+                "1427247692705959880439315947500961989719490561");
+        boolean result = CryptoUtilities.isPrime2(w);
+        assertEquals(false, result);
+    }
+
     /*
      * Tests of generateNextLikelyPrime
      */
@@ -308,8 +487,8 @@ public class CryptoUtilitiesTest {
     //Boundary case of smallest input n = 5
     @Test
     public void testGenerateNextLikelyPrime_5() {
-        NaturalNumber n = new NaturalNumber2(5);
-        NaturalNumber nExpected = new NaturalNumber2(5);
+        NaturalNumber n = this.constructorTest(5);
+        NaturalNumber nExpected = this.constructorTest(5);
         CryptoUtilities.generateNextLikelyPrime(n);
         assertEquals(n, nExpected);
     }
@@ -317,8 +496,8 @@ public class CryptoUtilitiesTest {
     //Routine test of an even number where n+1 isn't prime
     @Test
     public void testGenerateNextLikelyPrime_8() {
-        NaturalNumber n = new NaturalNumber2(8);
-        NaturalNumber nExpected = new NaturalNumber2(11);
+        NaturalNumber n = this.constructorTest(8);
+        NaturalNumber nExpected = this.constructorTest(11);
         CryptoUtilities.generateNextLikelyPrime(n);
         assertEquals(n, nExpected);
     }
@@ -326,8 +505,8 @@ public class CryptoUtilitiesTest {
     //Routine test of a larger odd number where n+2 isn't prime
     @Test
     public void testGenerateNextLikelyPrime_1233() {
-        NaturalNumber n = new NaturalNumber2(1233);
-        NaturalNumber nExpected = new NaturalNumber2(1237);
+        NaturalNumber n = this.constructorTest(1233);
+        NaturalNumber nExpected = this.constructorTest(1237);
         CryptoUtilities.generateNextLikelyPrime(n);
         assertEquals(n, nExpected);
     }
@@ -335,9 +514,50 @@ public class CryptoUtilitiesTest {
     //Challenging case of a large number whose next prime is 19 away
     @Test
     public void testGenerateNextLikelyPrime_10000000() {
-        NaturalNumber n = new NaturalNumber2(10000000);
-        NaturalNumber nExpected = new NaturalNumber2(10000019);
+        NaturalNumber n = this.constructorTest(10000000);
+        NaturalNumber nExpected = this.constructorTest(10000019);
         CryptoUtilities.generateNextLikelyPrime(n);
         assertEquals(n, nExpected);
     }
+
+    //Routine test of the metrics: 1000001 = 101 * 9901 falls to the sieve
+    @Test
+    public void testGenerateNextLikelyPrime_1000000_metrics() {
+        NaturalNumber n = this.constructorTest(1000000);
+        NaturalNumber nExpected = this.constructorTest(1000003);
+        PrimeSearchMetrics metrics = new PrimeSearchMetrics();
+        CryptoUtilities.generateNextLikelyPrime(n, metrics);
+        assertEquals(n, nExpected);
+        assertEquals(1, metrics.primes());
+        assertEquals(2, metrics.candidates());
+        assertEquals(1, metrics.probabilisticTests());
+    }
+
+    //Boundary test of randomNumber on [0, 1]: both values come up
+    @Test
+    public void testRandomNumber_1() {
+        NaturalNumber n = this.constructorTest(1);
+        RandomSource source = new SplittableRandomSource(2221);
+        int ones = 0;
+        for (int i = 0; i < 200; i++) {
+            NaturalNumber r = CryptoUtilities.randomNumber(n, source);
+            assertEquals(true, r.compareTo(n) <= 0);
+            ones += r.toInt();
+        }
+        assertEquals(this.constructorTest(1), n);
+        assertEquals(true, ones > 0 && ones < 200);
+    }
+
+    //Challenging test of randomNumber just above a limb boundary (2^64)
+    @Test
+    public void testRandomNumber_2pow64() {
+        NaturalNumber n = this.constructorTest("18446744073709551616");
+        NaturalNumber nExpected = this.constructorTest("18446744073709551616");
+        RandomSource source = new SplittableRandomSource(2221);
+        for (int i = 0; i < 100; i++) {
+            NaturalNumber r = CryptoUtilities.randomNumber(n, source);
+            assertEquals(true, r.compareTo(n) <= 0);
+        }
+        assertEquals(nExpected, n);
+    }
 }
@@ -0,0 +1,142 @@
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import components.naturalnumber.NaturalNumber;
+import components.naturalnumber.NaturalNumber2;
+
+/**
+ * @author Jesse Shields
+ *
+ */
+public class NaturalNumber3Test {
+
+    /*
+     * Tests of the kernel methods
+     */
+
+    //Boundary test of multiplyBy10 on zero
+    @Test
+    public void testMultiplyBy10_0_7() {
+        NaturalNumber n = new NaturalNumber3();
+        NaturalNumber nExpected = new NaturalNumber3(7);
+        n.multiplyBy10(7);
+        assertEquals(nExpected, n);
+    }
+
+    //Routine test of divideBy10 across a limb boundary (2^32 + 5)
+    @Test
+    public void testDivideBy10_4294967301() {
+        NaturalNumber n = new NaturalNumber3("4294967301");
+        NaturalNumber nExpected = new NaturalNumber3("429496730");
+        int digit = n.divideBy10();
+        assertEquals(nExpected, n);
+        assertEquals(1, digit);
+    }
+
+    //Boundary test of isZero after clear
+    @Test
+    public void testIsZero_clear() {
+        NaturalNumber n = new NaturalNumber3("123456789012345678901234567890");
+        n.clear();
+        assertEquals(true, n.isZero());
+    }
+
+    //Routine test of toString across several limbs, and of zero
+    @Test
+    public void testToString_multiLimb() {
+        NaturalNumber n = new NaturalNumber3("340282366920938463463374607431768211457");
+        assertEquals("340282366920938463463374607431768211457", n.toString());
+        n.clear();
+        assertEquals("0", n.toString());
+    }
+
+    /*
+     * Tests of the arithmetic secondary methods
+     */
+
+    //Routine test of add with a carry out of the top limb
+    @Test
+    public void testAdd_carry() {
+        NaturalNumber n = new NaturalNumber3("18446744073709551615");
+        NaturalNumber nExpected = new NaturalNumber3("18446744073709551616");
+        n.add(new NaturalNumber3(1));
+        assertEquals(nExpected, n);
+    }
+
+    //Routine test of subtract with a borrow through every limb
+    @Test
+    public void testSubtract_borrow() {
+        NaturalNumber n = new NaturalNumber3("18446744073709551616");
+        NaturalNumber nExpected = new NaturalNumber3("18446744073709551615");
+        n.subtract(new NaturalNumber3(1));
+        assertEquals(nExpected, n);
+    }
+
+    //Challenging test of multiply on operands long enough for Karatsuba
+    @Test
+    public void testMultiply_karatsuba() {
+        NaturalNumber n = new NaturalNumber3(3);
+        n.power(2000);
+        NaturalNumber product = new NaturalNumber3(n);
+        product.multiply(n);
+        NaturalNumber expected = new NaturalNumber3(3);
+        expected.power(4000);
+        assertEquals(expected, product);
+    }
+
+    //Challenging test of divide with a multi-limb divisor
+    @Test
+    public void testDivide_multiLimb() {
+        NaturalNumber n = new NaturalNumber3("340282366920938463463374607431768211457");
+        NaturalNumber d = new NaturalNumber3("18446744073709551617");
+        NaturalNumber qExpected = new NaturalNumber3("18446744073709551615");
+        NaturalNumber rExpected = new NaturalNumber3(2);
+        NaturalNumber r = n.divide(d);
+        assertEquals(qExpected, n);
+        assertEquals(rExpected, r);
+    }
+
+    //Routine test of conversion to and from the decimal implementation
+    @Test
+    public void testCopyFrom_NaturalNumber2() {
+        NaturalNumber n2 = new NaturalNumber2("98765432109876543210");
+        NaturalNumber n = new NaturalNumber3();
+        n.copyFrom(n2);
+        assertEquals("98765432109876543210", n.toString());
+    }
+
+    /*
+     * Tests of CryptoUtilities on NaturalNumber3 arguments
+     */
+
+    //Routine test of powerMod
+    @Test
+    public void testPowerMod_17_18_19() {
+        NaturalNumber n = new NaturalNumber3(17);
+        NaturalNumber p = new NaturalNumber3(18);
+        NaturalNumber m = new NaturalNumber3(19);
+        CryptoUtilities.powerMod(n, p, m);
+        assertEquals(new NaturalNumber3(1), n);
+        assertEquals(new NaturalNumber3(18), p);
+        assertEquals(new NaturalNumber3(19), m);
+    }
+
+    //Routine test of isEven on both sides of a limb boundary
+    @Test
+    public void testIsEven_4294967297() {
+        NaturalNumber n = new NaturalNumber3("4294967297");
+        assertEquals(false, CryptoUtilities.isEven(n));
+        n.increment();
+        assertEquals(true, CryptoUtilities.isEven(n));
+    }
+
+    //Challenging test of generateNextLikelyPrime
+    @Test
+    public void testGenerateNextLikelyPrime_10000000() {
+        NaturalNumber n = new NaturalNumber3(10000000);
+        CryptoUtilities.generateNextLikelyPrime(n);
+        assertEquals(new NaturalNumber3(10000019), n);
+    }
+
+}
@@ -0,0 +1,120 @@
+import static org.junit.Assert.assertEquals;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.Test;
+
+import components.naturalnumber.NaturalNumber;
+import components.naturalnumber.NaturalNumber2;
+
+/**
+ * @author Jesse Shields
+ *
+ */
+public class PrimeGeneratorTest {
+
+    /**
+     * How long after its deadline a stream may still take to end.
+     */
+    private static final long DEADLINE_SLACK_MILLIS = 1000;
+
+    //Routine test of a batch: right count, right length, distinct, all prime
+    @Test
+    public void testGenerate_64_20() {
+        try (PrimeGenerator generator = new PrimeGenerator(4,
+                new PrimeSearchMetrics())) {
+            List<NaturalNumber> primes = generator.generate(64, 20)
+                    .collect(Collectors.toList());
+            NaturalNumber low = new NaturalNumber2("9223372036854775808");
+            NaturalNumber high = new NaturalNumber2("18446744073709551616");
+            assertEquals(20, primes.size());
+            assertEquals(20, primes.stream().map(NaturalNumber::toString).distinct()
+                    .count());
+            for (NaturalNumber p : primes) {
+                assertEquals(true, p.compareTo(low) >= 0);
+                assertEquals(true, p.compareTo(high) < 0);
+                assertEquals(true, CryptoUtilities.isPrime2(p));
+            }
+        }
+    }
+
+    //Boundary test of a request for no primes
+    @Test
+    public void testGenerate_64_0() {
+        try (PrimeGenerator generator = new PrimeGenerator(2,
+                new PrimeSearchMetrics())) {
+            assertEquals(0, generator.generate(64, 0).count());
+        }
+    }
+
+    //Challenging test of a deadline that has already passed
+    @Test
+    public void testGenerate_deadline_0() {
+        try (PrimeGenerator generator = new PrimeGenerator(2,
+                new PrimeSearchMetrics())) {
+            long start = System.nanoTime();
+            long found = generator.generate(512, 1000, 0, TimeUnit.MILLISECONDS)
+                    .count();
+            long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            assertEquals(true, found < 1000);
+            assertEquals(true, elapsed < DEADLINE_SLACK_MILLIS);
+        }
+    }
+
+    //Challenging test that a stream ends at its deadline, not after it
+    @Test
+    public void testGenerate_deadline_200() {
+        try (PrimeGenerator generator = new PrimeGenerator(2,
+                new PrimeSearchMetrics())) {
+            long start = System.nanoTime();
+            long found = generator
+                    .generate(2048, 1000, 200, TimeUnit.MILLISECONDS).count();
+            long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            assertEquals(true, found < 1000);
+            assertEquals(true, elapsed >= 200);
+            assertEquals(true, elapsed < 200 + DEADLINE_SLACK_MILLIS);
+        }
+    }
+
+    //Routine test of a stream abandoned after a few primes
+    @Test
+    public void testGenerate_limit() {
+        PrimeSearchMetrics metrics = new PrimeSearchMetrics();
+        try (PrimeGenerator generator = new PrimeGenerator(2, metrics)) {
+            try (Stream<NaturalNumber> primes = generator.generate(128, 1000)) {
+                assertEquals(3, primes.limit(3).count());
+            }
+            assertEquals(true, metrics.primes() >= 3);
+        }
+    }
+
+    //Challenging test that a batch is spread over the range, far wider than
+    //the count * 2048 numbers a run of consecutive chunks would cover
+    @Test
+    public void testGenerate_128_20_spread() {
+        try (PrimeGenerator generator = new PrimeGenerator(4,
+                new PrimeSearchMetrics())) {
+            List<NaturalNumber> primes = generator.generate(128, 20)
+                    .collect(Collectors.toList());
+            NaturalNumber min = new NaturalNumber2(primes.get(0));
+            NaturalNumber max = new NaturalNumber2(primes.get(0));
+            for (NaturalNumber p : primes) {
+                if (p.compareTo(min) < 0) {
+                    min.copyFrom(p);
+                }
+                if (p.compareTo(max) > 0) {
+                    max.copyFrom(p);
+                }
+            }
+            max.subtract(min);
+            NaturalNumber narrow = new NaturalNumber2(2);
+            narrow.power(100);
+            assertEquals(20, primes.size());
+            assertEquals(true, max.compareTo(narrow) > 0);
+        }
+    }
+
+}
@@ -0,0 +1,68 @@
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import components.naturalnumber.NaturalNumber;
+import components.naturalnumber.NaturalNumber2;
+
+/**
+ * @author Jesse Shields
+ *
+ */
+public class RsaKeyPairTest {
+
+    //Routine test of the textbook key p = 61, q = 53, e = 17
+    @Test
+    public void testConstructor_61_53_17() {
+        RsaKeyPair key = new RsaKeyPair(new NaturalNumber2(61), new NaturalNumber2(53),
+                new NaturalNumber2(17));
+        assertEquals(new NaturalNumber2(3233), key.modulus());
+        assertEquals(new NaturalNumber2(17), key.publicExponent());
+        assertEquals(new NaturalNumber2(413), key.privateExponent());
+    }
+
+    //Routine test of encrypt then decrypt on the textbook key
+    @Test
+    public void testEncryptDecrypt_65() {
+        RsaKeyPair key = new RsaKeyPair(new NaturalNumber2(61), new NaturalNumber2(53),
+                new NaturalNumber2(17));
+        NaturalNumber m = new NaturalNumber2(65);
+        key.encrypt(m);
+        assertEquals(new NaturalNumber2(2790), m);
+        key.decrypt(m);
+        assertEquals(new NaturalNumber2(65), m);
+    }
+
+    //Challenging test of a generated key: length, round trip, signature
+    @Test
+    public void testGenerate_256() {
+        RsaKeyPair key = RsaKeyPair.generate(256);
+        assertEquals(256, key.bitLength());
+        NaturalNumber m = new NaturalNumber2("123456789012345678901234567890");
+        NaturalNumber c = new NaturalNumber2(m);
+        key.encrypt(c);
+        key.decrypt(c);
+        assertEquals(m, c);
+        NaturalNumber s = new NaturalNumber2(m);
+        key.sign(s);
+        assertEquals(true, key.verify(s, m));
+        s.increment();
+        assertEquals(false, key.verify(s, m));
+    }
+
+    //Routine test of the batch operation against one at a time
+    @Test
+    public void testDecryptAll_8() {
+        RsaKeyPair key = RsaKeyPair.generate(128);
+        NaturalNumber[] batch = new NaturalNumber[8];
+        for (int i = 0; i < batch.length; i++) {
+            batch[i] = new NaturalNumber2(1000 + i);
+            key.encrypt(batch[i]);
+        }
+        key.decryptAll(batch);
+        for (int i = 0; i < batch.length; i++) {
+            assertEquals(new NaturalNumber2(1000 + i), batch[i]);
+        }
+    }
+
+}
@@ -1,9 +1,15 @@
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.Comparator;
 
 import components.map.Map;
 import components.map.Map1L;
 import components.queue.Queue;
 import components.queue.Queue1L;
+import components.set.Set;
+import components.set.Set1L;
 import components.simplereader.SimpleReader;
 import components.simplereader.SimpleReader1L;
 import components.simplewriter.SimpleWriter;
@@ -16,6 +22,12 @@ import components.simplewriter.SimpleWriter1L;
  * If a term appears in a definition, it will be a hyperlink leading to that
  * term's definition
  *
+ * <p>
+ * Run with the argument {@code --incremental}, it rewrites only what changed
+ * since the last such run, as recorded in a manifest in the output folder
+ * (see {@code outputChangedFiles}).
+ * </p>
+ *
  * @author Jesse Shields
  */
 public final class Glossary {
@@ -27,6 +39,21 @@ public final class Glossary {
         // no code needed here
     }
 
+    /**
+     * Name of the manifest file in the output folder.
+     */
+    private static final String MANIFEST = "glossary.manifest";
+
+    /**
+     * First line of a manifest, naming its format.
+     */
+    private static final String MANIFEST_HEADER = "glossary-manifest 1";
+
+    /**
+     * Separator of the fields of a manifest line.
+     */
+    private static final String FIELD_SEPARATOR = "\t";
+
     /**
      * Prompts the user for the relative path to the file location and then
      * returns that address in a string.
@@ -221,17 +248,17 @@ public final class Glossary {
      * @return output Returns a String[] with every term as an element
      */
     public static String[] getTermList(Map<String, Queue<String>> dictionary) {
-        String str = "";
+        StringBuilder str = new StringBuilder();
         Map<String, Queue<String>> temp = dictionary.newInstance();
         temp.transferFrom(dictionary);
         while (temp.size() > 0) {
             Map.Pair<String, Queue<String>> p = temp.removeAny();
             //Uses ';' to split our term list into an array.
-            str += ";";
-            str += p.key();
+            str.append(';');
+            str.append(p.key());
             dictionary.add(p.key(), p.value());
         }
-        String[] output = str.split(";");
+        String[] output = str.toString().split(";");
         return output;
 
     }
@@ -371,11 +398,207 @@ public final class Glossary {
         out.println("</body>\n</html>");
     }
 
+    /**
+     * Returns the SHA-256 hash of {@code text}, in hexadecimal.
+     *
+     * @param text
+     *            the text to hash
+     * @return the hash of text
+     * @ensures contentHash = [64 hexadecimal digits of the SHA-256 hash of the
+     *          UTF-8 bytes of text]
+     */
+    public static String contentHash(String text) {
+        byte[] hash;
+        try {
+            hash = MessageDigest.getInstance("SHA-256")
+                    .digest(text.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            //Every Java platform is required to have SHA-256
+            throw new AssertionError("SHA-256 is not available", e);
+        }
+        StringBuilder hex = new StringBuilder();
+        for (byte b : hash) {
+            hex.append(String.format("%02x", b));
+        }
+        return hex.toString();
+    }
+
+    /**
+     * Takes a term, its definition and the set of every term, and returns what
+     * the manifest records about the term's page: the hash of the definition
+     * and, in alphabetical order, the terms the page links to. The page only
+     * has to be rewritten when this changes.
+     *
+     * @param term
+     *            the term the page is for
+     * @param definition
+     *            the term's definition, one word per entry
+     * @param termSet
+     *            every entry of getTermList for the dictionary
+     *
+     * @return the hash of definition, then each term linked to, separated by
+     *         tabs
+     * @ensures pageEntry = [the hash of the words of definition joined by
+     *          spaces, then the distinct words of definition that are in
+     *          termSet and are not term, in alphabetical order, each after a
+     *          tab]
+     */
+    public static String pageEntry(String term, Queue<String> definition,
+            Set<String> termSet) {
+        StringBuilder text = new StringBuilder();
+        Set<String> links = new Set1L<>();
+        for (String word : definition) {
+            if (text.length() > 0) {
+                text.append(" ");
+            }
+            text.append(word);
+            //The same words outputTermDefinition makes links of
+            if (termSet.contains(word) && !word.equals(term) && !links.contains(word)) {
+                links.add(word);
+            }
+        }
+        Queue<String> sorted = new Queue1L<>();
+        for (String link : links) {
+            sorted.enqueue(link);
+        }
+        sorted.sort(new AlphabetComparator());
+        StringBuilder entry = new StringBuilder(contentHash(text.toString()));
+        for (String link : sorted) {
+            entry.append(FIELD_SEPARATOR).append(link);
+        }
+        return entry.toString();
+    }
+
+    /**
+     * Reads the manifest left in {@code folderName} by the last run of
+     * {@code outputChangedFiles} into {@code pages}, and returns the hash of
+     * the term list index.html was written for.
+     *
+     * @param folderName
+     *            the output folder
+     * @param pages
+     *            the entry of each term whose page was written
+     *
+     * @return the hash recorded for index.html, or "" if there is no manifest
+     * @replaces pages
+     * @ensures pages = [the pageEntry of each term in the manifest, by term]
+     */
+    public static String readManifest(String folderName, Map<String, String> pages) {
+        pages.clear();
+        String indexHash = "";
+        File file = new File(folderName + "/" + MANIFEST);
+        if (file.exists()) {
+            SimpleReader in = new SimpleReader1L(file.getPath());
+            if (!in.atEOS() && in.nextLine().equals(MANIFEST_HEADER) && !in.atEOS()) {
+                indexHash = in.nextLine();
+                while (!in.atEOS()) {
+                    String line = in.nextLine();
+                    int tab = line.indexOf(FIELD_SEPARATOR);
+                    if (tab >= 0 && !pages.hasKey(line.substring(0, tab))) {
+                        pages.add(line.substring(0, tab), line.substring(tab + 1));
+                    }
+                }
+            }
+            in.close();
+        }
+        return indexHash;
+    }
+
+    /**
+     * Writes {@code index.html} and the page of each term to
+     * {@code folderName} as outputIndexFile and outputTermFiles do, but only
+     * where the last run of this method, as recorded in the manifest it left
+     * in the folder, wrote something different: a term's page is rewritten
+     * if its definition or the set of terms it links to changed, or it is
+     * missing, and index.html if the set of terms changed. Pages of terms no
+     * longer in the dictionary are deleted, and any that cannot be is named
+     * on {@code out}. With no manifest, everything is written.
+     *
+     * @param dictionary
+     *            Map<String, Queue<String>> dictionary master map
+     * @param folderName
+     *            folder path where the html files go
+     * @param out
+     *            SimpleWriter object that reports pages that could not be
+     *            deleted
+     *
+     * @return the number of html files written
+     * @requires folderName is the path to the output folder, which exists, and
+     *           no term contains a tab
+     * @ensures the html files in folderName are those outputIndexFile and
+     *          outputTermFiles would write, and the manifest records them
+     */
+    public static int outputChangedFiles(Map<String, Queue<String>> dictionary,
+            String folderName, SimpleWriter out) {
+        Map<String, String> previous = new Map1L<>();
+        String previousIndexHash = readManifest(folderName, previous);
+        String[] termList = getTermList(dictionary);
+        Set<String> termSet = new Set1L<>();
+        for (String term : termList) {
+            if (!termSet.contains(term)) {
+                termSet.add(term);
+            }
+        }
+        int written = 0;
+        Map<String, String> pages = new Map1L<>();
+        Map<String, Queue<String>> temp = dictionary.newInstance();
+        temp.transferFrom(dictionary);
+        while (temp.size() > 0) {
+            Map.Pair<String, Queue<String>> p = temp.removeAny();
+            String entry = pageEntry(p.key(), p.value(), termSet);
+            String page = folderName + "/" + p.key() + ".html";
+            if (!previous.hasKey(p.key()) || !previous.value(p.key()).equals(entry)
+                    || !new File(page).exists()) {
+                SimpleWriter outFile = new SimpleWriter1L(page);
+                outputTermHeader(p.key(), outFile);
+                outputTermDefinition(p, termList, outFile);
+                outputTermFooter(outFile);
+                outFile.close();
+                written++;
+            }
+            pages.add(p.key(), entry);
+            dictionary.add(p.key(), p.value());
+        }
+        for (Map.Pair<String, String> old : previous) {
+            if (!dictionary.hasKey(old.key())) {
+                File page = new File(folderName + "/" + old.key() + ".html");
+                if (page.exists() && !page.delete()) {
+                    out.println("Could not delete " + page.getPath());
+                }
+            }
+        }
+        //index.html only lists the terms, so it changes when they do
+        Queue<String> terms = new Queue1L<>();
+        for (Map.Pair<String, String> page : pages) {
+            terms.enqueue(page.key());
+        }
+        terms.sort(new AlphabetComparator());
+        StringBuilder termText = new StringBuilder();
+        for (String term : terms) {
+            termText.append(term).append("\n");
+        }
+        String indexHash = contentHash(termText.toString());
+        if (!indexHash.equals(previousIndexHash)
+                || !new File(folderName + "/index.html").exists()) {
+            outputIndexFile(dictionary, folderName);
+            written++;
+        }
+        SimpleWriter manifest = new SimpleWriter1L(folderName + "/" + MANIFEST);
+        manifest.println(MANIFEST_HEADER);
+        manifest.println(indexHash);
+        for (String term : terms) {
+            manifest.println(term + FIELD_SEPARATOR + pages.value(term));
+        }
+        manifest.close();
+        return written;
+    }
+
     /**
      * Main method.
      *
      * @param args
-     *            the command line arguments; unused here
+     *            the command line arguments; with "--incremental", only the
+     *            html files that changed since the last such run are written
      */
     public static void main(String[] args) {
         //SimpleReader object that reads from the keyboard
@@ -394,10 +617,19 @@ public final class Glossary {
         //to dictionary, where each word in the definition is an element in the queue.
         //The definitions in queue retain commas if the word had one.
         processInputFile(dictionary, inFile);
-        //Uses the dictionary map to output the index html file
-        outputIndexFile(dictionary, outputFolder);
-        //Uses the dictionary map to output an html file for each term
-        outputTermFiles(dictionary, outputFolder);
+        if (args.length > 0 && args[0].equals("--incremental")) {
+            //Rewrites only the html files whose content changed since the last
+            //incremental run, reporting to the console any page it could not
+            //delete
+            SimpleWriter out = new SimpleWriter1L();
+            outputChangedFiles(dictionary, outputFolder, out);
+            out.close();
+        } else {
+            //Uses the dictionary map to output the index html file
+            outputIndexFile(dictionary, outputFolder);
+            //Uses the dictionary map to output an html file for each term
+            outputTermFiles(dictionary, outputFolder);
+        }
         //Closes the input stream from the input file
         inFile.close();
 
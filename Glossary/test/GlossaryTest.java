@@ -1,4 +1,10 @@
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 
 import org.junit.Test;
 
@@ -6,6 +12,8 @@ import components.map.Map;
 import components.map.Map1L;
 import components.queue.Queue;
 import components.queue.Queue1L;
+import components.set.Set;
+import components.set.Set1L;
 import components.simplereader.SimpleReader;
 import components.simplereader.SimpleReader1L;
 import components.simplewriter.SimpleWriter;
@@ -59,4 +67,90 @@ public class GlossaryTest {
         Glossary.outputIndexHeader(out);
         out.close();
     }
+
+    /*
+     * tests for pageEntry
+     */
+    @Test
+    public void testPageEntry() {
+        Queue<String> definition = Glossary
+                .definitionToQueue("maximus and butt and butt, butt");
+        Set<String> termSet = new Set1L<>();
+        termSet.add("");
+        termSet.add("butt");
+        termSet.add("maximus");
+        String entry = Glossary.pageEntry("butt", definition, termSet);
+        assertEquals(Glossary.contentHash("maximus and butt and butt, butt")
+                + "\tmaximus", entry);
+        assertEquals(Glossary.definitionToQueue("maximus and butt and butt, butt"),
+                definition);
+    }
+
+    /*
+     * tests for outputChangedFiles
+     */
+    @Test
+    public void testOutputChangedFiles() throws IOException {
+        Path folder = Files.createTempDirectory("glossary");
+        Path report = Files.createTempFile("glossary", ".txt");
+        SimpleWriter out = new SimpleWriter1L(report.toString());
+        Map<String, Queue<String>> dictionary = new Map1L<>();
+        dictionary.add("butt", Glossary.definitionToQueue("the gluteous maximus"));
+        dictionary.add("maximus", Glossary.definitionToQueue("the greatest"));
+        dictionary.add("hello", Glossary.definitionToQueue("hi, there"));
+        //Nothing was written before, so everything is written
+        assertEquals(4, Glossary.outputChangedFiles(dictionary, folder.toString(), out));
+        //Nothing changed
+        assertEquals(0, Glossary.outputChangedFiles(dictionary, folder.toString(), out));
+        //One definition changed
+        dictionary.replaceValue("hello", Glossary.definitionToQueue("hi"));
+        assertEquals(1, Glossary.outputChangedFiles(dictionary, folder.toString(), out));
+        //A new term is linked from one page, and listed in index.html
+        dictionary.add("greatest", Glossary.definitionToQueue("best"));
+        assertEquals(3, Glossary.outputChangedFiles(dictionary, folder.toString(), out));
+        String page = new String(
+                Files.readAllBytes(folder.resolve("maximus.html")), "UTF-8");
+        assertTrue(page.contains("<a href = \"greatest.html\">greatest</a>"));
+        //A removed term's page is deleted
+        dictionary.remove("hello");
+        assertEquals(1, Glossary.outputChangedFiles(dictionary, folder.toString(), out));
+        assertTrue(!new File(folder.toFile(), "hello.html").exists());
+        out.close();
+        //Nothing failed, so nothing was reported
+        assertEquals(0, Files.size(report));
+        Files.delete(report);
+        for (File file : folder.toFile().listFiles()) {
+            file.delete();
+        }
+        Files.delete(folder);
+    }
+
+    @Test
+    public void testOutputChangedFilesUndeletablePage() throws IOException {
+        Path folder = Files.createTempDirectory("glossary");
+        Path report = Files.createTempFile("glossary", ".txt");
+        SimpleWriter out = new SimpleWriter1L(report.toString());
+        Map<String, Queue<String>> dictionary = new Map1L<>();
+        dictionary.add("butt", Glossary.definitionToQueue("the gluteous maximus"));
+        dictionary.add("hello", Glossary.definitionToQueue("hi, there"));
+        Glossary.outputChangedFiles(dictionary, folder.toString(), out);
+        //A folder that is not empty in place of a page cannot be deleted
+        Path page = folder.resolve("hello.html");
+        Path inside = page.resolve("inside.txt");
+        Files.delete(page);
+        Files.createDirectory(page);
+        Files.createFile(inside);
+        dictionary.remove("hello");
+        assertEquals(1, Glossary.outputChangedFiles(dictionary, folder.toString(), out));
+        out.close();
+        String reported = new String(Files.readAllBytes(report), "UTF-8");
+        assertTrue(reported.contains("Could not delete"));
+        assertTrue(reported.contains("hello.html"));
+        Files.delete(report);
+        Files.delete(inside);
+        for (File file : folder.toFile().listFiles()) {
+            file.delete();
+        }
+        Files.delete(folder);
+    }
 }
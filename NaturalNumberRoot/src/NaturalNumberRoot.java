@@ -32,20 +32,26 @@ public final class NaturalNumberRoot {
     public static void root(NaturalNumber n, int r) {
         assert n != null : "Violation of: n is  not null";
         assert r >= 2 : "Violation of: r >= 2";
+        //Every temporary is made with n.newInstance() so that root works on
+        //whatever NaturalNumber implementation the caller passes in.
         //Initializes NN 1 variable to deal with magic numbers.
-        NaturalNumber one = new NaturalNumber2(1);
+        NaturalNumber one = n.newInstance();
+        one.setFromInt(1);
         //Initializes NN 2 variable to deal with magic numbers.
-        NaturalNumber two = new NaturalNumber2(2);
+        NaturalNumber two = n.newInstance();
+        two.setFromInt(2);
         //Initializes NN variable for high guess
-        NaturalNumber highEnough = new NaturalNumber2(n);
+        NaturalNumber highEnough = n.newInstance();
+        highEnough.copyFrom(n);
         //Initializes NN variable for low guess
-        NaturalNumber lowEnough = new NaturalNumber2();
+        NaturalNumber lowEnough = n.newInstance();
         //Initializes NN variable for the difference between two numbers
-        NaturalNumber difference = new NaturalNumber2(2);
+        NaturalNumber difference = n.newInstance();
+        difference.copyFrom(two);
         //Initializes NN variable for our guess
-        NaturalNumber guess = new NaturalNumber2();
+        NaturalNumber guess = n.newInstance();
         //Initializes a NN variable to test if our guess is between n^r and (n+1)^r
-        NaturalNumber powTest = new NaturalNumber2();
+        NaturalNumber powTest = n.newInstance();
 
         //Increments highEnough to get n+1 as our maximum
         highEnough.increment();
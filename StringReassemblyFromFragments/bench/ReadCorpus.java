@@ -0,0 +1,230 @@
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import components.set.Set;
+import components.set.Set1L;
+import components.simplewriter.SimpleWriter;
+import components.simplewriter.SimpleWriter1L;
+
+/**
+ * Synthetic input for string reassembly: a random genome over "ACGT", cut
+ * into reads of one length at random positions.
+ *
+ * <p>
+ * The genome is as long as {@code count} reads at the given coverage, that is
+ * {@code count * readLength / coverage} characters, so that on average each
+ * position is covered by {@code coverage} reads. Each character of a read is
+ * replaced by a different base with probability {@code errorRate}. A read
+ * drawn twice is kept once, so there may be a few fewer than {@code count}
+ * reads; as reads all have the same length, none is then a substring of
+ * another.
+ * </p>
+ *
+ * <p>
+ * Usage, to write a corpus to a file, one read per line:
+ * </p>
+ *
+ * <pre>
+ * java ReadCorpus --out file [--count 10000] [--length 100]
+ *     [--coverage 10] [--errors 0] [--seed 2221]
+ * </pre>
+ *
+ * @author Jesse Shields
+ *
+ */
+public final class ReadCorpus {
+
+    /**
+     * Characters of the genome.
+     */
+    private static final String ALPHABET = "ACGT";
+
+    /**
+     * The genome the reads are cut from.
+     */
+    private final String genome;
+
+    /**
+     * The reads, in order of their position in the genome.
+     */
+    private final List<String> reads;
+
+    /**
+     * Constructor.
+     *
+     * @param genome
+     *            the genome
+     * @param reads
+     *            the reads, in genome order
+     */
+    private ReadCorpus(String genome, List<String> reads) {
+        this.genome = genome;
+        this.reads = reads;
+    }
+
+    /**
+     * Generates a corpus.
+     *
+     * @param seed
+     *            seed of the random choices, so that corpora are repeatable
+     * @param count
+     *            number of reads
+     * @param readLength
+     *            length of every read
+     * @param coverage
+     *            average number of reads covering a position
+     * @param errorRate
+     *            probability that a character of a read is wrong
+     * @return the corpus, of at most count distinct reads
+     * @requires <pre>
+     * count >= 1  and  readLength >= 1  and  coverage > 0  and
+     * 0 <= errorRate <= 1
+     * </pre>
+     */
+    public static ReadCorpus generate(long seed, int count, int readLength,
+            double coverage, double errorRate) {
+        assert count >= 1 : "Violation of: count >= 1";
+        assert readLength >= 1 : "Violation of: readLength >= 1";
+        assert coverage > 0 : "Violation of: coverage > 0";
+        assert 0 <= errorRate && errorRate <= 1 : "Violation of: 0 <= errorRate <= 1";
+        SplittableRandom random = new SplittableRandom(seed);
+        long covered = Math.round((double) count * readLength / coverage);
+        int genomeLength = (int) Math.max(readLength,
+                Math.min(Integer.MAX_VALUE - 1, covered));
+        StringBuilder genome = new StringBuilder(genomeLength);
+        for (int i = 0; i < genomeLength; i++) {
+            genome.append(ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+        }
+        int[] starts = new int[count];
+        for (int r = 0; r < count; r++) {
+            starts[r] = random.nextInt(genomeLength - readLength + 1);
+        }
+        Arrays.sort(starts);
+        List<String> reads = new ArrayList<>(count);
+        java.util.Set<String> drawn = new HashSet<>();
+        char[] read = new char[readLength];
+        for (int start : starts) {
+            genome.getChars(start, start + readLength, read, 0);
+            for (int i = 0; i < readLength; i++) {
+                if (errorRate > 0 && random.nextDouble() < errorRate) {
+                    int shift = 1 + random.nextInt(ALPHABET.length() - 1);
+                    int base = ALPHABET.indexOf(read[i]);
+                    read[i] = ALPHABET.charAt((base + shift) % ALPHABET.length());
+                }
+            }
+            String distinct = new String(read);
+            if (drawn.add(distinct)) {
+                reads.add(distinct);
+            }
+        }
+        return new ReadCorpus(genome.toString(), Collections.unmodifiableList(reads));
+    }
+
+    /**
+     * Returns the genome the reads were cut from.
+     *
+     * @return the genome
+     */
+    public String genome() {
+        return this.genome;
+    }
+
+    /**
+     * Returns the reads, in order of their position in the genome.
+     *
+     * @return the distinct reads
+     */
+    public List<String> reads() {
+        return this.reads;
+    }
+
+    /**
+     * Returns a new set of the reads.
+     *
+     * @return the set of reads
+     */
+    public Set<String> readSet() {
+        Set<String> set = new Set1L<>();
+        for (String read : this.reads) {
+            set.add(read);
+        }
+        return set;
+    }
+
+    /**
+     * Writes the reads to the file {@code fileName} as UTF-8, one per line,
+     * in a shuffled order, as fragments come.
+     *
+     * @param fileName
+     *            name of the file, which is replaced if it exists
+     * @param seed
+     *            seed of the shuffle
+     * @throws IOException
+     *             if the file cannot be written
+     */
+    public void write(String fileName, long seed) throws IOException {
+        List<String> shuffled = new ArrayList<>(this.reads);
+        SplittableRandom random = new SplittableRandom(seed);
+        for (int i = shuffled.size() - 1; i > 0; i--) {
+            Collections.swap(shuffled, i, random.nextInt(i + 1));
+        }
+        Files.write(Paths.get(fileName), shuffled, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Returns the value following {@code flag} in {@code args}, or
+     * {@code fallback} if the flag is absent.
+     *
+     * @param args
+     *            command-line arguments
+     * @param flag
+     *            the flag, e.g. "--count"
+     * @param fallback
+     *            value if the flag is absent
+     * @return the flag's value
+     */
+    static String option(String[] args, String flag, String fallback) {
+        String result = fallback;
+        for (int i = 0; i + 1 < args.length; i++) {
+            if (args[i].equals(flag)) {
+                result = args[i + 1];
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Main method.
+     *
+     * @param args
+     *            the command line arguments
+     * @throws IOException
+     *             if the output file cannot be written
+     */
+    public static void main(String[] args) throws IOException {
+        String fileName = option(args, "--out", null);
+        if (fileName == null) {
+            SimpleWriter out = new SimpleWriter1L();
+            out.println("Usage: java ReadCorpus --out file [--count n] [--length n]"
+                    + " [--coverage x] [--errors p] [--seed n]");
+            out.close();
+        } else {
+            long seed = Long.parseLong(option(args, "--seed", "2221"));
+            ReadCorpus corpus = generate(seed,
+                    Integer.parseInt(option(args, "--count", "10000")),
+                    Integer.parseInt(option(args, "--length", "100")),
+                    Double.parseDouble(option(args, "--coverage", "10")),
+                    Double.parseDouble(option(args, "--errors", "0")));
+            corpus.write(fileName, seed);
+        }
+    }
+
+}
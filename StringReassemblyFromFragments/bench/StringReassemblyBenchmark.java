@@ -0,0 +1,505 @@
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import components.set.Set;
+import components.simplereader.SimpleReader;
+import components.simplereader.SimpleReader1L;
+import components.simplewriter.SimpleWriter;
+import components.simplewriter.SimpleWriter1L;
+
+/**
+ * Time, heap and scaling benchmark for the {@code StringReassembly} entry
+ * points, on synthetic read corpora of growing size.
+ *
+ * <p>
+ * For each size a {@code ReadCorpus} of that many reads is generated (and
+ * written to a temporary file for the entry points that read one). Each
+ * (operation, size) cell is warmed up, then run repeatedly for a fixed time,
+ * and at least once; operations that change a set start from a fresh copy,
+ * so one copy is included in each measurement. The report, in CSV, gives per
+ * cell the seconds per operation, fragments handled per second, the peak
+ * heap in use above what was in use when the cell started (the sum of the
+ * peaks of the heap pools, so an upper bound), and the scaling exponent from
+ * the previous size: about 1 where time grows linearly with the number of
+ * fragments, 2 where it grows quadratically. A cell whose operation is
+ * predicted, from the previous size and exponent (2 until one is known), to
+ * take longer than the cap is skipped, as are the larger sizes after it. The
+ * original sweep, {@code assembleBySweep}, is cubic and runs only if asked
+ * for. The approximate operations allow {@code --max-errors} errors in an
+ * overlap; set beside their exact counterparts, they show what the tolerance
+ * costs. The packed operations work on the reads packed two bits a base (see
+ * {@code PackedFragment}), for comparison with the plain ones.
+ * </p>
+ *
+ * <p>
+ * Usage, from the project directory with the components and the compiled
+ * sources on the class path:
+ * </p>
+ *
+ * <pre>
+ * java StringReassemblyBenchmark [--ops overlap,assemble,...]
+ *     [--sizes 1000,10000,...] [--length 100] [--coverage 10] [--errors 0]
+ *     [--warmup seconds] [--measure seconds] [--cap seconds]
+ *     [--max-errors 2]
+ * </pre>
+ *
+ * @author Jesse Shields
+ *
+ */
+public final class StringReassemblyBenchmark {
+
+    /**
+     * Private constructor so this utility class cannot be instantiated.
+     */
+    private StringReassemblyBenchmark() {
+    }
+
+    /**
+     * Numbers of fragments run by default.
+     */
+    private static final String DEFAULT_SIZES = "1000,10000,100000,1000000";
+
+    /**
+     * Seed of the corpora, so that runs are comparable.
+     */
+    private static final long SEED = 2221;
+
+    /**
+     * Nanoseconds per second.
+     */
+    private static final double NANOS_PER_SECOND = 1e9;
+
+    /**
+     * Inputs of one size.
+     */
+    private static final class Inputs {
+
+        /**
+         * The reads, in genome order.
+         */
+        private final List<String> reads;
+
+        /**
+         * The distinct reads.
+         */
+        private final Set<String> readSet;
+
+        /**
+         * File of the reads, one per line, shuffled.
+         */
+        private final Path file;
+
+        /**
+         * The reads, in genome order, packed together.
+         */
+        private final CharSequence[] packedReads;
+
+        /**
+         * Most errors in an approximate overlap.
+         */
+        private final int maxErrors;
+
+        /**
+         * Constructor.
+         *
+         * @param corpus
+         *            the corpus
+         * @param file
+         *            file the reads have been written to
+         * @param maxErrors
+         *            most errors in an approximate overlap
+         */
+        Inputs(ReadCorpus corpus, Path file, int maxErrors) {
+            this.reads = corpus.reads();
+            this.readSet = corpus.readSet();
+            this.file = file;
+            this.packedReads = PackedFragment
+                    .pack(this.reads.toArray(new CharSequence[0]));
+            this.maxErrors = maxErrors;
+        }
+
+        /**
+         * Returns a fresh copy of the set of reads.
+         *
+         * @return a copy of readSet
+         */
+        Set<String> copyOfReadSet() {
+            Set<String> copy = this.readSet.newInstance();
+            for (String read : this.readSet) {
+                copy.add(read);
+            }
+            return copy;
+        }
+
+    }
+
+    /**
+     * One benchmarked operation.
+     */
+    private enum Operation {
+
+        /**
+         * {@code overlap} of each read with the next one in the genome.
+         */
+        OVERLAP("overlap") {
+            @Override
+            void run(Inputs in) {
+                for (int i = 0; i + 1 < in.reads.size(); i++) {
+                    StringReassembly.overlap(in.reads.get(i), in.reads.get(i + 1));
+                }
+            }
+        },
+
+        /**
+         * {@code approximateOverlap} of each read with the next one in the
+         * genome, allowing the given number of errors.
+         */
+        APPROXIMATE_OVERLAP("approximateOverlap") {
+            @Override
+            void run(Inputs in) {
+                for (int i = 0; i + 1 < in.reads.size(); i++) {
+                    StringReassembly.approximateOverlap(in.reads.get(i),
+                            in.reads.get(i + 1), in.maxErrors);
+                }
+            }
+        },
+
+        /**
+         * The overlap of each packed read with the next one in the genome,
+         * trying each length longest first a word at a time.
+         */
+        OVERLAP_PACKED("overlapPacked") {
+            @Override
+            void run(Inputs in) {
+                for (int i = 0; i + 1 < in.packedReads.length; i++) {
+                    OverlapStrategy.SCAN.overlap(in.packedReads[i], in.packedReads[i + 1]);
+                }
+            }
+        },
+
+        /**
+         * {@code addToSetAvoidingSubstrings} of every read, into a new set.
+         */
+        ADD_TO_SET_AVOIDING_SUBSTRINGS("addToSetAvoidingSubstrings") {
+            @Override
+            void run(Inputs in) {
+                Set<String> set = in.readSet.newInstance();
+                for (String read : in.reads) {
+                    StringReassembly.addToSetAvoidingSubstrings(set, read);
+                }
+            }
+        },
+
+        /**
+         * {@code linesFromInput} of the file of reads.
+         */
+        LINES_FROM_INPUT("linesFromInput") {
+            @Override
+            void run(Inputs in) {
+                SimpleReader input = new SimpleReader1L(in.file.toString());
+                StringReassembly.linesFromInput(input);
+                input.close();
+            }
+        },
+
+        /**
+         * {@code linesFromFile} of the file of reads.
+         */
+        LINES_FROM_FILE("linesFromFile") {
+            @Override
+            void run(Inputs in) throws IOException {
+                StringReassembly.linesFromFile(in.file.toString());
+            }
+        },
+
+        /**
+         * {@code bestOverlap} of the set of reads.
+         */
+        BEST_OVERLAP("bestOverlap") {
+            @Override
+            void run(Inputs in) {
+                StringReassembly.bestOverlap(in.readSet, new String[2]);
+            }
+        },
+
+        /**
+         * {@code assemble} of a copy of the set of reads.
+         */
+        ASSEMBLE("assemble") {
+            @Override
+            void run(Inputs in) {
+                StringReassembly.assemble(in.copyOfReadSet());
+            }
+        },
+
+        /**
+         * {@code assemble} of a copy of the set of reads, allowing the given
+         * number of errors in an overlap.
+         */
+        ASSEMBLE_APPROXIMATE("assembleApproximate") {
+            @Override
+            void run(Inputs in) {
+                int saved = StringReassembly.maxErrors();
+                StringReassembly.setMaxErrors(in.maxErrors);
+                try {
+                    StringReassembly.assemble(in.copyOfReadSet());
+                } finally {
+                    StringReassembly.setMaxErrors(saved);
+                }
+            }
+        },
+
+        /**
+         * {@code assemble} of a copy of the set of reads, with the fragments
+         * packed.
+         */
+        ASSEMBLE_PACKED("assemblePacked") {
+            @Override
+            void run(Inputs in) {
+                boolean saved = StringReassembly.packFragments();
+                StringReassembly.setPackFragments(true);
+                try {
+                    StringReassembly.assemble(in.copyOfReadSet());
+                } finally {
+                    StringReassembly.setPackFragments(saved);
+                }
+            }
+        },
+
+        /**
+         * {@code assembleFile} of the file of reads.
+         */
+        ASSEMBLE_FILE("assembleFile") {
+            @Override
+            void run(Inputs in) throws IOException {
+                StringReassembly.assembleFile(in.file.toString(), 1);
+            }
+        },
+
+        /**
+         * The original sweep, merging one best pair per pass, of a copy of
+         * the set of reads.
+         */
+        ASSEMBLE_BY_SWEEP("assembleBySweep") {
+            @Override
+            void run(Inputs in) {
+                StringReassembly.assembleBySweep(in.copyOfReadSet());
+            }
+        };
+
+        /**
+         * Method name, as given to --ops.
+         */
+        private final String label;
+
+        /**
+         * Constructor.
+         *
+         * @param label
+         *            method name
+         */
+        Operation(String label) {
+            this.label = label;
+        }
+
+        /**
+         * Runs the operation once on {@code in}.
+         *
+         * @param in
+         *            the inputs
+         * @throws IOException
+         *             if the file of reads cannot be read
+         */
+        abstract void run(Inputs in) throws IOException;
+
+    }
+
+    /**
+     * Result of measuring one cell.
+     */
+    private static final class Result {
+
+        /**
+         * Operations completed.
+         */
+        private final long operations;
+
+        /**
+         * Elapsed time, in nanoseconds.
+         */
+        private final long nanos;
+
+        /**
+         * Peak heap in use above the heap in use at the start, in bytes.
+         */
+        private final long peakHeap;
+
+        /**
+         * Constructor.
+         *
+         * @param operations
+         *            operations completed
+         * @param nanos
+         *            elapsed time
+         * @param peakHeap
+         *            peak heap above the start
+         */
+        Result(long operations, long nanos, long peakHeap) {
+            this.operations = operations;
+            this.nanos = nanos;
+            this.peakHeap = peakHeap;
+        }
+
+        /**
+         * Returns the seconds taken per operation.
+         *
+         * @return seconds per operation
+         */
+        double secondsPerOperation() {
+            return this.nanos / NANOS_PER_SECOND / this.operations;
+        }
+
+    }
+
+    /**
+     * Collects garbage and starts tracking the peak heap afresh.
+     *
+     * @return heap in use now, in bytes
+     */
+    private static long resetPeakHeap() {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        memory.gc();
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                pool.resetPeakUsage();
+            }
+        }
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+
+    /**
+     * Returns the sum of the peak use of the heap pools since they were last
+     * reset.
+     *
+     * @return peak heap, in bytes
+     */
+    private static long peakHeap() {
+        long peak = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                peak += pool.getPeakUsage().getUsed();
+            }
+        }
+        return peak;
+    }
+
+    /**
+     * Runs {@code operation} on {@code in} for at least {@code seconds}
+     * seconds, and at least once.
+     *
+     * @param operation
+     *            the operation
+     * @param in
+     *            its inputs
+     * @param seconds
+     *            time to run for
+     * @return what was measured
+     * @throws IOException
+     *             if the file of reads cannot be read
+     */
+    private static Result measure(Operation operation, Inputs in, double seconds)
+            throws IOException {
+        long budget = (long) (seconds * NANOS_PER_SECOND);
+        long heapBefore = resetPeakHeap();
+        long start = System.nanoTime();
+        long elapsed = 0;
+        long operations = 0;
+        while (operations == 0 || elapsed < budget) {
+            operation.run(in);
+            operations++;
+            elapsed = System.nanoTime() - start;
+        }
+        return new Result(operations, elapsed, Math.max(0, peakHeap() - heapBefore));
+    }
+
+    /**
+     * Main method.
+     *
+     * @param args
+     *            the command line arguments
+     * @throws IOException
+     *             if the temporary files cannot be used
+     */
+    public static void main(String[] args) throws IOException {
+        List<String> ops = Arrays.asList(ReadCorpus.option(args, "--ops",
+                "overlap,approximateOverlap,overlapPacked,addToSetAvoidingSubstrings,"
+                        + "linesFromInput,linesFromFile,bestOverlap,assemble,"
+                        + "assembleApproximate,assemblePacked,assembleFile")
+                .split(","));
+        String[] sizes = ReadCorpus.option(args, "--sizes", DEFAULT_SIZES).split(",");
+        int length = Integer.parseInt(ReadCorpus.option(args, "--length", "100"));
+        double coverage = Double.parseDouble(ReadCorpus.option(args, "--coverage", "10"));
+        double errors = Double.parseDouble(ReadCorpus.option(args, "--errors", "0"));
+        double warmup = Double.parseDouble(ReadCorpus.option(args, "--warmup", "1"));
+        double seconds = Double.parseDouble(ReadCorpus.option(args, "--measure", "2"));
+        double cap = Double.parseDouble(ReadCorpus.option(args, "--cap", "30"));
+        int maxErrors = Integer.parseInt(ReadCorpus.option(args, "--max-errors", "2"));
+
+        Operation[] operations = Operation.values();
+        boolean[] capped = new boolean[operations.length];
+        int[] previousSize = new int[operations.length];
+        double[] previousSeconds = new double[operations.length];
+        double[] previousExponent = new double[operations.length];
+        Arrays.fill(previousExponent, 2);
+
+        SimpleWriter out = new SimpleWriter1L();
+        out.println("operation,fragments,seconds_per_op,fragments_per_second,"
+                + "peak_heap_bytes,scaling_exponent");
+        for (String size : sizes) {
+            int count = Integer.parseInt(size.trim());
+            ReadCorpus corpus = ReadCorpus.generate(SEED + count, count, length, coverage,
+                    errors);
+            Path file = Files.createTempFile("reads", ".txt");
+            try {
+                corpus.write(file.toString(), SEED);
+                Inputs in = new Inputs(corpus, file, maxErrors);
+                int fragments = in.reads.size();
+                for (int o = 0; o < operations.length; o++) {
+                    if (previousSize[o] > 0) {
+                        double ratio = (double) fragments / previousSize[o];
+                        capped[o] = capped[o] || previousSeconds[o]
+                                * Math.pow(ratio, Math.max(1, previousExponent[o])) > cap;
+                    }
+                    if (ops.contains(operations[o].label) && !capped[o]) {
+                        measure(operations[o], in, warmup);
+                        Result r = measure(operations[o], in, seconds);
+                        double perOp = r.secondsPerOperation();
+                        String exponent = "n/a";
+                        if (previousSize[o] > 0) {
+                            previousExponent[o] = Math.log(perOp / previousSeconds[o])
+                                    / Math.log((double) fragments / previousSize[o]);
+                            exponent = String.format("%.2f", previousExponent[o]);
+                        }
+                        out.println(operations[o].label + "," + fragments + ","
+                                + String.format("%.6f", perOp) + ","
+                                + String.format("%.2f", fragments / perOp) + ","
+                                + r.peakHeap + "," + exponent);
+                        previousSize[o] = fragments;
+                        previousSeconds[o] = perOp;
+                    }
+                }
+            } finally {
+                Files.delete(file);
+            }
+        }
+        out.close();
+    }
+
+}
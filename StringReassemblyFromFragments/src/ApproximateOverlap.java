@@ -0,0 +1,230 @@
+import java.util.Arrays;
+
+/**
+ * Finds the longest prefix of one string that matches a suffix of another
+ * with at most a given number of errors, an error being a substituted,
+ * inserted or deleted character.
+ *
+ * <p>
+ * Uses Myers' bit-parallel edit distance algorithm, one bit per character of
+ * the prefix, in 64-bit blocks: the end of the other string is read one
+ * character at a time, updating the vertical differences of a whole column of
+ * the alignment table in a few word operations per block. The alignment may
+ * start anywhere in the other string, and once it has been read, the column
+ * gives the least errors in aligning each prefix against a suffix. Of the
+ * prefixes with at most {@code maxErrors} errors, the overlap is the one with
+ * the most matched characters less errors, the shorter on a tie; the longest
+ * such prefix would not do, as a true overlap padded with errors at its end
+ * is longer still. An overlap must have fewer errors than matches.
+ * </p>
+ *
+ * <p>
+ * The overlap is a length of prefix; the suffix it is aligned with may be a
+ * little longer or shorter. Merging across an overlap {@code p}, as
+ * {@code GreedyAssembler} and {@code Contig} do, keeps all of the first string
+ * followed by the second from position {@code p} on. With {@code maxErrors} 0
+ * it is the exact overlap.
+ * </p>
+ *
+ * @author Jesse Shields
+ *
+ */
+final class ApproximateOverlap {
+
+    /**
+     * Bits in a block.
+     */
+    private static final int BLOCK_BITS = 64;
+
+    /**
+     * Most errors in an overlap.
+     */
+    private final int maxErrors;
+
+    /**
+     * Length of the longest prefix tried.
+     */
+    private final int length;
+
+    /**
+     * Number of blocks of {@code length} bits.
+     */
+    private final int blocks;
+
+    /**
+     * The distinct characters of the prefix, in increasing order.
+     */
+    private final char[] alphabet;
+
+    /**
+     * For each character of {@code alphabet}, the blocks of positions in the
+     * prefix that hold it.
+     */
+    private final long[][] positions;
+
+    /**
+     * Prepares to find overlaps onto {@code str2}.
+     *
+     * @param str2
+     *            the string whose prefixes are matched
+     * @param maxErrors
+     *            most errors in an overlap
+     * @requires maxErrors >= 0
+     */
+    ApproximateOverlap(CharSequence str2, int maxErrors) {
+        assert str2 != null : "Violation of: str2 is not null";
+        assert maxErrors >= 0 : "Violation of: maxErrors >= 0";
+        this.maxErrors = maxErrors;
+        /*
+         * A prefix of all of str2 would make it a substring of the merged
+         * string's first part, so it is not an overlap
+         */
+        this.length = Math.max(0, str2.length() - 1);
+        this.blocks = (this.length + BLOCK_BITS - 1) / BLOCK_BITS;
+        char[] chars = new char[this.length];
+        for (int j = 0; j < this.length; j++) {
+            chars[j] = str2.charAt(j);
+        }
+        Arrays.sort(chars);
+        int distinct = 0;
+        for (int j = 0; j < chars.length; j++) {
+            if (distinct == 0 || chars[j] != chars[distinct - 1]) {
+                chars[distinct] = chars[j];
+                distinct++;
+            }
+        }
+        this.alphabet = Arrays.copyOf(chars, distinct);
+        this.positions = new long[distinct][this.blocks];
+        for (int j = 0; j < this.length; j++) {
+            long[] eq = this.positions[Arrays.binarySearch(this.alphabet, str2.charAt(j))];
+            eq[j / BLOCK_BITS] |= 1L << (j % BLOCK_BITS);
+        }
+    }
+
+    /**
+     * Returns the blocks of positions in the prefix holding {@code c}.
+     *
+     * @param c
+     *            the character
+     * @return its positions, or null if it is not in the prefix
+     */
+    private long[] peq(char c) {
+        long[] eq = null;
+        int index = Arrays.binarySearch(this.alphabet, c);
+        if (index >= 0) {
+            eq = this.positions[index];
+        }
+        return eq;
+    }
+
+    /**
+     * Reports the length of the prefix of the prepared string that best
+     * matches a suffix of {@code str1} with at most {@code maxErrors} errors.
+     *
+     * @param str1
+     *            the string whose suffixes are matched
+     * @return the overlap, or 0 if there is none
+     * @ensures <pre>
+     * overlap < |str2|  and
+     * [overlap is the smallest length p maximizing p - 2 * e over those with
+     *  0 < p - 2 * e, where e <= maxErrors is the least number of edits
+     *  taking str2[0, p) to a suffix of str1]
+     * </pre>
+     */
+    int overlap(CharSequence str1) {
+        int result = 0;
+        if (this.length > 0) {
+            /*
+             * A prefix of at most length characters with at most maxErrors
+             * errors is aligned with at most length + maxErrors characters
+             */
+            long reach = (long) this.length + this.maxErrors;
+            int from = (int) Math.max(0, str1.length() - reach);
+            long[] pv = new long[this.blocks];
+            long[] mv = new long[this.blocks];
+            Arrays.fill(pv, -1L);
+            for (int k = from; k < str1.length(); k++) {
+                long[] eq = this.peq(str1.charAt(k));
+                /*
+                 * The alignment may start anywhere in str1, so there is no
+                 * change along the top row
+                 */
+                int hin = 0;
+                for (int b = 0; b < this.blocks; b++) {
+                    long e = 0;
+                    if (eq != null) {
+                        e = eq[b];
+                    }
+                    hin = advance(pv, mv, b, e, hin);
+                }
+            }
+            /*
+             * The column now holds the least errors for each prefix, as
+             * differences from the one above; the empty prefix has none
+             */
+            int errors = 0;
+            int best = 0;
+            for (int j = 0; j < this.length; j++) {
+                long bit = 1L << (j % BLOCK_BITS);
+                if ((pv[j / BLOCK_BITS] & bit) != 0) {
+                    errors++;
+                } else if ((mv[j / BLOCK_BITS] & bit) != 0) {
+                    errors--;
+                }
+                int p = j + 1;
+                if (errors <= this.maxErrors && p - 2 * errors > best) {
+                    best = p - 2 * errors;
+                    result = p;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Advances block {@code b} of the column by one character of the text, as
+     * in Myers' algorithm.
+     *
+     * @param pv
+     *            blocks of positive vertical differences
+     * @param mv
+     *            blocks of negative vertical differences
+     * @param b
+     *            the block
+     * @param eq
+     *            positions in the block matching the character
+     * @param hin
+     *            horizontal difference into the top of the block
+     * @return horizontal difference out of the bottom of the block
+     * @updates pv[b], mv[b]
+     */
+    private static int advance(long[] pv, long[] mv, int b, long eq, int hin) {
+        long p = pv[b];
+        long m = mv[b];
+        long e = eq;
+        long xv = e | m;
+        if (hin < 0) {
+            e |= 1L;
+        }
+        long xh = (((e & p) + p) ^ p) | e;
+        long ph = m | ~(xh | p);
+        long mh = p & xh;
+        int hout = 0;
+        if (ph < 0) {
+            hout = 1;
+        } else if (mh < 0) {
+            hout = -1;
+        }
+        ph <<= 1;
+        mh <<= 1;
+        if (hin < 0) {
+            mh |= 1L;
+        } else if (hin > 0) {
+            ph |= 1L;
+        }
+        pv[b] = mh | ~(xv | ph);
+        mv[b] = ph & xv;
+        return hout;
+    }
+
+}
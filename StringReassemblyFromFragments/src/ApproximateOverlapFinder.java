@@ -0,0 +1,75 @@
+import java.util.Arrays;
+
+/**
+ * Finds the overlaps of each fragment that hold with at most a given number
+ * of errors (see {@code ApproximateOverlap}).
+ *
+ * <p>
+ * There is no index to narrow the search: an overlap with errors need not
+ * share any stretch of exact matches, so every ordered pair is checked, in
+ * time linear in the overlap length over 64 for each. The prefix tables of
+ * the fragments are built once, up front.
+ * </p>
+ *
+ * @author Jesse Shields
+ *
+ */
+final class ApproximateOverlapFinder implements OverlapFinder {
+
+    /**
+     * The fragments, in lexicographic order.
+     */
+    private final CharSequence[] fragments;
+
+    /**
+     * Matcher of the prefixes of each fragment.
+     */
+    private final ApproximateOverlap[] prefixes;
+
+    /**
+     * Builds the finder for {@code fragments}.
+     *
+     * @param fragments
+     *            the fragments, which are copied and sorted
+     * @param maxErrors
+     *            most errors in an overlap
+     * @requires <pre>
+     * maxErrors >= 0  and
+     * [the entries of fragments are distinct]
+     * </pre>
+     */
+    ApproximateOverlapFinder(CharSequence[] fragments, int maxErrors) {
+        assert fragments != null : "Violation of: fragments is not null";
+        assert maxErrors >= 0 : "Violation of: maxErrors >= 0";
+        this.fragments = fragments.clone();
+        Arrays.sort(this.fragments, CharSequences::compare);
+        this.prefixes = new ApproximateOverlap[this.fragments.length];
+        for (int j = 0; j < this.fragments.length; j++) {
+            this.prefixes[j] = new ApproximateOverlap(this.fragments[j], maxErrors);
+        }
+    }
+
+    @Override
+    public int size() {
+        return this.fragments.length;
+    }
+
+    @Override
+    public CharSequence fragment(int i) {
+        return this.fragments[i];
+    }
+
+    @Override
+    public void overlapsFrom(int i, int minOverlap, int[] seen, OverlapSink sink) {
+        CharSequence a = this.fragments[i];
+        for (int j = 0; j < this.fragments.length; j++) {
+            if (j != i) {
+                int length = this.prefixes[j].overlap(a);
+                if (length >= minOverlap) {
+                    sink.overlap(i, j, length);
+                }
+            }
+        }
+    }
+
+}
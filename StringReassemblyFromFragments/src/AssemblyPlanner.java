@@ -0,0 +1,163 @@
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The connected components of an overlap graph, as independent pieces of
+ * work for the greedy merge.
+ *
+ * <p>
+ * No edge joins two components, so no chain spans two of them, and the
+ * merges made in one component, in their greedy order, are the same whether
+ * or not the others are merged at the same time. The components are found by
+ * union-find over the edges, and each lists its fragments in increasing
+ * order; {@code batches} then deals them out to workers in runs of about
+ * equal size.
+ * </p>
+ *
+ * @author Jesse Shields
+ *
+ */
+final class AssemblyPlanner {
+
+    /**
+     * The fragments, grouped by component and increasing within each.
+     */
+    private final int[] fragments;
+
+    /**
+     * Start in {@code fragments} of each component, then the number of
+     * fragments.
+     */
+    private final int[] bounds;
+
+    /**
+     * Constructor.
+     *
+     * @param fragments
+     *            the fragments, grouped by component
+     * @param bounds
+     *            start of each component, then the number of fragments
+     */
+    private AssemblyPlanner(int[] fragments, int[] bounds) {
+        this.fragments = fragments;
+        this.bounds = bounds;
+    }
+
+    /**
+     * Finds the connected components of {@code graph}, over {@code n}
+     * fragments, its edges taken as undirected.
+     *
+     * @param graph
+     *            the overlap graph
+     * @param n
+     *            number of fragments
+     * @return the plan, its components in order of their smallest fragments
+     */
+    static AssemblyPlanner plan(OverlapGraph graph, int n) {
+        assert graph != null : "Violation of: graph is not null";
+        int[] parent = new int[n];
+        for (int i = 0; i < n; i++) {
+            parent[i] = i;
+        }
+        for (int e = 0; e < graph.size(); e++) {
+            int rootFrom = GreedyAssembler.find(parent, graph.from(e));
+            int rootTo = GreedyAssembler.find(parent, graph.to(e));
+            /*
+             * Keep the smaller fragment as root, so that a component is
+             * numbered when its smallest fragment is reached below
+             */
+            parent[Math.max(rootFrom, rootTo)] = Math.min(rootFrom, rootTo);
+        }
+        int[] component = new int[n];
+        int count = 0;
+        for (int i = 0; i < n; i++) {
+            int root = GreedyAssembler.find(parent, i);
+            if (root == i) {
+                component[i] = count;
+                count++;
+            } else {
+                component[i] = component[root];
+            }
+        }
+        /*
+         * Counting sort of the fragments by component, which keeps each
+         * component's fragments increasing
+         */
+        int[] bounds = new int[count + 1];
+        for (int i = 0; i < n; i++) {
+            bounds[component[i] + 1]++;
+        }
+        for (int c = 0; c < count; c++) {
+            bounds[c + 1] += bounds[c];
+        }
+        int[] fill = new int[count];
+        int[] fragments = new int[n];
+        for (int i = 0; i < n; i++) {
+            int c = component[i];
+            fragments[bounds[c] + fill[c]] = i;
+            fill[c]++;
+        }
+        return new AssemblyPlanner(fragments, bounds);
+    }
+
+    /**
+     * Returns the number of components.
+     *
+     * @return number of components
+     */
+    int components() {
+        return this.bounds.length - 1;
+    }
+
+    /**
+     * Returns the fragments grouped by component, increasing within each;
+     * component {@code c} is {@code [start(c), start(c + 1))} of it.
+     *
+     * @return the fragments
+     */
+    int[] fragments() {
+        return this.fragments;
+    }
+
+    /**
+     * Returns the start in {@code fragments()} of component {@code c}, or the
+     * number of fragments if {@code c = components()}.
+     *
+     * @param c
+     *            the component
+     * @return where component c starts
+     * @requires 0 <= c <= components()
+     */
+    int start(int c) {
+        return this.bounds[c];
+    }
+
+    /**
+     * Splits the components into at most {@code count} runs of consecutive
+     * components, each of about the same number of fragments.
+     *
+     * @param count
+     *            most runs
+     * @return the first component of each run, then components()
+     * @requires count >= 1
+     */
+    int[] batches(int count) {
+        assert count >= 1 : "Violation of: count >= 1";
+        int n = this.fragments.length;
+        List<Integer> firsts = new ArrayList<>();
+        firsts.add(0);
+        for (int c = 1; c < this.components(); c++) {
+            long batch = firsts.size();
+            if (this.bounds[c] * (long) count >= batch * n && batch < count) {
+                firsts.add(c);
+            }
+        }
+        int[] result = new int[firsts.size() + 1];
+        for (int b = 0; b < firsts.size(); b++) {
+            result[b] = firsts.get(b);
+        }
+        result[firsts.size()] = this.components();
+        return result;
+    }
+
+}
@@ -0,0 +1,29 @@
+/**
+ * Receiver of progress reports from a checkpointed assembly (see
+ * {@code StringReassembly.assemble(Set, int, String, long, AssemblyProgress)}).
+ *
+ * @author Jesse Shields
+ *
+ */
+public interface AssemblyProgress {
+
+    /**
+     * Reports how far the assembly has got. Overlaps are found first, one
+     * fragment at a time, and then merges are made; the first part is
+     * usually most of the work.
+     *
+     * @param scanned
+     *            fragments whose overlaps have been found
+     * @param fragments
+     *            number of fragments
+     * @param merges
+     *            merges made
+     * @param remaining
+     *            strings remaining, {@code fragments - merges}
+     * @param etaMillis
+     *            estimated milliseconds until the assembly is done, or -1 if
+     *            there is nothing to base an estimate on yet
+     */
+    void update(int scanned, int fragments, int merges, int remaining, long etaMillis);
+
+}
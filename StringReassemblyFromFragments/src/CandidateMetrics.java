@@ -0,0 +1,110 @@
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Running counters for candidate filtering in assembly: how many ordered
+ * pairs of fragments there were, how many of them the filter let through as
+ * candidates, and how many candidates really overlapped. Safe to update from
+ * several threads at once.
+ *
+ * @author Jesse Shields
+ *
+ */
+public final class CandidateMetrics {
+
+    /**
+     * Ordered pairs of distinct fragments considered.
+     */
+    private final LongAdder pairs = new LongAdder();
+
+    /**
+     * Pairs passed on to an exact overlap check.
+     */
+    private final LongAdder candidates = new LongAdder();
+
+    /**
+     * Candidates that overlapped.
+     */
+    private final LongAdder overlaps = new LongAdder();
+
+    /**
+     * Records a set of {@code fragments} fragments to filter.
+     *
+     * @param fragments
+     *            number of fragments
+     */
+    void recordFragments(long fragments) {
+        this.pairs.add(fragments * (fragments - 1));
+    }
+
+    /**
+     * Records the outcome of filtering the pairs from one fragment.
+     *
+     * @param checked
+     *            candidates checked exactly
+     * @param overlapping
+     *            candidates that overlapped
+     */
+    void recordCandidates(long checked, long overlapping) {
+        this.candidates.add(checked);
+        this.overlaps.add(overlapping);
+    }
+
+    /**
+     * Returns the number of ordered pairs of fragments considered.
+     *
+     * @return pairs considered
+     */
+    public long pairs() {
+        return this.pairs.sum();
+    }
+
+    /**
+     * Returns the number of pairs checked exactly.
+     *
+     * @return candidates
+     */
+    public long candidates() {
+        return this.candidates.sum();
+    }
+
+    /**
+     * Returns the number of candidates that overlapped.
+     *
+     * @return overlapping candidates
+     */
+    public long overlaps() {
+        return this.overlaps.sum();
+    }
+
+    /**
+     * Returns the fraction of pairs the filter pruned.
+     *
+     * @return 1 - candidates / pairs, or 0 if there were no pairs
+     */
+    public double pruningRatio() {
+        long total = this.pairs.sum();
+        double ratio = 0;
+        if (total > 0) {
+            ratio = 1 - (double) this.candidates.sum() / total;
+        }
+        return ratio;
+    }
+
+    /**
+     * Resets every counter to zero.
+     */
+    public void reset() {
+        this.pairs.reset();
+        this.candidates.reset();
+        this.overlaps.reset();
+    }
+
+    @Override
+    public String toString() {
+        final double percent = 100.0;
+        return String.format("pairs = %d, candidates = %d, overlaps = %d, pruned %.2f%%",
+                this.pairs(), this.candidates(), this.overlaps(),
+                percent * this.pruningRatio());
+    }
+
+}
@@ -0,0 +1,92 @@
+/**
+ * Static helpers on {@code CharSequence}s, so that the assembly code can work
+ * the same way on {@code String}s and on other fragment representations.
+ * Fragments packed together (see {@code PackedFragment}) are compared a word
+ * of codes at a time instead of a character at a time.
+ *
+ * @author Jesse Shields
+ *
+ */
+final class CharSequences {
+
+    /**
+     * Private constructor so this utility class cannot be instantiated.
+     */
+    private CharSequences() {
+    }
+
+    /**
+     * Compares {@code a} and {@code b} lexicographically, by char value.
+     *
+     * @param a
+     *            first sequence
+     * @param b
+     *            second sequence
+     * @return negative, zero or positive as a is less than, equal to or
+     *         greater than b
+     */
+    static int compare(CharSequence a, CharSequence b) {
+        int result = 0;
+        if (packedTogether(a, b)) {
+            result = PackedFragment.compare((PackedFragment) a, (PackedFragment) b);
+        } else {
+            int length = Math.min(a.length(), b.length());
+            for (int i = 0; i < length && result == 0; i++) {
+                result = Character.compare(a.charAt(i), b.charAt(i));
+            }
+            if (result == 0) {
+                result = Integer.compare(a.length(), b.length());
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Reports whether {@code a[aStart, aStart + length)} equals
+     * {@code b[bStart, bStart + length)}.
+     *
+     * @param a
+     *            first sequence
+     * @param aStart
+     *            start of the region of a
+     * @param b
+     *            second sequence
+     * @param bStart
+     *            start of the region of b
+     * @param length
+     *            length of the regions
+     * @return whether the regions are equal
+     * @requires <pre>
+     * 0 <= aStart  and  aStart + length <= |a|  and
+     * 0 <= bStart  and  bStart + length <= |b|
+     * </pre>
+     */
+    static boolean regionMatches(CharSequence a, int aStart, CharSequence b, int bStart,
+            int length) {
+        boolean matches = true;
+        if (packedTogether(a, b)) {
+            matches = PackedFragment.regionMatches((PackedFragment) a, aStart,
+                    (PackedFragment) b, bStart, length);
+        } else {
+            for (int k = 0; k < length && matches; k++) {
+                matches = a.charAt(aStart + k) == b.charAt(bStart + k);
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * Reports whether {@code a} and {@code b} are fragments packed together.
+     *
+     * @param a
+     *            first sequence
+     * @param b
+     *            second sequence
+     * @return whether their codes can be compared
+     */
+    private static boolean packedTogether(CharSequence a, CharSequence b) {
+        return a instanceof PackedFragment && b instanceof PackedFragment
+                && PackedFragment.packedTogether((PackedFragment) a, (PackedFragment) b);
+    }
+
+}
@@ -0,0 +1,578 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Greedy assembly that saves its state to a checkpoint file as it goes, so
+ * that a run that is cut short can be resumed where it was last saved.
+ *
+ * <p>
+ * The overlaps are found in about a hundred steps of consecutive fragments,
+ * each step's edges appended to those found before, and the merges are then
+ * made as in {@code GreedyAssembler.merge}; after a step, or a hundredth of
+ * the merges, the state is saved if the interval has passed since the last
+ * save, and progress is reported. The state is the fragments, in the
+ * finder's order, the overlap edges found so far, and the links made so far;
+ * that is all a run needs, since the rest is rebuilt. The checkpoint is
+ * written to a temporary file that then replaces the old one, so a run cut
+ * short while saving leaves the previous checkpoint whole (a save that fails
+ * removes its temporary file), and the checkpoint is deleted once the run is
+ * done.
+ * </p>
+ *
+ * <p>
+ * The file is binary: a header, the fragments, the minimum overlap and error
+ * limit, the edges from each fragment scanned, and the links, with every
+ * count and index as a variable-length integer, followed by a CRC-32 of all
+ * of it.
+ * </p>
+ *
+ * @author Jesse Shields
+ *
+ */
+final class CheckpointedAssembly {
+
+    /**
+     * First four bytes of a checkpoint file, "SRAC".
+     */
+    private static final int MAGIC = 0x53524143;
+
+    /**
+     * Version of the file layout.
+     */
+    private static final int VERSION = 1;
+
+    /**
+     * Number of steps the overlaps are found in, and the merges made in.
+     */
+    private static final int STEPS = 100;
+
+    /**
+     * Nanoseconds per millisecond.
+     */
+    private static final long NANOS_PER_MILLI = 1_000_000L;
+
+    /**
+     * Bits of a byte of a variable-length integer that carry the value.
+     */
+    private static final int VARINT_BITS = 7;
+
+    /**
+     * Mask of the value bits of a byte of a variable-length integer.
+     */
+    private static final int VARINT_MASK = 0x7F;
+
+    /**
+     * Bit of a byte of a variable-length integer set if more bytes follow.
+     */
+    private static final int VARINT_MORE = 0x80;
+
+    /**
+     * Largest character stored in one byte.
+     */
+    private static final char MAX_BYTE_CHAR = 0xFF;
+
+    /**
+     * Private constructor so this utility class cannot be instantiated.
+     */
+    private CheckpointedAssembly() {
+    }
+
+    /**
+     * The state of a run, as saved in a checkpoint.
+     */
+    static final class State {
+
+        /**
+         * The fragments, in the order of the finder.
+         */
+        private final String[] fragments;
+
+        /**
+         * Shortest overlap merged across.
+         */
+        private final int minOverlap;
+
+        /**
+         * Most errors in an overlap.
+         */
+        private final int maxErrors;
+
+        /**
+         * Number of fragments, from the first, whose edges have been found.
+         */
+        private int scanned;
+
+        /**
+         * The edges from the fragments scanned, grouped by source.
+         */
+        private final OverlapGraph.EdgeBuffer edges = new OverlapGraph.EdgeBuffer();
+
+        /**
+         * Successor of each fragment, or -1.
+         */
+        private final int[] next;
+
+        /**
+         * Overlap with the successor of each fragment.
+         */
+        private final int[] nextOverlap;
+
+        /**
+         * Constructor of the state of a new run.
+         *
+         * @param fragments
+         *            the fragments, in the order of the finder
+         * @param minOverlap
+         *            shortest overlap merged across
+         * @param maxErrors
+         *            most errors in an overlap
+         */
+        State(String[] fragments, int minOverlap, int maxErrors) {
+            this.fragments = fragments;
+            this.minOverlap = minOverlap;
+            this.maxErrors = maxErrors;
+            this.next = new int[fragments.length];
+            Arrays.fill(this.next, -1);
+            this.nextOverlap = new int[fragments.length];
+        }
+
+        /**
+         * Returns the fragments, in the order of the finder.
+         *
+         * @return the fragments
+         */
+        String[] fragments() {
+            return this.fragments;
+        }
+
+        /**
+         * Returns the shortest overlap merged across.
+         *
+         * @return the minimum overlap
+         */
+        int minOverlap() {
+            return this.minOverlap;
+        }
+
+        /**
+         * Returns the most errors in an overlap.
+         *
+         * @return the error limit
+         */
+        int maxErrors() {
+            return this.maxErrors;
+        }
+
+        /**
+         * Returns the number of fragments whose edges have been found.
+         *
+         * @return fragments scanned
+         */
+        int scanned() {
+            return this.scanned;
+        }
+
+        /**
+         * Returns whether this is the state of a run of the same assembly as
+         * {@code other}.
+         *
+         * @param other
+         *            the other state
+         * @return whether the fragments and limits are the same
+         */
+        boolean sameAssembly(State other) {
+            return this.minOverlap == other.minOverlap && this.maxErrors == other.maxErrors
+                    && Arrays.equals(this.fragments, other.fragments);
+        }
+
+    }
+
+    /**
+     * Assembles the fragments of {@code finder}, resuming from the checkpoint
+     * {@code file} if there is one and saving to it at most every
+     * {@code intervalMillis} milliseconds.
+     *
+     * @param finder
+     *            the fragments, and finder of their overlaps
+     * @param minOverlap
+     *            shortest overlap merged across
+     * @param maxErrors
+     *            most errors in an overlap the finder allows
+     * @param threads
+     *            most threads to use
+     * @param file
+     *            the checkpoint file
+     * @param intervalMillis
+     *            least time between saves
+     * @param progress
+     *            receiver of progress reports
+     * @return the assembled strings, as contigs
+     * @throws IOException
+     *             if the checkpoint cannot be used, or is of another assembly
+     * @requires <pre>
+     * minOverlap >= 1  and  threads >= 1  and  intervalMillis >= 0  and
+     * [the fragments of finder are distinct and none is a substring of
+     *  another]
+     * </pre>
+     */
+    static List<Contig> assemble(OverlapFinder finder, int minOverlap, int maxErrors,
+            int threads, Path file, long intervalMillis, AssemblyProgress progress)
+            throws IOException {
+        String[] fragments = new String[finder.size()];
+        for (int i = 0; i < fragments.length; i++) {
+            fragments[i] = finder.fragment(i).toString();
+        }
+        State state = new State(fragments, minOverlap, maxErrors);
+        if (Files.exists(file)) {
+            State saved = read(file);
+            if (!saved.sameAssembly(state)) {
+                throw new IOException("Checkpoint " + file + " is of another assembly");
+            }
+            state = saved;
+        }
+        return run(state, finder, threads, file, intervalMillis, progress);
+    }
+
+    /**
+     * Runs the assembly in {@code state} to the end, saving to {@code file}
+     * at most every {@code intervalMillis} milliseconds, then deletes the
+     * file.
+     *
+     * @param state
+     *            state of the run so far
+     * @param finder
+     *            the fragments of state, and finder of their overlaps
+     * @param threads
+     *            most threads to use
+     * @param file
+     *            the checkpoint file
+     * @param intervalMillis
+     *            least time between saves
+     * @param progress
+     *            receiver of progress reports
+     * @return the assembled strings, as contigs
+     * @throws IOException
+     *             if the checkpoint cannot be written
+     * @updates state
+     */
+    static List<Contig> run(State state, OverlapFinder finder, int threads, Path file,
+            long intervalMillis, AssemblyProgress progress) throws IOException {
+        assert state.fragments.length == finder.size()
+                : "Violation of: state and finder have the same fragments";
+        int n = finder.size();
+        long interval = intervalMillis * NANOS_PER_MILLI;
+        long began = System.nanoTime();
+        long[] lastSave = { began };
+        /*
+         * Find the overlaps, a step of fragments at a time
+         */
+        int step = Math.max(1, (n + STEPS - 1) / STEPS);
+        int scannedBefore = state.scanned;
+        while (state.scanned < n) {
+            int hi = Math.min(n, state.scanned + step);
+            OverlapGraph part = OverlapGraph.build(finder, state.minOverlap, threads,
+                    state.scanned, hi);
+            for (int e = 0; e < part.size(); e++) {
+                state.edges.add(part.from(e), part.to(e), part.length(e));
+            }
+            state.scanned = hi;
+            long now = System.nanoTime();
+            if (now - lastSave[0] >= interval) {
+                write(state, file);
+                lastSave[0] = now;
+            }
+            long eta = (now - began) / (state.scanned - scannedBefore)
+                    * (n - state.scanned);
+            progress.update(state.scanned, n, 0, n, eta / NANOS_PER_MILLI);
+        }
+        OverlapGraph graph = OverlapGraph.of(state.edges, n);
+        /*
+         * Make the merges, saving and reporting every step of them
+         */
+        long mergeBegan = System.nanoTime();
+        List<Contig> contigs;
+        try {
+            contigs = GreedyAssembler.merge(finder, graph, state.next, state.nextOverlap,
+                    (merges, examined) -> {
+                        if (merges % step == 0) {
+                            long now = System.nanoTime();
+                            if (now - lastSave[0] >= interval) {
+                                try {
+                                    write(state, file);
+                                } catch (IOException e) {
+                                    throw new UncheckedIOException(e);
+                                }
+                                lastSave[0] = now;
+                            }
+                            long eta = (now - mergeBegan) / examined
+                                    * Math.max(0, graph.size() - examined);
+                            progress.update(n, n, merges, n - merges,
+                                    eta / NANOS_PER_MILLI);
+                        }
+                    });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        int merges = n - contigs.size();
+        progress.update(n, n, merges, n - merges, 0);
+        Files.deleteIfExists(file);
+        return contigs;
+    }
+
+    /**
+     * Saves {@code state} to {@code file}, replacing it only once the new
+     * checkpoint is complete.
+     *
+     * @param state
+     *            the state
+     * @param file
+     *            the checkpoint file
+     * @throws IOException
+     *             if the file cannot be written
+     */
+    static void write(State state, Path file) throws IOException {
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        boolean moved = false;
+        try {
+            writeTo(state, temporary);
+            try {
+                Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING,
+                        StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+            moved = true;
+        } finally {
+            if (!moved) {
+                Files.deleteIfExists(temporary);
+            }
+        }
+    }
+
+    /**
+     * Writes {@code state} to {@code file} in the checkpoint layout.
+     *
+     * @param state
+     *            the state
+     * @param file
+     *            the file, which is replaced if it exists
+     * @throws IOException
+     *             if the file cannot be written
+     */
+    private static void writeTo(State state, Path file) throws IOException {
+        CheckedOutputStream checked = new CheckedOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(file)), new CRC32());
+        try (DataOutputStream out = new DataOutputStream(checked)) {
+            out.writeInt(MAGIC);
+            writeVarInt(out, VERSION);
+            writeVarInt(out, state.fragments.length);
+            for (String fragment : state.fragments) {
+                writeString(out, fragment);
+            }
+            writeVarInt(out, state.minOverlap);
+            writeVarInt(out, state.maxErrors);
+            writeVarInt(out, state.scanned);
+            OverlapGraph.EdgeBuffer edges = state.edges;
+            int e = 0;
+            for (int i = 0; i < state.scanned; i++) {
+                int end = e;
+                while (end < edges.size() && edges.from(end) == i) {
+                    end++;
+                }
+                writeVarInt(out, end - e);
+                for (; e < end; e++) {
+                    writeVarInt(out, edges.to(e));
+                    writeVarInt(out, edges.length(e));
+                }
+            }
+            int links = 0;
+            for (int b : state.next) {
+                if (b >= 0) {
+                    links++;
+                }
+            }
+            writeVarInt(out, links);
+            for (int a = 0; a < state.next.length; a++) {
+                if (state.next[a] >= 0) {
+                    writeVarInt(out, a);
+                    writeVarInt(out, state.next[a]);
+                    writeVarInt(out, state.nextOverlap[a]);
+                }
+            }
+            out.writeLong(checked.getChecksum().getValue());
+        }
+    }
+
+    /**
+     * Loads the state saved in {@code file}.
+     *
+     * @param file
+     *            the checkpoint file
+     * @return the state
+     * @throws IOException
+     *             if the file cannot be read, or is not a whole checkpoint
+     */
+    static State read(Path file) throws IOException {
+        CheckedInputStream checked = new CheckedInputStream(
+                new BufferedInputStream(Files.newInputStream(file)), new CRC32());
+        try (DataInputStream in = new DataInputStream(checked)) {
+            if (in.readInt() != MAGIC || readVarInt(in) != VERSION) {
+                throw new IOException(file + " is not a checkpoint");
+            }
+            String[] fragments = new String[readVarInt(in)];
+            for (int i = 0; i < fragments.length; i++) {
+                fragments[i] = readString(in);
+            }
+            int n = fragments.length;
+            State state = new State(fragments, readVarInt(in), readVarInt(in));
+            state.scanned = readVarInt(in);
+            check(state.scanned <= n, file);
+            for (int i = 0; i < state.scanned; i++) {
+                int count = readVarInt(in);
+                for (int k = 0; k < count; k++) {
+                    int to = readVarInt(in);
+                    int length = readVarInt(in);
+                    check(to < n, file);
+                    state.edges.add(i, to, length);
+                }
+            }
+            int links = readVarInt(in);
+            for (int k = 0; k < links; k++) {
+                int a = readVarInt(in);
+                int b = readVarInt(in);
+                check(a < n && b < n, file);
+                state.next[a] = b;
+                state.nextOverlap[a] = readVarInt(in);
+            }
+            long expected = checked.getChecksum().getValue();
+            check(in.readLong() == expected, file);
+            return state;
+        }
+    }
+
+    /**
+     * Reports a damaged checkpoint unless {@code condition} holds.
+     *
+     * @param condition
+     *            what a whole checkpoint satisfies
+     * @param file
+     *            the checkpoint file
+     * @throws IOException
+     *             if condition does not hold
+     */
+    private static void check(boolean condition, Path file) throws IOException {
+        if (!condition) {
+            throw new IOException("Checkpoint " + file + " is damaged");
+        }
+    }
+
+    /**
+     * Writes {@code value} in as few bytes as it needs, seven bits a byte.
+     *
+     * @param out
+     *            the output
+     * @param value
+     *            the value
+     * @throws IOException
+     *             if out cannot be written
+     * @requires value >= 0
+     */
+    private static void writeVarInt(DataOutputStream out, int value) throws IOException {
+        int rest = value;
+        while (rest > VARINT_MASK) {
+            out.writeByte((rest & VARINT_MASK) | VARINT_MORE);
+            rest >>>= VARINT_BITS;
+        }
+        out.writeByte(rest);
+    }
+
+    /**
+     * Reads a value written by {@code writeVarInt}.
+     *
+     * @param in
+     *            the input
+     * @return the value
+     * @throws IOException
+     *             if in cannot be read, or does not hold a value
+     */
+    private static int readVarInt(DataInputStream in) throws IOException {
+        int value = 0;
+        int shift = 0;
+        int b;
+        do {
+            if (shift >= Integer.SIZE) {
+                throw new IOException("Checkpoint value too long");
+            }
+            b = in.readUnsignedByte();
+            value |= (b & VARINT_MASK) << shift;
+            shift += VARINT_BITS;
+        } while ((b & VARINT_MORE) != 0);
+        if (value < 0) {
+            throw new IOException("Checkpoint value out of range");
+        }
+        return value;
+    }
+
+    /**
+     * Writes {@code s} exactly: its length, then one byte per character if
+     * they all fit in one, two otherwise.
+     *
+     * @param out
+     *            the output
+     * @param s
+     *            the string
+     * @throws IOException
+     *             if out cannot be written
+     */
+    private static void writeString(DataOutputStream out, String s) throws IOException {
+        boolean narrow = true;
+        for (int k = 0; k < s.length() && narrow; k++) {
+            narrow = s.charAt(k) <= MAX_BYTE_CHAR;
+        }
+        out.writeBoolean(narrow);
+        writeVarInt(out, s.length());
+        for (int k = 0; k < s.length(); k++) {
+            if (narrow) {
+                out.writeByte(s.charAt(k));
+            } else {
+                out.writeChar(s.charAt(k));
+            }
+        }
+    }
+
+    /**
+     * Reads a string written by {@code writeString}.
+     *
+     * @param in
+     *            the input
+     * @return the string
+     * @throws IOException
+     *             if in cannot be read
+     */
+    private static String readString(DataInputStream in) throws IOException {
+        boolean narrow = in.readBoolean();
+        char[] chars = new char[readVarInt(in)];
+        for (int k = 0; k < chars.length; k++) {
+            if (narrow) {
+                chars[k] = (char) in.readUnsignedByte();
+            } else {
+                chars[k] = in.readChar();
+            }
+        }
+        return new String(chars);
+    }
+
+}
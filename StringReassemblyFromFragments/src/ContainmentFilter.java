@@ -0,0 +1,400 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Generalized suffix automaton over a growing collection of strings, used to
+ * drop the strings that are substrings of others.
+ *
+ * <p>
+ * The automaton accepts exactly the substrings of the strings added so far,
+ * so asking whether a string is a substring of any of them is one walk from
+ * the start state, in time linear in its length. Adding a string takes time
+ * linear in its length too (amortized, and up to the cost of the transition
+ * table), and the automaton has fewer than twice as many states as there are
+ * characters added.
+ * </p>
+ *
+ * @author Jesse Shields
+ *
+ */
+final class ContainmentFilter {
+
+    /**
+     * The start state, for the empty string.
+     */
+    private static final int START = 0;
+
+    /**
+     * Marks an empty slot of the transition table.
+     */
+    private static final long EMPTY = -1L;
+
+    /**
+     * Bits of a transition table key taken by the character.
+     */
+    private static final int CHAR_BITS = 16;
+
+    /**
+     * Initial state and transition capacity.
+     */
+    private static final int INITIAL_CAPACITY = 16;
+
+    /**
+     * Length of the longest string reaching each state.
+     */
+    private int[] length;
+
+    /**
+     * Suffix link of each state, or -1 for the start state.
+     */
+    private int[] link;
+
+    /**
+     * First transition out of each state, or -1.
+     */
+    private int[] firstEdge;
+
+    /**
+     * Number of states.
+     */
+    private int stateCount;
+
+    /**
+     * Label of each transition.
+     */
+    private char[] edgeChar;
+
+    /**
+     * Target of each transition.
+     */
+    private int[] edgeTarget;
+
+    /**
+     * Next transition out of the same state, or -1.
+     */
+    private int[] edgeNext;
+
+    /**
+     * Number of transitions.
+     */
+    private int edgeCount;
+
+    /**
+     * Number of strings added.
+     */
+    private int stringCount;
+
+    /**
+     * Keys of the transition table: source state and character.
+     */
+    private long[] tableKeys;
+
+    /**
+     * Values of the transition table: transition index.
+     */
+    private int[] tableValues;
+
+    /**
+     * Constructor, with no strings added.
+     */
+    ContainmentFilter() {
+        this.length = new int[INITIAL_CAPACITY];
+        this.link = new int[INITIAL_CAPACITY];
+        this.firstEdge = new int[INITIAL_CAPACITY];
+        this.stateCount = 0;
+        this.edgeChar = new char[INITIAL_CAPACITY];
+        this.edgeTarget = new int[INITIAL_CAPACITY];
+        this.edgeNext = new int[INITIAL_CAPACITY];
+        this.edgeCount = 0;
+        this.stringCount = 0;
+        this.tableKeys = new long[INITIAL_CAPACITY];
+        Arrays.fill(this.tableKeys, EMPTY);
+        this.tableValues = new int[INITIAL_CAPACITY];
+        this.newState(0, -1);
+    }
+
+    /**
+     * Returns the strings of {@code strings} that are not substrings of any
+     * other: each distinct string once, unless another string properly
+     * contains it.
+     *
+     * @param <T>
+     *            type of the strings
+     * @param strings
+     *            the strings, possibly with repeats
+     * @return the maximal strings, longest first
+     */
+    static <T extends CharSequence> List<T> maximal(List<T> strings) {
+        /*
+         * A string can only be contained in a longer one, or in an equal
+         * copy, so taking the strings longest first means every string that
+         * could contain the current one has already been decided on; and a
+         * string inside a dropped string is inside whatever dropped it
+         */
+        List<T> sorted = new ArrayList<>(strings);
+        sorted.sort((a, b) -> Integer.compare(b.length(), a.length()));
+        ContainmentFilter filter = new ContainmentFilter();
+        List<T> result = new ArrayList<>();
+        for (T str : sorted) {
+            if (!filter.containsSubstring(str)) {
+                filter.add(str);
+                result.add(str);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Reports whether {@code s} is a substring of some string added so far.
+     *
+     * @param s
+     *            the string
+     * @return whether s is a substring of an added string
+     */
+    boolean containsSubstring(CharSequence s) {
+        int v = START;
+        for (int k = 0; k < s.length() && v >= 0; k++) {
+            v = this.next(v, s.charAt(k));
+        }
+        return this.stringCount > 0 && v >= 0;
+    }
+
+    /**
+     * Adds {@code s} to the strings whose substrings are accepted.
+     *
+     * @param s
+     *            the string
+     */
+    void add(CharSequence s) {
+        int last = START;
+        for (int k = 0; k < s.length(); k++) {
+            last = this.extend(last, s.charAt(k));
+        }
+        this.stringCount++;
+    }
+
+    /**
+     * Extends the automaton by character {@code c} after state {@code last},
+     * the state of the part of the current string read so far.
+     *
+     * @param last
+     *            state of the current string so far
+     * @param c
+     *            next character
+     * @return state of the current string with c appended
+     */
+    private int extend(int last, char c) {
+        int result;
+        int q = this.next(last, c);
+        if (q >= 0) {
+            /*
+             * Another string already went this way: reuse its state, or split
+             * it if it also stands for longer strings
+             */
+            if (this.length[last] + 1 == this.length[q]) {
+                result = q;
+            } else {
+                result = this.split(last, c, q);
+            }
+        } else {
+            int cur = this.newState(this.length[last] + 1, START);
+            int p = last;
+            while (p >= 0 && this.next(p, c) < 0) {
+                this.addEdge(p, c, cur);
+                p = this.link[p];
+            }
+            if (p >= 0) {
+                q = this.next(p, c);
+                int suffix = q;
+                if (this.length[p] + 1 != this.length[q]) {
+                    /*
+                     * Split first: it may grow, and so replace, this.link
+                     */
+                    suffix = this.split(p, c, q);
+                }
+                this.link[cur] = suffix;
+            }
+            result = cur;
+        }
+        return result;
+    }
+
+    /**
+     * Splits off from {@code q} a clone for the strings no longer than
+     * {@code length[p] + 1}, and redirects to it the transitions along
+     * {@code c} from {@code p} and its suffix links that went to {@code q}.
+     *
+     * @param p
+     *            state with a transition along c to q
+     * @param c
+     *            the character
+     * @param q
+     *            state to split
+     * @return the clone
+     */
+    private int split(int p, char c, int q) {
+        int clone = this.newState(this.length[p] + 1, this.link[q]);
+        for (int e = this.firstEdge[q]; e >= 0; e = this.edgeNext[e]) {
+            this.addEdge(clone, this.edgeChar[e], this.edgeTarget[e]);
+        }
+        int r = p;
+        int e = this.edge(r, c);
+        while (e >= 0 && this.edgeTarget[e] == q) {
+            this.edgeTarget[e] = clone;
+            r = this.link[r];
+            if (r >= 0) {
+                e = this.edge(r, c);
+            } else {
+                e = -1;
+            }
+        }
+        this.link[q] = clone;
+        return clone;
+    }
+
+    /**
+     * Creates a state.
+     *
+     * @param stateLength
+     *            length of the longest string reaching it
+     * @param suffixLink
+     *            its suffix link
+     * @return the new state
+     */
+    private int newState(int stateLength, int suffixLink) {
+        if (this.stateCount == this.length.length) {
+            int capacity = 2 * this.length.length;
+            this.length = Arrays.copyOf(this.length, capacity);
+            this.link = Arrays.copyOf(this.link, capacity);
+            this.firstEdge = Arrays.copyOf(this.firstEdge, capacity);
+        }
+        int v = this.stateCount;
+        this.stateCount++;
+        this.length[v] = stateLength;
+        this.link[v] = suffixLink;
+        this.firstEdge[v] = -1;
+        return v;
+    }
+
+    /**
+     * Returns the target of the transition from {@code v} along {@code c},
+     * or -1.
+     *
+     * @param v
+     *            source state
+     * @param c
+     *            the character
+     * @return the target, or -1 if there is no such transition
+     */
+    private int next(int v, char c) {
+        int e = this.edge(v, c);
+        int result = -1;
+        if (e >= 0) {
+            result = this.edgeTarget[e];
+        }
+        return result;
+    }
+
+    /**
+     * Returns the transition from {@code v} along {@code c}, or -1.
+     *
+     * @param v
+     *            source state
+     * @param c
+     *            the character
+     * @return index of the transition, or -1 if there is none
+     */
+    private int edge(int v, char c) {
+        long key = ((long) v << CHAR_BITS) | c;
+        int mask = this.tableKeys.length - 1;
+        int slot = hash(key) & mask;
+        int result = -1;
+        while (result < 0 && this.tableKeys[slot] != EMPTY) {
+            if (this.tableKeys[slot] == key) {
+                result = this.tableValues[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        return result;
+    }
+
+    /**
+     * Adds the transition from {@code v} along {@code c} to {@code u}.
+     *
+     * @param v
+     *            source state
+     * @param c
+     *            the character
+     * @param u
+     *            target state
+     * @requires [v has no transition along c]
+     */
+    private void addEdge(int v, char c, int u) {
+        if (this.edgeCount == this.edgeChar.length) {
+            int capacity = 2 * this.edgeChar.length;
+            this.edgeChar = Arrays.copyOf(this.edgeChar, capacity);
+            this.edgeTarget = Arrays.copyOf(this.edgeTarget, capacity);
+            this.edgeNext = Arrays.copyOf(this.edgeNext, capacity);
+        }
+        int e = this.edgeCount;
+        this.edgeCount++;
+        this.edgeChar[e] = c;
+        this.edgeTarget[e] = u;
+        this.edgeNext[e] = this.firstEdge[v];
+        this.firstEdge[v] = e;
+        if (2 * this.edgeCount > this.tableKeys.length) {
+            this.growTable();
+        }
+        this.putKey(((long) v << CHAR_BITS) | c, e);
+    }
+
+    /**
+     * Records transition {@code e} under {@code key} in the transition table.
+     *
+     * @param key
+     *            source state and character
+     * @param e
+     *            index of the transition
+     */
+    private void putKey(long key, int e) {
+        int mask = this.tableKeys.length - 1;
+        int slot = hash(key) & mask;
+        while (this.tableKeys[slot] != EMPTY) {
+            slot = (slot + 1) & mask;
+        }
+        this.tableKeys[slot] = key;
+        this.tableValues[slot] = e;
+    }
+
+    /**
+     * Doubles the transition table.
+     */
+    private void growTable() {
+        long[] oldKeys = this.tableKeys;
+        int[] oldValues = this.tableValues;
+        this.tableKeys = new long[2 * oldKeys.length];
+        Arrays.fill(this.tableKeys, EMPTY);
+        this.tableValues = new int[2 * oldValues.length];
+        for (int s = 0; s < oldKeys.length; s++) {
+            if (oldKeys[s] != EMPTY) {
+                this.putKey(oldKeys[s], oldValues[s]);
+            }
+        }
+    }
+
+    /**
+     * Mixes the bits of {@code key} for the transition table.
+     *
+     * @param key
+     *            the key
+     * @return a well-spread hash of key
+     */
+    private static int hash(long key) {
+        final long multiplier = 0x9E3779B97F4A7C15L;
+        final int shift = 32;
+        long h = key * multiplier;
+        return (int) (h ^ (h >>> shift));
+    }
+
+}
@@ -0,0 +1,288 @@
+import java.util.Arrays;
+
+/**
+ * An assembled string kept as a piece table: a list of pieces, each a range
+ * of one of the original fragments, rather than as a copy of its characters.
+ *
+ * <p>
+ * Building a contig from a chain of fragments copies only references, so
+ * merging costs time in the number of fragments, not characters; reading a
+ * character finds its piece by binary search, which is what overlap checks
+ * on the ends of a contig need. The characters are copied once, when the
+ * text is finally wanted, by {@code toString} or {@code appendTo}.
+ * </p>
+ *
+ * @author Jesse Shields
+ *
+ */
+final class Contig implements CharSequence {
+
+    /**
+     * Sequence each piece is taken from.
+     */
+    private final CharSequence[] source;
+
+    /**
+     * Start of each piece in its source.
+     */
+    private final int[] offset;
+
+    /**
+     * Position in this contig just past each piece.
+     */
+    private final int[] end;
+
+    /**
+     * Piece of the last character read, so that reading in order does not
+     * search; any piece index is a valid value, so unsynchronized updates are
+     * harmless.
+     */
+    private int lastPiece = 0;
+
+    /**
+     * Constructor.
+     *
+     * @param source
+     *            sequence of each piece
+     * @param offset
+     *            start of each piece in its source
+     * @param end
+     *            position just past each piece
+     */
+    private Contig(CharSequence[] source, int[] offset, int[] end) {
+        this.source = source;
+        this.offset = offset;
+        this.end = end;
+    }
+
+    /**
+     * Returns the number of pieces.
+     *
+     * @return number of pieces
+     */
+    int pieces() {
+        return this.end.length;
+    }
+
+    /**
+     * Returns the sequence piece {@code p} is taken from.
+     *
+     * @param p
+     *            the piece
+     * @return its source
+     * @requires 0 <= p < pieces()
+     */
+    CharSequence source(int p) {
+        return this.source[p];
+    }
+
+    /**
+     * Returns the start of piece {@code p} in its source.
+     *
+     * @param p
+     *            the piece
+     * @return its offset in the source
+     * @requires 0 <= p < pieces()
+     */
+    int offset(int p) {
+        return this.offset[p];
+    }
+
+    /**
+     * Returns the length of piece {@code p}.
+     *
+     * @param p
+     *            the piece
+     * @return its length
+     * @requires 0 <= p < pieces()
+     */
+    int pieceLength(int p) {
+        return this.end[p] - this.start(p);
+    }
+
+    @Override
+    public int length() {
+        int length = 0;
+        if (this.end.length > 0) {
+            length = this.end[this.end.length - 1];
+        }
+        return length;
+    }
+
+    @Override
+    public char charAt(int index) {
+        assert 0 <= index && index < this.length() : "Violation of: 0 <= index < |this|";
+        int p = this.pieceAt(index);
+        return this.source[p].charAt(this.offset[p] + index - this.start(p));
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        assert 0 <= start && start <= end && end <= this.length()
+                : "Violation of: 0 <= start <= end <= |this|";
+        Builder builder = new Builder();
+        if (start < end) {
+            int first = this.pieceAt(start);
+            int last = this.pieceAt(end - 1);
+            for (int p = first; p <= last; p++) {
+                int from = Math.max(start, this.start(p)) - this.start(p) + this.offset[p];
+                int to = Math.min(end, this.end[p]) - this.start(p) + this.offset[p];
+                builder.add(this.source[p], from, to);
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * Appends the characters of this contig to {@code text}.
+     *
+     * @param text
+     *            the text to extend
+     * @updates text
+     * @ensures text = #text * this
+     */
+    void appendTo(StringBuilder text) {
+        for (int p = 0; p < this.end.length; p++) {
+            int from = this.offset[p];
+            text.append(this.source[p], from, from + this.pieceLength(p));
+        }
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder text = new StringBuilder(this.length());
+        this.appendTo(text);
+        return text.toString();
+    }
+
+    /**
+     * Returns the position in this contig of the start of piece {@code p}.
+     *
+     * @param p
+     *            the piece
+     * @return where piece p starts
+     */
+    private int start(int p) {
+        int start = 0;
+        if (p > 0) {
+            start = this.end[p - 1];
+        }
+        return start;
+    }
+
+    /**
+     * Returns the piece holding position {@code index}.
+     *
+     * @param index
+     *            position in this contig
+     * @return the piece holding it
+     * @requires 0 <= index < |this|
+     */
+    private int pieceAt(int index) {
+        int p = this.lastPiece;
+        if (this.start(p) > index || index >= this.end[p]) {
+            p = this.search(index);
+            this.lastPiece = p;
+        }
+        return p;
+    }
+
+    /**
+     * Returns the piece holding position {@code index}, by binary search.
+     *
+     * @param index
+     *            position in this contig
+     * @return the piece holding it
+     * @requires 0 <= index < |this|
+     */
+    private int search(int index) {
+        int lo = 0;
+        int hi = this.end.length - 1;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (this.end[mid] <= index) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    /**
+     * Collects the pieces of a contig, in order.
+     */
+    static final class Builder {
+
+        /**
+         * Initial capacity.
+         */
+        private static final int INITIAL_CAPACITY = 4;
+
+        /**
+         * Sequence of each piece.
+         */
+        private CharSequence[] source = new CharSequence[INITIAL_CAPACITY];
+
+        /**
+         * Start of each piece in its source.
+         */
+        private int[] offset = new int[INITIAL_CAPACITY];
+
+        /**
+         * Position just past each piece.
+         */
+        private int[] end = new int[INITIAL_CAPACITY];
+
+        /**
+         * Number of pieces.
+         */
+        private int count = 0;
+
+        /**
+         * Appends {@code piece[from, to)} as the next piece; an empty range
+         * adds nothing.
+         *
+         * @param piece
+         *            the sequence the piece is taken from
+         * @param from
+         *            start of the piece in it
+         * @param to
+         *            end of the piece in it
+         * @return this builder
+         * @requires 0 <= from <= to <= |piece|
+         */
+        Builder add(CharSequence piece, int from, int to) {
+            if (from < to) {
+                if (this.count == this.end.length) {
+                    int capacity = 2 * this.end.length;
+                    this.source = Arrays.copyOf(this.source, capacity);
+                    this.offset = Arrays.copyOf(this.offset, capacity);
+                    this.end = Arrays.copyOf(this.end, capacity);
+                }
+                int start = 0;
+                if (this.count > 0) {
+                    start = this.end[this.count - 1];
+                }
+                this.source[this.count] = piece;
+                this.offset[this.count] = from;
+                this.end[this.count] = start + to - from;
+                this.count++;
+            }
+            return this;
+        }
+
+        /**
+         * Returns the contig of the pieces added so far.
+         *
+         * @return the contig
+         */
+        Contig build() {
+            return new Contig(Arrays.copyOf(this.source, this.count),
+                    Arrays.copyOf(this.offset, this.count),
+                    Arrays.copyOf(this.end, this.count));
+        }
+
+    }
+
+}
@@ -0,0 +1,250 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The lines of a UTF-8 file, memory-mapped and handed out as slices of the
+ * mapping rather than as {@code String}s.
+ *
+ * <p>
+ * Each slice is a {@code CharSequence} whose characters are the bytes of the
+ * line, one per character (the ISO-8859-1 view), so overlap and containment
+ * checks compare bytes and nothing is decoded or copied per line. This is
+ * safe for UTF-8: a line starts on a character boundary, so a byte overlap
+ * with it always covers whole characters. Strings built from slices are in
+ * the same byte-per-character form and are turned back into text with
+ * {@code decode}.
+ * </p>
+ *
+ * @author Jesse Shields
+ *
+ */
+final class FragmentStore {
+
+    /**
+     * Largest region mapped at once; a mapping is indexed by {@code int}.
+     */
+    private static final int MAX_REGION = Integer.MAX_VALUE;
+
+    /**
+     * The lines of the file, as slices of its mapping.
+     */
+    private final List<Slice> lines;
+
+    /**
+     * Constructor.
+     *
+     * @param lines
+     *            the lines of the file
+     */
+    private FragmentStore(List<Slice> lines) {
+        this.lines = lines;
+    }
+
+    /**
+     * Maps the file {@code fileName} and splits it into lines. A line ends
+     * at "\n", "\r\n" or "\r", which is not part of it; a last line without
+     * one still counts.
+     *
+     * @param fileName
+     *            name of the file
+     * @return the store of its lines
+     * @throws IOException
+     *             if the file cannot be read, or has a line too long to map
+     */
+    static FragmentStore map(String fileName) throws IOException {
+        List<Slice> lines = new ArrayList<>();
+        try (FileChannel channel = FileChannel.open(Paths.get(fileName),
+                StandardOpenOption.READ)) {
+            long size = channel.size();
+            long position = 0;
+            while (position < size) {
+                ByteBuffer region = channel.map(FileChannel.MapMode.READ_ONLY, position,
+                        Math.min(MAX_REGION, size - position));
+                int end = region.limit();
+                if (position + end < size) {
+                    /*
+                     * Stop this region after its last line feed, so that no
+                     * line spans two regions
+                     */
+                    while (end > 0 && region.get(end - 1) != '\n') {
+                        end--;
+                    }
+                    if (end == 0) {
+                        throw new IOException("Line too long to map in " + fileName);
+                    }
+                }
+                split(region, end, lines);
+                position += end;
+            }
+        }
+        return new FragmentStore(lines);
+    }
+
+    /**
+     * Appends the lines of {@code region[0, end)} to {@code lines}.
+     *
+     * @param region
+     *            mapped bytes
+     * @param end
+     *            end of the lines in region
+     * @param lines
+     *            the lines found so far
+     * @updates lines
+     */
+    private static void split(ByteBuffer region, int end, List<Slice> lines) {
+        int start = 0;
+        int k = 0;
+        while (k < end) {
+            byte b = region.get(k);
+            if (b == '\n' || b == '\r') {
+                lines.add(new Slice(region, start, k - start));
+                if (b == '\r' && k + 1 < end && region.get(k + 1) == '\n') {
+                    k++;
+                }
+                start = k + 1;
+            }
+            k++;
+        }
+        if (start < end) {
+            lines.add(new Slice(region, start, end - start));
+        }
+    }
+
+    /**
+     * Returns the lines of the file, in file order.
+     *
+     * @return the lines
+     */
+    List<Slice> lines() {
+        return this.lines;
+    }
+
+    /**
+     * Returns the text whose UTF-8 bytes are the characters of {@code bytes},
+     * as built from slices.
+     *
+     * @param bytes
+     *            one byte per character
+     * @return the decoded text
+     * @requires [every character of bytes is at most 0xFF]
+     */
+    static String decode(CharSequence bytes) {
+        byte[] utf8 = new byte[bytes.length()];
+        for (int k = 0; k < utf8.length; k++) {
+            utf8[k] = (byte) bytes.charAt(k);
+        }
+        return new String(utf8, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Returns {@code text} in the form {@code decode} undoes: its UTF-8
+     * bytes, one per character.
+     *
+     * @param text
+     *            the text
+     * @return its bytes, one per character
+     * @ensures decode(encode) = text
+     */
+    static String encode(String text) {
+        return new String(text.getBytes(StandardCharsets.UTF_8),
+                StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * A run of bytes of a mapped file, seen as one character per byte.
+     */
+    static final class Slice implements CharSequence {
+
+        /**
+         * Mask of the low byte.
+         */
+        private static final int BYTE_MASK = 0xFF;
+
+        /**
+         * The mapping the bytes are in.
+         */
+        private final ByteBuffer buffer;
+
+        /**
+         * Position of the first byte in buffer.
+         */
+        private final int offset;
+
+        /**
+         * Number of bytes.
+         */
+        private final int length;
+
+        /**
+         * Constructor.
+         *
+         * @param buffer
+         *            the mapping
+         * @param offset
+         *            position of the first byte
+         * @param length
+         *            number of bytes
+         */
+        Slice(ByteBuffer buffer, int offset, int length) {
+            this.buffer = buffer;
+            this.offset = offset;
+            this.length = length;
+        }
+
+        @Override
+        public int length() {
+            return this.length;
+        }
+
+        @Override
+        public char charAt(int index) {
+            assert 0 <= index && index < this.length : "Violation of: 0 <= index < |this|";
+            return (char) (this.buffer.get(this.offset + index) & BYTE_MASK);
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            assert 0 <= start && start <= end && end <= this.length
+                    : "Violation of: 0 <= start <= end <= |this|";
+            return new Slice(this.buffer, this.offset + start, end - start);
+        }
+
+        /**
+         * Copies the bytes {@code [from, to)} of this slice into {@code dst}.
+         *
+         * @param from
+         *            first byte copied
+         * @param to
+         *            one past the last byte copied
+         * @param dst
+         *            the buffer to copy into
+         * @updates dst
+         * @requires <pre>
+         * 0 <= from <= to <= |this|  and  to - from <= dst.remaining()
+         * </pre>
+         */
+        void copyTo(int from, int to, ByteBuffer dst) {
+            ByteBuffer bytes = this.buffer.duplicate();
+            bytes.limit(this.offset + to);
+            bytes.position(this.offset + from);
+            dst.put(bytes);
+        }
+
+        @Override
+        public String toString() {
+            byte[] bytes = new byte[this.length];
+            for (int k = 0; k < this.length; k++) {
+                bytes[k] = this.buffer.get(this.offset + k);
+            }
+            return new String(bytes, StandardCharsets.ISO_8859_1);
+        }
+
+    }
+
+}
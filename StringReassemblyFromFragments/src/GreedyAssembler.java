@@ -0,0 +1,542 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Greedy assembly driven by an {@code OverlapGraph}.
+ *
+ * <p>
+ * Repeatedly merging the two strings with the longest overlap is the same as
+ * taking the overlap edges between the original fragments longest first and
+ * keeping each edge whose source has no successor yet, whose target has no
+ * predecessor yet, and which does not close a cycle: when no fragment is a
+ * substring of another, the overlap between two merged strings is always the
+ * overlap between the last fragment of one and the first fragment of the
+ * other. The kept edges link the fragments into chains, and each chain
+ * spells one assembled string, returned as a {@code Contig} that refers to
+ * the fragments rather than copying them. Ties between equal overlaps go to
+ * the lexicographically smaller last fragment of the left string, then to
+ * the smaller first fragment of the right string.
+ * </p>
+ *
+ * <p>
+ * With more than one thread, and enough fragments in at least two
+ * components of more than one fragment to be worth it, the connected
+ * components of the graph (see {@code AssemblyPlanner}) are merged on workers
+ * of the common pool, all linking into the same chains; a component only
+ * touches the entries of its own fragments, so the workers never meet, and
+ * the result is the same.
+ * </p>
+ *
+ * @author Jesse Shields
+ *
+ */
+final class GreedyAssembler {
+
+    /**
+     * Bits of a heap key taken by the fragment.
+     */
+    private static final int FRAGMENT_BITS = 32;
+
+    /**
+     * Batches of components per thread, so that a few large components do
+     * not leave the other threads idle.
+     */
+    private static final int BATCHES_PER_THREAD = 4;
+
+    /**
+     * Fewest fragments worth planning and merging on several threads; below
+     * this the serial merge is faster than handing out the work.
+     */
+    private static final int MIN_PARALLEL = 256;
+
+    /**
+     * Private constructor so this utility class cannot be instantiated.
+     */
+    private GreedyAssembler() {
+    }
+
+    /**
+     * Assembles {@code fragments} greedily, merging only across overlaps of at
+     * least {@code minOverlap} characters, and finding the overlaps on up to
+     * {@code threads} threads.
+     *
+     * @param fragments
+     *            the fragments
+     * @param minOverlap
+     *            shortest overlap merged across
+     * @param threads
+     *            most threads to use
+     * @return the assembled strings, as contigs
+     * @requires <pre>
+     * minOverlap >= 1  and  threads >= 1  and
+     * [the entries of fragments are distinct and none is a substring of
+     *  another]
+     * </pre>
+     */
+    static List<Contig> assemble(CharSequence[] fragments, int minOverlap, int threads) {
+        return assemble(new OverlapIndex(fragments), minOverlap, threads);
+    }
+
+    /**
+     * Assembles the fragments of {@code index} greedily, merging only across
+     * overlaps of at least {@code minOverlap} characters, and finding the
+     * overlaps and merging the components of their graph on up to
+     * {@code threads} threads.
+     *
+     * @param index
+     *            the fragments, and finder of their overlaps
+     * @param minOverlap
+     *            shortest overlap merged across
+     * @param threads
+     *            most threads to use
+     * @return the assembled strings, as contigs
+     * @requires <pre>
+     * minOverlap >= 1  and  threads >= 1  and
+     * [the fragments of index are distinct and none is a substring of
+     *  another]
+     * </pre>
+     */
+    static List<Contig> assemble(OverlapFinder index, int minOverlap, int threads) {
+        OverlapGraph graph = OverlapGraph.build(index, minOverlap, threads);
+        List<Contig> result = null;
+        if (threads > 1 && index.size() >= MIN_PARALLEL) {
+            AssemblyPlanner plan = AssemblyPlanner.plan(graph, index.size());
+            if (mergeableComponents(plan) > 1) {
+                result = merge(index, graph, plan, threads);
+            }
+        }
+        if (result == null) {
+            result = merge(index, graph);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the number of components of {@code plan} with more than one
+     * fragment, the only ones with anything to merge.
+     *
+     * @param plan
+     *            the connected components of a graph
+     * @return number of components of more than one fragment
+     */
+    private static int mergeableComponents(AssemblyPlanner plan) {
+        int count = 0;
+        for (int c = 0; c < plan.components(); c++) {
+            if (plan.start(c + 1) - plan.start(c) > 1) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Links the fragments of {@code index} along the edges of {@code graph},
+     * one merge at a time, and returns the strings the chains spell.
+     *
+     * <p>
+     * A max-heap holds one candidate overlap for each string still open on the
+     * right: the longest edge from its last fragment not yet found stale. The
+     * top candidate is merged if its target is still the first fragment of
+     * another string; otherwise it is stale, and is dropped and replaced by
+     * the next edge from the same fragment. A merged string's candidate is
+     * simply not put back. So each edge is looked at most once, and the work
+     * is O(E log n) for E edges between n fragments.
+     * </p>
+     *
+     * @param index
+     *            the fragments
+     * @param graph
+     *            overlaps between them
+     * @return the assembled strings, as contigs, in order of their first
+     *         fragments
+     */
+    static List<Contig> merge(OverlapFinder index, OverlapGraph graph) {
+        return merge(index, graph, filled(index.size(), -1), new int[index.size()],
+                (merges, examined) -> {
+                });
+    }
+
+    /**
+     * Links the fragments of {@code index} along the edges of {@code graph}
+     * as {@code merge(index, graph)} does, but starting from the links
+     * {@code next} and {@code nextOverlap} already made by an earlier, cut
+     * short run on the same graph, and telling {@code listener} of each new
+     * link. The arrays are updated as links are made, so they can be saved
+     * from the listener and given back to resume the run.
+     *
+     * <p>
+     * Resuming needs nothing else: the earlier run took the edges in
+     * increasing key order, and every edge before its last link is stale now
+     * if it was then, so starting each open string's candidate at its first
+     * edge again only finds those edges stale once more.
+     * </p>
+     *
+     * @param index
+     *            the fragments
+     * @param graph
+     *            overlaps between them
+     * @param next
+     *            successor of each fragment, or -1
+     * @param nextOverlap
+     *            overlap with the successor of each fragment
+     * @param listener
+     *            told of each new link
+     * @return the assembled strings, as contigs, in order of their first
+     *         fragments
+     * @updates next, nextOverlap
+     * @requires <pre>
+     * [next and nextOverlap are as a run of merge on graph left them, or
+     *  have no links]
+     * </pre>
+     */
+    static List<Contig> merge(OverlapFinder index, OverlapGraph graph, int[] next,
+            int[] nextOverlap, MergeListener listener) {
+        int n = index.size();
+        Chains chains = new Chains(next, nextOverlap);
+        int[] all = new int[n];
+        for (int i = 0; i < n; i++) {
+            all[i] = i;
+        }
+        mergeAmong(all, 0, n, graph, chains, new int[n], chains.links(), listener);
+        return chains.contigs(index);
+    }
+
+    /**
+     * Links the fragments of {@code index} along the edges of {@code graph}
+     * as {@code merge(index, graph)} does, merging the components of
+     * {@code plan} in batches on up to {@code threads} workers of the common
+     * pool.
+     *
+     * @param index
+     *            the fragments
+     * @param graph
+     *            overlaps between them
+     * @param plan
+     *            the connected components of graph
+     * @param threads
+     *            most threads to use
+     * @return the assembled strings, as contigs, in order of their first
+     *         fragments
+     * @requires threads >= 1
+     */
+    static List<Contig> merge(OverlapFinder index, OverlapGraph graph,
+            AssemblyPlanner plan, int threads) {
+        assert threads >= 1 : "Violation of: threads >= 1";
+        int n = index.size();
+        Chains chains = new Chains(n);
+        int[] cursor = new int[n];
+        int[] fragments = plan.fragments();
+        int[] batches = plan.batches(BATCHES_PER_THREAD * threads);
+        MergeListener none = (merges, examined) -> {
+        };
+        AtomicInteger nextBatch = new AtomicInteger();
+        Runnable worker = () -> {
+            int b = nextBatch.getAndIncrement();
+            while (b + 1 < batches.length) {
+                for (int c = batches[b]; c < batches[b + 1]; c++) {
+                    /*
+                     * A lone fragment has no edges, so nothing to merge
+                     */
+                    if (plan.start(c + 1) - plan.start(c) > 1) {
+                        mergeAmong(fragments, plan.start(c), plan.start(c + 1), graph,
+                                chains, cursor, 0, none);
+                    }
+                }
+                b = nextBatch.getAndIncrement();
+            }
+        };
+        /*
+         * At most threads workers, each taking batches until none is left, so
+         * the shared pool is not asked for more than threads of its threads
+         */
+        List<ForkJoinTask<?>> tasks = new ArrayList<>();
+        for (int t = 0; t < Math.min(threads, batches.length - 1); t++) {
+            tasks.add(ForkJoinPool.commonPool().submit(worker));
+        }
+        for (ForkJoinTask<?> task : tasks) {
+            task.join();
+        }
+        return chains.contigs(index);
+    }
+
+    /**
+     * Links the fragments {@code fragments[from, to)} along the edges of
+     * {@code graph}, with a heap of candidates as in {@code merge}, telling
+     * {@code listener} of each link.
+     *
+     * @param fragments
+     *            fragments, of which [from, to) are merged
+     * @param from
+     *            first of them
+     * @param to
+     *            one past the last of them
+     * @param graph
+     *            overlaps between the fragments
+     * @param chains
+     *            the chains linked into
+     * @param cursor
+     *            scratch array of the current edge of each fragment
+     * @param linked
+     *            links made before, counted in what listener is told
+     * @param listener
+     *            told of each link
+     * @updates chains, cursor
+     * @requires <pre>
+     * [fragments[from, to) holds, for each fragment, every fragment that one
+     *  of its edges reaches]
+     * </pre>
+     */
+    private static void mergeAmong(int[] fragments, int from, int to, OverlapGraph graph,
+            Chains chains, int[] cursor, int linked, MergeListener listener) {
+        int merges = linked;
+        long examined = 0;
+        LongHeap heap = new LongHeap(to - from);
+        for (int k = from; k < to; k++) {
+            int i = fragments[k];
+            cursor[i] = graph.firstEdge(i);
+            if (chains.next[i] < 0 && cursor[i] < graph.endEdge(i)) {
+                heap.add(key(graph.length(cursor[i]), i));
+            }
+        }
+        while (heap.size() > 0) {
+            int a = (int) heap.removeMin();
+            int e = cursor[a];
+            examined++;
+            if (chains.link(a, graph.to(e), graph.length(e))) {
+                merges++;
+                listener.linked(merges, examined);
+            } else {
+                /*
+                 * Stale: re-key a by its next edge, if it has one
+                 */
+                cursor[a]++;
+                if (cursor[a] < graph.endEdge(a)) {
+                    heap.add(key(graph.length(cursor[a]), a));
+                }
+            }
+        }
+    }
+
+    /**
+     * Links the fragments of {@code index} along the edges of {@code graph},
+     * taking every edge in global order, and returns the strings the chains
+     * spell. Gives the same result as {@code merge}.
+     *
+     * @param index
+     *            the fragments
+     * @param graph
+     *            overlaps between them
+     * @return the assembled strings, as contigs, in order of their first
+     *         fragments
+     */
+    static List<Contig> link(OverlapFinder index, OverlapGraph graph) {
+        Chains chains = new Chains(index.size());
+        for (int e : graph.orderByLength()) {
+            chains.link(graph.from(e), graph.to(e), graph.length(e));
+        }
+        return chains.contigs(index);
+    }
+
+    /**
+     * Returns the heap key of the candidate overlap of {@code length}
+     * characters from fragment {@code i}: longer overlaps first, then smaller
+     * fragments.
+     *
+     * @param length
+     *            overlap length
+     * @param i
+     *            the fragment
+     * @return the key
+     */
+    private static long key(int length, int i) {
+        return ((long) (Integer.MAX_VALUE - length) << FRAGMENT_BITS) | i;
+    }
+
+    /**
+     * Receiver of the progress of {@code merge}.
+     */
+    interface MergeListener {
+
+        /**
+         * Tells of a link just made.
+         *
+         * @param merges
+         *            links made so far, counting those resumed from
+         * @param examined
+         *            edges taken off the heap so far in this run
+         */
+        void linked(int merges, long examined);
+
+    }
+
+    /**
+     * Fragments linked into chains.
+     */
+    private static final class Chains {
+
+        /**
+         * Successor of each fragment, or -1.
+         */
+        private final int[] next;
+
+        /**
+         * Overlap with the successor of each fragment.
+         */
+        private final int[] nextOverlap;
+
+        /**
+         * Whether each fragment has a predecessor.
+         */
+        private final boolean[] hasPrevious;
+
+        /**
+         * Union-find over the chains, to refuse links that would close a
+         * cycle.
+         */
+        private final int[] parent;
+
+        /**
+         * Constructor.
+         *
+         * @param n
+         *            number of fragments, each its own chain
+         */
+        Chains(int n) {
+            this(filled(n, -1), new int[n]);
+        }
+
+        /**
+         * Constructor from links already made, which this updates in place.
+         *
+         * @param next
+         *            successor of each fragment, or -1
+         * @param nextOverlap
+         *            overlap with the successor of each fragment
+         */
+        Chains(int[] next, int[] nextOverlap) {
+            int n = next.length;
+            this.next = next;
+            this.nextOverlap = nextOverlap;
+            this.hasPrevious = new boolean[n];
+            this.parent = new int[n];
+            for (int i = 0; i < n; i++) {
+                this.parent[i] = i;
+            }
+            for (int a = 0; a < n; a++) {
+                if (next[a] >= 0) {
+                    this.hasPrevious[next[a]] = true;
+                    this.parent[find(this.parent, next[a])] = find(this.parent, a);
+                }
+            }
+        }
+
+        /**
+         * Returns the number of links made.
+         *
+         * @return number of links
+         */
+        int links() {
+            int count = 0;
+            for (int b : this.next) {
+                if (b >= 0) {
+                    count++;
+                }
+            }
+            return count;
+        }
+
+        /**
+         * Links {@code b} after {@code a} if {@code a} ends a chain and
+         * {@code b} starts a different one.
+         *
+         * @param a
+         *            fragment whose suffix overlaps
+         * @param b
+         *            fragment whose prefix overlaps
+         * @param overlap
+         *            overlap length
+         * @return whether the link was made
+         */
+        boolean link(int a, int b, int overlap) {
+            boolean linked = false;
+            if (this.next[a] < 0 && !this.hasPrevious[b]) {
+                int rootA = find(this.parent, a);
+                int rootB = find(this.parent, b);
+                if (rootA != rootB) {
+                    this.next[a] = b;
+                    this.nextOverlap[a] = overlap;
+                    this.hasPrevious[b] = true;
+                    this.parent[rootB] = rootA;
+                    linked = true;
+                }
+            }
+            return linked;
+        }
+
+        /**
+         * Returns the strings the chains spell, as contigs of the fragments.
+         *
+         * @param index
+         *            the fragments
+         * @return the contigs, in order of their first fragments
+         */
+        List<Contig> contigs(OverlapFinder index) {
+            List<Contig> result = new ArrayList<>();
+            for (int i = 0; i < this.next.length; i++) {
+                if (!this.hasPrevious[i]) {
+                    CharSequence first = index.fragment(i);
+                    Contig.Builder contig = new Contig.Builder();
+                    contig.add(first, 0, first.length());
+                    for (int j = i; this.next[j] >= 0; j = this.next[j]) {
+                        CharSequence following = index.fragment(this.next[j]);
+                        int from = index.overlapEnd(this.next[j], this.nextOverlap[j]);
+                        contig.add(following, from, following.length());
+                    }
+                    result.add(contig.build());
+                }
+            }
+            return result;
+        }
+
+    }
+
+    /**
+     * Returns a new array of {@code n} entries equal to {@code value}.
+     *
+     * @param n
+     *            length
+     * @param value
+     *            value of every entry
+     * @return the array
+     */
+    private static int[] filled(int n, int value) {
+        int[] a = new int[n];
+        Arrays.fill(a, value);
+        return a;
+    }
+
+    /**
+     * Returns the representative of the chain holding {@code i}, halving the
+     * path on the way.
+     *
+     * @param parent
+     *            union-find parent links
+     * @param i
+     *            the fragment
+     * @return the representative of i's chain
+     * @updates parent
+     */
+    static int find(int[] parent, int i) {
+        int x = i;
+        while (parent[x] != x) {
+            parent[x] = parent[parent[x]];
+            x = parent[x];
+        }
+        return x;
+    }
+
+}
@@ -0,0 +1,90 @@
+import java.util.Arrays;
+
+/**
+ * Binary min-heap of {@code long} keys, without boxing.
+ *
+ * @author Jesse Shields
+ *
+ */
+final class LongHeap {
+
+    /**
+     * The keys, in heap order.
+     */
+    private long[] keys;
+
+    /**
+     * Number of keys.
+     */
+    private int size;
+
+    /**
+     * Constructor.
+     *
+     * @param capacity
+     *            initial capacity
+     * @requires capacity >= 0
+     */
+    LongHeap(int capacity) {
+        this.keys = new long[Math.max(1, capacity)];
+        this.size = 0;
+    }
+
+    /**
+     * Returns the number of keys.
+     *
+     * @return number of keys
+     */
+    int size() {
+        return this.size;
+    }
+
+    /**
+     * Adds {@code key}.
+     *
+     * @param key
+     *            the key
+     */
+    void add(long key) {
+        if (this.size == this.keys.length) {
+            this.keys = Arrays.copyOf(this.keys, 2 * this.keys.length);
+        }
+        int child = this.size;
+        this.size++;
+        while (child > 0 && this.keys[(child - 1) / 2] > key) {
+            this.keys[child] = this.keys[(child - 1) / 2];
+            child = (child - 1) / 2;
+        }
+        this.keys[child] = key;
+    }
+
+    /**
+     * Removes and returns the smallest key.
+     *
+     * @return the smallest key
+     * @requires size() > 0
+     */
+    long removeMin() {
+        assert this.size > 0 : "Violation of: size() > 0";
+        long min = this.keys[0];
+        this.size--;
+        long last = this.keys[this.size];
+        int parent = 0;
+        int child = 1;
+        while (child < this.size) {
+            if (child + 1 < this.size && this.keys[child + 1] < this.keys[child]) {
+                child++;
+            }
+            if (this.keys[child] < last) {
+                this.keys[parent] = this.keys[child];
+                parent = child;
+                child = 2 * parent + 1;
+            } else {
+                child = this.size;
+            }
+        }
+        this.keys[parent] = last;
+        return min;
+    }
+
+}
@@ -0,0 +1,268 @@
+import java.util.Arrays;
+
+/**
+ * Finds overlaps by checking only the pairs of fragments that share a k-mer
+ * minimizer, rather than every pair.
+ *
+ * <p>
+ * Every window of {@code minOverlap} characters has a minimizer: of its
+ * {@code minOverlap - k + 1} k-mers (substrings of length {@code k}), the one
+ * with the smallest hash, leftmost on ties. If fragment {@code a} overlaps
+ * fragment {@code b} by at least {@code minOverlap} characters, then the first
+ * {@code minOverlap} characters of {@code b} also occur in {@code a}, so the
+ * minimizer of that prefix window of {@code b} is the minimizer of some window
+ * of {@code a}. The index keeps the prefix-window minimizer of every fragment,
+ * and the candidates for {@code a} are the fragments whose prefix-window
+ * minimizer is among the window minimizers of {@code a}. No overlap is missed;
+ * hash collisions only add candidates, and every candidate is checked
+ * exactly: by the prefix function, or, if the fragments are packed (see
+ * {@code PackedFragment}), by trying each overlap longest first, a word of
+ * codes at a time.
+ * </p>
+ *
+ * @author Jesse Shields
+ *
+ */
+final class MinimizerIndex implements OverlapFinder {
+
+    /**
+     * Base of the rolling k-mer hash.
+     */
+    private static final long BASE = 0x100000001B3L;
+
+    /**
+     * Bits of an entry taken by the fragment; the minimizer key is above.
+     */
+    private static final int FRAGMENT_BITS = 32;
+
+    /**
+     * Mask of the fragment bits of an entry.
+     */
+    private static final long FRAGMENT_MASK = 0xFFFFFFFFL;
+
+    /**
+     * The fragments, in lexicographic order.
+     */
+    private final CharSequence[] fragments;
+
+    /**
+     * Length of a k-mer.
+     */
+    private final int k;
+
+    /**
+     * Length of a window, and the shortest overlap the index finds.
+     */
+    private final int minOverlap;
+
+    /**
+     * Prefix-window minimizer key and fragment of each fragment long enough
+     * to have one, packed and sorted.
+     */
+    private final long[] entries;
+
+    /**
+     * Counters the queries report to.
+     */
+    private final CandidateMetrics metrics;
+
+    /**
+     * How a candidate overlap is checked.
+     */
+    private final OverlapStrategy check;
+
+    /**
+     * Builds the index of {@code fragments}.
+     *
+     * @param fragments
+     *            the fragments, which are copied and sorted
+     * @param k
+     *            length of a k-mer
+     * @param minOverlap
+     *            shortest overlap to be found
+     * @param metrics
+     *            counters to report candidates to
+     * @requires <pre>
+     * 1 <= k <= minOverlap  and
+     * [the entries of fragments are distinct]
+     * </pre>
+     */
+    MinimizerIndex(CharSequence[] fragments, int k, int minOverlap,
+            CandidateMetrics metrics) {
+        assert fragments != null : "Violation of: fragments is not null";
+        assert metrics != null : "Violation of: metrics is not null";
+        assert 1 <= k && k <= minOverlap : "Violation of: 1 <= k <= minOverlap";
+        this.fragments = fragments.clone();
+        Arrays.sort(this.fragments, CharSequences::compare);
+        this.k = k;
+        this.minOverlap = minOverlap;
+        this.metrics = metrics;
+        if (this.fragments.length > 0 && this.fragments[0] instanceof PackedFragment) {
+            this.check = OverlapStrategy.SCAN;
+        } else {
+            this.check = OverlapStrategy.PREFIX_FUNCTION;
+        }
+        long[] packed = new long[this.fragments.length];
+        int count = 0;
+        for (int j = 0; j < this.fragments.length; j++) {
+            if (this.fragments[j].length() >= minOverlap) {
+                long minimizer = this.prefixMinimizer(this.fragments[j]);
+                packed[count] = (minimizer << FRAGMENT_BITS) | j;
+                count++;
+            }
+        }
+        this.entries = Arrays.copyOf(packed, count);
+        Arrays.sort(this.entries);
+        metrics.recordFragments(this.fragments.length);
+    }
+
+    @Override
+    public int size() {
+        return this.fragments.length;
+    }
+
+    @Override
+    public CharSequence fragment(int i) {
+        return this.fragments[i];
+    }
+
+    @Override
+    public void overlapsFrom(int i, int minOverlap, int[] seen, OverlapSink sink) {
+        assert minOverlap >= this.minOverlap
+                : "Violation of: minOverlap >= this.minOverlap";
+        CharSequence a = this.fragments[i];
+        int stamp = i + 1;
+        long checked = 0;
+        long overlapping = 0;
+        if (a.length() >= this.minOverlap) {
+            long[] keys = this.kmerKeys(a);
+            int window = this.minOverlap - this.k + 1;
+            /*
+             * Sliding-window minimum: positions of increasing keys, the front
+             * being the minimizer of the current window
+             */
+            int[] deque = new int[keys.length];
+            int head = 0;
+            int tail = 0;
+            int lastReported = -1;
+            for (int p = 0; p < keys.length; p++) {
+                while (tail > head && keys[deque[tail - 1]] > keys[p]) {
+                    tail--;
+                }
+                deque[tail] = p;
+                tail++;
+                if (deque[head] <= p - window) {
+                    head++;
+                }
+                if (p >= window - 1 && deque[head] != lastReported) {
+                    lastReported = deque[head];
+                    long key = keys[lastReported];
+                    int from = lowerBound(this.entries, key << FRAGMENT_BITS);
+                    for (int e = from; e < this.entries.length
+                            && this.entries[e] >>> FRAGMENT_BITS == key; e++) {
+                        int j = (int) (this.entries[e] & FRAGMENT_MASK);
+                        if (j != i && seen[j] != stamp) {
+                            seen[j] = stamp;
+                            checked++;
+                            int length = this.check.overlap(a, this.fragments[j]);
+                            if (length >= minOverlap) {
+                                overlapping++;
+                                sink.overlap(i, j, length);
+                            }
+                        }
+                    }
+                }
+            }
+        }
+        this.metrics.recordCandidates(checked, overlapping);
+    }
+
+    /**
+     * Returns the minimizer key of the prefix window of {@code s}, its first
+     * {@code minOverlap} characters.
+     *
+     * @param s
+     *            the sequence
+     * @return the smallest k-mer key in the window
+     * @requires |s| >= minOverlap
+     */
+    private long prefixMinimizer(CharSequence s) {
+        long[] keys = this.kmerKeys(s.subSequence(0, this.minOverlap));
+        long min = keys[0];
+        for (long key : keys) {
+            min = Math.min(min, key);
+        }
+        return min;
+    }
+
+    /**
+     * Returns the key of every k-mer of {@code s}, in order: its rolling hash,
+     * mixed and cut to 32 bits.
+     *
+     * @param s
+     *            the sequence
+     * @return the k-mer keys
+     * @requires |s| >= k
+     */
+    private long[] kmerKeys(CharSequence s) {
+        long[] keys = new long[s.length() - this.k + 1];
+        long top = 1;
+        for (int m = 1; m < this.k; m++) {
+            top *= BASE;
+        }
+        long h = 0;
+        for (int p = 0; p < s.length(); p++) {
+            if (p >= this.k) {
+                h -= s.charAt(p - this.k) * top;
+            }
+            h = h * BASE + s.charAt(p);
+            if (p >= this.k - 1) {
+                keys[p - this.k + 1] = mix(h) >>> FRAGMENT_BITS;
+            }
+        }
+        return keys;
+    }
+
+    /**
+     * Mixes the bits of {@code h}, so that minimizers are spread evenly
+     * rather than favouring small characters.
+     *
+     * @param h
+     *            the hash
+     * @return the mixed hash
+     */
+    private static long mix(long h) {
+        final long m1 = 0xFF51AFD7ED558CCDL;
+        final long m2 = 0xC4CEB9FE1A85EC53L;
+        final int shift = 33;
+        long x = h;
+        x = (x ^ (x >>> shift)) * m1;
+        x = (x ^ (x >>> shift)) * m2;
+        return x ^ (x >>> shift);
+    }
+
+    /**
+     * Returns the first position in sorted {@code a} whose entry is at least
+     * {@code key}.
+     *
+     * @param a
+     *            sorted entries
+     * @param key
+     *            the key
+     * @return the lower bound of key in a
+     */
+    private static int lowerBound(long[] a, long key) {
+        int lo = 0;
+        int hi = a.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (a[mid] < key) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+}
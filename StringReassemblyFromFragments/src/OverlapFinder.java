@@ -0,0 +1,85 @@
+/**
+ * Finds the suffix-prefix overlaps of each fragment of a fixed, indexed
+ * collection of fragments.
+ *
+ * @author Jesse Shields
+ *
+ */
+interface OverlapFinder {
+
+    /**
+     * Receiver of the overlaps found by {@code overlapsFrom}.
+     */
+    interface OverlapSink {
+
+        /**
+         * Accepts one overlap.
+         *
+         * @param from
+         *            index of the fragment whose suffix overlaps
+         * @param to
+         *            index of the fragment whose prefix overlaps
+         * @param length
+         *            length of the longest such overlap
+         */
+        void overlap(int from, int to, int length);
+
+    }
+
+    /**
+     * Returns the number of fragments.
+     *
+     * @return number of fragments
+     */
+    int size();
+
+    /**
+     * Returns the fragment with index {@code i}.
+     *
+     * @param i
+     *            index of the fragment
+     * @return the fragment
+     * @requires 0 <= i < size()
+     */
+    CharSequence fragment(int i);
+
+    /**
+     * Reports to {@code sink}, once each and in no particular order, every
+     * fragment {@code j /= i} that overlaps the end of fragment {@code i} by
+     * at least {@code minOverlap} characters, with the longest such overlap.
+     * Safe to call from several threads at once, with different
+     * {@code seen} arrays.
+     *
+     * @param i
+     *            index of the fragment whose suffixes are examined
+     * @param minOverlap
+     *            shortest overlap reported
+     * @param seen
+     *            scratch array of length size(), owned by the caller, in
+     *            which no entry equals i + 1 yet
+     * @param sink
+     *            receiver of the overlaps
+     * @updates seen
+     * @requires 0 <= i < size() and minOverlap >= 1
+     */
+    void overlapsFrom(int i, int minOverlap, int[] seen, OverlapSink sink);
+
+    /**
+     * Returns the position in fragment {@code j} at which an overlap of the
+     * given {@code length} with its prefix, as reported by
+     * {@code overlapsFrom}, ends. That is {@code length} itself unless
+     * lengths are not counted in the characters of the fragments (see
+     * {@code Utf8OverlapFinder}).
+     *
+     * @param j
+     *            index of the fragment whose prefix overlaps
+     * @param length
+     *            length of the overlap
+     * @return the end of the overlap in fragment j
+     * @requires 0 <= j < size() and [length was reported for fragment j]
+     */
+    default int overlapEnd(int j, int length) {
+        return length;
+    }
+
+}
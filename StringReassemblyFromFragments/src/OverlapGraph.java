@@ -0,0 +1,478 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Suffix-prefix overlaps between indexed fragments, as found by an
+ * {@code OverlapFinder}, as a list of directed edges grouped by source
+ * fragment: the edges from each source are contiguous, sources come in
+ * increasing order, and the edges from one source are sorted by decreasing
+ * overlap length, then by target fragment.
+ *
+ * @author Jesse Shields
+ *
+ */
+final class OverlapGraph {
+
+    /**
+     * Fewest fragments worth a block of their own.
+     */
+    private static final int MIN_BLOCK = 256;
+
+    /**
+     * Blocks per thread, so that blocks with more edges than others even out.
+     */
+    private static final int BLOCKS_PER_THREAD = 4;
+
+    /**
+     * Source fragment of each edge.
+     */
+    private final int[] from;
+
+    /**
+     * Target fragment of each edge.
+     */
+    private final int[] to;
+
+    /**
+     * Overlap length of each edge.
+     */
+    private final int[] length;
+
+    /**
+     * First edge from each fragment; the last entry is the number of edges.
+     */
+    private final int[] start;
+
+    /**
+     * Constructor.
+     *
+     * @param from
+     *            source of each edge
+     * @param to
+     *            target of each edge
+     * @param length
+     *            overlap length of each edge
+     * @param start
+     *            first edge from each fragment, then the number of edges
+     */
+    private OverlapGraph(int[] from, int[] to, int[] length, int[] start) {
+        this.from = from;
+        this.to = to;
+        this.length = length;
+        this.start = start;
+    }
+
+    /**
+     * Builds the graph of all overlaps of at least {@code minOverlap}
+     * characters between the fragments {@code index} covers, on this thread.
+     *
+     * @param index
+     *            finder of the overlaps
+     * @param minOverlap
+     *            shortest overlap kept
+     * @return the overlap graph
+     * @requires minOverlap >= 1
+     */
+    static OverlapGraph build(OverlapFinder index, int minOverlap) {
+        return build(index, minOverlap, 1);
+    }
+
+    /**
+     * Builds the graph of all overlaps of at least {@code minOverlap}
+     * characters between the fragments {@code index} covers, on up to
+     * {@code threads} threads.
+     *
+     * <p>
+     * The fragments are cut into contiguous blocks, a few per thread so that
+     * uneven blocks even out, and the edges from each block are collected
+     * independently: finders answer queries from several threads at once,
+     * and each block has its own scratch array and edge buffer. The buffers
+     * are then joined in block order, so the graph is the same whatever the
+     * number of threads.
+     * </p>
+     *
+     * @param index
+     *            finder of the overlaps
+     * @param minOverlap
+     *            shortest overlap kept
+     * @param threads
+     *            most threads to use
+     * @return the overlap graph
+     * @requires minOverlap >= 1 and threads >= 1
+     */
+    static OverlapGraph build(OverlapFinder index, int minOverlap, int threads) {
+        return build(index, minOverlap, threads, 0, index.size());
+    }
+
+    /**
+     * Builds the graph of the overlaps of at least {@code minOverlap}
+     * characters from the fragments {@code lo} up to {@code hi}, on up to
+     * {@code threads} threads, as {@code build(index, minOverlap, threads)}
+     * does for all of them; the other fragments have no edges.
+     *
+     * @param index
+     *            finder of the overlaps
+     * @param minOverlap
+     *            shortest overlap kept
+     * @param threads
+     *            most threads to use
+     * @param lo
+     *            first source fragment
+     * @param hi
+     *            one past the last source fragment
+     * @return the overlap graph of the edges from [lo, hi)
+     * @requires minOverlap >= 1 and threads >= 1 and 0 <= lo <= hi <= index.size()
+     */
+    static OverlapGraph build(OverlapFinder index, int minOverlap, int threads, int lo,
+            int hi) {
+        assert index != null : "Violation of: index is not null";
+        assert minOverlap >= 1 : "Violation of: minOverlap >= 1";
+        assert threads >= 1 : "Violation of: threads >= 1";
+        assert 0 <= lo && lo <= hi && hi <= index.size()
+                : "Violation of: 0 <= lo <= hi <= index.size()";
+        int n = index.size();
+        int blocks = 1;
+        if (threads > 1) {
+            blocks = Math.max(1,
+                    Math.min((hi - lo) / MIN_BLOCK, BLOCKS_PER_THREAD * threads));
+        }
+        int[] bounds = new int[blocks + 1];
+        for (int b = 0; b <= blocks; b++) {
+            bounds[b] = lo + (int) ((long) (hi - lo) * b / blocks);
+        }
+        int[] start = new int[n + 1];
+        EdgeBuffer[] parts = new EdgeBuffer[blocks];
+        if (blocks == 1) {
+            parts[0] = collect(index, minOverlap, lo, hi, start);
+        } else {
+            ForkJoinPool pool = new ForkJoinPool(threads);
+            try {
+                List<ForkJoinTask<EdgeBuffer>> tasks = new ArrayList<>();
+                for (int b = 0; b < blocks; b++) {
+                    int first = bounds[b];
+                    int last = bounds[b + 1];
+                    tasks.add(pool.submit(
+                            () -> collect(index, minOverlap, first, last, start)));
+                }
+                for (int b = 0; b < blocks; b++) {
+                    parts[b] = tasks.get(b).join();
+                }
+            } finally {
+                pool.shutdown();
+            }
+        }
+        return join(parts, bounds, start);
+    }
+
+    /**
+     * Collects the edges from fragments {@code lo} up to {@code hi}.
+     *
+     * @param index
+     *            finder of the overlaps
+     * @param minOverlap
+     *            shortest overlap kept
+     * @param lo
+     *            first fragment
+     * @param hi
+     *            one past the last fragment
+     * @param start
+     *            first edge from each fragment, filled in for [lo, hi)
+     *            relative to the returned buffer
+     * @return the edges, grouped by source
+     * @updates start
+     */
+    private static EdgeBuffer collect(OverlapFinder index, int minOverlap, int lo, int hi,
+            int[] start) {
+        EdgeBuffer edges = new EdgeBuffer();
+        int[] seen = new int[index.size()];
+        for (int i = lo; i < hi; i++) {
+            start[i] = edges.size;
+            index.overlapsFrom(i, minOverlap, seen, edges::add);
+            edges.sortFrom(start[i]);
+        }
+        return edges;
+    }
+
+    /**
+     * Returns the graph of the edges of {@code parts}, in order.
+     *
+     * @param parts
+     *            edges of consecutive blocks of fragments
+     * @param bounds
+     *            first fragment of each block, then the number of fragments
+     * @param start
+     *            first edge from each fragment, relative to its block
+     * @return the graph
+     */
+    private static OverlapGraph join(EdgeBuffer[] parts, int[] bounds, int[] start) {
+        int size = 0;
+        for (EdgeBuffer part : parts) {
+            size += part.size;
+        }
+        int[] from = new int[size];
+        int[] to = new int[size];
+        int[] length = new int[size];
+        int base = 0;
+        for (int b = 0; b < parts.length; b++) {
+            EdgeBuffer part = parts[b];
+            System.arraycopy(part.from, 0, from, base, part.size);
+            System.arraycopy(part.to, 0, to, base, part.size);
+            System.arraycopy(part.length, 0, length, base, part.size);
+            for (int i = bounds[b]; i < bounds[b + 1]; i++) {
+                start[i] += base;
+            }
+            base += part.size;
+        }
+        Arrays.fill(start, bounds[bounds.length - 1], start.length, size);
+        return new OverlapGraph(from, to, length, start);
+    }
+
+    /**
+     * Returns the graph of the edges in {@code edges}, over {@code n}
+     * fragments. The graph shares the arrays of the buffer, which must not be
+     * added to afterwards.
+     *
+     * @param edges
+     *            the edges
+     * @param n
+     *            number of fragments
+     * @return the graph
+     * @requires <pre>
+     * [the sources of edges are < n and increasing, and the edges from each
+     *  source are sorted by decreasing length, then target]
+     * </pre>
+     */
+    static OverlapGraph of(EdgeBuffer edges, int n) {
+        int[] start = new int[n + 1];
+        for (int e = 0; e < edges.size; e++) {
+            start[edges.from[e] + 1]++;
+        }
+        for (int i = 0; i < n; i++) {
+            start[i + 1] += start[i];
+        }
+        return new OverlapGraph(edges.from, edges.to, edges.length, start);
+    }
+
+    /**
+     * Returns the number of edges.
+     *
+     * @return number of edges
+     */
+    int size() {
+        return this.start[this.start.length - 1];
+    }
+
+    /**
+     * Returns the first edge from fragment {@code i}.
+     *
+     * @param i
+     *            the fragment
+     * @return index of its first edge
+     */
+    int firstEdge(int i) {
+        return this.start[i];
+    }
+
+    /**
+     * Returns one past the last edge from fragment {@code i}.
+     *
+     * @param i
+     *            the fragment
+     * @return index one past its last edge
+     */
+    int endEdge(int i) {
+        return this.start[i + 1];
+    }
+
+    /**
+     * Returns the source of edge {@code e}.
+     *
+     * @param e
+     *            index of the edge
+     * @return index of the fragment whose suffix overlaps
+     */
+    int from(int e) {
+        return this.from[e];
+    }
+
+    /**
+     * Returns the target of edge {@code e}.
+     *
+     * @param e
+     *            index of the edge
+     * @return index of the fragment whose prefix overlaps
+     */
+    int to(int e) {
+        return this.to[e];
+    }
+
+    /**
+     * Returns the overlap length of edge {@code e}.
+     *
+     * @param e
+     *            index of the edge
+     * @return overlap length
+     */
+    int length(int e) {
+        return this.length[e];
+    }
+
+    /**
+     * Returns the edges in the order the greedy assembler takes them: by
+     * decreasing length, then by source, then by target.
+     *
+     * @return the edge indices, in that order
+     */
+    int[] orderByLength() {
+        /*
+         * Counting sort on length: lengths are bounded by the longest
+         * fragment, and a stable sort keeps the source and target order
+         */
+        int size = this.size();
+        int maxLength = 0;
+        for (int e = 0; e < size; e++) {
+            maxLength = Math.max(maxLength, this.length[e]);
+        }
+        int[] bucket = new int[maxLength + 2];
+        for (int e = 0; e < size; e++) {
+            bucket[maxLength - this.length[e] + 1]++;
+        }
+        for (int k = 1; k < bucket.length; k++) {
+            bucket[k] += bucket[k - 1];
+        }
+        int[] order = new int[size];
+        for (int e = 0; e < size; e++) {
+            order[bucket[maxLength - this.length[e]]] = e;
+            bucket[maxLength - this.length[e]]++;
+        }
+        return order;
+    }
+
+    /**
+     * Growable parallel arrays of edges.
+     */
+    static final class EdgeBuffer {
+
+        /**
+         * Initial capacity.
+         */
+        private static final int INITIAL_CAPACITY = 16;
+
+        /**
+         * Bits of a packed sort key taken by the target.
+         */
+        private static final int TARGET_BITS = 32;
+
+        /**
+         * Source of each edge.
+         */
+        private int[] from = new int[INITIAL_CAPACITY];
+
+        /**
+         * Target of each edge.
+         */
+        private int[] to = new int[INITIAL_CAPACITY];
+
+        /**
+         * Overlap length of each edge.
+         */
+        private int[] length = new int[INITIAL_CAPACITY];
+
+        /**
+         * Number of edges.
+         */
+        private int size = 0;
+
+        /**
+         * Returns the number of edges.
+         *
+         * @return number of edges
+         */
+        int size() {
+            return this.size;
+        }
+
+        /**
+         * Returns the source of edge {@code e}.
+         *
+         * @param e
+         *            index of the edge
+         * @return the source fragment
+         */
+        int from(int e) {
+            return this.from[e];
+        }
+
+        /**
+         * Returns the target of edge {@code e}.
+         *
+         * @param e
+         *            index of the edge
+         * @return the target fragment
+         */
+        int to(int e) {
+            return this.to[e];
+        }
+
+        /**
+         * Returns the overlap length of edge {@code e}.
+         *
+         * @param e
+         *            index of the edge
+         * @return overlap length
+         */
+        int length(int e) {
+            return this.length[e];
+        }
+
+        /**
+         * Appends one edge.
+         *
+         * @param source
+         *            source fragment
+         * @param target
+         *            target fragment
+         * @param overlap
+         *            overlap length
+         */
+        void add(int source, int target, int overlap) {
+            if (this.size == this.from.length) {
+                int capacity = 2 * this.from.length;
+                this.from = Arrays.copyOf(this.from, capacity);
+                this.to = Arrays.copyOf(this.to, capacity);
+                this.length = Arrays.copyOf(this.length, capacity);
+            }
+            this.from[this.size] = source;
+            this.to[this.size] = target;
+            this.length[this.size] = overlap;
+            this.size++;
+        }
+
+        /**
+         * Sorts the edges from {@code start} on, which share one source, by
+         * decreasing length and then by target.
+         *
+         * @param start
+         *            first edge to sort
+         */
+        void sortFrom(int start) {
+            int count = this.size - start;
+            long[] keys = new long[count];
+            for (int e = 0; e < count; e++) {
+                long rank = Integer.MAX_VALUE - this.length[start + e];
+                keys[e] = (rank << TARGET_BITS) | this.to[start + e];
+            }
+            Arrays.sort(keys);
+            for (int e = 0; e < count; e++) {
+                this.length[start + e] = Integer.MAX_VALUE
+                        - (int) (keys[e] >>> TARGET_BITS);
+                this.to[start + e] = (int) keys[e];
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,366 @@
+import java.util.Arrays;
+
+/**
+ * Aho-Corasick automaton over the prefixes of a set of fragments, used to
+ * find every suffix-prefix overlap between fragments without comparing them
+ * pair by pair.
+ *
+ * <p>
+ * The fragments are kept in lexicographic order, so the fragments that start
+ * with any given prefix are a contiguous range of indices; each trie node
+ * (one per distinct prefix) records that range. The failure link of a node is
+ * the node of its longest proper suffix that is also a prefix of some
+ * fragment. So following failure links from the node of a whole fragment
+ * {@code i} visits, longest first, exactly the suffixes of {@code i} that
+ * some other fragment starts with, and the ranges on the way name those
+ * fragments. Building takes time and space linear in the total length of the
+ * fragments; listing the overlaps of one fragment takes time proportional to
+ * the number reported.
+ * </p>
+ *
+ * @author Jesse Shields
+ *
+ */
+final class OverlapIndex implements OverlapFinder {
+
+    /**
+     * The root node, for the empty prefix.
+     */
+    private static final int ROOT = 0;
+
+    /**
+     * Marks an empty slot of the child table.
+     */
+    private static final long EMPTY = -1L;
+
+    /**
+     * Bits of a child table key taken by the character.
+     */
+    private static final int CHAR_BITS = 16;
+
+    /**
+     * Initial node capacity.
+     */
+    private static final int INITIAL_CAPACITY = 16;
+
+    /**
+     * The fragments, in lexicographic order.
+     */
+    private final CharSequence[] fragments;
+
+    /**
+     * Node of each whole fragment.
+     */
+    private final int[] terminal;
+
+    /**
+     * Length of the prefix of each node.
+     */
+    private int[] depth;
+
+    /**
+     * Failure link of each node.
+     */
+    private int[] fail;
+
+    /**
+     * First fragment starting with the prefix of each node.
+     */
+    private int[] lo;
+
+    /**
+     * One past the last fragment starting with the prefix of each node.
+     */
+    private int[] hi;
+
+    /**
+     * First child of each node, or -1.
+     */
+    private int[] firstChild;
+
+    /**
+     * Next sibling of each node, or -1.
+     */
+    private int[] nextSibling;
+
+    /**
+     * Number of nodes.
+     */
+    private int nodeCount;
+
+    /**
+     * Keys of the child table: parent node and character.
+     */
+    private long[] childKeys;
+
+    /**
+     * Values of the child table: child node.
+     */
+    private int[] childValues;
+
+    /**
+     * Number of entries in the child table.
+     */
+    private int childCount;
+
+    /**
+     * Builds the index of {@code fragments}.
+     *
+     * @param fragments
+     *            the fragments, which are copied and sorted
+     * @requires [the entries of fragments are distinct]
+     */
+    OverlapIndex(CharSequence[] fragments) {
+        assert fragments != null : "Violation of: fragments is not null";
+        this.fragments = fragments.clone();
+        Arrays.sort(this.fragments, CharSequences::compare);
+        this.terminal = new int[this.fragments.length];
+        this.depth = new int[INITIAL_CAPACITY];
+        this.fail = new int[INITIAL_CAPACITY];
+        this.lo = new int[INITIAL_CAPACITY];
+        this.hi = new int[INITIAL_CAPACITY];
+        this.firstChild = new int[INITIAL_CAPACITY];
+        this.nextSibling = new int[INITIAL_CAPACITY];
+        this.childKeys = new long[INITIAL_CAPACITY];
+        Arrays.fill(this.childKeys, EMPTY);
+        this.childValues = new int[INITIAL_CAPACITY];
+        this.nodeCount = 0;
+        this.childCount = 0;
+        this.newNode(0, 0);
+        for (int i = 0; i < this.fragments.length; i++) {
+            this.insert(i);
+        }
+        this.linkFailures();
+    }
+
+    @Override
+    public int size() {
+        return this.fragments.length;
+    }
+
+    @Override
+    public CharSequence fragment(int i) {
+        return this.fragments[i];
+    }
+
+    @Override
+    public void overlapsFrom(int i, int minOverlap, int[] seen, OverlapSink sink) {
+        assert minOverlap >= 1 : "Violation of: minOverlap >= 1";
+        /*
+         * The overlaps come out longest first, in time proportional to their
+         * number
+         */
+        int stamp = i + 1;
+        int v = this.fail[this.terminal[i]];
+        while (this.depth[v] >= minOverlap) {
+            int length = this.depth[v];
+            for (int j = this.lo[v]; j < this.hi[v]; j++) {
+                /*
+                 * The first visit to j is its longest overlap; a fragment that
+                 * is itself a suffix of i is a substring of i, not an overlap
+                 */
+                if (j != i && seen[j] != stamp) {
+                    seen[j] = stamp;
+                    if (length < this.fragments[j].length()) {
+                        sink.overlap(i, j, length);
+                    }
+                }
+            }
+            v = this.fail[v];
+        }
+    }
+
+    /**
+     * Adds the path of fragment {@code i} to the trie.
+     *
+     * @param i
+     *            index of the fragment
+     */
+    private void insert(int i) {
+        CharSequence fragment = this.fragments[i];
+        int v = ROOT;
+        for (int k = 0; k < fragment.length(); k++) {
+            char c = fragment.charAt(k);
+            int u = this.child(v, c);
+            if (u < 0) {
+                u = this.newNode(this.depth[v] + 1, i);
+                this.putChild(v, c, u);
+                this.nextSibling[u] = this.firstChild[v];
+                this.firstChild[v] = u;
+            }
+            /*
+             * Fragments arrive in sorted order, so the range only grows at
+             * its end
+             */
+            this.hi[u] = i + 1;
+            v = u;
+        }
+        this.terminal[i] = v;
+    }
+
+    /**
+     * Sets the failure link of every node, breadth first.
+     */
+    private void linkFailures() {
+        int[] queue = new int[this.nodeCount];
+        int head = 0;
+        int tail = 0;
+        for (int u = this.firstChild[ROOT]; u >= 0; u = this.nextSibling[u]) {
+            this.fail[u] = ROOT;
+            queue[tail] = u;
+            tail++;
+        }
+        while (head < tail) {
+            int v = queue[head];
+            head++;
+            for (int u = this.firstChild[v]; u >= 0; u = this.nextSibling[u]) {
+                char c = this.label(v, u);
+                int f = this.fail[v];
+                int g = this.child(f, c);
+                while (g < 0 && f != ROOT) {
+                    f = this.fail[f];
+                    g = this.child(f, c);
+                }
+                if (g < 0) {
+                    g = ROOT;
+                }
+                this.fail[u] = g;
+                queue[tail] = u;
+                tail++;
+            }
+        }
+    }
+
+    /**
+     * Returns the character on the edge from {@code v} to its child
+     * {@code u}.
+     *
+     * @param v
+     *            parent node
+     * @param u
+     *            child node
+     * @return the edge label
+     */
+    private char label(int v, int u) {
+        /*
+         * All fragments through u share its prefix; read the last character
+         * off the first of them
+         */
+        return this.fragments[this.lo[u]].charAt(this.depth[v]);
+    }
+
+    /**
+     * Creates a node.
+     *
+     * @param nodeDepth
+     *            length of its prefix
+     * @param first
+     *            first fragment through it
+     * @return the new node
+     */
+    private int newNode(int nodeDepth, int first) {
+        if (this.nodeCount == this.depth.length) {
+            int capacity = 2 * this.depth.length;
+            this.depth = Arrays.copyOf(this.depth, capacity);
+            this.fail = Arrays.copyOf(this.fail, capacity);
+            this.lo = Arrays.copyOf(this.lo, capacity);
+            this.hi = Arrays.copyOf(this.hi, capacity);
+            this.firstChild = Arrays.copyOf(this.firstChild, capacity);
+            this.nextSibling = Arrays.copyOf(this.nextSibling, capacity);
+        }
+        int v = this.nodeCount;
+        this.nodeCount++;
+        this.depth[v] = nodeDepth;
+        this.fail[v] = ROOT;
+        this.lo[v] = first;
+        this.hi[v] = first + 1;
+        this.firstChild[v] = -1;
+        this.nextSibling[v] = -1;
+        return v;
+    }
+
+    /**
+     * Returns the child of {@code v} along {@code c}, or -1.
+     *
+     * @param v
+     *            parent node
+     * @param c
+     *            edge label
+     * @return the child, or -1 if there is none
+     */
+    private int child(int v, char c) {
+        long key = ((long) v << CHAR_BITS) | c;
+        int mask = this.childKeys.length - 1;
+        int slot = hash(key) & mask;
+        int result = -1;
+        while (result < 0 && this.childKeys[slot] != EMPTY) {
+            if (this.childKeys[slot] == key) {
+                result = this.childValues[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        return result;
+    }
+
+    /**
+     * Records {@code u} as the child of {@code v} along {@code c}.
+     *
+     * @param v
+     *            parent node
+     * @param c
+     *            edge label
+     * @param u
+     *            child node
+     */
+    private void putChild(int v, char c, int u) {
+        if (2 * (this.childCount + 1) > this.childKeys.length) {
+            this.growChildTable();
+        }
+        long key = ((long) v << CHAR_BITS) | c;
+        int mask = this.childKeys.length - 1;
+        int slot = hash(key) & mask;
+        while (this.childKeys[slot] != EMPTY) {
+            slot = (slot + 1) & mask;
+        }
+        this.childKeys[slot] = key;
+        this.childValues[slot] = u;
+        this.childCount++;
+    }
+
+    /**
+     * Doubles the child table.
+     */
+    private void growChildTable() {
+        long[] oldKeys = this.childKeys;
+        int[] oldValues = this.childValues;
+        this.childKeys = new long[2 * oldKeys.length];
+        Arrays.fill(this.childKeys, EMPTY);
+        this.childValues = new int[2 * oldValues.length];
+        int mask = this.childKeys.length - 1;
+        for (int s = 0; s < oldKeys.length; s++) {
+            if (oldKeys[s] != EMPTY) {
+                int slot = hash(oldKeys[s]) & mask;
+                while (this.childKeys[slot] != EMPTY) {
+                    slot = (slot + 1) & mask;
+                }
+                this.childKeys[slot] = oldKeys[s];
+                this.childValues[slot] = oldValues[s];
+            }
+        }
+    }
+
+    /**
+     * Mixes the bits of {@code key} for the child table.
+     *
+     * @param key
+     *            the key
+     * @return a well-spread hash of key
+     */
+    private static int hash(long key) {
+        final long multiplier = 0x9E3779B97F4A7C15L;
+        final int shift = 32;
+        long h = key * multiplier;
+        return (int) (h ^ (h >>> shift));
+    }
+
+}
@@ -0,0 +1,107 @@
+/**
+ * Ways of computing {@code StringReassembly.overlap}, the longest suffix of
+ * one string that is a prefix of another.
+ *
+ * @author Jesse Shields
+ *
+ */
+public enum OverlapStrategy {
+
+    /**
+     * Tries every overlap length, longest first, comparing the two regions
+     * character by character. O(L^2) comparisons in the worst case, for
+     * strings of length L, but no extra space, and fast when the strings have
+     * little in common. Fragments packed together (see {@code PackedFragment})
+     * are compared a word at a time, up to 32 characters per step.
+     */
+    SCAN {
+        @Override
+        int overlap(CharSequence str1, CharSequence str2) {
+            int maxOverlap = Math.min(str1.length(), str2.length() - 1);
+            while (!CharSequences.regionMatches(str1, str1.length() - maxOverlap, str2, 0,
+                    maxOverlap)) {
+                maxOverlap--;
+            }
+            return maxOverlap;
+        }
+    },
+
+    /**
+     * Runs the Knuth-Morris-Pratt matcher for {@code str2} over the end of
+     * {@code str1}; the state it ends in is the overlap. O(L) time, and O(L)
+     * space for the prefix function of {@code str2}.
+     */
+    PREFIX_FUNCTION {
+        @Override
+        int overlap(CharSequence str1, CharSequence str2) {
+            /*
+             * Only the last |str2| - 1 characters of str1 can take part, so
+             * only that much of str2's prefix function is needed
+             */
+            int length = Math.min(str1.length(), str2.length() - 1);
+            int[] border = prefixFunction(str2, length);
+            int matched = 0;
+            for (int k = str1.length() - length; k < str1.length(); k++) {
+                char c = str1.charAt(k);
+                while (matched > 0 && (matched == length || str2.charAt(matched) != c)) {
+                    matched = border[matched - 1];
+                }
+                if (str2.charAt(matched) == c) {
+                    matched++;
+                }
+            }
+            return matched;
+        }
+    };
+
+    /**
+     * Reports the maximum length of a common suffix of {@code str1} and prefix
+     * of {@code str2}.
+     *
+     * @param str1
+     *            first string
+     * @param str2
+     *            second string
+     * @return maximum overlap between right end of {@code str1} and left end of
+     *         {@code str2}
+     * @requires <pre>
+     * |str2| >= 1  and
+     * str2 is not substring of str1
+     * </pre>
+     * @ensures <pre>
+     * OVERLAPS(str1, str2, overlap)  and
+     * for all k: integer
+     *     where (overlap < k  and  k <= |str1|  and  k <= |str2|)
+     *  (not OVERLAPS(str1, str2, k))
+     * </pre>
+     */
+    abstract int overlap(CharSequence str1, CharSequence str2);
+
+    /**
+     * Returns the prefix function of the first {@code length} characters of
+     * {@code s}: entry {@code k} is the length of the longest proper prefix of
+     * {@code s[0, k]} that is also a suffix of it.
+     *
+     * @param s
+     *            the sequence
+     * @param length
+     *            number of characters to cover
+     * @return the prefix function
+     * @requires 0 <= length <= |s|
+     */
+    private static int[] prefixFunction(CharSequence s, int length) {
+        int[] border = new int[length];
+        for (int k = 1; k < length; k++) {
+            int b = border[k - 1];
+            while (b > 0 && s.charAt(k) != s.charAt(b)) {
+                b = border[b - 1];
+            }
+            if (s.charAt(k) == s.charAt(b)) {
+                b++;
+            }
+            border[k] = b;
+        }
+        return border;
+    }
+
+}
@@ -0,0 +1,356 @@
+import java.util.Arrays;
+
+/**
+ * A fragment over a small alphabet, stored as a few bits per character in
+ * words shared with the other fragments packed with it.
+ *
+ * <p>
+ * {@code pack} finds the characters used by a whole collection of fragments
+ * and gives each a code, its rank in that alphabet, of 2 bits if there are
+ * at most 4 of them (as in DNA), 4 bits if at most 16, and 8 if at most 256;
+ * codes keep the order of the characters, so packed fragments sort as their
+ * text does. The codes of all the fragments are laid end to end in one
+ * {@code long[]}, low bits first, and a fragment is a range of it: 2-bit
+ * fragments take an eighth of the memory of their UTF-16 text. Two fragments
+ * packed together are compared a word at a time, 64 bits per step, by
+ * {@code compare} and {@code regionMatches}, which
+ * {@code CharSequences.compare} and {@code CharSequences.regionMatches} use
+ * for them.
+ * </p>
+ *
+ * @author Jesse Shields
+ *
+ */
+final class PackedFragment implements CharSequence {
+
+    /**
+     * Bits in a word.
+     */
+    private static final int WORD_BITS = 64;
+
+    /**
+     * log2 of {@code WORD_BITS}.
+     */
+    private static final int WORD_SHIFT = 6;
+
+    /**
+     * Largest alphabet that is packed.
+     */
+    private static final int MAX_ALPHABET = 256;
+
+    /**
+     * Bits per code of each width tried, narrowest first.
+     */
+    private static final int[] WIDTHS = { 2, 4, 8 };
+
+    /**
+     * The codes of a collection of fragments, and what they stand for.
+     */
+    private static final class Packing {
+
+        /**
+         * Character of each code, in increasing order.
+         */
+        private final char[] alphabet;
+
+        /**
+         * Bits per code.
+         */
+        private final int bits;
+
+        /**
+         * Codes per word.
+         */
+        private final int perWord;
+
+        /**
+         * Mask of one code.
+         */
+        private final long codeMask;
+
+        /**
+         * The codes of all the fragments, end to end.
+         */
+        private final long[] words;
+
+        /**
+         * Constructor.
+         *
+         * @param alphabet
+         *            character of each code
+         * @param bits
+         *            bits per code
+         * @param words
+         *            the codes
+         */
+        Packing(char[] alphabet, int bits, long[] words) {
+            this.alphabet = alphabet;
+            this.bits = bits;
+            this.perWord = WORD_BITS / bits;
+            this.codeMask = (1L << bits) - 1;
+            this.words = words;
+        }
+
+        /**
+         * Returns the code at character position {@code position}.
+         *
+         * @param position
+         *            position in words, in characters
+         * @return the code there
+         */
+        int code(long position) {
+            long bit = position * this.bits;
+            long word = this.words[(int) (bit >>> WORD_SHIFT)];
+            return (int) ((word >>> bit) & this.codeMask);
+        }
+
+        /**
+         * Returns the 64 bits of codes starting at character position
+         * {@code position}; past the end of words they are 0.
+         *
+         * @param position
+         *            position in words, in characters
+         * @return the codes of perWord characters
+         */
+        long word(long position) {
+            long bit = position * this.bits;
+            int w = (int) (bit >>> WORD_SHIFT);
+            int shift = (int) (bit & (WORD_BITS - 1));
+            long result = this.words[w] >>> shift;
+            if (shift != 0 && w + 1 < this.words.length) {
+                result |= this.words[w + 1] << (WORD_BITS - shift);
+            }
+            return result;
+        }
+
+    }
+
+    /**
+     * The packing this fragment is part of.
+     */
+    private final Packing packing;
+
+    /**
+     * Position in the packing of the first character.
+     */
+    private final long offset;
+
+    /**
+     * Number of characters.
+     */
+    private final int length;
+
+    /**
+     * Constructor.
+     *
+     * @param packing
+     *            the packing
+     * @param offset
+     *            position of the first character
+     * @param length
+     *            number of characters
+     */
+    private PackedFragment(Packing packing, long offset, int length) {
+        this.packing = packing;
+        this.offset = offset;
+        this.length = length;
+    }
+
+    /**
+     * Packs {@code fragments} together, if they use at most 256 distinct
+     * characters.
+     *
+     * @param fragments
+     *            the fragments
+     * @return the fragments packed, in the same order, or fragments itself if
+     *         they use too many characters
+     */
+    static CharSequence[] pack(CharSequence[] fragments) {
+        assert fragments != null : "Violation of: fragments is not null";
+        /*
+         * Find the alphabet, and give each character its rank in it as code
+         */
+        int[] code = new int[Character.MAX_VALUE + 1];
+        long total = 0;
+        for (CharSequence fragment : fragments) {
+            for (int k = 0; k < fragment.length(); k++) {
+                code[fragment.charAt(k)] = 1;
+            }
+            total += fragment.length();
+        }
+        char[] alphabet = new char[MAX_ALPHABET];
+        int size = 0;
+        for (int c = 0; c < code.length && size <= MAX_ALPHABET; c++) {
+            if (code[c] != 0) {
+                if (size < MAX_ALPHABET) {
+                    alphabet[size] = (char) c;
+                    code[c] = size;
+                }
+                size++;
+            }
+        }
+        CharSequence[] result = fragments;
+        if (size <= MAX_ALPHABET) {
+            int bits = WIDTHS[0];
+            for (int w = 1; w < WIDTHS.length && (1 << bits) < size; w++) {
+                bits = WIDTHS[w];
+            }
+            long[] words = new long[(int) ((total * bits + WORD_BITS - 1) / WORD_BITS)];
+            Packing packing = new Packing(Arrays.copyOf(alphabet, size), bits, words);
+            result = new CharSequence[fragments.length];
+            long position = 0;
+            for (int i = 0; i < fragments.length; i++) {
+                CharSequence fragment = fragments[i];
+                for (int k = 0; k < fragment.length(); k++) {
+                    long bit = (position + k) * bits;
+                    long value = code[fragment.charAt(k)];
+                    words[(int) (bit >>> WORD_SHIFT)] |= value << bit;
+                }
+                result[i] = new PackedFragment(packing, position, fragment.length());
+                position += fragment.length();
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the number of bits each character of this fragment takes.
+     *
+     * @return bits per character
+     */
+    int bitsPerCharacter() {
+        return this.packing.bits;
+    }
+
+    /**
+     * Reports whether {@code a} and {@code b} were packed together, so that
+     * their codes can be compared.
+     *
+     * @param a
+     *            first fragment
+     * @param b
+     *            second fragment
+     * @return whether they share a packing
+     */
+    static boolean packedTogether(PackedFragment a, PackedFragment b) {
+        return a.packing == b.packing;
+    }
+
+    /**
+     * Compares {@code a} and {@code b} as {@code CharSequences.compare} does,
+     * a word of codes at a time.
+     *
+     * @param a
+     *            first fragment
+     * @param b
+     *            second fragment
+     * @return negative, zero or positive as a is less than, equal to or
+     *         greater than b
+     * @requires packedTogether(a, b)
+     */
+    static int compare(PackedFragment a, PackedFragment b) {
+        assert packedTogether(a, b) : "Violation of: packedTogether(a, b)";
+        Packing packing = a.packing;
+        int length = Math.min(a.length, b.length);
+        int result = 0;
+        for (int k = 0; k < length && result == 0; k += packing.perWord) {
+            long difference = (packing.word(a.offset + k) ^ packing.word(b.offset + k))
+                    & mask(packing, length - k);
+            if (difference != 0) {
+                /*
+                 * Codes are stored low bits first, so the lowest differing
+                 * bit is in the first differing code
+                 */
+                int first = k + Long.numberOfTrailingZeros(difference) / packing.bits;
+                result = Integer.compare(packing.code(a.offset + first),
+                        packing.code(b.offset + first));
+            }
+        }
+        if (result == 0) {
+            result = Integer.compare(a.length, b.length);
+        }
+        return result;
+    }
+
+    /**
+     * Reports whether {@code a[aStart, aStart + length)} equals
+     * {@code b[bStart, bStart + length)}, comparing a word of codes at a time.
+     *
+     * @param a
+     *            first fragment
+     * @param aStart
+     *            start of the region of a
+     * @param b
+     *            second fragment
+     * @param bStart
+     *            start of the region of b
+     * @param length
+     *            length of the regions
+     * @return whether the regions are equal
+     * @requires <pre>
+     * packedTogether(a, b)  and
+     * 0 <= aStart  and  aStart + length <= |a|  and
+     * 0 <= bStart  and  bStart + length <= |b|
+     * </pre>
+     */
+    static boolean regionMatches(PackedFragment a, int aStart, PackedFragment b,
+            int bStart, int length) {
+        assert packedTogether(a, b) : "Violation of: packedTogether(a, b)";
+        Packing packing = a.packing;
+        long aFrom = a.offset + aStart;
+        long bFrom = b.offset + bStart;
+        boolean matches = true;
+        for (int k = 0; k < length && matches; k += packing.perWord) {
+            matches = ((packing.word(aFrom + k) ^ packing.word(bFrom + k))
+                    & mask(packing, length - k)) == 0;
+        }
+        return matches;
+    }
+
+    /**
+     * Returns the mask of the codes of the first {@code count} characters of
+     * a word, all of it if there are that many.
+     *
+     * @param packing
+     *            the packing
+     * @param count
+     *            number of characters
+     * @return the mask
+     * @requires count >= 1
+     */
+    private static long mask(Packing packing, int count) {
+        long mask = -1L;
+        if (count < packing.perWord) {
+            mask = (1L << (count * packing.bits)) - 1;
+        }
+        return mask;
+    }
+
+    @Override
+    public int length() {
+        return this.length;
+    }
+
+    @Override
+    public char charAt(int index) {
+        assert 0 <= index && index < this.length : "Violation of: 0 <= index < |this|";
+        return this.packing.alphabet[this.packing.code(this.offset + index)];
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        assert 0 <= start && start <= end && end <= this.length
+                : "Violation of: 0 <= start <= end <= |this|";
+        return new PackedFragment(this.packing, this.offset + start, end - start);
+    }
+
+    @Override
+    public String toString() {
+        char[] chars = new char[this.length];
+        for (int k = 0; k < this.length; k++) {
+            chars[k] = this.packing.alphabet[this.packing.code(this.offset + k)];
+        }
+        return new String(chars);
+    }
+
+}
@@ -0,0 +1,299 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writes text to a channel as UTF-8 through one large buffer, turning each
+ * '~' into a line separator.
+ *
+ * <p>
+ * The text is scanned for '~' and each run between two of them is written in
+ * one piece, by the encoder or by a bulk copy, instead of one character at a
+ * time. A {@code Contig} is written piece by piece straight from its
+ * fragments, so the assembled text is never built as one {@code String}.
+ * Text in the byte-per-character form of {@code FragmentStore} already is
+ * UTF-8 and is copied as is; '~' is never part of a multi-byte UTF-8
+ * character, so it is found the same way.
+ * </p>
+ *
+ * @author Jesse Shields
+ *
+ */
+final class SeparatorWriter implements AutoCloseable {
+
+    /**
+     * Size of the buffer, in bytes, unless another is given.
+     */
+    private static final int DEFAULT_BUFFER_SIZE = 1 << 20;
+
+    /**
+     * Character that stands for a line separator.
+     */
+    private static final char SEPARATOR = '~';
+
+    /**
+     * The channel written to.
+     */
+    private final WritableByteChannel channel;
+
+    /**
+     * Bytes not yet written to the channel.
+     */
+    private final ByteBuffer buffer;
+
+    /**
+     * Encoder of text to UTF-8.
+     */
+    private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+
+    /**
+     * Bytes of the line separator.
+     */
+    private final byte[] lineSeparator = System.lineSeparator()
+            .getBytes(StandardCharsets.UTF_8);
+
+    /**
+     * Constructor with the default buffer size.
+     *
+     * @param channel
+     *            the channel to write to
+     */
+    SeparatorWriter(WritableByteChannel channel) {
+        this(channel, DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param channel
+     *            the channel to write to
+     * @param bufferSize
+     *            size of the buffer, in bytes
+     * @requires bufferSize >= 16
+     */
+    SeparatorWriter(WritableByteChannel channel, int bufferSize) {
+        assert channel != null : "Violation of: channel is not null";
+        final int minimum = 16;
+        assert bufferSize >= minimum : "Violation of: bufferSize >= 16";
+        this.channel = channel;
+        this.buffer = ByteBuffer.allocateDirect(bufferSize);
+    }
+
+    /**
+     * Writes {@code text} as it is.
+     *
+     * @param text
+     *            the text
+     * @throws IOException
+     *             if the channel cannot be written
+     */
+    void print(CharSequence text) throws IOException {
+        this.encode(text, 0, text.length());
+    }
+
+    /**
+     * Writes a line separator.
+     *
+     * @throws IOException
+     *             if the channel cannot be written
+     */
+    void println() throws IOException {
+        if (this.buffer.remaining() < this.lineSeparator.length) {
+            this.drain();
+        }
+        this.buffer.put(this.lineSeparator);
+    }
+
+    /**
+     * Writes {@code text}, with a line separator in place of each '~'.
+     *
+     * @param text
+     *            the text
+     * @throws IOException
+     *             if the channel cannot be written
+     */
+    void printWithLineSeparators(CharSequence text) throws IOException {
+        int start = 0;
+        int next = indexOfSeparator(text, 0, text.length());
+        while (next >= 0) {
+            this.encode(text, start, next);
+            this.println();
+            start = next + 1;
+            next = indexOfSeparator(text, start, text.length());
+        }
+        this.encode(text, start, text.length());
+    }
+
+    /**
+     * Writes the bytes held one per character in {@code bytes}, with a line
+     * separator in place of each '~'.
+     *
+     * @param bytes
+     *            UTF-8 bytes, one per character, as built from slices
+     * @throws IOException
+     *             if the channel cannot be written
+     * @requires [every character of bytes is at most 0xFF]
+     */
+    void printBytesWithLineSeparators(CharSequence bytes) throws IOException {
+        if (bytes instanceof Contig) {
+            Contig contig = (Contig) bytes;
+            for (int p = 0; p < contig.pieces(); p++) {
+                int from = contig.offset(p);
+                this.printBytes(contig.source(p), from, from + contig.pieceLength(p));
+            }
+        } else {
+            this.printBytes(bytes, 0, bytes.length());
+        }
+    }
+
+    /**
+     * Writes whatever is buffered to the channel.
+     *
+     * @throws IOException
+     *             if the channel cannot be written
+     */
+    void flush() throws IOException {
+        this.drain();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            this.drain();
+        } finally {
+            this.channel.close();
+        }
+    }
+
+    /**
+     * Writes the bytes {@code bytes[from, to)}, with a line separator in place
+     * of each '~'.
+     *
+     * @param bytes
+     *            UTF-8 bytes, one per character
+     * @param from
+     *            first byte written
+     * @param to
+     *            one past the last byte written
+     * @throws IOException
+     *             if the channel cannot be written
+     */
+    private void printBytes(CharSequence bytes, int from, int to) throws IOException {
+        int start = from;
+        int next = indexOfSeparator(bytes, from, to);
+        while (next >= 0) {
+            this.copy(bytes, start, next);
+            this.println();
+            start = next + 1;
+            next = indexOfSeparator(bytes, start, to);
+        }
+        this.copy(bytes, start, to);
+    }
+
+    /**
+     * Copies the bytes {@code bytes[from, to)} into the buffer, draining it as
+     * it fills; a slice is copied in bulk from its mapping.
+     *
+     * @param bytes
+     *            UTF-8 bytes, one per character
+     * @param from
+     *            first byte copied
+     * @param to
+     *            one past the last byte copied
+     * @throws IOException
+     *             if the channel cannot be written
+     */
+    private void copy(CharSequence bytes, int from, int to) throws IOException {
+        int k = from;
+        while (k < to) {
+            if (!this.buffer.hasRemaining()) {
+                this.drain();
+            }
+            int stop = Math.min(to, k + this.buffer.remaining());
+            if (bytes instanceof FragmentStore.Slice) {
+                ((FragmentStore.Slice) bytes).copyTo(k, stop, this.buffer);
+                k = stop;
+            } else {
+                while (k < stop) {
+                    this.buffer.put((byte) bytes.charAt(k));
+                    k++;
+                }
+            }
+        }
+    }
+
+    /**
+     * Encodes {@code text[from, to)} into the buffer, draining it as it
+     * fills.
+     *
+     * @param text
+     *            the text
+     * @param from
+     *            first character encoded
+     * @param to
+     *            one past the last character encoded
+     * @throws IOException
+     *             if the channel cannot be written
+     */
+    private void encode(CharSequence text, int from, int to) throws IOException {
+        if (from < to) {
+            CharBuffer chars = CharBuffer.wrap(text, from, to);
+            this.encoder.reset();
+            CoderResult result = this.encoder.encode(chars, this.buffer, true);
+            while (result.isOverflow()) {
+                this.drain();
+                result = this.encoder.encode(chars, this.buffer, true);
+            }
+            result = this.encoder.flush(this.buffer);
+            while (result.isOverflow()) {
+                this.drain();
+                result = this.encoder.flush(this.buffer);
+            }
+        }
+    }
+
+    /**
+     * Writes the buffered bytes to the channel and empties the buffer.
+     *
+     * @throws IOException
+     *             if the channel cannot be written
+     */
+    private void drain() throws IOException {
+        this.buffer.flip();
+        while (this.buffer.hasRemaining()) {
+            this.channel.write(this.buffer);
+        }
+        this.buffer.clear();
+    }
+
+    /**
+     * Returns the position of the first '~' in {@code text[from, to)}.
+     *
+     * @param text
+     *            the text
+     * @param from
+     *            start of the search
+     * @param to
+     *            end of the search
+     * @return position of the first '~', or -1 if there is none
+     */
+    private static int indexOfSeparator(CharSequence text, int from, int to) {
+        int k = from;
+        while (k < to && text.charAt(k) != SEPARATOR) {
+            k++;
+        }
+        int position = -1;
+        if (k < to) {
+            position = k;
+        }
+        return position;
+    }
+
+}
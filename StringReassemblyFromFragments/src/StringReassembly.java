@@ -1,4 +1,12 @@
 import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
 
 import components.set.Set;
 import components.set.Set1L;
@@ -71,6 +79,139 @@ public final class StringReassembly {
     private StringReassembly() {
     }
 
+    /**
+     * How {@code overlap(String, String)} is computed.
+     */
+    private static volatile OverlapStrategy overlapStrategy =
+            OverlapStrategy.PREFIX_FUNCTION;
+
+    /**
+     * Returns the strategy {@code overlap(String, String)} uses.
+     *
+     * @return the current overlap strategy
+     */
+    public static OverlapStrategy overlapStrategy() {
+        return overlapStrategy;
+    }
+
+    /**
+     * Replaces the strategy {@code overlap(String, String)} uses; the default
+     * is {@code OverlapStrategy.PREFIX_FUNCTION}.
+     *
+     * @param strategy
+     *            the new overlap strategy
+     */
+    public static void setOverlapStrategy(OverlapStrategy strategy) {
+        assert strategy != null : "Violation of: strategy is not null";
+        overlapStrategy = strategy;
+    }
+
+    /**
+     * Counters of candidate pairs pruned by minimizer filtering.
+     */
+    private static final CandidateMetrics CANDIDATE_METRICS = new CandidateMetrics();
+
+    /**
+     * Returns the counters of candidate pairs pruned by
+     * {@code assemble(Set, int, int)}, accumulated over all calls.
+     *
+     * @return the candidate metrics
+     */
+    public static CandidateMetrics candidateMetrics() {
+        return CANDIDATE_METRICS;
+    }
+
+    /**
+     * Most threads {@code assemble} and {@code assembleFile} use to find
+     * overlaps.
+     */
+    private static volatile int threads = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * Returns the most threads {@code assemble} and {@code assembleFile} use
+     * to find overlaps.
+     *
+     * @return the thread count
+     */
+    public static int threads() {
+        return threads;
+    }
+
+    /**
+     * Replaces the most threads {@code assemble} and {@code assembleFile} use
+     * to find overlaps; the default is the number of processors. The result
+     * does not depend on it.
+     *
+     * @param count
+     *            the new thread count
+     * @requires count >= 1
+     */
+    public static void setThreads(int count) {
+        assert count >= 1 : "Violation of: count >= 1";
+        threads = count;
+    }
+
+    /**
+     * Most errors {@code assemble(Set, int)} and {@code assembleFile} allow in
+     * an overlap.
+     */
+    private static volatile int maxErrors = 0;
+
+    /**
+     * Returns the most errors {@code assemble(Set, int)} and
+     * {@code assembleFile} allow in an overlap.
+     *
+     * @return the error limit
+     */
+    public static int maxErrors() {
+        return maxErrors;
+    }
+
+    /**
+     * Replaces the most errors {@code assemble(Set, int)} and
+     * {@code assembleFile} allow in an overlap, as in
+     * {@code approximateOverlap}; the default, 0, merges across exact
+     * overlaps only.
+     *
+     * @param errors
+     *            the new error limit
+     * @requires errors >= 0
+     */
+    public static void setMaxErrors(int errors) {
+        assert errors >= 0 : "Violation of: errors >= 0";
+        maxErrors = errors;
+    }
+
+    /**
+     * Whether {@code assemble} and {@code assembleFile} pack the fragments.
+     */
+    private static volatile boolean packFragments = false;
+
+    /**
+     * Reports whether {@code assemble} and {@code assembleFile} pack the
+     * fragments.
+     *
+     * @return whether fragments are packed
+     */
+    public static boolean packFragments() {
+        return packFragments;
+    }
+
+    /**
+     * Replaces whether {@code assemble} and {@code assembleFile} pack the
+     * fragments: if so, and the fragments use at most 256 distinct
+     * characters, each is stored in 2, 4 or 8 bits per character, as few as
+     * the alphabet allows, and fragments are compared a word of 64 bits at a
+     * time where they can be (see {@code PackedFragment}). The default is not
+     * to. The result does not depend on it.
+     *
+     * @param pack
+     *            whether to pack fragments
+     */
+    public static void setPackFragments(boolean pack) {
+        packFragments = pack;
+    }
+
     /**
      * Reports the maximum length of a common suffix of {@code str1} and prefix
      * of {@code str2}.
@@ -93,22 +234,87 @@ public final class StringReassembly {
      * </pre>
      */
     public static int overlap(String str1, String str2) {
+        return overlap(str1, str2, overlapStrategy);
+    }
+
+    /**
+     * Reports the maximum length of a common suffix of {@code str1} and prefix
+     * of {@code str2}, computed by {@code strategy}.
+     *
+     * @param str1
+     *            first string
+     * @param str2
+     *            second string
+     * @param strategy
+     *            how to compute the overlap
+     * @return maximum overlap between right end of {@code str1} and left end of
+     *         {@code str2}
+     * @requires <pre>
+     * str1 is not substring of str2  and
+     * str2 is not substring of str1
+     * </pre>
+     * @ensures <pre>
+     * OVERLAPS(str1, str2, overlap)  and
+     * for all k: integer
+     *     where (overlap < k  and  k <= |str1|  and  k <= |str2|)
+     *  (not OVERLAPS(str1, str2, k))
+     * </pre>
+     */
+    public static int overlap(String str1, String str2, OverlapStrategy strategy) {
         assert str1 != null : "Violation of: str1 is not null";
         assert str2 != null : "Violation of: str2 is not null";
+        assert strategy != null : "Violation of: strategy is not null";
         assert str2.indexOf(str1) < 0
                 : "Violation of: " + "str1 is not substring of str2";
         assert str1.indexOf(str2) < 0
                 : "Violation of: " + "str2 is not substring of str1";
         /*
-         * Start with maximum possible overlap and work down until a match is
-         * found; think about it and try it on some examples to see why
-         * iterating in the other direction doesn't work
+         * The empty string is a substring of every string, so both strings
+         * are non-empty here, as the strategies require
          */
-        int maxOverlap = str2.length() - 1;
-        while (!str1.regionMatches(str1.length() - maxOverlap, str2, 0, maxOverlap)) {
-            maxOverlap--;
-        }
-        return maxOverlap;
+        return strategy.overlap(str1, str2);
+    }
+
+    /**
+     * Reports the length of the prefix of {@code str2} that best matches a
+     * suffix of {@code str1} with at most {@code maxErrors} errors, an error
+     * being a substituted, inserted or deleted character: the one with the
+     * most matching characters less errors, the shorter on a tie, and with
+     * fewer errors than matches. The prefix and the suffix it matches may
+     * differ in length; merging across an approximate overlap {@code p}, as
+     * assembly with {@code maxErrors} does, keeps all of {@code str1}
+     * followed by {@code str2[p, |str2|)}.
+     *
+     * @param str1
+     *            first string
+     * @param str2
+     *            second string
+     * @param maxErrors
+     *            most errors in the overlap
+     * @return length of the prefix of {@code str2} best matching the right
+     *         end of {@code str1}, or 0 if there is none
+     * @requires <pre>
+     * str1 is not substring of str2  and
+     * str2 is not substring of str1  and
+     * maxErrors >= 0
+     * </pre>
+     * @ensures <pre>
+     * approximateOverlap < |str2|  and
+     * [approximateOverlap is the smallest p maximizing p - 2 * e over those
+     *  with 0 < p - 2 * e, where e <= maxErrors is the least number of edits
+     *  taking str2[0, p) to a suffix of str1]  and
+     * [if maxErrors = 0, approximateOverlap = overlap(str1, str2)]
+     * </pre>
+     */
+    public static int approximateOverlap(String str1, String str2, int maxErrors) {
+        assert str1 != null : "Violation of: str1 is not null";
+        assert str2 != null : "Violation of: str2 is not null";
+        assert maxErrors >= 0 : "Violation of: maxErrors >= 0";
+        assert str2.indexOf(str1) < 0
+                : "Violation of: " + "str1 is not substring of str2";
+        assert str1.indexOf(str2) < 0
+                : "Violation of: " + "str2 is not substring of str1";
+        return new ApproximateOverlap(str2, maxErrors).overlap(str1);
     }
 
     /**
@@ -204,6 +410,14 @@ public final class StringReassembly {
      * Returns the set of all individual lines read from {@code input}, except
      * that any line that is a substring of another is not in the returned set.
      *
+     * <p>
+     * The lines are read in full and filtered in bulk, longest first, against
+     * a suffix automaton of the lines kept so far (see
+     * {@code ContainmentFilter}), rather than added one at a time with
+     * {@code addToSetAvoidingSubstrings}; the result is the same, in time
+     * roughly linear in the total length of the lines.
+     * </p>
+     *
      * @param input
      *            source of strings, one per line
      * @return set of lines read from {@code input}
@@ -217,18 +431,189 @@ public final class StringReassembly {
     public static Set<String> linesFromInput(SimpleReader input) {
         assert input != null : "Violation of: input is not null";
         assert input.isOpen() : "Violation of: input.is_open";
-        Set<String> output = new Set1L<>();
+        List<String> lines = new ArrayList<>();
         //loops until at the end of the stream
         while (!input.atEOS()) {
-            //reads a line of text and then adds it our return set, avoiding
-            //substrings
-            String inputLine = input.nextLine();
-            addToSetAvoidingSubstrings(output, inputLine);
+            lines.add(input.nextLine());
+        }
+        //keeps only the lines that are not substrings of others
+        Set<String> output = new Set1L<>();
+        for (String line : ContainmentFilter.maximal(lines)) {
+            output.add(line);
         }
         //returns the output set
         return output;
     }
 
+    /**
+     * Returns the set of all individual lines of the UTF-8 file
+     * {@code fileName}, except that any line that is a substring of another is
+     * not in the returned set.
+     *
+     * <p>
+     * The file is memory-mapped and the lines are filtered as slices of the
+     * mapping (see {@code FragmentStore}); only the lines kept are turned into
+     * {@code String}s.
+     * </p>
+     *
+     * @param fileName
+     *            name of the file, one string per line
+     * @return set of lines read from the file
+     * @throws IOException
+     *             if the file cannot be read
+     * @ensures <pre>
+     * linesFromFile = [maximal set of lines of the file such that
+     *                  CONTAINS_NO_SUBSTRING_PAIRS(linesFromFile)]
+     * </pre>
+     */
+    public static Set<String> linesFromFile(String fileName) throws IOException {
+        assert fileName != null : "Violation of: fileName is not null";
+        List<FragmentStore.Slice> lines = ContainmentFilter
+                .maximal(FragmentStore.map(fileName).lines());
+        Set<String> output = new Set1L<>();
+        for (CharSequence line : lines) {
+            output.add(FragmentStore.decode(line));
+        }
+        return output;
+    }
+
+    /**
+     * Reads the fragments of the UTF-8 file {@code fileName}, one per line,
+     * and returns them combined as in {@code assemble(Set, int)}.
+     *
+     * <p>
+     * The file is memory-mapped, and containment and overlaps are worked out
+     * on slices of the mapping; no {@code String} is made for a fragment, only
+     * for each assembled result. Overlaps are still measured in characters,
+     * not bytes, both against {@code minOverlap} and in choosing the longest.
+     * </p>
+     *
+     * @param fileName
+     *            name of the file, one fragment per line
+     * @param minOverlap
+     *            shortest overlap merged across
+     * @return the assembled strings
+     * @throws IOException
+     *             if the file cannot be read
+     * @requires minOverlap >= 1
+     * @ensures <pre>
+     * [assembleFile is what assemble(linesFromFile(fileName), minOverlap)
+     *  leaves in its set]
+     * </pre>
+     */
+    public static Set<String> assembleFile(String fileName, int minOverlap)
+            throws IOException {
+        assert fileName != null : "Violation of: fileName is not null";
+        assert minOverlap >= 1 : "Violation of: minOverlap >= 1";
+        Set<String> output = new Set1L<>();
+        for (Contig contig : contigsFromFile(fileName, minOverlap)) {
+            output.add(FragmentStore.decode(contig));
+        }
+        return output;
+    }
+
+    /**
+     * Reads the fragments of the UTF-8 file {@code inputFileName}, one per
+     * line, combines them as in {@code assembleFile}, and writes the results
+     * to the file {@code outputFileName} laid out as {@code main} prints them,
+     * with a line separator in place of each '~'.
+     *
+     * <p>
+     * The results are streamed from the mapped input through one large
+     * buffer: the mapped bytes already are UTF-8, so they are neither decoded
+     * nor built into a {@code String}.
+     * </p>
+     *
+     * @param inputFileName
+     *            name of the file, one fragment per line
+     * @param outputFileName
+     *            name of the file to write, which is replaced if it exists
+     * @param minOverlap
+     *            shortest overlap merged across
+     * @throws IOException
+     *             if either file cannot be used
+     * @requires minOverlap >= 1
+     */
+    public static void assembleFileTo(String inputFileName, String outputFileName,
+            int minOverlap) throws IOException {
+        assert inputFileName != null : "Violation of: inputFileName is not null";
+        assert outputFileName != null : "Violation of: outputFileName is not null";
+        assert minOverlap >= 1 : "Violation of: minOverlap >= 1";
+        List<Contig> contigs = contigsFromFile(inputFileName, minOverlap);
+        try (SeparatorWriter writer = new SeparatorWriter(FileChannel.open(
+                Paths.get(outputFileName), StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE))) {
+            if (contigs.size() == 1) {
+                writer.println();
+                writer.printBytesWithLineSeparators(contigs.get(0));
+            } else {
+                int fragmentNumber = 0;
+                for (Contig contig : contigs) {
+                    fragmentNumber++;
+                    writer.println();
+                    writer.print("--------------------");
+                    writer.println();
+                    writer.print("  -- Fragment #" + fragmentNumber + ": --");
+                    writer.println();
+                    writer.print("--------------------");
+                    writer.println();
+                    writer.printBytesWithLineSeparators(contig);
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads the fragments of the UTF-8 file {@code fileName}, one per line,
+     * and returns them combined as in {@code assembleFile}, but as contigs of
+     * slices of the file, in the byte-per-character form of
+     * {@code FragmentStore}.
+     *
+     * <p>
+     * Overlaps are measured in the characters of the text, not in bytes, so
+     * that {@code minOverlap} and the longest-first order are those of
+     * {@code assemble}: unless the file is all ASCII, the finder is wrapped
+     * in a {@code Utf8OverlapFinder}. With {@code maxErrors() > 0}, errors
+     * would be counted in bytes too, so the lines of a file that is not all
+     * ASCII are decoded and assembled as text instead, and each result is
+     * encoded back.
+     * </p>
+     *
+     * @param fileName
+     *            name of the file, one fragment per line
+     * @param minOverlap
+     *            shortest overlap merged across
+     * @return the assembled contigs
+     * @throws IOException
+     *             if the file cannot be read
+     * @requires minOverlap >= 1
+     */
+    private static List<Contig> contigsFromFile(String fileName, int minOverlap)
+            throws IOException {
+        List<FragmentStore.Slice> lines = ContainmentFilter
+                .maximal(FragmentStore.map(fileName).lines());
+        CharSequence[] fragments = lines.toArray(new CharSequence[lines.size()]);
+        List<Contig> result;
+        if (Utf8OverlapFinder.ascii(fragments)) {
+            result = contigs(ingest(fragments), minOverlap);
+        } else if (maxErrors > 0) {
+            CharSequence[] text = new CharSequence[fragments.length];
+            for (int i = 0; i < fragments.length; i++) {
+                text[i] = FragmentStore.decode(fragments[i]);
+            }
+            result = new ArrayList<>();
+            for (Contig contig : contigs(ingest(text), minOverlap)) {
+                String bytes = FragmentStore.encode(contig.toString());
+                result.add(new Contig.Builder().add(bytes, 0, bytes.length()).build());
+            }
+        } else {
+            OverlapFinder finder = new Utf8OverlapFinder(
+                    finder(ingest(fragments), 0));
+            result = GreedyAssembler.assemble(finder, minOverlap, threads);
+        }
+        return result;
+    }
+
     /**
      * Returns the longest overlap between the suffix of one string and the
      * prefix of another string in {@code strSet}, and identifies the two
@@ -256,7 +641,7 @@ public final class StringReassembly {
      *   (overlap <= bestOverlap)
      * </pre>
      */
-    private static int bestOverlap(Set<String> strSet, String[] bestTwo) {
+    static int bestOverlap(Set<String> strSet, String[] bestTwo) {
         assert strSet != null : "Violation of: strSet is not null";
         assert bestTwo != null : "Violation of: bestTwo is not null";
         assert bestTwo.length >= 2 : "Violation of: bestTwo.length >= 2";
@@ -339,6 +724,276 @@ public final class StringReassembly {
      * </pre>
      */
     public static void assemble(Set<String> strSet) {
+        assemble(strSet, 1);
+    }
+
+    /**
+     * Combines strings in {@code strSet} as much as possible, merging only
+     * across overlaps of at least {@code minOverlap} characters. Note: uses a
+     * "greedy approach" to assembly, hence may not result in {@code strSet}
+     * being as small a set as possible at the end.
+     *
+     * <p>
+     * Every suffix-prefix overlap is found once, up front, with an
+     * Aho-Corasick automaton over the prefixes of the fragments (see
+     * {@code OverlapIndex}), and the greedy merges are then made along those
+     * overlaps, longest first (see {@code GreedyAssembler}); ties go to the
+     * lexicographically smaller fragments.
+     * </p>
+     *
+     * <p>
+     * If {@code maxErrors()} is above 0, overlaps with up to that many errors,
+     * as in {@code approximateOverlap}, are merged across as well; they are
+     * found by checking every pair of fragments (see
+     * {@code ApproximateOverlapFinder}).
+     * </p>
+     *
+     * @param strSet
+     *            set of strings
+     * @param minOverlap
+     *            shortest overlap merged across
+     * @updates strSet
+     * @requires CONTAINS_NO_SUBSTRING_PAIRS(strSet) and minOverlap >= 1
+     * @ensures <pre>
+     * ALL_SUPERSTRINGS(strSet) is subset of ALL_SUPERSTRINGS(#strSet)  and
+     * |strSet| <= |#strSet|  and
+     * CONTAINS_NO_SUBSTRING_PAIRS(strSet)  and
+     * [no string in strSet has a suffix of at least minOverlap characters
+     *  that is a prefix of another]
+     * </pre>
+     */
+    public static void assemble(Set<String> strSet, int minOverlap) {
+        assert strSet != null : "Violation of: strSet is not null";
+        assert minOverlap >= 1 : "Violation of: minOverlap >= 1";
+        /*
+         * Note: Precondition not checked!
+         */
+        List<Contig> assembled = contigs(toArray(strSet), minOverlap);
+        strSet.clear();
+        for (Contig contig : assembled) {
+            strSet.add(contig.toString());
+        }
+    }
+
+    /**
+     * Combines strings in {@code strSet} as in {@code assemble(Set, int)}, but
+     * finds the overlaps by checking exactly only the pairs of strings that
+     * share a minimizer of their k-mers (see {@code MinimizerIndex}), and
+     * records in {@code candidateMetrics()} how many pairs that pruned. The
+     * result is the same as {@code assemble(strSet, minOverlap)}.
+     *
+     * @param strSet
+     *            set of strings
+     * @param minOverlap
+     *            shortest overlap merged across
+     * @param k
+     *            length of the k-mers
+     * @updates strSet
+     * @requires CONTAINS_NO_SUBSTRING_PAIRS(strSet) and 1 <= k <= minOverlap
+     * @ensures <pre>
+     * ALL_SUPERSTRINGS(strSet) is subset of ALL_SUPERSTRINGS(#strSet)  and
+     * |strSet| <= |#strSet|  and
+     * CONTAINS_NO_SUBSTRING_PAIRS(strSet)  and
+     * [no string in strSet has a suffix of at least minOverlap characters
+     *  that is a prefix of another]
+     * </pre>
+     */
+    public static void assemble(Set<String> strSet, int minOverlap, int k) {
+        assert strSet != null : "Violation of: strSet is not null";
+        assert 1 <= k && k <= minOverlap : "Violation of: 1 <= k <= minOverlap";
+        /*
+         * Note: Precondition not checked!
+         */
+        MinimizerIndex index = new MinimizerIndex(toArray(strSet), k, minOverlap,
+                CANDIDATE_METRICS);
+        List<Contig> assembled = GreedyAssembler.assemble(index, minOverlap, threads);
+        strSet.clear();
+        for (Contig contig : assembled) {
+            strSet.add(contig.toString());
+        }
+    }
+
+    /**
+     * Combines strings in {@code strSet} as in {@code assemble(Set, int)}, but
+     * saves the state of the run to the file {@code checkpointFileName} at
+     * most every {@code intervalMillis} milliseconds, and reports its progress
+     * to {@code progress}. If the file exists, the run resumes from the state
+     * saved in it instead of starting over; once the run is done, the file is
+     * deleted. The result is the same as {@code assemble(strSet, minOverlap)}.
+     *
+     * @param strSet
+     *            set of strings
+     * @param minOverlap
+     *            shortest overlap merged across
+     * @param checkpointFileName
+     *            name of the checkpoint file
+     * @param intervalMillis
+     *            least time between saves
+     * @param progress
+     *            receiver of progress reports
+     * @throws IOException
+     *             if the checkpoint cannot be read or written, or is of an
+     *             assembly of other strings, minimum overlap or error limit
+     * @updates strSet
+     * @requires <pre>
+     * CONTAINS_NO_SUBSTRING_PAIRS(strSet)  and  minOverlap >= 1  and
+     * intervalMillis >= 0
+     * </pre>
+     * @ensures <pre>
+     * ALL_SUPERSTRINGS(strSet) is subset of ALL_SUPERSTRINGS(#strSet)  and
+     * |strSet| <= |#strSet|  and
+     * CONTAINS_NO_SUBSTRING_PAIRS(strSet)  and
+     * [no string in strSet has a suffix of at least minOverlap characters
+     *  that is a prefix of another]
+     * </pre>
+     */
+    public static void assemble(Set<String> strSet, int minOverlap,
+            String checkpointFileName, long intervalMillis, AssemblyProgress progress)
+            throws IOException {
+        assert strSet != null : "Violation of: strSet is not null";
+        assert minOverlap >= 1 : "Violation of: minOverlap >= 1";
+        assert checkpointFileName != null : "Violation of: checkpointFileName is not null";
+        assert intervalMillis >= 0 : "Violation of: intervalMillis >= 0";
+        assert progress != null : "Violation of: progress is not null";
+        /*
+         * Note: Precondition not checked!
+         */
+        int errors = maxErrors;
+        OverlapFinder finder = finder(toArray(strSet), errors);
+        List<Contig> assembled = CheckpointedAssembly.assemble(finder, minOverlap,
+                errors, threads, Paths.get(checkpointFileName), intervalMillis, progress);
+        strSet.clear();
+        for (Contig contig : assembled) {
+            strSet.add(contig.toString());
+        }
+    }
+
+    /**
+     * Finishes the assembly whose state was saved in the file
+     * {@code checkpointFileName} by
+     * {@code assemble(strSet, minOverlap, checkpointFileName, intervalMillis, progress)},
+     * with the same minimum overlap and error limit, saving to the file as
+     * often as that did; once it is done, the file is deleted.
+     *
+     * @param checkpointFileName
+     *            name of the checkpoint file
+     * @param intervalMillis
+     *            least time between saves
+     * @param progress
+     *            receiver of progress reports
+     * @return the assembled strings
+     * @throws IOException
+     *             if the checkpoint cannot be read or written
+     * @requires intervalMillis >= 0
+     * @ensures <pre>
+     * resume = [the strings that assembling the saved strings would give]
+     * </pre>
+     */
+    public static Set<String> resume(String checkpointFileName, long intervalMillis,
+            AssemblyProgress progress) throws IOException {
+        assert checkpointFileName != null : "Violation of: checkpointFileName is not null";
+        assert intervalMillis >= 0 : "Violation of: intervalMillis >= 0";
+        assert progress != null : "Violation of: progress is not null";
+        Path file = Paths.get(checkpointFileName);
+        CheckpointedAssembly.State state = CheckpointedAssembly.read(file);
+        OverlapFinder finder = finder(state.fragments(), state.maxErrors());
+        List<Contig> assembled = CheckpointedAssembly.run(state, finder, threads, file,
+                intervalMillis, progress);
+        Set<String> result = new Set1L<>();
+        for (Contig contig : assembled) {
+            result.add(contig.toString());
+        }
+        return result;
+    }
+
+    /**
+     * Combines {@code fragments} greedily, finding overlaps exactly, or with
+     * up to {@code maxErrors()} errors if that is above 0.
+     *
+     * @param fragments
+     *            the fragments, with no substring pairs
+     * @param minOverlap
+     *            shortest overlap merged across
+     * @return the contigs
+     */
+    private static List<Contig> contigs(CharSequence[] fragments, int minOverlap) {
+        return GreedyAssembler.assemble(finder(fragments, maxErrors), minOverlap, threads);
+    }
+
+    /**
+     * Returns the finder of the overlaps of {@code fragments} with up to
+     * {@code errors} errors: an {@code OverlapIndex} if that is 0, and an
+     * {@code ApproximateOverlapFinder} otherwise.
+     *
+     * @param fragments
+     *            the fragments, with no substring pairs
+     * @param errors
+     *            most errors in an overlap
+     * @return the finder
+     */
+    private static OverlapFinder finder(CharSequence[] fragments, int errors) {
+        OverlapFinder finder;
+        if (errors > 0) {
+            finder = new ApproximateOverlapFinder(fragments, errors);
+        } else {
+            finder = new OverlapIndex(fragments);
+        }
+        return finder;
+    }
+
+    /**
+     * Returns the strings of {@code strSet} in an array, packed if
+     * {@code packFragments()}.
+     *
+     * @param strSet
+     *            set of strings
+     * @return the strings, in no particular order
+     */
+    private static CharSequence[] toArray(Set<String> strSet) {
+        CharSequence[] fragments = new CharSequence[strSet.size()];
+        int i = 0;
+        for (String str : strSet) {
+            fragments[i] = str;
+            i++;
+        }
+        return ingest(fragments);
+    }
+
+    /**
+     * Returns {@code fragments} packed if {@code packFragments()}, and as
+     * they are otherwise.
+     *
+     * @param fragments
+     *            the fragments
+     * @return the fragments, in the same order
+     */
+    private static CharSequence[] ingest(CharSequence[] fragments) {
+        CharSequence[] result = fragments;
+        if (packFragments) {
+            result = PackedFragment.pack(fragments);
+        }
+        return result;
+    }
+
+    /**
+     * Combines strings in {@code strSet} as much as possible by repeatedly
+     * searching all pairs for the longest overlap and merging that pair. This
+     * is the original, exhaustive form of {@code assemble}, cubic in the
+     * number of strings; it is kept as the reference the indexed assembler is
+     * checked against.
+     *
+     * @param strSet
+     *            set of strings
+     * @updates strSet
+     * @requires CONTAINS_NO_SUBSTRING_PAIRS(strSet)
+     * @ensures <pre>
+     * ALL_SUPERSTRINGS(strSet) is subset of ALL_SUPERSTRINGS(#strSet)  and
+     * |strSet| <= |#strSet|  and
+     * CONTAINS_NO_SUBSTRING_PAIRS(strSet)  and
+     * CONTAINS_NO_OVERLAPPING_PAIRS(strSet)
+     * </pre>
+     */
+    static void assembleBySweep(Set<String> strSet) {
         assert strSet != null : "Violation of: strSet is not null";
         /*
          * Note: Precondition not checked!
@@ -372,7 +1027,8 @@ public final class StringReassembly {
 
     /**
      * Prints the string {@code text} to {@code out}, replacing each '~' with a
-     * line separator.
+     * line separator. Takes any {@code CharSequence}, so that an assembled
+     * {@code Contig} is read straight from its pieces.
      *
      * @param text
      *            string to be output
@@ -386,23 +1042,49 @@ public final class StringReassembly {
      *   [text with each '~' replaced by line separator]
      * </pre>
      */
-    public static void printWithLineSeparators(String text, SimpleWriter out) {
+    public static void printWithLineSeparators(CharSequence text, SimpleWriter out) {
         assert text != null : "Violation of: text is not null";
         assert out != null : "Violation of: out is not null";
         assert out.isOpen() : "Violation of: out.is_open";
 
-        //loops through the input text and for each character, prints a line separator
-        //if the char is '~', printing the character otherwise
+        //prints each run of text between two '~' whole, ending all but the
+        //last with a line separator
+        int start = 0;
         for (int i = 0; i < text.length(); i++) {
             if (text.charAt(i) == '~') {
-                out.println("");
-            } else {
-                out.print(text.charAt(i));
+                out.println(text.subSequence(start, i).toString());
+                start = i + 1;
             }
         }
+        out.print(text.subSequence(start, text.length()).toString());
 
     }
 
+    /**
+     * Writes the text {@code text} to {@code out} as UTF-8, with a line
+     * separator in place of each '~', through one large buffer rather than
+     * one character at a time. A contig is streamed from its pieces without
+     * being built into a {@code String}.
+     *
+     * @param text
+     *            the {@code CharSequence} to be output
+     * @param out
+     *            the output channel, which is left open
+     * @throws IOException
+     *             if the channel cannot be written
+     * @ensures out = #out * [text with each '~' replaced by line separator]
+     */
+    public static void printWithLineSeparators(CharSequence text, WritableByteChannel out)
+            throws IOException {
+        assert text != null : "Violation of: text is not null";
+        assert out != null : "Violation of: out is not null";
+        assert out.isOpen() : "Violation of: out.is_open";
+
+        SeparatorWriter writer = new SeparatorWriter(out);
+        writer.printWithLineSeparators(text);
+        writer.flush();
+    }
+
     /**
      * Given a file name (relative to the path where the application is running)
      * that contains fragments of a single original source text, one fragment
@@ -427,35 +1109,33 @@ public final class StringReassembly {
         System.out.println(new File(".").getAbsoluteFile());
         out.print("Input file (with fragments): ");
         String inputFileName = in.nextLine();
-        SimpleReader inFile = new SimpleReader1L(inputFileName);
-        /*
-         * Get initial fragments from input file
-         */
-        Set<String> fragments = linesFromInput(inFile);
-        /*
-         * Close inFile; we're done with it
-         */
-        inFile.close();
         /*
-         * Assemble fragments as far as possible
+         * Get initial fragments from input file, mapped rather than read line
+         * by line, and assemble them as far as possible
          */
-        assemble(fragments);
+        List<Contig> fragments;
+        try {
+            fragments = contigsFromFile(inputFileName, 1);
+        } catch (IOException e) {
+            out.println("Cannot read " + inputFileName + ": " + e.getMessage());
+            fragments = new ArrayList<>();
+        }
         /*
-         * Output fully assembled text or remaining fragments
+         * Output fully assembled text or remaining fragments; each is decoded,
+         * and so copied out of its pieces, only here
          */
         if (fragments.size() == 1) {
             out.println();
-            String text = fragments.removeAny();
-            printWithLineSeparators(text, out);
+            printWithLineSeparators(FragmentStore.decode(fragments.get(0)), out);
         } else {
             int fragmentNumber = 0;
-            for (String str : fragments) {
+            for (Contig contig : fragments) {
                 fragmentNumber++;
                 out.println();
                 out.println("--------------------");
                 out.println("  -- Fragment #" + fragmentNumber + ": --");
                 out.println("--------------------");
-                printWithLineSeparators(str, out);
+                printWithLineSeparators(FragmentStore.decode(contig), out);
             }
         }
         /*
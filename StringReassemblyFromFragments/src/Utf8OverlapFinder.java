@@ -0,0 +1,152 @@
+/**
+ * The overlaps of fragments held as UTF-8 bytes, one per character (see
+ * {@code FragmentStore}), measured in the characters of their text.
+ *
+ * <p>
+ * The wrapped finder measures an overlap in bytes, which both lets through
+ * overlaps shorter than {@code minOverlap} characters and ranks overlaps
+ * differently from the decoded text whenever a multi-byte character is in
+ * them. Each overlap it reports is turned into the length of its text, as
+ * {@code String.length} counts it: one for each byte that starts a
+ * character, and two for one that starts a 4-byte character, which is a
+ * surrogate pair in UTF-16. Continuation bytes count for nothing. As every
+ * overlap of at least {@code minOverlap} characters has at least that many
+ * bytes, the wrapped finder is asked with the same {@code minOverlap}, and
+ * what it reports is then checked again in characters. {@code overlapEnd}
+ * turns a length back into the byte at which the overlap ends.
+ * </p>
+ *
+ * @author Jesse Shields
+ *
+ */
+final class Utf8OverlapFinder implements OverlapFinder {
+
+    /**
+     * Largest byte that is a character by itself.
+     */
+    private static final int MAX_ASCII = 0x7F;
+
+    /**
+     * Mask of the top two bits of a byte.
+     */
+    private static final int TOP_TWO_BITS = 0xC0;
+
+    /**
+     * Top two bits of a continuation byte.
+     */
+    private static final int CONTINUATION = 0x80;
+
+    /**
+     * Least byte that starts a 4-byte character.
+     */
+    private static final int FOUR_BYTE_START = 0xF0;
+
+    /**
+     * The finder measuring in bytes.
+     */
+    private final OverlapFinder bytes;
+
+    /**
+     * Wraps {@code bytes}.
+     *
+     * @param bytes
+     *            finder of the overlaps of fragments of UTF-8 bytes
+     */
+    Utf8OverlapFinder(OverlapFinder bytes) {
+        assert bytes != null : "Violation of: bytes is not null";
+        this.bytes = bytes;
+    }
+
+    /**
+     * Reports whether every byte of {@code fragments} is ASCII, so that their
+     * bytes are their characters and no wrapping is needed.
+     *
+     * @param fragments
+     *            fragments of UTF-8 bytes
+     * @return whether all of them are ASCII
+     */
+    static boolean ascii(CharSequence[] fragments) {
+        boolean ascii = true;
+        for (int i = 0; i < fragments.length && ascii; i++) {
+            CharSequence fragment = fragments[i];
+            for (int k = 0; k < fragment.length() && ascii; k++) {
+                ascii = fragment.charAt(k) <= MAX_ASCII;
+            }
+        }
+        return ascii;
+    }
+
+    @Override
+    public int size() {
+        return this.bytes.size();
+    }
+
+    @Override
+    public CharSequence fragment(int i) {
+        return this.bytes.fragment(i);
+    }
+
+    @Override
+    public void overlapsFrom(int i, int minOverlap, int[] seen, OverlapSink sink) {
+        this.bytes.overlapsFrom(i, minOverlap, seen, (from, to, length) -> {
+            int characters = characters(this.bytes.fragment(to), length);
+            if (characters >= minOverlap) {
+                sink.overlap(from, to, characters);
+            }
+        });
+    }
+
+    @Override
+    public int overlapEnd(int j, int length) {
+        CharSequence fragment = this.bytes.fragment(j);
+        int end = 0;
+        int characters = 0;
+        while (characters < length) {
+            characters += weight(fragment.charAt(end));
+            end++;
+        }
+        while (end < fragment.length()
+                && (fragment.charAt(end) & TOP_TWO_BITS) == CONTINUATION) {
+            end++;
+        }
+        return end;
+    }
+
+    /**
+     * Returns the length, in UTF-16 characters, of the text of the first
+     * {@code length} bytes of {@code fragment}.
+     *
+     * @param fragment
+     *            fragment of UTF-8 bytes
+     * @param length
+     *            number of bytes, ending on a character boundary
+     * @return the length of their text
+     * @requires 0 <= length <= |fragment|
+     */
+    private static int characters(CharSequence fragment, int length) {
+        int characters = 0;
+        for (int k = 0; k < length; k++) {
+            characters += weight(fragment.charAt(k));
+        }
+        return characters;
+    }
+
+    /**
+     * Returns what byte {@code b} adds to the length of the text: 0 for a
+     * continuation byte, 2 if it starts a 4-byte character, and 1 otherwise.
+     *
+     * @param b
+     *            a byte of UTF-8
+     * @return its share of the length
+     */
+    private static int weight(char b) {
+        int weight = 1;
+        if ((b & TOP_TWO_BITS) == CONTINUATION) {
+            weight = 0;
+        } else if (b >= FOUR_BYTE_START) {
+            weight = 2;
+        }
+        return weight;
+    }
+
+}
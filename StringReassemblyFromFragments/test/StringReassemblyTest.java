@@ -1,4 +1,17 @@
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 import org.junit.Test;
 
@@ -35,6 +48,71 @@ public class StringReassemblyTest {
         assertEquals(output, expected);
     }
 
+    @Test
+    //Challenging test of a periodic overlap, where the prefix function must
+    //fall back more than once
+    public void testOverlapPeriodic() {
+        String str1 = "xaabaabaab";
+        String str2 = "aabaabaabz";
+        int expected = 9;
+        for (OverlapStrategy strategy : OverlapStrategy.values()) {
+            int output = StringReassembly.overlap(str1, str2, strategy);
+            assertEquals(strategy.toString(), expected, output);
+        }
+    }
+
+    @Test
+    //Boundary test where str1 is shorter than str2
+    public void testOverlapShortFirst() {
+        String str1 = "ab";
+        String str2 = "bcdef";
+        int expected = 1;
+        for (OverlapStrategy strategy : OverlapStrategy.values()) {
+            int output = StringReassembly.overlap(str1, str2, strategy);
+            assertEquals(strategy.toString(), expected, output);
+        }
+    }
+
+    /*
+     * Tests for approximateOverlap
+     */
+
+    @Test
+    //Routine test that no errors allowed is the exact overlap
+    public void testApproximateOverlapExact() {
+        String[][] pairs = { { "Go Bucks", "Bucks -- Beat" }, { "abcabcab", "abcabcd" },
+                { "ab", "bcdef" }, { "Beat", "Michigan" } };
+        for (String[] pair : pairs) {
+            assertEquals(StringReassembly.overlap(pair[0], pair[1]),
+                    StringReassembly.approximateOverlap(pair[0], pair[1], 0));
+        }
+    }
+
+    @Test
+    //Routine test of an overlap with one substitution
+    public void testApproximateOverlapSubstitution() {
+        String str1 = "Go Bucks -- Beat";
+        String str2 = "Bucks -- Bxat Michigan";
+        assertEquals(0, StringReassembly.approximateOverlap(str1, str2, 0));
+        assertEquals(13, StringReassembly.approximateOverlap(str1, str2, 1));
+    }
+
+    @Test
+    //Routine test of overlaps with an inserted and a deleted character
+    public void testApproximateOverlapIndel() {
+        String str1 = "Go Bucks -- Beat";
+        assertEquals(14,
+                StringReassembly.approximateOverlap(str1, "Bucks --- Beat Michigan", 1));
+        assertEquals(12,
+                StringReassembly.approximateOverlap(str1, "Bucks - Beat Michigan", 1));
+    }
+
+    @Test
+    //Boundary test that errors alone do not make an overlap
+    public void testApproximateOverlapMostlyErrors() {
+        assertEquals(0, StringReassembly.approximateOverlap("Go Bucks", "xyz", 2));
+    }
+
     /*
      * Tests for combination
      */
@@ -166,6 +244,507 @@ public class StringReassemblyTest {
         assertEquals(expected, strSet);
     }
 
+    @Test
+    //Challenging test checking the bulk filter against adding the lines one at
+    //a time
+    public void linesFromInputMatchesOneAtATime() {
+        SimpleReader in = new SimpleReader1L("data/test3.txt");
+        Set<String> expected = new Set1L<>();
+        while (!in.atEOS()) {
+            StringReassembly.addToSetAvoidingSubstrings(expected, in.nextLine());
+        }
+        in.close();
+        in = new SimpleReader1L("data/test3.txt");
+        Set<String> strSet = StringReassembly.linesFromInput(in);
+        in.close();
+        assertEquals(expected, strSet);
+    }
+
+    /*
+     * Tests for linesFromFile and assembleFile
+     */
+
+    @Test
+    //Routine test checking the mapped file against reading it line by line
+    public void linesFromFileMatchesLinesFromInput() throws IOException {
+        SimpleReader in = new SimpleReader1L("data/test3.txt");
+        Set<String> expected = StringReassembly.linesFromInput(in);
+        in.close();
+        Set<String> strSet = StringReassembly.linesFromFile("data/test3.txt");
+        assertEquals(expected, strSet);
+    }
+
+    @Test
+    //Routine test assembling test1.txt straight from the file
+    public void testAssembleFileRoutine() throws IOException {
+        Set<String> expected = new Set1L<>();
+        expected.add("Go Bucks -- Beat Michigan~");
+        Set<String> strSet = StringReassembly.assembleFile("data/test1.txt", 1);
+        assertEquals(expected, strSet);
+    }
+
+    @Test
+    //Challenging test of fragments with multi-byte UTF-8 characters, whose
+    //overlaps are found on the bytes
+    public void testAssembleFileUtf8() throws IOException {
+        Path file = Files.createTempFile("fragments", ".txt");
+        Files.write(file,
+                Arrays.asList("Gr\u00fc\u00dfe aus", "aus K\u00f6ln", "\u00f6ln"),
+                StandardCharsets.UTF_8);
+        Set<String> expected = new Set1L<>();
+        expected.add("Gr\u00fc\u00dfe aus K\u00f6ln");
+        Set<String> strSet = StringReassembly.assembleFile(file.toString(), 1);
+        Files.delete(file);
+        assertEquals(expected, strSet);
+    }
+
+    @Test
+    //Boundary test of minOverlap against an overlap of one 2-byte character
+    public void testAssembleFileUtf8MinOverlap() throws IOException {
+        Path file = Files.createTempFile("fragments", ".txt");
+        Files.write(file, Arrays.asList("x\u00e9", "\u00e9y"), StandardCharsets.UTF_8);
+        Set<String> expected = new Set1L<>();
+        expected.add("x\u00e9");
+        expected.add("\u00e9y");
+        Set<String> strSet = StringReassembly.assembleFile(file.toString(), 2);
+        Set<String> merged = StringReassembly.assembleFile(file.toString(), 1);
+        Files.delete(file);
+        assertEquals(expected, strSet);
+        assertEquals(1, merged.size());
+        assertEquals(true, merged.contains("x\u00e9y"));
+    }
+
+    @Test
+    //Challenging test where the longer overlap in characters is the shorter
+    //one in bytes, and must still be merged first
+    public void testAssembleFileUtf8Order() throws IOException {
+        Path file = Files.createTempFile("fragments", ".txt");
+        Files.write(file, Arrays.asList("\u20ac\u20acabc", "abc\u20ac\u20ac"),
+                StandardCharsets.UTF_8);
+        Set<String> expected = StringReassembly.linesFromFile(file.toString());
+        StringReassembly.assemble(expected, 1);
+        Set<String> strSet = StringReassembly.assembleFile(file.toString(), 1);
+        Files.delete(file);
+        assertEquals(expected, strSet);
+        assertEquals(true, strSet.contains("\u20ac\u20acabc\u20ac\u20ac"));
+    }
+
+    @Test
+    //Routine test of writing the assembly of a file to a file
+    public void testAssembleFileTo() throws IOException {
+        Path input = Files.createTempFile("fragments", ".txt");
+        Path output = Files.createTempFile("assembled", ".txt");
+        try {
+            Files.write(input, Arrays.asList("Go B\u00fccks~~Beat", "Beat Michigan"),
+                    StandardCharsets.UTF_8);
+            StringReassembly.assembleFileTo(input.toString(), output.toString(), 1);
+            String nl = System.lineSeparator();
+            assertEquals(nl + "Go B\u00fccks" + nl + nl + "Beat Michigan",
+                    new String(Files.readAllBytes(output), StandardCharsets.UTF_8));
+        } finally {
+            Files.delete(input);
+            Files.delete(output);
+        }
+    }
+
+    @Test
+    //Boundary test of minOverlap against a 2-byte character, when writing
+    //the assembly of a file to a file
+    public void testAssembleFileToUtf8MinOverlap() throws IOException {
+        Path input = Files.createTempFile("fragments", ".txt");
+        Path output = Files.createTempFile("assembled", ".txt");
+        try {
+            Files.write(input, Arrays.asList("x\u00e9", "\u00e9y"),
+                    StandardCharsets.UTF_8);
+            StringReassembly.assembleFileTo(input.toString(), output.toString(), 2);
+            String text = new String(Files.readAllBytes(output), StandardCharsets.UTF_8);
+            assertEquals(true, text.contains("Fragment #2"));
+            assertEquals(false, text.contains("x\u00e9y"));
+        } finally {
+            Files.delete(input);
+            Files.delete(output);
+        }
+    }
+
+    /*
+     * Tests for assemble
+     */
+
+    @Test
+    //Routine test assembling the fragments of test1.txt into one string
+    public void testAssembleRoutine() {
+        SimpleReader in = new SimpleReader1L("data/test1.txt");
+        Set<String> strSet = StringReassembly.linesFromInput(in);
+        in.close();
+        Set<String> expected = new Set1L<>();
+        expected.add("Go Bucks -- Beat Michigan~");
+        StringReassembly.assemble(strSet);
+        assertEquals(expected, strSet);
+    }
+
+    @Test
+    //Boundary test where the only overlap is shorter than minOverlap
+    public void testAssembleMinOverlap() {
+        Set<String> strSet = new Set1L<>();
+        strSet.add("abcde");
+        strSet.add("defgh");
+        Set<String> expected = new Set1L<>();
+        expected.add("abcde");
+        expected.add("defgh");
+        StringReassembly.assemble(strSet, 3);
+        assertEquals(expected, strSet);
+        expected.clear();
+        expected.add("abcdefgh");
+        StringReassembly.assemble(strSet, 2);
+        assertEquals(expected, strSet);
+    }
+
+    @Test
+    //Challenging test checking the indexed assembly against the pairwise sweep
+    public void testAssembleMatchesSweep() {
+        SimpleReader in = new SimpleReader1L("data/test5.txt");
+        Set<String> strSet = StringReassembly.linesFromInput(in);
+        in.close();
+        Set<String> expected = strSet.newInstance();
+        for (String str : strSet) {
+            expected.add(str);
+        }
+        StringReassembly.assembleBySweep(expected);
+        StringReassembly.assemble(strSet);
+        assertEquals(expected, strSet);
+    }
+
+    @Test
+    //Boundary test of a tie, which goes to the lexicographically smaller
+    //fragment
+    public void testAssembleTie() {
+        Set<String> strSet = new Set1L<>();
+        strSet.add("ab");
+        strSet.add("bd");
+        strSet.add("bc");
+        Set<String> expected = new Set1L<>();
+        expected.add("abc");
+        expected.add("bd");
+        StringReassembly.assemble(strSet);
+        assertEquals(expected, strSet);
+    }
+
+    @Test
+    //Challenging test checking merging one edge at a time against taking all
+    //edges in sorted order
+    public void testAssembleMergeMatchesLink() {
+        SimpleReader in = new SimpleReader1L("data/test3.txt");
+        Set<String> strSet = StringReassembly.linesFromInput(in);
+        in.close();
+        CharSequence[] fragments = new CharSequence[strSet.size()];
+        int i = 0;
+        for (String str : strSet) {
+            fragments[i] = str;
+            i++;
+        }
+        OverlapIndex index = new OverlapIndex(fragments);
+        OverlapGraph graph = OverlapGraph.build(index, 1);
+        assertEquals(GreedyAssembler.link(index, graph).toString(),
+                GreedyAssembler.merge(index, graph).toString());
+    }
+
+    @Test
+    //Challenging test checking that building the overlaps on several threads
+    //gives the same assembly as on one
+    public void testAssembleThreads() {
+        SimpleReader in = new SimpleReader1L("data/test2.txt");
+        Set<String> strSet = StringReassembly.linesFromInput(in);
+        in.close();
+        CharSequence[] fragments = new CharSequence[strSet.size()];
+        int i = 0;
+        for (String str : strSet) {
+            fragments[i] = str;
+            i++;
+        }
+        OverlapIndex index = new OverlapIndex(fragments);
+        OverlapGraph single = OverlapGraph.build(index, 1, 1);
+        final int threads = 4;
+        OverlapGraph parallel = OverlapGraph.build(index, 1, threads);
+        assertEquals(single.size(), parallel.size());
+        for (int e = 0; e < single.size(); e++) {
+            assertEquals(single.from(e), parallel.from(e));
+            assertEquals(single.to(e), parallel.to(e));
+            assertEquals(single.length(e), parallel.length(e));
+        }
+        assertEquals(GreedyAssembler.merge(index, single).toString(),
+                GreedyAssembler.merge(index, parallel).toString());
+    }
+
+    @Test
+    //Challenging test checking minimizer filtering against checking every
+    //overlap, and that it pruned most pairs
+    public void testAssembleMinimizers() {
+        SimpleReader in = new SimpleReader1L("data/test2.txt");
+        Set<String> expected = StringReassembly.linesFromInput(in);
+        in.close();
+        Set<String> strSet = expected.newInstance();
+        for (String str : expected) {
+            strSet.add(str);
+        }
+        final int minOverlap = 12;
+        final int k = 5;
+        final double minPruned = 0.9;
+        StringReassembly.assemble(expected, minOverlap);
+        CandidateMetrics metrics = StringReassembly.candidateMetrics();
+        metrics.reset();
+        StringReassembly.assemble(strSet, minOverlap, k);
+        assertEquals(expected, strSet);
+        assertTrue(metrics.pruningRatio() > minPruned);
+    }
+
+    @Test
+    //Routine test of assembling across an overlap with an error
+    public void testAssembleMaxErrors() {
+        Set<String> strSet = new Set1L<>();
+        strSet.add("Go Bucks -- Beat");
+        strSet.add("Bucks -- Bxat Michigan");
+        StringReassembly.setMaxErrors(1);
+        try {
+            StringReassembly.assemble(strSet, 5);
+        } finally {
+            StringReassembly.setMaxErrors(0);
+        }
+        Set<String> expected = new Set1L<>();
+        expected.add("Go Bucks -- Beat Michigan");
+        assertEquals(expected, strSet);
+    }
+
+    @Test
+    //Routine test resuming an assembly cut short while finding overlaps
+    public void testAssembleResumeDuringScan() throws IOException {
+        Set<String> strSet = StringReassembly.linesFromFile("data/test2.txt");
+        Set<String> expected = strSet.newInstance();
+        for (String str : strSet) {
+            expected.add(str);
+        }
+        StringReassembly.assemble(expected, 5);
+        Path checkpoint = Files.createTempFile("assembly", ".ckpt");
+        Files.delete(checkpoint);
+        try {
+            int n = strSet.size();
+            try {
+                StringReassembly.assemble(strSet, 5, checkpoint.toString(), 0,
+                        (scanned, fragments, merges, remaining, eta) -> {
+                            if (scanned >= n / 2) {
+                                throw new IllegalStateException("cut short");
+                            }
+                        });
+                fail("the assembly was not cut short while finding overlaps");
+            } catch (IllegalStateException e) {
+                assertTrue(Files.exists(checkpoint));
+            }
+            int[] last = new int[2];
+            Set<String> resumed = StringReassembly.resume(checkpoint.toString(), 0,
+                    (scanned, fragments, merges, remaining, eta) -> {
+                        last[0] = merges;
+                        last[1] = remaining;
+                    });
+            assertEquals(expected, resumed);
+            assertEquals(n - resumed.size(), last[0]);
+            assertEquals(resumed.size(), last[1]);
+            assertTrue(!Files.exists(checkpoint));
+        } finally {
+            Files.deleteIfExists(checkpoint);
+        }
+    }
+
+    @Test
+    //Routine test resuming an assembly cut short while merging, from its set
+    public void testAssembleResumeDuringMerge() throws IOException {
+        Set<String> strSet = StringReassembly.linesFromFile("data/test2.txt");
+        Set<String> expected = strSet.newInstance();
+        Set<String> again = strSet.newInstance();
+        for (String str : strSet) {
+            expected.add(str);
+            again.add(str);
+        }
+        StringReassembly.assemble(expected, 5);
+        Path checkpoint = Files.createTempFile("assembly", ".ckpt");
+        Files.delete(checkpoint);
+        try {
+            try {
+                StringReassembly.assemble(strSet, 5, checkpoint.toString(), 0,
+                        (scanned, fragments, merges, remaining, eta) -> {
+                            if (merges > 0) {
+                                throw new IllegalStateException("cut short");
+                            }
+                        });
+                fail("the assembly was not cut short while merging");
+            } catch (IllegalStateException e) {
+                assertTrue(Files.exists(checkpoint));
+            }
+            StringReassembly.assemble(again, 5, checkpoint.toString(), 0,
+                    (scanned, fragments, merges, remaining, eta) -> {
+                    });
+            assertEquals(expected, again);
+            assertTrue(!Files.exists(checkpoint));
+        } finally {
+            Files.deleteIfExists(checkpoint);
+        }
+    }
+
+    @Test
+    //Challenging test of a save that fails, which must not leave its
+    //temporary file behind
+    public void testCheckpointWriteFailure() throws IOException {
+        Path folder = Files.createTempDirectory("assembly");
+        Path checkpoint = folder.resolve("assembly.ckpt");
+        Path inside = checkpoint.resolve("file");
+        Files.createDirectory(checkpoint);
+        Files.createFile(inside);
+        try {
+            CheckpointedAssembly.State state = new CheckpointedAssembly.State(
+                    new String[] { "Go Bucks", "Beat Michigan" }, 1, 0);
+            try {
+                CheckpointedAssembly.write(state, checkpoint);
+                fail("a checkpoint replaced a folder that is not empty");
+            } catch (IOException e) {
+                assertTrue(!Files.exists(folder.resolve("assembly.ckpt.tmp")));
+            }
+        } finally {
+            Files.delete(inside);
+            Files.delete(checkpoint);
+            Files.delete(folder);
+        }
+    }
+
+    @Test
+    //Routine test assembling test2.txt with packed fragments, as without
+    public void testAssemblePacked() throws IOException {
+        Set<String> strSet = StringReassembly.linesFromFile("data/test2.txt");
+        Set<String> expected = strSet.newInstance();
+        for (String str : strSet) {
+            expected.add(str);
+        }
+        StringReassembly.assemble(expected, 5);
+        StringReassembly.setPackFragments(true);
+        try {
+            StringReassembly.assemble(strSet, 5);
+        } finally {
+            StringReassembly.setPackFragments(false);
+        }
+        assertEquals(expected, strSet);
+    }
+
+    @Test
+    //Routine test merging the components of test2.txt's overlaps on several
+    //threads, as on one
+    public void testAssembleComponentsInParallel() throws IOException {
+        Set<String> strSet = StringReassembly.linesFromFile("data/test2.txt");
+        Set<String> expected = strSet.newInstance();
+        for (String str : strSet) {
+            expected.add(str);
+        }
+        int threads = StringReassembly.threads();
+        try {
+            StringReassembly.setThreads(1);
+            StringReassembly.assemble(expected, 5);
+            StringReassembly.setThreads(4);
+            StringReassembly.assemble(strSet, 5);
+        } finally {
+            StringReassembly.setThreads(threads);
+        }
+        assertEquals(expected, strSet);
+    }
+
+    /*
+     * Tests for AssemblyPlanner
+     */
+
+    @Test
+    //Routine test splitting fragments into the components of their overlaps
+    public void testAssemblyPlannerComponents() {
+        OverlapIndex index = new OverlapIndex(new CharSequence[] { "Go Bucks", "Bucks go",
+            "Beat Michigan", "Michigan!", "O-H" });
+        AssemblyPlanner plan = AssemblyPlanner.plan(OverlapGraph.build(index, 3),
+                index.size());
+        assertEquals(3, plan.components());
+        List<String> components = new ArrayList<>();
+        for (int c = 0; c < plan.components(); c++) {
+            StringBuilder component = new StringBuilder();
+            for (int k = plan.start(c); k < plan.start(c + 1); k++) {
+                component.append(index.fragment(plan.fragments()[k])).append('|');
+            }
+            components.add(component.toString());
+        }
+        assertEquals(Arrays.asList("Beat Michigan|Michigan!|", "Bucks go|Go Bucks|",
+                "O-H|"), components);
+        assertEquals("[0, 2, 3]", Arrays.toString(plan.batches(2)));
+    }
+
+    /*
+     * Tests for PackedFragment
+     */
+
+    @Test
+    //Routine test packing DNA into 2 bits a character and reading it back
+    public void testPackedFragmentDna() {
+        CharSequence[] packed = PackedFragment.pack(new CharSequence[] {
+                "ACGTTGCAACGTTGCAACGTTGCAACGTTGCAAC", "", "GATTACA" });
+        assertEquals(2, ((PackedFragment) packed[0]).bitsPerCharacter());
+        assertEquals("ACGTTGCAACGTTGCAACGTTGCAACGTTGCAAC", packed[0].toString());
+        assertEquals("", packed[1].toString());
+        assertEquals("GATTACA", packed[2].toString());
+        assertEquals('G', packed[2].charAt(0));
+        assertEquals("TTGCAACGTTGCAACGTTGCAACGTTGCAAC",
+                packed[0].subSequence(3, 34).toString());
+    }
+
+    @Test
+    //Boundary test packing text of more than 256 distinct characters
+    public void testPackedFragmentLargeAlphabet() {
+        StringBuilder text = new StringBuilder();
+        for (char c = 0x100; c < 0x210; c++) {
+            text.append(c);
+        }
+        CharSequence[] fragments = { text.toString() };
+        assertTrue(PackedFragment.pack(fragments) == fragments);
+        CharSequence[] bytes = PackedFragment.pack(new CharSequence[] { "Go Bucks!" });
+        assertEquals(4, ((PackedFragment) bytes[0]).bitsPerCharacter());
+    }
+
+    @Test
+    //Routine test comparing packed fragments across words, as their text
+    public void testPackedFragmentCompare() {
+        String[] texts = { "ACGTACGTACGTACGTACGTACGTACGTACGTACGTA",
+            "ACGTACGTACGTACGTACGTACGTACGTACGTACGTC",
+            "ACGTACGTACGTACGTACGTACGTACGTACGTACGT", "C" };
+        CharSequence[] packed = PackedFragment.pack(texts);
+        for (int i = 0; i < texts.length; i++) {
+            for (int j = 0; j < texts.length; j++) {
+                assertEquals(Integer.signum(texts[i].compareTo(texts[j])),
+                        Integer.signum(CharSequences.compare(packed[i], packed[j])));
+            }
+        }
+        assertTrue(CharSequences.regionMatches(packed[0], 0, packed[1], 0, 36));
+        assertTrue(!CharSequences.regionMatches(packed[0], 0, packed[1], 0, 37));
+        assertEquals(33, OverlapStrategy.SCAN.overlap(packed[0], packed[1]));
+    }
+
+    /*
+     * Tests for Contig
+     */
+
+    @Test
+    //Routine test reading a contig across its pieces without flattening it
+    public void testContigPieces() {
+        Contig contig = new Contig.Builder().add("Go Bucks", 0, 8)
+                .add("Bucks -- Beat", 5, 13).add("Beat Mich", 4, 9).build();
+        String expected = "Go Bucks -- Beat Mich";
+        assertEquals(3, contig.pieces());
+        assertEquals(expected.length(), contig.length());
+        for (int i = 0; i < expected.length(); i++) {
+            assertEquals(expected.charAt(i), contig.charAt(i));
+        }
+        assertEquals("ks -- Beat M", contig.subSequence(6, 18).toString());
+        assertEquals(expected, contig.toString());
+    }
+
     /*
      * Tests for printWithLineSeparators
      */
@@ -210,4 +789,45 @@ public class StringReassemblyTest {
         StringReassembly.printWithLineSeparators(test, out);
         out.close();
     }
+
+    @Test
+
+    //Routine test of streaming to a channel, with non-ASCII text
+    public void testPrintWithLineSeparatorsChannel() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        WritableByteChannel out = Channels.newChannel(bytes);
+        StringReassembly.printWithLineSeparators("Go~B\u00fccks~~Beat Michigan", out);
+        out.close();
+        String nl = System.lineSeparator();
+        assertEquals("Go" + nl + "B\u00fccks" + nl + nl + "Beat Michigan",
+                new String(bytes.toByteArray(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+
+    //Routine test of streaming a contig of mapped lines through a small buffer
+    public void testPrintWithLineSeparatorsContigBytes() throws IOException {
+        Path file = Files.createTempFile("fragments", ".txt");
+        try {
+            Files.write(file,
+                    Arrays.asList("Go B\u00fccks~Beat", "Beat Michigan~~and win"),
+                    StandardCharsets.UTF_8);
+            List<FragmentStore.Slice> lines = FragmentStore.map(file.toString()).lines();
+            CharSequence first = lines.get(0);
+            CharSequence second = lines.get(1);
+            Contig contig = new Contig.Builder().add(first, 0, first.length())
+                    .add(second, 4, second.length()).build();
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            final int bufferSize = 16;
+            try (SeparatorWriter writer = new SeparatorWriter(Channels.newChannel(bytes),
+                    bufferSize)) {
+                writer.printBytesWithLineSeparators(contig);
+            }
+            String nl = System.lineSeparator();
+            assertEquals("Go B\u00fccks" + nl + "Beat Michigan" + nl + nl + "and win",
+                    new String(bytes.toByteArray(), StandardCharsets.UTF_8));
+        } finally {
+            Files.delete(file);
+        }
+    }
 }